@@ -40,6 +40,11 @@ public class Cache
      */
     private static final long USER_EXPIRATION_MINUTES = 5;
 
+    /**
+     * Maximum number of cached {@link SecurityToken}s.
+     */
+    private static final int MAX_SECURITY_TOKENS = 10000;
+
     @Resource
     private AuthorizationService authorizationService;
 
@@ -147,6 +152,14 @@ public class Cache
         executableById.setExpiration(Duration.standardSeconds(10));
         resourcesUtilizationByToken.setExpiration(Duration.standardMinutes(10));
         resourceIdsWithPublicCalendarByUriKey.setExpiration(Duration.standardMinutes(10));
+
+        // Bound caches by security tokens
+        userPermissionsByToken.setMaximumSize(MAX_SECURITY_TOKENS);
+        userStateByToken.setMaximumSize(MAX_SECURITY_TOKENS);
+        resourcesUtilizationByToken.setMaximumSize(MAX_SECURITY_TOKENS);
+        userPermissionsByToken.setSweep(true);
+        userStateByToken.setSweep(true);
+        resourcesUtilizationByToken.setSweep(true);
     }
 
     /**
@@ -169,6 +182,8 @@ public class Cache
         executableById.clearExpired(dateTimeNow);
         resourcesUtilizationByToken.clearExpired(dateTimeNow);
         resourceIdsWithPublicCalendarByUriKey.clearExpired(dateTimeNow);
+        logger.debug("User states {}, user information {}, executables {}.",
+                new Object[]{userStateByToken, userInformationByUserId, executableById});
     }
 
     /**
@@ -155,6 +155,8 @@ public class ClientWebUrl
             "/detail/{objectId:.+}/runtime-management/modify";
     public static final String DETAIL_RUNTIME_MANAGEMENT_PARTICIPANTS_DATA =
             "/detail/{objectId:.+}/runtime-management/participants/data";
+    public static final String DETAIL_RUNTIME_MANAGEMENT_PARTICIPANTS_WATCH =
+            "/detail/{objectId:.+}/runtime-management/participants/watch";
     public static final String DETAIL_RUNTIME_MANAGEMENT_PARTICIPANT_VIDEO_SNAPSHOT =
             "/detail/{objectId:.+}/runtime-management/participant/{participantId}/video-snapshot";
     public static final String DETAIL_RUNTIME_MANAGEMENT_PARTICIPANT_MODIFY =
@@ -8,15 +8,18 @@ import cz.cesnet.shongo.api.RoomParticipant;
 import cz.cesnet.shongo.client.web.models.UnsupportedApiException;
 import cz.cesnet.shongo.controller.api.Executable;
 import cz.cesnet.shongo.controller.api.RoomExecutable;
+import cz.cesnet.shongo.controller.api.RoomParticipantChanges;
 import cz.cesnet.shongo.controller.api.SecurityToken;
 import cz.cesnet.shongo.controller.api.rpc.ExecutableService;
 import cz.cesnet.shongo.controller.api.rpc.ResourceControlService;
+import org.joda.time.DateTime;
 import org.joda.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Resource;
 import java.util.*;
+import java.util.concurrent.Semaphore;
 
 /**
  * Cache of information for management of rooms.
@@ -27,6 +30,22 @@ public class RoomCache
 {
     private static Logger logger = LoggerFactory.getLogger(RoomCache.class);
 
+    /**
+     * Interval in which the {@link RoomParticipant}s are refreshed from the controller.
+     */
+    private static final Duration ROOM_PARTICIPANTS_REFRESH = Duration.standardSeconds(5);
+
+    /**
+     * Maximum number of clients which can wait in {@link #waitRoomParticipants} at once. Each waiting client holds
+     * a servlet thread and thus it must be well below the size of the servlet container thread pool.
+     */
+    private static final int MAX_ROOM_PARTICIPANTS_WATCHES = 50;
+
+    /**
+     * Maximum number of clients which can wait in {@link #waitRoomParticipants} at once for a single room.
+     */
+    private static final int MAX_ROOM_PARTICIPANTS_WATCHES_PER_ROOM = 10;
+
     @Resource
     private ResourceControlService resourceControlService;
 
@@ -49,10 +68,15 @@ public class RoomCache
             new ExpirationMap<String, Room>();
 
     /**
-     * Collection of {@link RoomParticipant}s by roomExecutableId.
+     * {@link RoomParticipants} by roomExecutableId.
      */
-    private final ExpirationMap<String, List<RoomParticipant>> roomParticipantsCache =
-            new ExpirationMap<String, List<RoomParticipant>>();
+    private final ExpirationMap<String, RoomParticipants> roomParticipantsCache =
+            new ExpirationMap<String, RoomParticipants>();
+
+    /**
+     * Permits for clients waiting in {@link #waitRoomParticipants}.
+     */
+    private final Semaphore roomParticipantsWatches = new Semaphore(MAX_ROOM_PARTICIPANTS_WATCHES);
 
     /**
      * {@link RoomParticipant} by "roomExecutableId:participantId".
@@ -73,7 +97,7 @@ public class RoomCache
     {
         // Set expiration durations
         roomCache.setExpiration(Duration.standardSeconds(30));
-        roomParticipantsCache.setExpiration(Duration.standardSeconds(15));
+        roomParticipantsCache.setExpiration(Duration.standardMinutes(1));
         roomExecutableCache.setExpiration(Duration.standardSeconds(15));
         roomParticipantSnapshotCache.setExpiration(Duration.standardSeconds(15));
     }
@@ -124,23 +148,63 @@ public class RoomCache
      */
     public List<RoomParticipant> getRoomParticipants(SecurityToken securityToken, String roomExecutableId)
     {
-        synchronized (roomParticipantsCache) {
-            List<RoomParticipant> roomParticipants = roomParticipantsCache.get(roomExecutableId);
-            if (roomParticipants == null) {
-                RoomExecutable roomExecutable = getRoomExecutable(securityToken, roomExecutableId);
-                String resourceId = roomExecutable.getResourceId();
-                String resourceRoomId = roomExecutable.getRoomId();
-                roomParticipants = new LinkedList<RoomParticipant>();
-                synchronized (roomParticipantCache) {
-                    for (RoomParticipant roomParticipant : resourceControlService.listRoomParticipants(
-                            securityToken, resourceId, resourceRoomId)) {
-                        roomParticipants.add(roomParticipant);
-                        roomParticipantCache.put(roomExecutableId + ":" + roomParticipant.getId(), roomParticipant);
+        RoomParticipants roomParticipants = getRoomParticipantsEntry(roomExecutableId);
+        synchronized (roomParticipants) {
+            refreshRoomParticipants(securityToken, roomExecutableId, roomParticipants);
+            return new LinkedList<RoomParticipant>(roomParticipants.participants.values());
+        }
+    }
+
+    /**
+     * Wait until {@link RoomParticipant}s in given {@code roomExecutableId} are changed since given {@code revision}.
+     * The {@link RoomParticipant}s are refreshed from the controller at most once per
+     * {@link #ROOM_PARTICIPANTS_REFRESH} for all waiting clients.
+     *
+     * @param securityToken
+     * @param roomExecutableId
+     * @param revision         which is known by the client or {@code null}
+     * @param timeout          maximum duration of waiting
+     * @return current revision of {@link RoomParticipant}s for given {@code roomExecutableId}
+     *         or {@code null} when too many clients are already waiting (see {@link #MAX_ROOM_PARTICIPANTS_WATCHES}
+     *         and {@link #MAX_ROOM_PARTICIPANTS_WATCHES_PER_ROOM}) and thus the client should try it later
+     * @throws InterruptedException
+     */
+    public Long waitRoomParticipants(SecurityToken securityToken, String roomExecutableId, Long revision,
+            Duration timeout) throws InterruptedException
+    {
+        if (!roomParticipantsWatches.tryAcquire()) {
+            return null;
+        }
+        try {
+            long deadline = System.currentTimeMillis() + timeout.getMillis();
+            RoomParticipants roomParticipants = getRoomParticipantsEntry(roomExecutableId);
+            synchronized (roomParticipants) {
+                if (roomParticipants.watchCount >= MAX_ROOM_PARTICIPANTS_WATCHES_PER_ROOM) {
+                    return null;
+                }
+                roomParticipants.watchCount++;
+                try {
+                    while (true) {
+                        refreshRoomParticipants(securityToken, roomExecutableId, roomParticipants);
+                        long currentTime = System.currentTimeMillis();
+                        if (roomParticipants.revision != null && !roomParticipants.revision.equals(revision)) {
+                            return roomParticipants.revision;
+                        }
+                        if (currentTime >= deadline) {
+                            return roomParticipants.revision;
+                        }
+                        long refreshTime =
+                                roomParticipants.refreshTime.getMillis() + ROOM_PARTICIPANTS_REFRESH.getMillis();
+                        roomParticipants.wait(Math.max(1, Math.min(deadline, refreshTime) - currentTime));
                     }
                 }
-                roomParticipantsCache.put(roomExecutableId, roomParticipants);
+                finally {
+                    roomParticipants.watchCount--;
+                }
             }
-            return roomParticipants;
+        }
+        finally {
+            roomParticipantsWatches.release();
         }
     }
 
@@ -185,9 +249,7 @@ public class RoomCache
         synchronized (roomParticipantCache) {
             roomParticipantCache.remove(roomParticipant.getId());
         }
-        synchronized (roomParticipantsCache) {
-            roomParticipantsCache.remove(roomExecutableId);
-        }
+        invalidateRoomParticipants(roomExecutableId);
     }
 
     /**
@@ -202,17 +264,15 @@ public class RoomCache
         String resourceRoomId = roomExecutable.getRoomId();
         roomParticipants.setRoomId(resourceRoomId);
         resourceControlService.modifyRoomParticipants(securityToken, resourceId, roomParticipants);
-        synchronized (roomParticipantCache) {
-            List<RoomParticipant> participants = roomParticipantsCache.get(roomExecutableId);
-            if (participants != null) {
-                for (RoomParticipant roomParticipant : participants) {
-                    roomParticipantCache.remove(roomExecutableId + ":" + roomParticipant.getId());
+        RoomParticipants participants = getRoomParticipantsEntry(roomExecutableId);
+        synchronized (participants) {
+            synchronized (roomParticipantCache) {
+                for (String roomParticipantId : participants.participants.keySet()) {
+                    roomParticipantCache.remove(roomExecutableId + ":" + roomParticipantId);
                 }
             }
         }
-        synchronized (roomParticipantsCache) {
-            roomParticipantsCache.remove(roomExecutableId);
-        }
+        invalidateRoomParticipants(roomExecutableId);
     }
 
     /**
@@ -254,9 +314,7 @@ public class RoomCache
         synchronized (roomParticipantCache) {
             roomParticipantCache.remove(roomParticipantId);
         }
-        synchronized (roomParticipantsCache) {
-            roomParticipantsCache.remove(roomExecutableId);
-        }
+        invalidateRoomParticipants(roomExecutableId);
     }
 
     /**
@@ -281,4 +339,105 @@ public class RoomCache
             return roomExecutable;
         }
     }
+
+    /**
+     * @param roomExecutableId
+     * @return {@link RoomParticipants} for given {@code roomExecutableId}
+     */
+    private RoomParticipants getRoomParticipantsEntry(String roomExecutableId)
+    {
+        synchronized (roomParticipantsCache) {
+            RoomParticipants roomParticipants = roomParticipantsCache.get(roomExecutableId);
+            if (roomParticipants == null) {
+                roomParticipants = new RoomParticipants();
+            }
+            // Prolong the expiration of watched room
+            roomParticipantsCache.put(roomExecutableId, roomParticipants);
+            return roomParticipants;
+        }
+    }
+
+    /**
+     * Force refresh of {@link RoomParticipants} for given {@code roomExecutableId}.
+     *
+     * @param roomExecutableId
+     */
+    private void invalidateRoomParticipants(String roomExecutableId)
+    {
+        RoomParticipants roomParticipants = getRoomParticipantsEntry(roomExecutableId);
+        synchronized (roomParticipants) {
+            roomParticipants.refreshTime = null;
+            roomParticipants.notifyAll();
+        }
+    }
+
+    /**
+     * Apply {@link RoomParticipantChanges} from the controller to given {@code roomParticipants} when they are older
+     * than {@link #ROOM_PARTICIPANTS_REFRESH}. Must be called while holding the lock on {@code roomParticipants}.
+     *
+     * @param securityToken
+     * @param roomExecutableId
+     * @param roomParticipants
+     */
+    private void refreshRoomParticipants(SecurityToken securityToken, String roomExecutableId,
+            RoomParticipants roomParticipants)
+    {
+        DateTime dateTimeNow = DateTime.now();
+        if (roomParticipants.refreshTime != null
+                && roomParticipants.refreshTime.plus(ROOM_PARTICIPANTS_REFRESH).isAfter(dateTimeNow)) {
+            return;
+        }
+        RoomExecutable roomExecutable = getRoomExecutable(securityToken, roomExecutableId);
+        String resourceId = roomExecutable.getResourceId();
+        String resourceRoomId = roomExecutable.getRoomId();
+        RoomParticipantChanges changes = resourceControlService.getRoomParticipantChanges(
+                securityToken, resourceId, resourceRoomId, roomParticipants.revision);
+        roomParticipants.refreshTime = dateTimeNow;
+        synchronized (roomParticipantCache) {
+            if (changes.isComplete()) {
+                for (String roomParticipantId : roomParticipants.participants.keySet()) {
+                    roomParticipantCache.remove(roomExecutableId + ":" + roomParticipantId);
+                }
+                roomParticipants.participants.clear();
+            }
+            for (String roomParticipantId : changes.getRemovedParticipantIds()) {
+                roomParticipants.participants.remove(roomParticipantId);
+                roomParticipantCache.remove(roomExecutableId + ":" + roomParticipantId);
+            }
+            for (RoomParticipant roomParticipant : changes.getParticipants()) {
+                roomParticipants.participants.put(roomParticipant.getId(), roomParticipant);
+                roomParticipantCache.put(roomExecutableId + ":" + roomParticipant.getId(), roomParticipant);
+            }
+        }
+        if (!changes.getRevision().equals(roomParticipants.revision)) {
+            roomParticipants.revision = changes.getRevision();
+            roomParticipants.notifyAll();
+        }
+    }
+
+    /**
+     * Current {@link RoomParticipant}s in a room which are kept up to date by {@link RoomParticipantChanges}.
+     */
+    private static class RoomParticipants
+    {
+        /**
+         * Revision of {@link #participants} or {@code null} when they haven't been loaded yet.
+         */
+        private Long revision;
+
+        /**
+         * Time when the {@link #participants} have been refreshed or {@code null} when they should be refreshed.
+         */
+        private DateTime refreshTime;
+
+        /**
+         * {@link RoomParticipant}s by identifiers.
+         */
+        private final Map<String, RoomParticipant> participants = new LinkedHashMap<String, RoomParticipant>();
+
+        /**
+         * Number of clients which are waiting in {@link #waitRoomParticipants} for changes.
+         */
+        private int watchCount;
+    }
 }
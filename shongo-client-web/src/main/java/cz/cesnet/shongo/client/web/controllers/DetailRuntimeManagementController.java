@@ -15,6 +15,7 @@ import cz.cesnet.shongo.controller.api.*;
 import cz.cesnet.shongo.controller.api.request.ListResponse;
 import cz.cesnet.shongo.controller.api.rpc.AuthorizationService;
 import org.joda.time.DateTimeZone;
+import org.joda.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpHeaders;
@@ -41,6 +42,11 @@ public class DetailRuntimeManagementController extends AbstractDetailController
 {
     private static Logger logger = LoggerFactory.getLogger(DetailRuntimeManagementController.class);
 
+    /**
+     * Maximum duration for which the {@link #handleRoomManagementParticipantsWatch} waits for a change.
+     */
+    private static final Duration PARTICIPANTS_WATCH_TIMEOUT = Duration.standardSeconds(25);
+
     @Resource
     private AuthorizationService authorizationService;
 
@@ -186,6 +192,37 @@ public class DetailRuntimeManagementController extends AbstractDetailController
         return data;
     }
 
+    /**
+     * Long-poll until the participants of the room are changed since given {@code revision} (or until
+     * the {@link #PARTICIPANTS_WATCH_TIMEOUT} elapses). When too many clients are already waiting,
+     * {@link HttpStatus#SERVICE_UNAVAILABLE} is returned and the client should try it later.
+     */
+    @RequestMapping(value = ClientWebUrl.DETAIL_RUNTIME_MANAGEMENT_PARTICIPANTS_WATCH, method = RequestMethod.GET)
+    @ResponseBody
+    public Map handleRoomManagementParticipantsWatch(
+            SecurityToken securityToken,
+            @PathVariable(value = "objectId") String objectId,
+            @RequestParam(value = "revision", required = false) Long revision,
+            HttpServletResponse response)
+    {
+        String executableId = getExecutableId(securityToken, objectId);
+        Map<String, Object> data = new HashMap<String, Object>();
+        try {
+            Long currentRevision = roomCache.waitRoomParticipants(
+                    securityToken, executableId, revision, PARTICIPANTS_WATCH_TIMEOUT);
+            if (currentRevision == null) {
+                response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+                return null;
+            }
+            data.put("revision", currentRevision);
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            data.put("revision", revision);
+        }
+        return data;
+    }
+
     @RequestMapping(value = ClientWebUrl.DETAIL_RUNTIME_MANAGEMENT_PARTICIPANT_VIDEO_SNAPSHOT)
     @IgnoreDateTimeZone
     public ResponseEntity<byte[]> handleRoomParticipantVideoSnapshot(
@@ -189,28 +189,9 @@ public abstract class ResourceCapacity
             if (utilization != null) {
                 switch (type) {
                     case MAXIMUM:
-                        ResourceCapacityBucket peakBucket = utilization.getPeakBucket();
-                        if (peakBucket != null) {
-                            return peakBucket.getLicenseCount();
-                        }
-                        else {
-                            return 0;
-                        }
+                        return utilization.getPeakLicenseCount();
                     case AVERAGE:
-                        List<ResourceCapacityBucket> buckets = utilization.getBuckets();
-                        double totalLicenseCount = 0;
-                        int bucketCount = 0;
-                        for (ResourceCapacityBucket bucket : buckets) {
-                            if (bucket.isEmpty()) {
-                                continue;
-                            }
-                            totalLicenseCount += bucket.getLicenseCount();
-                            bucketCount++;
-                        }
-                        if (bucketCount == 0) {
-                            return 0;
-                        }
-                        return totalLicenseCount / (double) bucketCount;
+                        return utilization.getAverageLicenseCount();
                     default:
                         throw new TodoImplementException(type);
                 }
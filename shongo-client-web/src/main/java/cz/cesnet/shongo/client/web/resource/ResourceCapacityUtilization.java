@@ -1,6 +1,9 @@
 package cz.cesnet.shongo.client.web.resource;
 
+import cz.cesnet.shongo.TodoImplementException;
 import cz.cesnet.shongo.controller.api.ReservationSummary;
+import cz.cesnet.shongo.util.CapacitySweep;
+import org.joda.time.DateTime;
 import org.joda.time.Interval;
 
 import java.util.*;
@@ -8,57 +11,81 @@ import java.util.*;
 /**
  * Represents a utilization of {@link ResourceCapacity} for a specific interval.
  * <p/>
- * It can be initialized from list of {@link ResourceCapacityBucket}s (which contain all reservations in interval).
- * From the buckets we can determine maximum utilization or compute average utilization.
+ * It is initialized from list of {@link ReservationSummary}s which overlap the interval. From the reservations
+ * is computed a {@link CapacitySweep.Profile} by which we can determine maximum utilization or average utilization.
  *
  * @author Martin Srom <martin.srom@cesnet.cz>
  */
 public class ResourceCapacityUtilization
 {
     /**
-     * List of {@link ResourceCapacityBucket}s. Each bucket represents an interval in which {@link ResourceCapacity} is
-     * utilized in some way. Different buckets means different utilization. Buckets shall be sorted to be able to
-     * determine maximum utilization.
+     * List of {@link ReservationSummary}s sorted by slot.
      */
-    private List<ResourceCapacityBucket> buckets = new LinkedList<ResourceCapacityBucket>();
+    private List<ReservationSummary> reservations = new ArrayList<ReservationSummary>();
 
     /**
-     * List of {@link ReservationSummary} in all {@link #buckets}.
+     * {@link CapacitySweep.Profile} of the {@link #reservations}. Each point represents a time from which the
+     * {@link ResourceCapacity} is utilized in some way. Different points means different utilization.
      */
-    private List<ReservationSummary> reservations;
+    private CapacitySweep.Profile profile;
 
     /**
      * Constructor.
      *
-     * @param buckets sets the {@link #buckets}
+     * @param reservations sets the {@link #reservations}
+     * @param interval     for which the utilization should be computed
      */
-    public ResourceCapacityUtilization(Collection<ResourceCapacityBucket> buckets)
+    public ResourceCapacityUtilization(Collection<ReservationSummary> reservations, Interval interval)
     {
-        this.buckets.addAll(buckets);
+        this.reservations.addAll(reservations);
+        Collections.sort(this.reservations, new Comparator<ReservationSummary>()
+        {
+            @Override
+            public int compare(ReservationSummary reservation1, ReservationSummary reservation2)
+            {
+                Interval reservationSlot1 = reservation1.getSlot();
+                Interval reservationSlot2 = reservation2.getSlot();
+
+                int result = reservationSlot1.getStart().compareTo(reservationSlot2.getStart());
+                if (result != 0) {
+                    return result;
+                }
 
-        // Sort buckets (to be able to determine maximum utilization)
-        Collections.sort(this.buckets);
+                return reservationSlot1.getEnd().compareTo(reservationSlot2.getEnd());
+            }
+        });
+
+        CapacitySweep capacitySweep = new CapacitySweep(this.reservations.size());
+        for (ReservationSummary reservation : this.reservations) {
+            Interval reservationSlot = reservation.getSlot();
+            capacitySweep.add(reservationSlot.getStartMillis(), reservationSlot.getEndMillis(),
+                    getLicenseCount(reservation));
+        }
+        this.profile = capacitySweep.getProfile(interval.getStartMillis(), interval.getEndMillis());
     }
 
     /**
-     * @return first {@link ResourceCapacityBucket} from {@link #buckets} with maximum utilization.
+     * @return maximum utilized license count
      */
-    public ResourceCapacityBucket getPeakBucket()
+    public int getPeakLicenseCount()
     {
-        if (buckets.size() > 0) {
-            return buckets.get(0);
-        }
-        else {
-            return null;
-        }
+        return profile.getPeak();
+    }
+
+    /**
+     * @return first {@link DateTime} with maximum utilization
+     */
+    public DateTime getPeakDateTime()
+    {
+        return new DateTime(profile.getPeakTime());
     }
 
     /**
-     * @return {@link #buckets}
+     * @return average utilized license count (from all utilized parts of the interval)
      */
-    public List<ResourceCapacityBucket> getBuckets()
+    public double getAverageLicenseCount()
     {
-        return Collections.unmodifiableList(buckets);
+        return profile.getAverage();
     }
 
     /**
@@ -66,31 +93,7 @@ public class ResourceCapacityUtilization
      */
     public Collection<ReservationSummary> getReservations()
     {
-        if (this.reservations == null) {
-            Set<ReservationSummary> reservations = new LinkedHashSet<ReservationSummary>();
-            for (ResourceCapacityBucket bucket : buckets) {
-                reservations.addAll(bucket);
-            }
-            this.reservations = new LinkedList<ReservationSummary>();
-            this.reservations.addAll(reservations);
-            Collections.sort(this.reservations, new Comparator<ReservationSummary>()
-            {
-                @Override
-                public int compare(ReservationSummary reservation1, ReservationSummary reservation2)
-                {
-                    Interval reservationSlot1 = reservation1.getSlot();
-                    Interval reservationSlot2 = reservation2.getSlot();
-
-                    int result = reservationSlot1.getStart().compareTo(reservationSlot2.getStart());
-                    if (result != 0) {
-                        return result;
-                    }
-
-                    return reservationSlot1.getEnd().compareTo(reservationSlot2.getEnd());
-                }
-            });
-        }
-        return Collections.unmodifiableList(this.reservations);
+        return Collections.unmodifiableList(reservations);
     }
 
     /**
@@ -99,9 +102,25 @@ public class ResourceCapacityUtilization
     public Collection<String> getReservationUserIds()
     {
         Set<String> userIds = new HashSet<String>();
-        for (ReservationSummary reservation : getReservations()) {
+        for (ReservationSummary reservation : reservations) {
             userIds.add(reservation.getUserId());
         }
         return userIds;
     }
+
+    /**
+     * @param reservation
+     * @return license count utilized by given {@code reservation}
+     */
+    private static int getLicenseCount(ReservationSummary reservation)
+    {
+        switch (reservation.getType()) {
+            case ROOM:
+                return reservation.getRoomLicenseCount();
+            case RECORDING_SERVICE:
+                return 1;
+            default:
+                throw new TodoImplementException(reservation.getType());
+        }
+    }
 }
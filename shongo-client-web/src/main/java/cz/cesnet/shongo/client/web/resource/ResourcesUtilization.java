@@ -52,7 +52,7 @@ public class ResourcesUtilization
             new HashMap<Interval, Map<ResourceCapacity, ResourceCapacityUtilization>>();
 
     /**
-     * Map of cached {@link ReservationSummary}s for {@link ResourceCapacity}.
+     * Map of cached {@link ReservationSummary}s (indexed by theirs slots) for {@link ResourceCapacity}.
      */
     private Map<ResourceCapacity, RangeSet<ReservationSummary, DateTime>> reservationSetMap =
             new HashMap<ResourceCapacity, RangeSet<ReservationSummary, DateTime>>();
@@ -216,10 +216,15 @@ public class ResourcesUtilization
         // Prepare new utilization
         ResourceCapacityUtilization utilization = null;
         if (reservations != null) {
-            Collection<ResourceCapacityBucket> buckets =
-                    reservations.getBuckets(interval.getStart(), interval.getEnd(), ResourceCapacityBucket.class);
-            if (buckets.size() > 0) {
-                utilization = new ResourceCapacityUtilization(buckets);
+            List<ReservationSummary> intervalReservations = new LinkedList<ReservationSummary>();
+            for (ReservationSummary reservation : reservations.getValues(interval.getStart(), interval.getEnd())) {
+                // Reservations from boundary ranges can only touch the interval
+                if (reservation.getSlot().overlaps(interval)) {
+                    intervalReservations.add(reservation);
+                }
+            }
+            if (intervalReservations.size() > 0) {
+                utilization = new ResourceCapacityUtilization(intervalReservations, interval);
             }
         }
 
@@ -229,7 +234,7 @@ public class ResourcesUtilization
     }
 
     /**
-     * Get {@link RangeSet} for given {@code resourceCapacity}
+     * Get {@link RangeSet} of {@link ReservationSummary}s for given {@code resourceCapacity}
      * by fetching {@link ReservationSummary}s for all {@link #resourceCapacities}.
      * <p/>
      * The newly fetched {@link ReservationSummary}s will stored in {@link #reservationSetMap}
@@ -237,7 +242,7 @@ public class ResourcesUtilization
      *
      * @param resourceCapacity
      * @param interval
-     * @return {@link RangeSet} of {@link ReservationSummary}
+     * @return {@link RangeSet} of {@link ReservationSummary}s
      */
     private synchronized RangeSet<ReservationSummary, DateTime> getReservationsWithFetchAll(
             ResourceCapacity resourceCapacity, Interval interval)
@@ -283,14 +288,7 @@ public class ResourcesUtilization
             ResourceCapacity reservationResourceCapacity = getResourceCapacity(reservationResourceId, reservation);
             RangeSet<ReservationSummary, DateTime> reservationSet = reservationSetMap.get(reservationResourceCapacity);
             if (reservationSet == null) {
-                reservationSet = new RangeSet<ReservationSummary, DateTime>()
-                {
-                    @Override
-                    protected Bucket<DateTime, ReservationSummary> createBucket(DateTime rangeValue)
-                    {
-                        return new ResourceCapacityBucket(rangeValue);
-                    }
-                };
+                reservationSet = new RangeSet<ReservationSummary, DateTime>();
                 reservationSetMap.put(reservationResourceCapacity, reservationSet);
             }
             reservationSet.add(reservation, reservationSlot.getStart(), reservationSlot.getEnd());
@@ -299,7 +297,7 @@ public class ResourcesUtilization
     }
 
     /**
-     * Get {@link RangeSet} for given {@code resourceCapacity}
+     * Get {@link RangeSet} of {@link ReservationSummary}s for given {@code resourceCapacity}
      * by fetching {@link ReservationSummary}s only for given {@code resourceCapacity}.
      * <p/>
      * The newly fetched {@link ReservationSummary}s won't be stored in {@link #reservationSetMap}
@@ -307,7 +305,7 @@ public class ResourcesUtilization
      *
      * @param resourceCapacity
      * @param interval
-     * @return {@link RangeSet} of {@link ReservationSummary}
+     * @return {@link RangeSet} of {@link ReservationSummary}s
      */
     private RangeSet<ReservationSummary, DateTime> getReservations(ResourceCapacity resourceCapacity,
             Interval interval)
@@ -320,14 +318,7 @@ public class ResourcesUtilization
         }
 
         // Fetch reservations for single resource capacity
-        RangeSet<ReservationSummary, DateTime> reservationSet = new RangeSet<ReservationSummary, DateTime>()
-        {
-            @Override
-            protected Bucket<DateTime, ReservationSummary> createBucket(DateTime rangeValue)
-            {
-                return new ResourceCapacityBucket(rangeValue);
-            }
-        };
+        RangeSet<ReservationSummary, DateTime> reservationSet = new RangeSet<ReservationSummary, DateTime>();
         ReservationListRequest reservationListRequest = new ReservationListRequest(securityToken);
         reservationListRequest.addResourceId(resourceCapacity.getResourceId());
         reservationListRequest.addReservationType(resourceCapacity.getReservationType());
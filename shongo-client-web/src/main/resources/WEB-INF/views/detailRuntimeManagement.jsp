@@ -268,6 +268,36 @@
                 }).fail($application.handleAjaxFailure);
             };
         }
+        function RoomParticipantsWatchController($scope, $http, $timeout) {
+            var revision = null;
+            var active = true;
+            $scope.$on('$destroy', function() {
+                active = false;
+            });
+
+            /**
+             * Long-poll given url and refresh participants when they are changed.
+             *
+             * @param url for watching participants
+             */
+            $scope.watch = function(url) {
+                $http.get(url, {params: {revision: revision}}).success(function(data) {
+                    if (revision != null && data.revision != revision) {
+                        $scope.refresh();
+                    }
+                    revision = data.revision;
+                    if (active) {
+                        $scope.watch(url);
+                    }
+                }).error(function() {
+                    if (active) {
+                        $timeout(function(){
+                            $scope.watch(url);
+                        }, 30000);
+                    }
+                });
+            };
+        }
         function RoomParticipantController($scope, $timeout, $application, $roomParticipantDialog) {
             var roomParticipantAttributes = ["name", "microphoneEnabled", "microphoneLevel", "videoEnabled"];
 
@@ -321,8 +351,12 @@
     <tag:url value="<%= ClientWebUrl.DETAIL_RUNTIME_MANAGEMENT_PARTICIPANTS_DATA%>" var="roomParticipantsUrl">
         <tag:param name="objectId" value=":id"/>
     </tag:url>
+    <tag:url value="<%= ClientWebUrl.DETAIL_RUNTIME_MANAGEMENT_PARTICIPANTS_WATCH%>" var="roomParticipantsWatchUrl">
+        <tag:param name="objectId" value="${room.id}"/>
+    </tag:url>
     <div id = "roomParticipants" ng-controller="PaginationController"
          ng-init="init('room.participants', '${roomParticipantsUrl}', {id: '${room.id}'})">
+        <span ng-controller="RoomParticipantsWatchController" ng-init="watch('${roomParticipantsWatchUrl}')"></span>
         <spring:message code="views.pagination.records.all" var="paginationRecordsAll"/>
         <spring:message code="views.button.refresh" var="paginationRefresh"/>
         <c:if test="${room.technology == 'H323_SIP'}">
@@ -20,14 +20,13 @@
             <tag:format value="${interval}" style="date"/>
         </dd>
 
-        <c:set var="peakBucket" value="${resourceCapacityUtilization.peakBucket}"/>
-        <c:if test="${peakBucket != null}">
+        <c:if test="${resourceCapacityUtilization != null}">
 
             <dt><spring:message code="views.resourceCapacityUtilizationDescription.maximumUtilization"/>:</dt>
             <dd class="${resourceCapacity.getCssClass(resourceCapacityUtilization)}">
                 ${resourceCapacity.formatUtilization(resourceCapacityUtilization, 'MAXIMUM', 'ABSOLUTE')}/${resourceCapacity.licenseCount}
                 (<span>${resourceCapacity.formatUtilization(resourceCapacityUtilization, 'MAXIMUM', 'RELATIVE')}</span>,
-                <spring:message code="views.resourceCapacityUtilizationDescription.maximumUtilization.dateTime"/>: <tag:format value="${peakBucket.dateTime}"/>)
+                <spring:message code="views.resourceCapacityUtilizationDescription.maximumUtilization.dateTime"/>: <tag:format value="${resourceCapacityUtilization.peakDateTime}"/>)
             </dd>
 
             <dt><spring:message code="views.resourceCapacityUtilizationDescription.averageUtilization"/>:</dt>
@@ -55,7 +54,7 @@
         <c:forEach items="${resourceCapacityUtilization.reservations}" var="reservation">
             <c:set var="user" value="${users.get(reservation.userId)}"/>
             <c:set var="cssClass" value=""/>
-            <c:if test="${reservation.slot.contains(peakBucket.dateTime.millis)}">
+            <c:if test="${reservation.slot.contains(resourceCapacityUtilization.peakDateTime.millis)}">
                 <c:set var="cssClass" value="${resourceCapacity.getCssClass(resourceCapacityUtilization)}"/>
             </c:if>
             <tr class="${cssClass}">
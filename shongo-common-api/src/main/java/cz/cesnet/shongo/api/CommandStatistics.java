@@ -0,0 +1,218 @@
+package cz.cesnet.shongo.api;
+
+import jade.content.Concept;
+
+/**
+ * Statistics of handling of a single type of {@link cz.cesnet.shongo.api.jade.Command}s by an agent.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class CommandStatistics extends AbstractComplexType implements Concept
+{
+    /**
+     * Name of the command type.
+     */
+    private String commandName;
+
+    /**
+     * Number of commands which are waiting in the queue.
+     */
+    private int queueSize;
+
+    /**
+     * Number of commands which are being handled.
+     */
+    private int activeCount;
+
+    /**
+     * Number of commands which have been handled.
+     */
+    private long handledCount;
+
+    /**
+     * Number of commands which have been refused because the queue was full.
+     */
+    private long refusedCount;
+
+    /**
+     * Average duration in milliseconds from receiving a command to its completion.
+     */
+    private long averageLatency;
+
+    /**
+     * Maximum duration in milliseconds from receiving a command to its completion.
+     */
+    private long maximumLatency;
+
+    /**
+     * Constructor.
+     */
+    public CommandStatistics()
+    {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param commandName sets the {@link #commandName}
+     */
+    public CommandStatistics(String commandName)
+    {
+        this.commandName = commandName;
+    }
+
+    /**
+     * @return {@link #commandName}
+     */
+    public String getCommandName()
+    {
+        return commandName;
+    }
+
+    /**
+     * @param commandName sets the {@link #commandName}
+     */
+    public void setCommandName(String commandName)
+    {
+        this.commandName = commandName;
+    }
+
+    /**
+     * @return {@link #queueSize}
+     */
+    public int getQueueSize()
+    {
+        return queueSize;
+    }
+
+    /**
+     * @param queueSize sets the {@link #queueSize}
+     */
+    public void setQueueSize(int queueSize)
+    {
+        this.queueSize = queueSize;
+    }
+
+    /**
+     * @return {@link #activeCount}
+     */
+    public int getActiveCount()
+    {
+        return activeCount;
+    }
+
+    /**
+     * @param activeCount sets the {@link #activeCount}
+     */
+    public void setActiveCount(int activeCount)
+    {
+        this.activeCount = activeCount;
+    }
+
+    /**
+     * @return {@link #handledCount}
+     */
+    public long getHandledCount()
+    {
+        return handledCount;
+    }
+
+    /**
+     * @param handledCount sets the {@link #handledCount}
+     */
+    public void setHandledCount(long handledCount)
+    {
+        this.handledCount = handledCount;
+    }
+
+    /**
+     * @return {@link #refusedCount}
+     */
+    public long getRefusedCount()
+    {
+        return refusedCount;
+    }
+
+    /**
+     * @param refusedCount sets the {@link #refusedCount}
+     */
+    public void setRefusedCount(long refusedCount)
+    {
+        this.refusedCount = refusedCount;
+    }
+
+    /**
+     * @return {@link #averageLatency}
+     */
+    public long getAverageLatency()
+    {
+        return averageLatency;
+    }
+
+    /**
+     * @param averageLatency sets the {@link #averageLatency}
+     */
+    public void setAverageLatency(long averageLatency)
+    {
+        this.averageLatency = averageLatency;
+    }
+
+    /**
+     * @return {@link #maximumLatency}
+     */
+    public long getMaximumLatency()
+    {
+        return maximumLatency;
+    }
+
+    /**
+     * @param maximumLatency sets the {@link #maximumLatency}
+     */
+    public void setMaximumLatency(long maximumLatency)
+    {
+        this.maximumLatency = maximumLatency;
+    }
+
+    private static final String COMMAND_NAME = "commandName";
+    private static final String QUEUE_SIZE = "queueSize";
+    private static final String ACTIVE_COUNT = "activeCount";
+    private static final String HANDLED_COUNT = "handledCount";
+    private static final String REFUSED_COUNT = "refusedCount";
+    private static final String AVERAGE_LATENCY = "averageLatency";
+    private static final String MAXIMUM_LATENCY = "maximumLatency";
+
+    @Override
+    public DataMap toData()
+    {
+        DataMap dataMap = super.toData();
+        dataMap.set(COMMAND_NAME, commandName);
+        dataMap.set(QUEUE_SIZE, queueSize);
+        dataMap.set(ACTIVE_COUNT, activeCount);
+        dataMap.set(HANDLED_COUNT, handledCount);
+        dataMap.set(REFUSED_COUNT, refusedCount);
+        dataMap.set(AVERAGE_LATENCY, averageLatency);
+        dataMap.set(MAXIMUM_LATENCY, maximumLatency);
+        return dataMap;
+    }
+
+    @Override
+    public void fromData(DataMap dataMap)
+    {
+        super.fromData(dataMap);
+        commandName = dataMap.getString(COMMAND_NAME);
+        queueSize = dataMap.getInt(QUEUE_SIZE);
+        activeCount = dataMap.getInt(ACTIVE_COUNT);
+        handledCount = dataMap.getLongPrimitive(HANDLED_COUNT);
+        refusedCount = dataMap.getLongPrimitive(REFUSED_COUNT);
+        averageLatency = dataMap.getLongPrimitive(AVERAGE_LATENCY);
+        maximumLatency = dataMap.getLongPrimitive(MAXIMUM_LATENCY);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("CommandStatistics (command: %s, queue: %d, active: %d, handled: %d, refused: %d, "
+                + "average latency: %d ms, maximum latency: %d ms)", commandName, queueSize, activeCount,
+                handledCount, refusedCount, averageLatency, maximumLatency);
+    }
+}
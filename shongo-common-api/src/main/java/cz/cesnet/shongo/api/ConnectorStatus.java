@@ -2,6 +2,9 @@ package cz.cesnet.shongo.api;
 
 import jade.content.Concept;
 
+import java.util.LinkedList;
+import java.util.List;
+
 /**
  * Status of connector.
  *
@@ -14,6 +17,11 @@ public class ConnectorStatus extends AbstractComplexType implements Concept
      */
     private State state;
 
+    /**
+     * {@link CommandStatistics} for each type of handled {@link cz.cesnet.shongo.api.jade.Command}s.
+     */
+    private List<CommandStatistics> commandStatistics = new LinkedList<CommandStatistics>();
+
     /**
      * Constructor.
      */
@@ -47,13 +55,31 @@ public class ConnectorStatus extends AbstractComplexType implements Concept
         this.state = state;
     }
 
+    /**
+     * @return {@link #commandStatistics}
+     */
+    public List<CommandStatistics> getCommandStatistics()
+    {
+        return commandStatistics;
+    }
+
+    /**
+     * @param commandStatistics sets the {@link #commandStatistics}
+     */
+    public void setCommandStatistics(List<CommandStatistics> commandStatistics)
+    {
+        this.commandStatistics = commandStatistics;
+    }
+
     private static final String STATE = "state";
+    private static final String COMMAND_STATISTICS = "commandStatistics";
 
     @Override
     public DataMap toData()
     {
         DataMap dataMap = super.toData();
         dataMap.set(STATE, state);
+        dataMap.set(COMMAND_STATISTICS, commandStatistics);
         return dataMap;
     }
 
@@ -62,6 +88,7 @@ public class ConnectorStatus extends AbstractComplexType implements Concept
     {
         super.fromData(dataMap);
         state = dataMap.getEnum(STATE, State.class);
+        commandStatistics = dataMap.getList(COMMAND_STATISTICS, CommandStatistics.class);
     }
 
     @Override
@@ -23,6 +23,7 @@ public class DeviceConnectorStatus extends ConnectorStatus
     public DeviceConnectorStatus(ConnectorStatus connectorStatus)
     {
         setState(connectorStatus.getState());
+        setCommandStatistics(connectorStatus.getCommandStatistics());
     }
 
     public DeviceAddress getDeviceAddress()
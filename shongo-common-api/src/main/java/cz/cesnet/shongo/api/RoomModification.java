@@ -0,0 +1,248 @@
+package cz.cesnet.shongo.api;
+
+import java.util.*;
+
+/**
+ * Represents a modification of a {@link Room} from the {@link #previousRoom} (which was applied to the device the last
+ * time) to the new {@link #room}. The {@link #modifiedAttributes} specify which attributes of the {@link Room}
+ * have been modified and thus the modification can be applied to the device only by the necessary requests.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class RoomModification extends AbstractComplexType
+{
+    /**
+     * New state of the room.
+     */
+    private Room room;
+
+    /**
+     * Previous state of the room (which was applied to the device).
+     */
+    private Room previousRoom;
+
+    /**
+     * Set of modified {@link Attribute}s.
+     */
+    private Set<Attribute> modifiedAttributes = new HashSet<Attribute>();
+
+    /**
+     * Constructor.
+     */
+    public RoomModification()
+    {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param room               sets the {@link #room}
+     * @param previousRoom       sets the {@link #previousRoom}
+     * @param modifiedAttributes sets the {@link #modifiedAttributes}
+     */
+    public RoomModification(Room room, Room previousRoom, Set<Attribute> modifiedAttributes)
+    {
+        this.room = room;
+        this.previousRoom = previousRoom;
+        this.modifiedAttributes.addAll(modifiedAttributes);
+    }
+
+    /**
+     * @param previousRoom
+     * @param room
+     * @return new {@link RoomModification} from given {@code previousRoom} to given {@code room}
+     */
+    public static RoomModification create(Room previousRoom, Room room)
+    {
+        Set<Attribute> modifiedAttributes = EnumSet.noneOf(Attribute.class);
+        if (!isEqual(previousRoom.getDescription(), room.getDescription())) {
+            modifiedAttributes.add(Attribute.DESCRIPTION);
+        }
+        if (!equalsIgnoreOrder(previousRoom.getTechnologies(), room.getTechnologies())) {
+            modifiedAttributes.add(Attribute.TECHNOLOGIES);
+        }
+        if (previousRoom.getLicenseCount() != room.getLicenseCount()) {
+            modifiedAttributes.add(Attribute.LICENSE_COUNT);
+        }
+        if (!equalsIgnoreOrder(previousRoom.getAliases(), room.getAliases())) {
+            modifiedAttributes.add(Attribute.ALIASES);
+        }
+        if (!isEqual(previousRoom.getLayout(), room.getLayout())) {
+            modifiedAttributes.add(Attribute.LAYOUT);
+        }
+        if (!equalsIgnoreOrder(previousRoom.getRoomSettings(), room.getRoomSettings())) {
+            modifiedAttributes.add(Attribute.ROOM_SETTINGS);
+        }
+        if (!equalsIgnoreOrder(previousRoom.getParticipantRoles(), room.getParticipantRoles())) {
+            modifiedAttributes.add(Attribute.PARTICIPANT_ROLES);
+        }
+        return new RoomModification(room, previousRoom, modifiedAttributes);
+    }
+
+    /**
+     * @return {@link #room}
+     */
+    public Room getRoom()
+    {
+        return room;
+    }
+
+    /**
+     * @param room sets the {@link #room}
+     */
+    public void setRoom(Room room)
+    {
+        this.room = room;
+    }
+
+    /**
+     * @return {@link #previousRoom}
+     */
+    public Room getPreviousRoom()
+    {
+        return previousRoom;
+    }
+
+    /**
+     * @param previousRoom sets the {@link #previousRoom}
+     */
+    public void setPreviousRoom(Room previousRoom)
+    {
+        this.previousRoom = previousRoom;
+    }
+
+    /**
+     * @return {@link #modifiedAttributes}
+     */
+    public Set<Attribute> getModifiedAttributes()
+    {
+        return modifiedAttributes;
+    }
+
+    /**
+     * @param modifiedAttributes sets the {@link #modifiedAttributes}
+     */
+    public void setModifiedAttributes(Set<Attribute> modifiedAttributes)
+    {
+        this.modifiedAttributes = modifiedAttributes;
+    }
+
+    /**
+     * @return true whether any attribute is modified, false otherwise
+     */
+    public boolean isModified()
+    {
+        return !modifiedAttributes.isEmpty();
+    }
+
+    /**
+     * @param attributes
+     * @return true whether at least one of given {@code attributes} is modified, false otherwise
+     */
+    public boolean isModified(Attribute... attributes)
+    {
+        for (Attribute attribute : attributes) {
+            if (modifiedAttributes.contains(attribute)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param roomSettingType
+     * @return true whether {@link RoomSetting} of given {@code roomSettingType} is modified, false otherwise
+     */
+    public boolean isRoomSettingModified(Class<? extends RoomSetting> roomSettingType)
+    {
+        if (!modifiedAttributes.contains(Attribute.ROOM_SETTINGS)) {
+            return false;
+        }
+        return !isEqual(previousRoom.getRoomSetting(roomSettingType), room.getRoomSetting(roomSettingType));
+    }
+
+    private static boolean isEqual(Object object1, Object object2)
+    {
+        return object1 == null ? object2 == null : object1.equals(object2);
+    }
+
+    private static boolean equalsIgnoreOrder(Collection<?> collection1, Collection<?> collection2)
+    {
+        if (collection1 == null || collection2 == null) {
+            return collection1 == collection2;
+        }
+        return collection1.size() == collection2.size()
+                && new HashSet<Object>(collection1).equals(new HashSet<Object>(collection2));
+    }
+
+    private static final String ROOM = "room";
+    private static final String PREVIOUS_ROOM = "previousRoom";
+    private static final String MODIFIED_ATTRIBUTES = "modifiedAttributes";
+
+    @Override
+    public DataMap toData()
+    {
+        DataMap dataMap = super.toData();
+        dataMap.set(ROOM, room);
+        dataMap.set(PREVIOUS_ROOM, previousRoom);
+        dataMap.set(MODIFIED_ATTRIBUTES, modifiedAttributes);
+        return dataMap;
+    }
+
+    @Override
+    public void fromData(DataMap dataMap)
+    {
+        super.fromData(dataMap);
+        room = dataMap.getComplexType(ROOM, Room.class);
+        previousRoom = dataMap.getComplexType(PREVIOUS_ROOM, Room.class);
+        modifiedAttributes = dataMap.getSet(MODIFIED_ATTRIBUTES, Attribute.class);
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format(RoomModification.class.getSimpleName() + " (room: %s, modifiedAttributes: %s)",
+                room, modifiedAttributes);
+    }
+
+    /**
+     * Attributes of the {@link Room} which can be modified.
+     */
+    public static enum Attribute
+    {
+        /**
+         * @see Room#getDescription()
+         */
+        DESCRIPTION,
+
+        /**
+         * @see Room#getTechnologies()
+         */
+        TECHNOLOGIES,
+
+        /**
+         * @see Room#getLicenseCount()
+         */
+        LICENSE_COUNT,
+
+        /**
+         * @see Room#getAliases()
+         */
+        ALIASES,
+
+        /**
+         * @see Room#getLayout()
+         */
+        LAYOUT,
+
+        /**
+         * @see Room#getRoomSettings()
+         */
+        ROOM_SETTINGS,
+
+        /**
+         * @see Room#getParticipantRoles()
+         */
+        PARTICIPANT_ROLES
+    }
+}
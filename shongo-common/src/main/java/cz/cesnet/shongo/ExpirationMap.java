@@ -4,11 +4,17 @@ import org.apache.commons.lang.NotImplementedException;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
 
-import javax.persistence.Entity;
 import java.util.*;
 
 /**
  * Represents a map of {@link V} by {@link K} with {@link #expiration}.
+ * <p/>
+ * The map is split into {@link #SHARD_COUNT} independently locked {@link Shard}s so that concurrent threads
+ * don't contend on a single monitor. Expired entries are removed when they are accessed or by {@link #clearExpired}
+ * which returns them. Caches whose expired entries needn't be processed can also bound the memory by
+ * the {@link #maximumSize} (each {@link Shard} evicts its least recently used entries) and by the {@link #sweep}
+ * (each {@link Shard} is periodically swept when new entries are put into it). Both are disabled by default because
+ * they remove entries without returning them by {@link #clearExpired}.
  *
  * @param <K>
  * @param <V>
@@ -17,20 +23,45 @@ import java.util.*;
 public class ExpirationMap<K, V> implements Iterable<V>
 {
     /**
-     * Cache of {@link V} by {@link K}.
+     * Number of {@link #shards} (must be power of two).
      */
-    private Map<K, Entry<V>> entries = new HashMap<K, Entry<V>>();
+    private static final int SHARD_COUNT = 16;
 
     /**
-     * Specifies expiration for the {@link #entries}.
+     * Maximum interval in milliseconds in which each {@link Shard} is swept for expired entries.
      */
-    private Duration expiration = null;
+    private static final long MAX_SWEEP_INTERVAL = 60 * 1000;
+
+    /**
+     * Entries of {@link V} by {@link K} split by hash of {@link K}.
+     */
+    private final Shard<K, V>[] shards;
+
+    /**
+     * Specifies expiration for the entries.
+     */
+    private volatile Duration expiration = null;
+
+    /**
+     * Maximum number of entries or {@code null} when the number of entries isn't bounded.
+     */
+    private volatile Integer maximumSize = null;
+
+    /**
+     * Specifies whether expired entries should be removed when new entries are put.
+     */
+    private volatile boolean sweep = false;
 
     /**
      * Constructor.
      */
+    @SuppressWarnings("unchecked")
     public ExpirationMap()
     {
+        shards = new Shard[SHARD_COUNT];
+        for (int index = 0; index < SHARD_COUNT; index++) {
+            shards[index] = new Shard<K, V>(this);
+        }
     }
 
     /**
@@ -40,6 +71,7 @@ public class ExpirationMap<K, V> implements Iterable<V>
      */
     public ExpirationMap(Duration expiration)
     {
+        this();
         setExpiration(expiration);
     }
 
@@ -51,40 +83,52 @@ public class ExpirationMap<K, V> implements Iterable<V>
         this.expiration = expiration;
     }
 
+    /**
+     * @param maximumSize sets the {@link #maximumSize}
+     */
+    public void setMaximumSize(Integer maximumSize)
+    {
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @param sweep sets the {@link #sweep}
+     */
+    public void setSweep(boolean sweep)
+    {
+        this.sweep = sweep;
+    }
+
     /**
      * @param key
      * @return true if given {@code key} exists, false otherwise
      */
-    public synchronized boolean contains(K key)
+    public boolean contains(K key)
     {
-        Entry<V> entry = entries.get(key);
-        if (entry != null) {
-            if (entry.expirationDateTime == null || entry.expirationDateTime.isAfter(DateTime.now())) {
-                return true;
-            }
-            else {
-                entries.remove(key);
-            }
+        Shard<K, V> shard = getShard(key);
+        synchronized (shard) {
+            return shard.getEntry(key, System.currentTimeMillis()) != null;
         }
-        return false;
     }
 
     /**
      * @param key
      * @return {@link V} by given {@code key}
      */
-    public synchronized V get(K key)
+    public V get(K key)
     {
-        Entry<V> entry = entries.get(key);
-        if (entry != null) {
-            if (entry.expirationDateTime == null || entry.expirationDateTime.isAfter(DateTime.now())) {
+        Shard<K, V> shard = getShard(key);
+        synchronized (shard) {
+            Entry<V> entry = shard.getEntry(key, System.currentTimeMillis());
+            if (entry != null) {
+                shard.hitCount++;
                 return entry.value;
             }
             else {
-                entries.remove(key);
+                shard.missCount++;
+                return null;
             }
         }
-        return null;
     }
 
     /**
@@ -93,20 +137,21 @@ public class ExpirationMap<K, V> implements Iterable<V>
      * @param key
      * @param value
      */
-    public synchronized void put(K key, V value)
+    public void put(K key, V value)
     {
-        Entry<V> entry = entries.get(key);
-        if (entry == null) {
-            entry = new Entry<V>();
-            entries.put(key, entry);
-        }
-        if (expiration != null) {
-            entry.expirationDateTime = DateTime.now().plus(expiration);
-        }
-        else {
-            entry.expirationDateTime = null;
-        }
+        long currentTime = System.currentTimeMillis();
+        Duration expiration = this.expiration;
+        Entry<V> entry = new Entry<V>();
+        entry.expirationTime = (expiration != null ? currentTime + expiration.getMillis() : Long.MAX_VALUE);
         entry.value = value;
+        Shard<K, V> shard = getShard(key);
+        synchronized (shard) {
+            shard.put(key, entry);
+            if (sweep && expiration != null && currentTime >= shard.sweepTime) {
+                shard.clearExpired(currentTime, null);
+                shard.sweepTime = currentTime + Math.min(expiration.getMillis(), MAX_SWEEP_INTERVAL);
+            }
+        }
     }
 
     /**
@@ -115,14 +160,17 @@ public class ExpirationMap<K, V> implements Iterable<V>
      * @param key
      * @return removed value for the {@code key} or null
      */
-    public synchronized V remove(K key)
+    public V remove(K key)
     {
-        Entry<V> entry = entries.remove(key);
-        if (entry != null) {
-            return entry.value;
-        }
-        else {
-            return null;
+        Shard<K, V> shard = getShard(key);
+        synchronized (shard) {
+            Entry<V> entry = shard.remove(key);
+            if (entry != null) {
+                return entry.value;
+            }
+            else {
+                return null;
+            }
         }
     }
 
@@ -133,12 +181,15 @@ public class ExpirationMap<K, V> implements Iterable<V>
      */
     public void removeByValue(V value)
     {
-        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<K, Entry<V>> itemEntry = iterator.next();
-            Entry<V> entry = itemEntry.getValue();
-            if (entry.value.equals(value)) {
-                iterator.remove();
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                Iterator<Entry<V>> iterator = shard.values().iterator();
+                while (iterator.hasNext()) {
+                    Entry<V> entry = iterator.next();
+                    if (entry.value.equals(value)) {
+                        iterator.remove();
+                    }
+                }
             }
         }
     }
@@ -146,43 +197,70 @@ public class ExpirationMap<K, V> implements Iterable<V>
     /**
      * @return number of added keys
      */
-    public synchronized int size()
+    public int size()
     {
-        return entries.size();
+        int size = 0;
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                size += shard.size();
+            }
+        }
+        return size;
     }
 
     /**
-     * @return true whether {@link #entries} are empty, false otherwise
+     * @return true whether there are no entries, false otherwise
      */
-    public synchronized boolean isEmpty()
+    public boolean isEmpty()
     {
-        return entries.isEmpty();
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                if (!shard.isEmpty()) {
+                    return false;
+                }
+            }
+        }
+        return true;
     }
 
     /**
-     * Clear all {@link #entries}.
+     * Clear all entries.
      */
-    public synchronized void clear()
+    public void clear()
     {
-        entries.clear();
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                shard.clear();
+            }
+        }
     }
 
     /**
-     * {@link #entries}.
+     * @return snapshot of all added keys
      */
-    public synchronized Set<K> keySet()
+    public Set<K> keySet()
     {
-        return entries.keySet();
+        Set<K> keySet = new LinkedHashSet<K>();
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                keySet.addAll(shard.keySet());
+            }
+        }
+        return keySet;
     }
 
     /**
-     * {@link #entries}.
+     * @return snapshot of all added values
      */
-    public synchronized Collection<V> values()
+    public Collection<V> values()
     {
         List<V> values = new LinkedList<V>();
-        for (Entry<V> entry : entries.values()) {
-            values.add(entry.value);
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                for (Entry<V> entry : shard.values()) {
+                    values.add(entry.value);
+                }
+            }
         }
         return values;
     }
@@ -190,42 +268,79 @@ public class ExpirationMap<K, V> implements Iterable<V>
     /**
      * Remove all expired values.
      *
-     * @param dateTime which represents "now"
+     * @param dateTime which represents "now" or {@code null} for removing all values
+     * @return removed entries
      */
-    public synchronized List<Map.Entry<K, V>> clearExpired(DateTime dateTime)
+    public List<Map.Entry<K, V>> clearExpired(DateTime dateTime)
     {
+        long currentTime = (dateTime != null ? dateTime.getMillis() : Long.MAX_VALUE);
         List<Map.Entry<K, V>> cleared = new LinkedList<Map.Entry<K, V>>();
-        Iterator<Map.Entry<K, Entry<V>>> iterator = entries.entrySet().iterator();
-        while (iterator.hasNext()) {
-            Map.Entry<K, Entry<V>> itemEntry = iterator.next();
-            Entry<V> entry = itemEntry.getValue();
-            final K key = itemEntry.getKey();
-            final V value = entry.value;
-            if (dateTime == null || (entry.expirationDateTime != null && !entry.expirationDateTime.isAfter(dateTime))) {
-                cleared.add(new Map.Entry<K, V>()
-                {
-                    @Override
-                    public K getKey()
-                    {
-                        return key;
-                    }
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                shard.clearExpired(currentTime, cleared);
+            }
+        }
+        return cleared;
+    }
 
-                    @Override
-                    public V getValue()
-                    {
-                        return value;
-                    }
+    /**
+     * @return number of {@link #get} calls which have found a value
+     */
+    public long getHitCount()
+    {
+        long hitCount = 0;
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                hitCount += shard.hitCount;
+            }
+        }
+        return hitCount;
+    }
 
-                    @Override
-                    public V setValue(V value)
-                    {
-                        throw new NotImplementedException();
-                    }
-                });
-                iterator.remove();
+    /**
+     * @return number of {@link #get} calls which haven't found a value
+     */
+    public long getMissCount()
+    {
+        long missCount = 0;
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                missCount += shard.missCount;
             }
         }
-        return cleared;
+        return missCount;
+    }
+
+    /**
+     * @return number of entries which have been evicted because of the {@link #maximumSize}
+     */
+    public long getEvictionCount()
+    {
+        long evictionCount = 0;
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                evictionCount += shard.evictionCount;
+            }
+        }
+        return evictionCount;
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("ExpirationMap(size: %d, hits: %d, misses: %d, evictions: %d)",
+                size(), getHitCount(), getMissCount(), getEvictionCount());
+    }
+
+    /**
+     * @param key
+     * @return {@link Shard} for given {@code key}
+     */
+    private Shard<K, V> getShard(K key)
+    {
+        int hash = (key != null ? key.hashCode() : 0);
+        hash ^= (hash >>> 16);
+        return shards[hash & (SHARD_COUNT - 1)];
     }
 
     /**
@@ -234,9 +349,9 @@ public class ExpirationMap<K, V> implements Iterable<V>
     private static class Entry<V>
     {
         /**
-         * Expiration {@link org.joda.time.DateTime}.
+         * Expiration time in milliseconds.
          */
-        private DateTime expirationDateTime;
+        private long expirationTime;
 
         /**
          * Value.
@@ -244,13 +359,129 @@ public class ExpirationMap<K, V> implements Iterable<V>
         private V value;
     }
 
+    /**
+     * Part of the {@link ExpirationMap} with {@link Entry}s in least recently used order.
+     */
+    private static class Shard<K, V> extends LinkedHashMap<K, Entry<V>>
+    {
+        /**
+         * {@link ExpirationMap} to which the {@link Shard} belongs.
+         */
+        private final ExpirationMap<K, V> expirationMap;
+
+        /**
+         * Time in milliseconds when the {@link Shard} should be swept for expired entries.
+         */
+        private long sweepTime = 0;
+
+        /**
+         * Statistics.
+         */
+        private long hitCount = 0;
+        private long missCount = 0;
+        private long evictionCount = 0;
+
+        /**
+         * Constructor.
+         *
+         * @param expirationMap sets the {@link #expirationMap}
+         */
+        public Shard(ExpirationMap<K, V> expirationMap)
+        {
+            super(16, 0.75f, true);
+            this.expirationMap = expirationMap;
+        }
+
+        /**
+         * @param key
+         * @param currentTime
+         * @return not expired {@link Entry} for given {@code key} or {@code null}
+         */
+        private Entry<V> getEntry(K key, long currentTime)
+        {
+            Entry<V> entry = get(key);
+            if (entry != null) {
+                if (entry.expirationTime > currentTime) {
+                    return entry;
+                }
+                else {
+                    remove(key);
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Remove all expired entries.
+         *
+         * @param currentTime which represents "now"
+         * @param cleared     to which the removed entries should be added (can be {@code null})
+         */
+        private void clearExpired(long currentTime, List<Map.Entry<K, V>> cleared)
+        {
+            Iterator<Map.Entry<K, Entry<V>>> iterator = entrySet().iterator();
+            while (iterator.hasNext()) {
+                Map.Entry<K, Entry<V>> itemEntry = iterator.next();
+                Entry<V> entry = itemEntry.getValue();
+                if (entry.expirationTime <= currentTime) {
+                    if (cleared != null) {
+                        final K key = itemEntry.getKey();
+                        final V value = entry.value;
+                        cleared.add(new Map.Entry<K, V>()
+                        {
+                            @Override
+                            public K getKey()
+                            {
+                                return key;
+                            }
+
+                            @Override
+                            public V getValue()
+                            {
+                                return value;
+                            }
+
+                            @Override
+                            public V setValue(V value)
+                            {
+                                throw new NotImplementedException();
+                            }
+                        });
+                    }
+                    iterator.remove();
+                }
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest)
+        {
+            Integer maximumSize = expirationMap.maximumSize;
+            if (maximumSize != null && size() > (maximumSize + SHARD_COUNT - 1) / SHARD_COUNT) {
+                evictionCount++;
+                return true;
+            }
+            return false;
+        }
+    }
+
     @Override
     public Iterator<V> iterator()
     {
         clearExpired(DateTime.now());
-        final Iterator<Entry<V>> iterator = entries.values().iterator();
+        final List<Map.Entry<K, V>> entries = new LinkedList<Map.Entry<K, V>>();
+        for (Shard<K, V> shard : shards) {
+            synchronized (shard) {
+                for (Map.Entry<K, Entry<V>> entry : shard.entrySet()) {
+                    entries.add(new AbstractMap.SimpleImmutableEntry<K, V>(entry.getKey(), entry.getValue().value));
+                }
+            }
+        }
+        final Iterator<Map.Entry<K, V>> iterator = entries.iterator();
         return new Iterator<V>()
         {
+            private K key;
+
             @Override
             public boolean hasNext()
             {
@@ -260,13 +491,16 @@ public class ExpirationMap<K, V> implements Iterable<V>
             @Override
             public V next()
             {
-                return iterator.next().value;
+                Map.Entry<K, V> entry = iterator.next();
+                key = entry.getKey();
+                return entry.getValue();
             }
 
             @Override
             public void remove()
             {
                 iterator.remove();
+                ExpirationMap.this.remove(key);
             }
         };
     }
@@ -1,21 +1,26 @@
 package cz.cesnet.shongo.jade;
 
 import cz.cesnet.shongo.JadeReportSet;
+import cz.cesnet.shongo.api.CommandStatistics;
 import cz.cesnet.shongo.api.jade.CommandException;
 import cz.cesnet.shongo.api.jade.CommandUnsupportedException;
 import cz.cesnet.shongo.api.jade.Command;
 import cz.cesnet.shongo.api.jade.CommonOntology;
 import cz.cesnet.shongo.api.jade.PingCommand;
+import jade.content.lang.leap.LEAPCodec;
 import jade.content.lang.sl.SLCodec;
 import jade.content.onto.Ontology;
 import jade.core.AID;
 import jade.domain.DFService;
+import jade.domain.FIPANames;
 import jade.domain.FIPAAgentManagement.DFAgentDescription;
 import jade.domain.FIPAAgentManagement.ServiceDescription;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.*;
+
 /**
  * Represents an agent in JADE middle-ware.
  *
@@ -40,6 +45,33 @@ public class Agent extends jade.core.Agent
      */
     private Integer commandTimeout;
 
+    /**
+     * Preferred content language for sending {@link Command}s ({@link LEAPCodec#NAME} is compact binary language
+     * and {@link FIPANames.ContentLanguage#FIPA_SL} is text language which is understood by all agents).
+     */
+    private volatile String contentLanguage = LEAPCodec.NAME;
+
+    /**
+     * Receiver agents which don't understand the {@link #contentLanguage} and thus
+     * {@link FIPANames.ContentLanguage#FIPA_SL} is used for them (accessed only from the agent thread).
+     */
+    private final Set<AID> fallbackReceiverAgentIds = new HashSet<AID>();
+
+    /**
+     * Maximum number of threads which handle received {@link Command}s of each type.
+     */
+    private int commandWorkerCount = CommandWorkerPool.DEFAULT_WORKER_COUNT;
+
+    /**
+     * Maximum number of received {@link Command}s of each type which are waiting to be handled.
+     */
+    private int commandQueueCapacity = CommandWorkerPool.DEFAULT_QUEUE_CAPACITY;
+
+    /**
+     * {@link CommandResponderBehaviour} which handles received {@link Command}s.
+     */
+    private volatile CommandResponderBehaviour commandResponderBehaviour;
+
     /**
      * Constructor.
      */
@@ -80,6 +112,70 @@ public class Agent extends jade.core.Agent
         this.commandTimeout = commandTimeout;
     }
 
+    /**
+     * @param commandWorkerCount sets the {@link #commandWorkerCount}
+     */
+    public void setCommandWorkerCount(int commandWorkerCount)
+    {
+        this.commandWorkerCount = commandWorkerCount;
+    }
+
+    /**
+     * @param commandQueueCapacity sets the {@link #commandQueueCapacity}
+     */
+    public void setCommandQueueCapacity(int commandQueueCapacity)
+    {
+        this.commandQueueCapacity = commandQueueCapacity;
+    }
+
+    /**
+     * @return {@link CommandStatistics} for each type of received {@link Command}s
+     */
+    public List<CommandStatistics> getCommandStatistics()
+    {
+        CommandResponderBehaviour commandResponderBehaviour = this.commandResponderBehaviour;
+        if (commandResponderBehaviour == null) {
+            return new LinkedList<CommandStatistics>();
+        }
+        return commandResponderBehaviour.getCommandStatistics();
+    }
+
+    /**
+     * @param contentLanguage sets the {@link #contentLanguage}
+     */
+    public void setContentLanguage(String contentLanguage)
+    {
+        this.contentLanguage = contentLanguage;
+    }
+
+    /**
+     * @param receiverAgentId
+     * @return content language which should be used for sending {@link Command}s to given {@code receiverAgentId}
+     */
+    public String getContentLanguage(AID receiverAgentId)
+    {
+        if (fallbackReceiverAgentIds.contains(receiverAgentId)) {
+            return FIPANames.ContentLanguage.FIPA_SL;
+        }
+        return contentLanguage;
+    }
+
+    /**
+     * Use {@link FIPANames.ContentLanguage#FIPA_SL} for given {@code receiverAgentId} from now on, because it
+     * doesn't understand given {@code contentLanguage}.
+     *
+     * @param receiverAgentId
+     * @param contentLanguage which isn't understood by the {@code receiverAgentId}
+     * @return true whether the content language has been changed, false otherwise
+     */
+    public boolean fallbackContentLanguage(AID receiverAgentId, String contentLanguage)
+    {
+        if (contentLanguage == null || contentLanguage.equals(FIPANames.ContentLanguage.FIPA_SL)) {
+            return false;
+        }
+        return fallbackReceiverAgentIds.add(receiverAgentId);
+    }
+
     /**
      * Perform {@link LocalCommand} on this agent.
      *
@@ -109,14 +205,31 @@ public class Agent extends jade.core.Agent
      * @return {@link SendLocalCommand} from which the result or failure can be retrieved
      */
     public SendLocalCommand sendCommand(String receiverAgentName, Command command)
+    {
+        SendLocalCommand sendLocalCommand = sendCommandAsync(receiverAgentName, command);
+        sendLocalCommand.waitForProcessed(commandTimeout);
+        return sendLocalCommand;
+    }
+
+    /**
+     * Send {@link Command} to target receiver agent without waiting for the result (non-blocking).
+     * <p/>
+     * The returned {@link SendLocalCommand} is completed by the agent thread when the reply arrives (or when
+     * the {@link #commandTimeout} elapses) and thus multiple commands can be sent in parallel.
+     *
+     * @param receiverAgentName target receiver agent name
+     * @param command           to be send
+     * @return {@link SendLocalCommand} which can be waited for or listened to by {@link SendLocalCommand#addListener}
+     */
+    public SendLocalCommand sendCommandAsync(String receiverAgentName, Command command)
     {
         SendLocalCommand sendLocalCommand = new SendLocalCommand(receiverAgentName, command);
+        sendLocalCommand.setTimeout(commandTimeout);
         if (!isStarted()) {
             sendLocalCommand.setFailed(new JadeReportSet.AgentNotStartedReport(getAID().getLocalName()));
             return sendLocalCommand;
         }
         performLocalCommand(sendLocalCommand);
-        sendLocalCommand.waitForProcessed(commandTimeout);
         return sendLocalCommand;
     }
 
@@ -126,8 +239,9 @@ public class Agent extends jade.core.Agent
             // Already initialized
             return;
         }
-        // Register content language
+        // Register content languages
         getContentManager().registerLanguage(new SLCodec());
+        getContentManager().registerLanguage(new LEAPCodec());
 
         // Add common ontology
         addOntology(CommonOntology.getInstance());
@@ -135,7 +249,8 @@ public class Agent extends jade.core.Agent
         // Each agent is able to process commands passed via O2A channel
         addBehaviour(new LocalCommandBehaviour());
         // Each agent is able to respond to agent actions
-        addBehaviour(new CommandResponderBehaviour(this));
+        commandResponderBehaviour = new CommandResponderBehaviour(this, commandWorkerCount, commandQueueCapacity);
+        addBehaviour(commandResponderBehaviour);
 
         // Prepare agent description for DF
         agentDescription = new DFAgentDescription();
@@ -157,6 +272,10 @@ public class Agent extends jade.core.Agent
     {
         unregisterServices();
 
+        if (commandResponderBehaviour != null) {
+            commandResponderBehaviour.shutdown();
+        }
+
         started = false;
         agentDescription = null;
 
@@ -69,7 +69,7 @@ public class CommandRequesterBehaviour extends SimpleAchieveREInitiator
         ACLMessage message = new ACLMessage(ACLMessage.REQUEST);
         message.addReceiver(agentReceiverId);
         message.setSender(agentRequester.getAID());
-        message.setLanguage(FIPANames.ContentLanguage.FIPA_SL);
+        message.setLanguage(agentRequester.getContentLanguage(agentReceiverId));
         message.setProtocol(FIPANames.InteractionProtocol.FIPA_REQUEST);
         message.setOntology(command.getOntology().getName());
 
@@ -135,6 +135,21 @@ public class CommandRequesterBehaviour extends SimpleAchieveREInitiator
     {
         logger.debug("Received message: {}", msg);
 
+        // Resend the command in the language which is understood by all agents
+        AID receiverAgentId = sendLocalCommand.getReceiverAgentId();
+        Agent agent = (Agent) myAgent;
+        if (agent.fallbackContentLanguage(receiverAgentId, msg.getLanguage())) {
+            logger.warn("Agent '{}' doesn't understand {} language, falling back to {}.",
+                    new Object[]{receiverAgentId.getName(), msg.getLanguage(), FIPANames.ContentLanguage.FIPA_SL});
+            try {
+                agent.addBehaviour(new CommandRequesterBehaviour(agent, sendLocalCommand));
+                return;
+            }
+            catch (Exception exception) {
+                logger.error("Failed to resend the command.", exception);
+            }
+        }
+
         logger.error("Execution of '{}' failed, because it was not understood.", sendLocalCommand.getCommand());
         sendLocalCommand.setFailed(new JadeReportSet.CommandNotUnderstoodReport(
                 sendLocalCommand.getCommand().toString(), sendLocalCommand.getReceiverAgentId().getName()));
@@ -1,6 +1,7 @@
 package cz.cesnet.shongo.jade;
 
 import cz.cesnet.shongo.JadeReportSet;
+import cz.cesnet.shongo.api.CommandStatistics;
 import cz.cesnet.shongo.api.jade.CommandDisabledException;
 import cz.cesnet.shongo.api.jade.CommandException;
 import cz.cesnet.shongo.api.jade.CommandUnsupportedException;
@@ -19,6 +20,9 @@ import jade.lang.acl.MessageTemplate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Behaviour that performs and responds to {@link Command} requests sent by {@link CommandRequesterBehaviour}.
  * <p/>
@@ -43,14 +47,49 @@ public class CommandResponderBehaviour extends ParallelResponderBehaviour
             MessageTemplate.MatchProtocol(FIPA_REQUEST),
             MessageTemplate.MatchPerformative(ACLMessage.REQUEST));
 
+    /**
+     * {@link CommandWorkerPool} by which the received {@link Command}s are handled.
+     */
+    private final CommandWorkerPool workerPool;
+
     /**
      * Constructor.
      *
      * @param agent
      */
     public CommandResponderBehaviour(jade.core.Agent agent)
+    {
+        this(agent, CommandWorkerPool.DEFAULT_WORKER_COUNT, CommandWorkerPool.DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param agent
+     * @param workerCount   maximum number of threads for each command type
+     * @param queueCapacity maximum number of waiting commands for each command type
+     */
+    public CommandResponderBehaviour(jade.core.Agent agent, int workerCount, int queueCapacity)
     {
         super(agent, MESSAGE_TEMPLATE);
+
+        this.workerPool = new CommandWorkerPool(agent.getLocalName(), workerCount, queueCapacity);
+    }
+
+    /**
+     * @return {@link CommandStatistics} of the {@link #workerPool}
+     */
+    public List<CommandStatistics> getCommandStatistics()
+    {
+        return workerPool.getStatistics();
+    }
+
+    /**
+     * Stop handling of new {@link Command}s.
+     */
+    public void shutdown()
+    {
+        workerPool.shutdown();
     }
 
     /**
@@ -75,11 +114,21 @@ public class CommandResponderBehaviour extends ParallelResponderBehaviour
         logger.debug("Received message: {}", requestMessage);
 
         RequestHandler handler = new RequestHandler(requestMessage);
-
-        Thread handlerThread = new Thread(handler);
-        handlerThread.setName(agent.getLocalName() + "-handler");
-        handlerThread.start();
         addSubBehaviour(handler);
+
+        Command command = handler.decodeCommand();
+        if (command != null) {
+            try {
+                workerPool.execute(command.getName(), handler);
+            }
+            catch (RejectedExecutionException exception) {
+                logger.error(String.format("Command '%s' requested by '%s' was refused, because the queue is full.",
+                        command.getName(), requestMessage.getSender().getName()));
+                ACLMessage reply = requestMessage.createReply();
+                reply.setPerformative(ACLMessage.REFUSE);
+                handler.setResponse(reply);
+            }
+        }
     }
 
     /**
@@ -92,10 +141,20 @@ public class CommandResponderBehaviour extends ParallelResponderBehaviour
          */
         private ACLMessage request;
 
+        /**
+         * Action which has been decoded from the {@link #request}.
+         */
+        private Action action;
+
+        /**
+         * {@link Command} which has been decoded from the {@link #request}.
+         */
+        private Command command;
+
         /**
          * Response by which the request is handled.
          */
-        private ACLMessage response;
+        private volatile ACLMessage response;
 
         /**
          * Specifies whether response has been sent.
@@ -133,64 +192,28 @@ public class CommandResponderBehaviour extends ParallelResponderBehaviour
             return done;
         }
 
-        @Override
-        public void run()
+        /**
+         * Decode the {@link #action} and {@link #command} from the {@link #request} (in the agent thread, because
+         * the type of the {@link #command} determines by which thread it will be handled).
+         *
+         * @return decoded {@link #command} or {@code null} when the {@link #request} is not understood (the
+         *         {@link #response} is set in that case)
+         */
+        public Command decodeCommand()
         {
             ACLMessage reply = request.createReply();
 
             ContentManager cm = agent.getContentManager();
             try {
-                Action action = (Action) cm.extractContent(request);
+                action = (Action) cm.extractContent(request);
                 Concept actionContent = action.getAction();
-                if (!(actionContent instanceof Command)) {
-                    logger.error(String.format("Unknown action '%s' requested by '%s'.",
-                            actionContent.getClass(), request.getSender().getName()));
-                    reply.setPerformative(ACLMessage.REFUSE);
-                }
-                Command command = (Command) actionContent;
-                try {
-                    Object result = agent.handleCommand(command, request.getSender());
-                    // respond to the caller - either with the command return value or saying it was OK
-                    ContentElement response = (result == null ? new Done(action) : new Result(action, result));
-                    fillMessage(reply, ACLMessage.INFORM, response);
-                }
-                catch (UnknownCommandException exception) {
-                    logger.error(String.format("Unknown command '%s' requested by '%s'.",
-                            exception.getCommand(), request.getSender().getName()), exception);
-                    reply.setPerformative(ACLMessage.REFUSE);
-                }
-                catch (CommandUnsupportedException exception) {
-                    logger.error(String.format("Unsupported command requested by '%s'.",
-                            request.getSender().getName()), exception);
-                    ContentElement response = new Result(action, new JadeReportSet.CommandNotSupportedReport(
-                            command.getName(), agent.getAID().getName()));
-                    fillMessage(reply, ACLMessage.FAILURE, response);
-                }
-                catch (CommandDisabledException exception) {
-                    logger.error(String.format("Command is disabled requested by '%s'.",
-                            request.getSender().getName()), exception);
-                    ContentElement response = new Result(action, new JadeReportSet.AgentNotFoundReport(
-                            agent.getAID().getName()));
-                    fillMessage(reply, ACLMessage.FAILURE, response);
-                }
-                catch (CommandException exception) {
-                    logger.error(String.format("Command requested by '%s' has failed.",
-                            request.getSender().getName()), exception);
-                    ContentElement response = new Result(action, new JadeReportSet.CommandFailedReport(
-                            command.getName(), agent.getAID().getName(), exception.getCode(), exception.getMessage()));
-                    fillMessage(reply, ACLMessage.FAILURE, response);
-                }
-                catch (Throwable exception) {
-                    logger.error(String.format("Command requested by '%s' has failed with unknown reason.",
-                            request.getSender().getName()), exception);
-                    String message = exception.getMessage();
-                    if (exception.getCause() != null) {
-                        message += " (" + exception.getCause().getMessage() + ")";
-                    }
-                    ContentElement response = new Result(action, new JadeReportSet.CommandUnknownErrorReport(
-                            command.getName(), message));
-                    fillMessage(reply, ACLMessage.FAILURE, response);
+                if (actionContent instanceof Command) {
+                    command = (Command) actionContent;
+                    return command;
                 }
+                logger.error(String.format("Unknown action '%s' requested by '%s'.",
+                        actionContent.getClass(), request.getSender().getName()));
+                reply.setPerformative(ACLMessage.REFUSE);
             }
             catch (Codec.CodecException exception) {
                 logger.error(String.format("Received a request which the agent did not understand (wrong codec): %s",
@@ -214,10 +237,70 @@ public class CommandResponderBehaviour extends ParallelResponderBehaviour
                 reply.setPerformative(ACLMessage.NOT_UNDERSTOOD);
             }
 
-            response = reply;
+            setResponse(reply);
+            return null;
+        }
+
+        /**
+         * @param response to be sent by the agent thread
+         */
+        public void setResponse(ACLMessage response)
+        {
+            this.response = response;
             restart();
         }
 
+        @Override
+        public void run()
+        {
+            ACLMessage reply = request.createReply();
+            try {
+                Object result = agent.handleCommand(command, request.getSender());
+                // respond to the caller - either with the command return value or saying it was OK
+                ContentElement response = (result == null ? new Done(action) : new Result(action, result));
+                fillMessage(reply, ACLMessage.INFORM, response);
+            }
+            catch (UnknownCommandException exception) {
+                logger.error(String.format("Unknown command '%s' requested by '%s'.",
+                        exception.getCommand(), request.getSender().getName()), exception);
+                reply.setPerformative(ACLMessage.REFUSE);
+            }
+            catch (CommandUnsupportedException exception) {
+                logger.error(String.format("Unsupported command requested by '%s'.",
+                        request.getSender().getName()), exception);
+                ContentElement response = new Result(action, new JadeReportSet.CommandNotSupportedReport(
+                        command.getName(), agent.getAID().getName()));
+                fillMessage(reply, ACLMessage.FAILURE, response);
+            }
+            catch (CommandDisabledException exception) {
+                logger.error(String.format("Command is disabled requested by '%s'.",
+                        request.getSender().getName()), exception);
+                ContentElement response = new Result(action, new JadeReportSet.AgentNotFoundReport(
+                        agent.getAID().getName()));
+                fillMessage(reply, ACLMessage.FAILURE, response);
+            }
+            catch (CommandException exception) {
+                logger.error(String.format("Command requested by '%s' has failed.",
+                        request.getSender().getName()), exception);
+                ContentElement response = new Result(action, new JadeReportSet.CommandFailedReport(
+                        command.getName(), agent.getAID().getName(), exception.getCode(), exception.getMessage()));
+                fillMessage(reply, ACLMessage.FAILURE, response);
+            }
+            catch (Throwable exception) {
+                logger.error(String.format("Command requested by '%s' has failed with unknown reason.",
+                        request.getSender().getName()), exception);
+                String message = exception.getMessage();
+                if (exception.getCause() != null) {
+                    message += " (" + exception.getCause().getMessage() + ")";
+                }
+                ContentElement response = new Result(action, new JadeReportSet.CommandUnknownErrorReport(
+                        command.getName(), message));
+                fillMessage(reply, ACLMessage.FAILURE, response);
+            }
+
+            setResponse(reply);
+        }
+
         /**
          * Fill message content.
          *
@@ -0,0 +1,224 @@
+package cz.cesnet.shongo.jade;
+
+import cz.cesnet.shongo.api.CommandStatistics;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded pool of threads which handle received {@link cz.cesnet.shongo.api.jade.Command}s.
+ * <p/>
+ * Each command type has its own queue and at most {@link #workerCount} threads so that slow commands
+ * (e.g., listing of recordings) cannot starve other commands (e.g., creating of rooms). When the queue of a command
+ * type is full the command is rejected.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class CommandWorkerPool
+{
+    /**
+     * Default value for {@link #workerCount}.
+     */
+    public static final int DEFAULT_WORKER_COUNT = 4;
+
+    /**
+     * Default value for {@link #queueCapacity}.
+     */
+    public static final int DEFAULT_QUEUE_CAPACITY = 100;
+
+    /**
+     * Number of seconds after which idle threads are terminated.
+     */
+    private static final long KEEP_ALIVE_SECONDS = 60;
+
+    /**
+     * Name of the pool (used as prefix for thread names).
+     */
+    private final String name;
+
+    /**
+     * Maximum number of threads for each command type.
+     */
+    private final int workerCount;
+
+    /**
+     * Maximum number of waiting commands for each command type.
+     */
+    private final int queueCapacity;
+
+    /**
+     * {@link Worker}s by command type names.
+     */
+    private final Map<String, Worker> workers = new TreeMap<String, Worker>();
+
+    /**
+     * Specifies whether the pool has been shut down.
+     */
+    private boolean shutdown = false;
+
+    /**
+     * Constructor.
+     *
+     * @param name          sets the {@link #name}
+     * @param workerCount   sets the {@link #workerCount}
+     * @param queueCapacity sets the {@link #queueCapacity}
+     */
+    public CommandWorkerPool(String name, int workerCount, int queueCapacity)
+    {
+        if (workerCount < 1 || queueCapacity < 1) {
+            throw new IllegalArgumentException("Worker count and queue capacity must be positive.");
+        }
+        this.name = name;
+        this.workerCount = workerCount;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * Execute given {@code handler} by a thread for given {@code commandName}.
+     *
+     * @param commandName name of the command type
+     * @param handler     which handles the command
+     * @throws RejectedExecutionException when the queue for given {@code commandName} is full or the pool is shut down
+     */
+    public void execute(String commandName, final Runnable handler) throws RejectedExecutionException
+    {
+        final Worker worker = getWorker(commandName);
+        final long receivedTime = System.currentTimeMillis();
+        try {
+            worker.executor.execute(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    try {
+                        handler.run();
+                    }
+                    finally {
+                        worker.addHandled(System.currentTimeMillis() - receivedTime);
+                    }
+                }
+            });
+        }
+        catch (RejectedExecutionException exception) {
+            worker.addRefused();
+            throw exception;
+        }
+    }
+
+    /**
+     * @return {@link CommandStatistics} for each command type which has been handled
+     */
+    public synchronized List<CommandStatistics> getStatistics()
+    {
+        List<CommandStatistics> statistics = new LinkedList<CommandStatistics>();
+        for (Map.Entry<String, Worker> entry : workers.entrySet()) {
+            statistics.add(entry.getValue().getStatistics(entry.getKey()));
+        }
+        return statistics;
+    }
+
+    /**
+     * Stop all threads (the queued commands are still handled).
+     */
+    public synchronized void shutdown()
+    {
+        shutdown = true;
+        for (Worker worker : workers.values()) {
+            worker.executor.shutdown();
+        }
+    }
+
+    /**
+     * @param commandName
+     * @return {@link Worker} for given {@code commandName}
+     */
+    private synchronized Worker getWorker(final String commandName)
+    {
+        if (shutdown) {
+            throw new RejectedExecutionException("Pool " + name + " has been shut down.");
+        }
+        Worker worker = workers.get(commandName);
+        if (worker == null) {
+            worker = new Worker(name + "-" + commandName + "-handler");
+            workers.put(commandName, worker);
+        }
+        return worker;
+    }
+
+    /**
+     * Threads and statistics for a single command type.
+     */
+    private class Worker
+    {
+        /**
+         * Executor with bounded queue.
+         */
+        private final ThreadPoolExecutor executor;
+
+        /**
+         * Statistics (guarded by {@code this}).
+         */
+        private long handledCount = 0;
+        private long refusedCount = 0;
+        private long totalLatency = 0;
+        private long maximumLatency = 0;
+
+        /**
+         * Constructor.
+         *
+         * @param threadName prefix for thread names
+         */
+        public Worker(final String threadName)
+        {
+            executor = new ThreadPoolExecutor(workerCount, workerCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(queueCapacity), new ThreadFactory()
+            {
+                private final AtomicInteger threadNumber = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable runnable)
+                {
+                    Thread thread = new Thread(runnable, threadName + "-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+
+        /**
+         * @param latency in milliseconds of handled command
+         */
+        private synchronized void addHandled(long latency)
+        {
+            handledCount++;
+            totalLatency += latency;
+            maximumLatency = Math.max(maximumLatency, latency);
+        }
+
+        /**
+         * Record refused command.
+         */
+        private synchronized void addRefused()
+        {
+            refusedCount++;
+        }
+
+        /**
+         * @param commandName
+         * @return {@link CommandStatistics}
+         */
+        private synchronized CommandStatistics getStatistics(String commandName)
+        {
+            CommandStatistics statistics = new CommandStatistics(commandName);
+            statistics.setQueueSize(executor.getQueue().size());
+            statistics.setActiveCount(executor.getActiveCount());
+            statistics.setHandledCount(handledCount);
+            statistics.setRefusedCount(refusedCount);
+            statistics.setAverageLatency(handledCount > 0 ? totalLatency / handledCount : 0);
+            statistics.setMaximumLatency(maximumLatency);
+            return statistics;
+        }
+    }
+}
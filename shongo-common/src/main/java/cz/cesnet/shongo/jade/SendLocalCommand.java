@@ -4,15 +4,33 @@ import cz.cesnet.shongo.JadeReport;
 import cz.cesnet.shongo.JadeReportSet;
 import cz.cesnet.shongo.api.jade.Command;
 import jade.core.AID;
+import jade.core.behaviours.WakerBehaviour;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.*;
 
 /**
  * {@link LocalCommand} for sending an {@link Command} to target receiver agent via JADE middle-ware.
+ * <p/>
+ * It is also a {@link Future} which is completed as soon as the reply from the receiver agent is processed
+ * (or the {@link #timeout} elapses) and thus the caller can wait for it, send multiple commands in parallel
+ * or be notified about the completion by {@link #addListener}.
  *
  * @author Martin Srom <martin.srom@cesnet.cz>
  * @author Ondrej Bouda <ondrej.bouda@cesnet.cz>
  */
-public class SendLocalCommand extends LocalCommand
+public class SendLocalCommand extends LocalCommand implements Future<SendLocalCommand>
 {
+    private static Logger logger = LoggerFactory.getLogger(SendLocalCommand.class);
+
+    /**
+     * Default value for {@link #timeout}.
+     */
+    public static final int DEFAULT_TIMEOUT = 30000;
+
     /**
      * {@link AID} of the receiver agent.
      */
@@ -26,17 +44,32 @@ public class SendLocalCommand extends LocalCommand
     /**
      * Current command state.
      */
-    private State state;
+    private volatile State state;
 
     /**
      * @see JadeReport
      */
-    private JadeReport jadeReport;
+    private volatile JadeReport jadeReport;
 
     /**
      * Result of the command.
      */
-    private Object result;
+    private volatile Object result;
+
+    /**
+     * Timeout in milliseconds after which the command fails when it isn't processed.
+     */
+    private int timeout = DEFAULT_TIMEOUT;
+
+    /**
+     * Released when the command is processed.
+     */
+    private final CountDownLatch processedLatch = new CountDownLatch(1);
+
+    /**
+     * Listeners which should be notified when the command is processed (guarded by {@code this}).
+     */
+    private List<Runnable> listeners = new LinkedList<Runnable>();
 
     /**
      * Constructor.
@@ -78,6 +111,22 @@ public class SendLocalCommand extends LocalCommand
         return command.getName();
     }
 
+    /**
+     * @return {@link #timeout}
+     */
+    public int getTimeout()
+    {
+        return timeout;
+    }
+
+    /**
+     * @param timeout sets the {@link #timeout} ({@code null} means {@link #DEFAULT_TIMEOUT})
+     */
+    public void setTimeout(Integer timeout)
+    {
+        this.timeout = (timeout != null ? timeout : DEFAULT_TIMEOUT);
+    }
+
     /**
      * @return {@link #state}
      */
@@ -118,7 +167,7 @@ public class SendLocalCommand extends LocalCommand
      */
     public void setState(State state)
     {
-        this.state = state;
+        setProcessed(state, null);
     }
 
     /**
@@ -128,8 +177,66 @@ public class SendLocalCommand extends LocalCommand
      */
     public void setFailed(JadeReport failure)
     {
-        this.state = State.FAILED;
-        this.jadeReport = failure;
+        setProcessed(State.FAILED, failure);
+    }
+
+    /**
+     * Set the command as processed (only the first call takes effect, e.g., a reply which comes after the
+     * {@link #timeout} is ignored) and notify the waiting threads and {@link #listeners}.
+     *
+     * @param state      sets the {@link #state}
+     * @param jadeReport sets the {@link #jadeReport}
+     */
+    private void setProcessed(State state, JadeReport jadeReport)
+    {
+        if (state == State.UNKNOWN) {
+            throw new IllegalArgumentException("Command cannot be set as not processed.");
+        }
+        List<Runnable> listeners;
+        synchronized (this) {
+            if (isProcessed()) {
+                logger.debug("Command {} has already been processed as {}, ignoring {}.",
+                        new Object[]{command, this.state, state});
+                return;
+            }
+            this.jadeReport = jadeReport;
+            this.state = state;
+            listeners = this.listeners;
+            this.listeners = null;
+        }
+        processedLatch.countDown();
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+    }
+
+    /**
+     * Add listener which is notified when the command is processed (or immediately when it is already processed).
+     *
+     * @param listener to be run when the command is processed
+     * @param executor by which the {@code listener} should be run or {@code null} when the {@code listener} should
+     *                 be run directly by the thread which processes the command (it must not block then)
+     */
+    public void addListener(final Runnable listener, final Executor executor)
+    {
+        Runnable runnable = listener;
+        if (executor != null) {
+            runnable = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    executor.execute(listener);
+                }
+            };
+        }
+        synchronized (this) {
+            if (!isProcessed()) {
+                listeners.add(runnable);
+                return;
+            }
+        }
+        runnable.run();
     }
 
     /**
@@ -194,24 +301,60 @@ public class SendLocalCommand extends LocalCommand
     public void waitForProcessed(Integer timeout)
     {
         if (timeout == null) {
-            timeout = 30000;
+            timeout = DEFAULT_TIMEOUT;
         }
-        final int waitingTime = 50;
-
-        // FIXME: use some kind of IPC instead of busy waiting
-        int count = timeout / waitingTime;
-        while (!isProcessed() && count > 0) {
-            count--;
-            try {
-                Thread.sleep(waitingTime);
-            }
-            catch (InterruptedException exception) {
-                exception.printStackTrace();
+        try {
+            if (processedLatch.await(timeout, TimeUnit.MILLISECONDS)) {
+                return;
             }
         }
-        if (getState() == State.UNKNOWN) {
-            setFailed(new JadeReportSet.CommandTimeoutReport(command.getName(), receiverAgentId.getName()));
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+        }
+        setTimedOut();
+    }
+
+    /**
+     * Set the command as failed because it wasn't processed in the {@link #timeout}.
+     */
+    private void setTimedOut()
+    {
+        setFailed(new JadeReportSet.CommandTimeoutReport(command.getName(), receiverAgentId.getName()));
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning)
+    {
+        // Command which has been already sent cannot be cancelled
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled()
+    {
+        return false;
+    }
+
+    @Override
+    public boolean isDone()
+    {
+        return isProcessed();
+    }
+
+    @Override
+    public SendLocalCommand get() throws InterruptedException
+    {
+        processedLatch.await();
+        return this;
+    }
+
+    @Override
+    public SendLocalCommand get(long timeout, TimeUnit unit) throws InterruptedException, TimeoutException
+    {
+        if (!processedLatch.await(timeout, unit)) {
+            throw new TimeoutException("Command " + command.getName() + " hasn't been processed in time.");
         }
+        return this;
     }
 
     @Override
@@ -219,6 +362,16 @@ public class SendLocalCommand extends LocalCommand
     {
         try {
             localAgent.addBehaviour(new CommandRequesterBehaviour(localAgent, this));
+            localAgent.addBehaviour(new WakerBehaviour(localAgent, timeout)
+            {
+                @Override
+                protected void onWake()
+                {
+                    if (!isProcessed()) {
+                        setTimedOut();
+                    }
+                }
+            });
         }
         catch (Exception exception) {
             throw new LocalCommandException("Error in sending the command.", exception);
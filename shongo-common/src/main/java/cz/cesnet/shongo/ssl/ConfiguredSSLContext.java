@@ -2,7 +2,6 @@ package cz.cesnet.shongo.ssl;
 
 import org.apache.commons.configuration.HierarchicalConfiguration;
 import org.apache.http.client.HttpClient;
-import org.apache.http.conn.ClientConnectionManager;
 import org.apache.http.conn.scheme.PlainSocketFactory;
 import org.apache.http.conn.scheme.Scheme;
 import org.apache.http.conn.scheme.SchemeRegistry;
@@ -41,6 +40,12 @@ public class ConfiguredSSLContext
     public static final String SSL_MAPPED_HOSTNAME = "ssl.mapped-hostname";
     public static final String SSL_TRUSTED_HOSTNAME = "ssl.trusted-hostname";
 
+    /**
+     * Default maximum numbers of pooled connections for {@link #createHttpClient}.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 2;
+    public static final int DEFAULT_MAX_CONNECTIONS_TOTAL = 20;
+
     private TrustManager trustManager;
 
     private HostnameVerifier hostnameVerifier;
@@ -106,6 +111,16 @@ public class ConfiguredSSLContext
      * @return new {@link HttpClient} configured with the {@link ConfiguredSSLContext}
      */
     public DefaultHttpClient createHttpClient(int timeout)
+    {
+        return createHttpClient(timeout, DEFAULT_MAX_CONNECTIONS_PER_ROUTE);
+    }
+
+    /**
+     * @param timeout        connection and socket timeout in milliseconds
+     * @param maxConnections maximum number of pooled keep-alive connections to a single host
+     * @return new {@link HttpClient} configured with the {@link ConfiguredSSLContext}
+     */
+    public DefaultHttpClient createHttpClient(int timeout, int maxConnections)
     {
         ConfiguredSSLContext configuredSSLContext = getInstance();
         SchemeRegistry registry = new SchemeRegistry();
@@ -113,7 +128,9 @@ public class ConfiguredSSLContext
                 configuredSSLContext.getContext(), configuredSSLContext.getHostnameVerifier());
         registry.register(new Scheme("http", 80, PlainSocketFactory.getSocketFactory()));
         registry.register(new Scheme("https", 443, socketFactory));
-        ClientConnectionManager connectionManager = new PoolingClientConnectionManager(registry);
+        PoolingClientConnectionManager connectionManager = new PoolingClientConnectionManager(registry);
+        connectionManager.setDefaultMaxPerRoute(maxConnections);
+        connectionManager.setMaxTotal(Math.max(maxConnections, DEFAULT_MAX_CONNECTIONS_TOTAL));
         DefaultHttpClient httpClient = new DefaultHttpClient(connectionManager);
         HttpParams httpClientParams = httpClient.getParams();
         HttpConnectionParams.setConnectionTimeout(httpClientParams, timeout);
@@ -0,0 +1,380 @@
+package cz.cesnet.shongo.util;
+
+import java.util.Arrays;
+
+/**
+ * Sweep-line calculator of a capacity utilization by ranges {@code [start, end)} which consume given amount
+ * of the capacity (e.g., license count). Ranges are stored in primitive arrays and the peak (or whole
+ * {@link Profile}) is computed by sorting range starts and ends and sweeping them in O(n log n) without
+ * creating an object per range or per bucket (as {@link RangeSet} does).
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class CapacitySweep
+{
+    /**
+     * Range starts.
+     */
+    private long[] starts;
+
+    /**
+     * Range ends.
+     */
+    private long[] ends;
+
+    /**
+     * Range amounts.
+     */
+    private int[] amounts;
+
+    /**
+     * Number of added ranges.
+     */
+    private int size = 0;
+
+    /**
+     * Sorted starts of ranges clipped to the evaluated interval.
+     */
+    private long[] sortedStarts;
+
+    /**
+     * Amounts for {@link #sortedStarts}.
+     */
+    private int[] sortedStartAmounts;
+
+    /**
+     * Sorted ends of ranges clipped to the evaluated interval.
+     */
+    private long[] sortedEnds;
+
+    /**
+     * Amounts for {@link #sortedEnds}.
+     */
+    private int[] sortedEndAmounts;
+
+    /**
+     * Constructor.
+     */
+    public CapacitySweep()
+    {
+        this(16);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param capacity initial number of ranges which can be added without resizing
+     */
+    public CapacitySweep(int capacity)
+    {
+        capacity = Math.max(capacity, 1);
+        starts = new long[capacity];
+        ends = new long[capacity];
+        amounts = new int[capacity];
+    }
+
+    /**
+     * @return number of added ranges
+     */
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Remove all added ranges.
+     */
+    public void clear()
+    {
+        size = 0;
+    }
+
+    /**
+     * Add new range (empty ranges are ignored).
+     *
+     * @param start  start of the range (inclusive)
+     * @param end    end of the range (exclusive)
+     * @param amount of capacity which is consumed in the range
+     */
+    public void add(long start, long end, int amount)
+    {
+        if (start >= end) {
+            return;
+        }
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            amounts = Arrays.copyOf(amounts, capacity);
+        }
+        starts[size] = start;
+        ends[size] = end;
+        amounts[size] = amount;
+        size++;
+    }
+
+    /**
+     * @param from start of evaluated interval (inclusive)
+     * @param to   end of evaluated interval (exclusive)
+     * @return maximum sum of amounts of ranges which overlap at the same time in given interval
+     */
+    public int getPeak(long from, long to)
+    {
+        int count = prepare(from, to);
+        int peak = 0;
+        int current = 0;
+        int endIndex = 0;
+        for (int startIndex = 0; startIndex < count; startIndex++) {
+            long start = sortedStarts[startIndex];
+            // Ranges ending at the same time as current range starts don't overlap with it
+            while (sortedEnds[endIndex] <= start) {
+                current -= sortedEndAmounts[endIndex++];
+            }
+            current += sortedStartAmounts[startIndex];
+            if (current > peak) {
+                peak = current;
+            }
+        }
+        return peak;
+    }
+
+    /**
+     * @param from start of evaluated interval (inclusive)
+     * @param to   end of evaluated interval (exclusive)
+     * @return {@link Profile} of the capacity utilization in given interval
+     */
+    public Profile getProfile(long from, long to)
+    {
+        int count = prepare(from, to);
+        Profile profile = new Profile(count * 2 + 1);
+        profile.append(from, 0);
+        int current = 0;
+        int startIndex = 0;
+        int endIndex = 0;
+        while (endIndex < count) {
+            long time = sortedEnds[endIndex];
+            if (startIndex < count && sortedStarts[startIndex] < time) {
+                time = sortedStarts[startIndex];
+            }
+            while (endIndex < count && sortedEnds[endIndex] == time) {
+                current -= sortedEndAmounts[endIndex++];
+            }
+            while (startIndex < count && sortedStarts[startIndex] == time) {
+                current += sortedStartAmounts[startIndex++];
+            }
+            profile.append(time, current);
+        }
+        return profile;
+    }
+
+    /**
+     * Prepare {@link #sortedStarts} and {@link #sortedEnds} for ranges clipped to given interval.
+     *
+     * @param from
+     * @param to
+     * @return number of ranges which overlap given interval
+     */
+    private int prepare(long from, long to)
+    {
+        if (sortedStarts == null || sortedStarts.length < size) {
+            sortedStarts = new long[starts.length];
+            sortedStartAmounts = new int[starts.length];
+            sortedEnds = new long[starts.length];
+            sortedEndAmounts = new int[starts.length];
+        }
+        int count = 0;
+        for (int index = 0; index < size; index++) {
+            long start = starts[index];
+            long end = ends[index];
+            if (start >= to || end <= from) {
+                continue;
+            }
+            sortedStarts[count] = Math.max(start, from);
+            sortedEnds[count] = Math.min(end, to);
+            sortedStartAmounts[count] = amounts[index];
+            sortedEndAmounts[count] = amounts[index];
+            count++;
+        }
+        sort(sortedStarts, sortedStartAmounts, count);
+        sort(sortedEnds, sortedEndAmounts, count);
+        return count;
+    }
+
+    /**
+     * Sort first {@code count} {@code keys} together with {@code values} by heap sort (in place).
+     *
+     * @param keys
+     * @param values
+     * @param count
+     */
+    private static void sort(long[] keys, int[] values, int count)
+    {
+        for (int index = count / 2 - 1; index >= 0; index--) {
+            siftDown(keys, values, index, count);
+        }
+        for (int end = count - 1; end > 0; end--) {
+            swap(keys, values, 0, end);
+            siftDown(keys, values, 0, end);
+        }
+    }
+
+    /**
+     * @param keys
+     * @param values
+     * @param index to be sifted down in the heap
+     * @param count size of the heap
+     */
+    private static void siftDown(long[] keys, int[] values, int index, int count)
+    {
+        while (true) {
+            int child = index * 2 + 1;
+            if (child >= count) {
+                return;
+            }
+            if (child + 1 < count && keys[child + 1] > keys[child]) {
+                child++;
+            }
+            if (keys[index] >= keys[child]) {
+                return;
+            }
+            swap(keys, values, index, child);
+            index = child;
+        }
+    }
+
+    /**
+     * @param keys
+     * @param values
+     * @param index1
+     * @param index2
+     */
+    private static void swap(long[] keys, int[] values, int index1, int index2)
+    {
+        long key = keys[index1];
+        keys[index1] = keys[index2];
+        keys[index2] = key;
+        int value = values[index1];
+        values[index1] = values[index2];
+        values[index2] = value;
+    }
+
+    /**
+     * Capacity utilization in time. The {@link #getAmount(int)} is utilized from {@link #getTime(int)}
+     * until the next {@link #getTime(int)} (the last point is the end of evaluated interval or the end of last range).
+     */
+    public static class Profile
+    {
+        /**
+         * Times of points.
+         */
+        private final long[] times;
+
+        /**
+         * Amounts of points.
+         */
+        private final int[] amounts;
+
+        /**
+         * Number of points.
+         */
+        private int size = 0;
+
+        /**
+         * Constructor.
+         *
+         * @param capacity maximum number of points
+         */
+        private Profile(int capacity)
+        {
+            times = new long[capacity];
+            amounts = new int[capacity];
+        }
+
+        /**
+         * @param time
+         * @param amount
+         */
+        private void append(long time, int amount)
+        {
+            if (size > 0 && times[size - 1] == time) {
+                // Replace the point at the same time
+                size--;
+            }
+            times[size] = time;
+            amounts[size] = amount;
+            size++;
+        }
+
+        /**
+         * @return number of points
+         */
+        public int size()
+        {
+            return size;
+        }
+
+        /**
+         * @param index
+         * @return time of point with given {@code index}
+         */
+        public long getTime(int index)
+        {
+            return times[index];
+        }
+
+        /**
+         * @param index
+         * @return amount of point with given {@code index}
+         */
+        public int getAmount(int index)
+        {
+            return amounts[index];
+        }
+
+        /**
+         * @return maximum amount
+         */
+        public int getPeak()
+        {
+            return amounts[getPeakIndex()];
+        }
+
+        /**
+         * @return time when the {@link #getPeak()} is reached for the first time
+         */
+        public long getPeakTime()
+        {
+            return times[getPeakIndex()];
+        }
+
+        /**
+         * @return index of the first point with maximum amount
+         */
+        private int getPeakIndex()
+        {
+            int peakIndex = 0;
+            for (int index = 1; index < size; index++) {
+                if (amounts[index] > amounts[peakIndex]) {
+                    peakIndex = index;
+                }
+            }
+            return peakIndex;
+        }
+
+        /**
+         * @return average amount of points with non-zero amount (or zero when no such point exists)
+         */
+        public double getAverage()
+        {
+            long total = 0;
+            int count = 0;
+            for (int index = 0; index < size; index++) {
+                if (amounts[index] != 0) {
+                    total += amounts[index];
+                    count++;
+                }
+            }
+            return (count > 0 ? (double) total / count : 0.0);
+        }
+    }
+}
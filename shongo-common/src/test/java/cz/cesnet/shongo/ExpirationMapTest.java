@@ -0,0 +1,104 @@
+package cz.cesnet.shongo;
+
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.Test;
+
+import java.util.Iterator;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for {@link ExpirationMap}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ExpirationMapTest
+{
+    @Test
+    public void testExpiration() throws Exception
+    {
+        ExpirationMap<String, Integer> expirationMap = new ExpirationMap<String, Integer>();
+        expirationMap.put("permanent", 1);
+        expirationMap.setExpiration(Duration.standardMinutes(1));
+        expirationMap.put("expiring", 2);
+        assertEquals(Integer.valueOf(1), expirationMap.get("permanent"));
+        assertEquals(Integer.valueOf(2), expirationMap.get("expiring"));
+        assertNull(expirationMap.get("missing"));
+        assertEquals(2, expirationMap.getHitCount());
+        assertEquals(1, expirationMap.getMissCount());
+
+        assertEquals(1, expirationMap.clearExpired(DateTime.now().plusMinutes(2)).size());
+        assertTrue(expirationMap.contains("permanent"));
+        assertFalse(expirationMap.contains("expiring"));
+
+        assertEquals(1, expirationMap.clearExpired(null).size());
+        assertTrue(expirationMap.isEmpty());
+    }
+
+    @Test
+    public void testMaximumSize() throws Exception
+    {
+        ExpirationMap<Integer, Integer> expirationMap = new ExpirationMap<Integer, Integer>();
+        expirationMap.setMaximumSize(64);
+        for (int index = 0; index < 1000; index++) {
+            expirationMap.put(index, index);
+            // Keep the first entry recently used
+            assertEquals(Integer.valueOf(0), expirationMap.get(0));
+        }
+        assertTrue(expirationMap.size() <= 64);
+        assertEquals(1000 - expirationMap.size(), expirationMap.getEvictionCount());
+        assertTrue(expirationMap.contains(0));
+        assertTrue(expirationMap.contains(999));
+        assertFalse(expirationMap.contains(1));
+    }
+
+    @Test
+    public void testSweep() throws Exception
+    {
+        ExpirationMap<Integer, Integer> expirationMap = new ExpirationMap<Integer, Integer>(Duration.millis(1));
+        for (int index = 0; index < 100; index++) {
+            expirationMap.put(index, index);
+        }
+        Thread.sleep(10);
+
+        // Expired entries are kept for clearExpired by default
+        for (int index = 100; index < 200; index++) {
+            expirationMap.put(index, index);
+        }
+        assertEquals(200, expirationMap.clearExpired(DateTime.now().plusMinutes(1)).size());
+
+        // Expired entries are removed when new entries are put when the sweep is enabled
+        expirationMap.setSweep(true);
+        for (int index = 0; index < 100; index++) {
+            expirationMap.put(index, index);
+        }
+        Thread.sleep(10);
+        for (int index = 100; index < 200; index++) {
+            expirationMap.put(index, index);
+        }
+        assertTrue(expirationMap.clearExpired(DateTime.now().plusMinutes(1)).size() < 200);
+    }
+
+    @Test
+    public void testIterator() throws Exception
+    {
+        ExpirationMap<Integer, Integer> expirationMap = new ExpirationMap<Integer, Integer>();
+        for (int index = 0; index < 100; index++) {
+            expirationMap.put(index, index);
+        }
+        Iterator<Integer> iterator = expirationMap.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() % 2 == 0) {
+                iterator.remove();
+            }
+        }
+        assertEquals(50, expirationMap.size());
+        assertFalse(expirationMap.contains(0));
+        assertTrue(expirationMap.contains(1));
+
+        expirationMap.removeByValue(1);
+        assertEquals(49, expirationMap.keySet().size());
+        assertEquals(49, expirationMap.values().size());
+    }
+}
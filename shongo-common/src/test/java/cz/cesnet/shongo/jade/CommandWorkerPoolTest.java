@@ -0,0 +1,150 @@
+package cz.cesnet.shongo.jade;
+
+import cz.cesnet.shongo.api.CommandStatistics;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link CommandWorkerPool}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class CommandWorkerPoolTest
+{
+    private static final String SLOW_COMMAND = "ListRecordings";
+
+    private static final String FAST_COMMAND = "CreateRoom";
+
+    /**
+     * Test that saturated command type doesn't block other command types and that overflowing commands are refused.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testIsolationAndOverflow() throws Exception
+    {
+        CommandWorkerPool workerPool = new CommandWorkerPool("test", 1, 2);
+        try {
+            final CountDownLatch slowStarted = new CountDownLatch(1);
+            final CountDownLatch slowReleased = new CountDownLatch(1);
+            Runnable slowHandler = new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    slowStarted.countDown();
+                    try {
+                        slowReleased.await();
+                    }
+                    catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            };
+
+            // Saturate the slow command type (one is handled and two are queued)
+            workerPool.execute(SLOW_COMMAND, slowHandler);
+            Assert.assertTrue(slowStarted.await(10, TimeUnit.SECONDS));
+            workerPool.execute(SLOW_COMMAND, slowHandler);
+            workerPool.execute(SLOW_COMMAND, slowHandler);
+
+            // Overflowing command is refused
+            try {
+                workerPool.execute(SLOW_COMMAND, slowHandler);
+                Assert.fail("Command should be refused.");
+            }
+            catch (RejectedExecutionException exception) {
+                // Expected
+            }
+
+            // Other command type is handled while the slow command type is saturated
+            final CountDownLatch fastHandled = new CountDownLatch(1);
+            workerPool.execute(FAST_COMMAND, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    fastHandled.countDown();
+                }
+            });
+            Assert.assertTrue(fastHandled.await(10, TimeUnit.SECONDS));
+            waitForHandledCount(workerPool, FAST_COMMAND, 1);
+
+            CommandStatistics slowStatistics = getStatistics(workerPool, SLOW_COMMAND);
+            Assert.assertEquals(1, slowStatistics.getActiveCount());
+            Assert.assertEquals(2, slowStatistics.getQueueSize());
+            Assert.assertEquals(0, slowStatistics.getHandledCount());
+            Assert.assertEquals(1, slowStatistics.getRefusedCount());
+            CommandStatistics fastStatistics = getStatistics(workerPool, FAST_COMMAND);
+            Assert.assertEquals(1, fastStatistics.getHandledCount());
+            Assert.assertEquals(0, fastStatistics.getRefusedCount());
+
+            // Queued commands are handled after the slow command is released
+            slowReleased.countDown();
+            waitForHandledCount(workerPool, SLOW_COMMAND, 3);
+            slowStatistics = getStatistics(workerPool, SLOW_COMMAND);
+            Assert.assertEquals(0, slowStatistics.getQueueSize());
+            Assert.assertEquals(1, slowStatistics.getRefusedCount());
+        }
+        finally {
+            workerPool.shutdown();
+        }
+
+        // Commands are refused after shutdown
+        try {
+            workerPool.execute(FAST_COMMAND, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                }
+            });
+            Assert.fail("Command should be refused.");
+        }
+        catch (RejectedExecutionException exception) {
+            // Expected
+        }
+    }
+
+    /**
+     * @param workerPool
+     * @param commandName
+     * @return {@link CommandStatistics} for given {@code commandName} from given {@code workerPool}
+     */
+    private static CommandStatistics getStatistics(CommandWorkerPool workerPool, String commandName)
+    {
+        List<CommandStatistics> statisticsList = workerPool.getStatistics();
+        for (CommandStatistics statistics : statisticsList) {
+            if (commandName.equals(statistics.getCommandName())) {
+                return statistics;
+            }
+        }
+        throw new IllegalStateException("Statistics for " + commandName + " doesn't exist.");
+    }
+
+    /**
+     * Wait until given {@code handledCount} of commands with given {@code commandName} is handled
+     * (the statistics are updated after the handler returns).
+     *
+     * @param workerPool
+     * @param commandName
+     * @param handledCount
+     * @throws InterruptedException
+     */
+    private static void waitForHandledCount(CommandWorkerPool workerPool, String commandName, long handledCount)
+            throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (getStatistics(workerPool, commandName).getHandledCount() < handledCount) {
+            if (System.currentTimeMillis() > deadline) {
+                Assert.fail("Commands " + commandName + " weren't handled in time.");
+            }
+            Thread.sleep(10);
+        }
+    }
+}
@@ -4,7 +4,11 @@ import cz.cesnet.shongo.api.jade.CommandException;
 import cz.cesnet.shongo.api.jade.CommandUnsupportedException;
 import cz.cesnet.shongo.api.jade.Command;
 import cz.cesnet.shongo.api.jade.PingCommand;
+import jade.content.abs.AbsContentElement;
+import jade.content.lang.leap.LEAPCodec;
+import jade.content.onto.Ontology;
 import jade.core.AID;
+import jade.domain.FIPANames;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -12,6 +16,12 @@ import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Tests for {@link SendLocalCommand}
  *
@@ -72,4 +82,90 @@ public class SendLocalCommandTest
         Assert.assertEquals(SendLocalCommand.State.SUCCESSFUL, sendLocalCommand.getState());
         logger.info("Received Ping Result by {}: {}.", agent1.getLocalName(), sendLocalCommand.getResult());
     }
+
+    /**
+     * Test sending multiple commands in parallel and notifying listeners about their completion.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testAsyncMessages() throws Exception
+    {
+        Agent agent1 = new Agent();
+        Agent agent2 = new Agent();
+
+        jadeContainer.addAgent("agent1", agent1, null);
+        jadeContainer.addAgent("agent2", agent2, null);
+        jadeContainer.waitForJadeAgentsToStart();
+
+        final int commandCount = 10;
+        final CountDownLatch listenerLatch = new CountDownLatch(commandCount);
+        List<SendLocalCommand> sendLocalCommands = new LinkedList<SendLocalCommand>();
+        for (int index = 0; index < commandCount; index++) {
+            SendLocalCommand sendLocalCommand = agent1.sendCommandAsync(agent2.getLocalName(), new PingCommand());
+            sendLocalCommand.addListener(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    listenerLatch.countDown();
+                }
+            }, null);
+            sendLocalCommands.add(sendLocalCommand);
+        }
+        for (SendLocalCommand sendLocalCommand : sendLocalCommands) {
+            sendLocalCommand.get(30, TimeUnit.SECONDS);
+            Assert.assertEquals(SendLocalCommand.State.SUCCESSFUL, sendLocalCommand.getState());
+        }
+        Assert.assertTrue(listenerLatch.await(1, TimeUnit.SECONDS));
+    }
+
+    /**
+     * Test that commands are resent in {@link FIPANames.ContentLanguage#FIPA_SL} to an agent which doesn't
+     * understand {@link LEAPCodec#NAME} language.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testContentLanguageFallback() throws Exception
+    {
+        final AtomicInteger leapDecodeCount = new AtomicInteger();
+        Agent agent1 = new Agent();
+        Agent agent2 = new Agent()
+        {
+            @Override
+            protected void setupAgent()
+            {
+                super.setupAgent();
+
+                // Replace the LEAP codec by a codec which doesn't understand any message (as an agent without it)
+                getContentManager().registerLanguage(new LEAPCodec()
+                {
+                    @Override
+                    public AbsContentElement decode(Ontology ontology, byte[] content) throws CodecException
+                    {
+                        leapDecodeCount.incrementAndGet();
+                        throw new CodecException("Unknown language " + LEAPCodec.NAME + ".");
+                    }
+                }, LEAPCodec.NAME);
+            }
+        };
+
+        jadeContainer.addAgent("agent1", agent1, null);
+        jadeContainer.addAgent("agent2", agent2, null);
+        jadeContainer.waitForJadeAgentsToStart();
+        AID agent2Id = new AID(agent2.getLocalName(), AID.ISLOCALNAME);
+        Assert.assertEquals(LEAPCodec.NAME, agent1.getContentLanguage(agent2Id));
+
+        // First command is not understood in LEAP and thus it is resent in SL
+        SendLocalCommand sendLocalCommand = agent1.sendCommand(agent2.getLocalName(), new PingCommand());
+        Assert.assertEquals(SendLocalCommand.State.SUCCESSFUL, sendLocalCommand.getState());
+        Assert.assertEquals(1, leapDecodeCount.get());
+        Assert.assertEquals(FIPANames.ContentLanguage.FIPA_SL, agent1.getContentLanguage(agent2Id));
+
+        // Next commands are sent directly in SL
+        sendLocalCommand = agent1.sendCommand(agent2.getLocalName(), new PingCommand());
+        Assert.assertEquals(SendLocalCommand.State.SUCCESSFUL, sendLocalCommand.getState());
+        Assert.assertEquals(1, leapDecodeCount.get());
+    }
 }
@@ -0,0 +1,69 @@
+package cz.cesnet.shongo.util;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link CapacitySweep}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class CapacitySweepTest
+{
+    @Test
+    public void testPeak() throws Exception
+    {
+        CapacitySweep capacitySweep = new CapacitySweep(1);
+        assertEquals(0, capacitySweep.getPeak(0, 1000));
+
+        capacitySweep.add(240, 260, 8);
+        capacitySweep.add(0, 500, 1);
+        capacitySweep.add(200, 300, 4);
+        capacitySweep.add(100, 400, 2);
+        capacitySweep.add(500, 600, 16);
+        assertEquals(15, capacitySweep.getPeak(0, 500));
+        assertEquals(16, capacitySweep.getPeak(0, 1000));
+        assertEquals(7, capacitySweep.getPeak(200, 240));
+        assertEquals(3, capacitySweep.getPeak(300, 400));
+        assertEquals(0, capacitySweep.getPeak(600, 700));
+
+        // Touching ranges don't overlap
+        capacitySweep.clear();
+        capacitySweep.add(0, 100, 1);
+        capacitySweep.add(100, 200, 2);
+        capacitySweep.add(200, 300, 3);
+        assertEquals(3, capacitySweep.getPeak(0, 300));
+        assertEquals(2, capacitySweep.getPeak(0, 200));
+    }
+
+    @Test
+    public void testProfile() throws Exception
+    {
+        CapacitySweep capacitySweep = new CapacitySweep();
+        capacitySweep.add(50, 150, 1);
+        capacitySweep.add(100, 200, 2);
+        capacitySweep.add(200, 250, 2);
+
+        CapacitySweep.Profile profile = capacitySweep.getProfile(0, 1000);
+        assertEquals(6, profile.size());
+        long[] times = new long[]{0, 50, 100, 150, 200, 250};
+        int[] amounts = new int[]{0, 1, 3, 2, 2, 0};
+        for (int index = 0; index < profile.size(); index++) {
+            assertEquals(times[index], profile.getTime(index));
+            assertEquals(amounts[index], profile.getAmount(index));
+        }
+        assertEquals(3, profile.getPeak());
+        assertEquals(100, profile.getPeakTime());
+        assertEquals(2.0, profile.getAverage(), 0.0);
+
+        profile = capacitySweep.getProfile(120, 180);
+        assertEquals(3, profile.size());
+        assertEquals(120, profile.getTime(0));
+        assertEquals(3, profile.getAmount(0));
+        assertEquals(150, profile.getTime(1));
+        assertEquals(2, profile.getAmount(1));
+        assertEquals(180, profile.getTime(2));
+        assertEquals(0, profile.getAmount(2));
+    }
+}
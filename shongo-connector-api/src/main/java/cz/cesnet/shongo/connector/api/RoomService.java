@@ -49,6 +49,19 @@ public interface RoomService
     String modifyRoom(Room room)
             throws CommandException, CommandUnsupportedException;
 
+    /**
+     * Modifies a virtual room only by the attributes which have been modified.
+     * <p/>
+     * Connectors which cannot apply only the modified attributes shall apply the whole
+     * {@link RoomModification#getRoom()} as the {@link #modifyRoom} does.
+     *
+     * @param roomModification modification of the room from the previously applied state
+     * @return new room identifier (shall be the same for most connectors, but may change due to changes in some
+     *         attributes)
+     */
+    String modifyRoomPartial(RoomModification roomModification)
+            throws CommandException, CommandUnsupportedException;
+
     /**
      * Deletes a virtual room.
      *
@@ -0,0 +1,76 @@
+package cz.cesnet.shongo.connector.api.jade.multipoint;
+
+import cz.cesnet.shongo.api.Room;
+import cz.cesnet.shongo.api.RoomModification;
+import cz.cesnet.shongo.api.jade.CommandException;
+import cz.cesnet.shongo.api.jade.CommandUnsupportedException;
+import cz.cesnet.shongo.connector.api.CommonService;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * {@link ModifyRoom} which carries also the previously applied state of the room and modified attributes
+ * and thus the connector can perform only the necessary requests on the device.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ * @see {@link cz.cesnet.shongo.connector.api.RoomService#modifyRoomPartial}
+ */
+public class ModifyRoomPartial extends ModifyRoom
+{
+    private Room previousRoom;
+
+    private Set<RoomModification.Attribute> modifiedAttributes = new HashSet<RoomModification.Attribute>();
+
+    public ModifyRoomPartial()
+    {
+    }
+
+    public ModifyRoomPartial(RoomModification roomModification)
+    {
+        super(roomModification.getRoom());
+        this.previousRoom = roomModification.getPreviousRoom();
+        this.modifiedAttributes.addAll(roomModification.getModifiedAttributes());
+    }
+
+    public Room getPreviousRoom()
+    {
+        return previousRoom;
+    }
+
+    public void setPreviousRoom(Room previousRoom)
+    {
+        this.previousRoom = previousRoom;
+    }
+
+    public Set<RoomModification.Attribute> getModifiedAttributes()
+    {
+        return modifiedAttributes;
+    }
+
+    public void setModifiedAttributes(Set<RoomModification.Attribute> modifiedAttributes)
+    {
+        this.modifiedAttributes = modifiedAttributes;
+    }
+
+    /**
+     * @return {@link RoomModification} for this command
+     */
+    public RoomModification toRoomModification()
+    {
+        return new RoomModification(getRoom(), previousRoom, modifiedAttributes);
+    }
+
+    @Override
+    public Object execute(CommonService connector) throws CommandException, CommandUnsupportedException
+    {
+        logger.debug("Modifying room {} (modified attributes: {})", getRoom(), modifiedAttributes);
+        return getMultipoint(connector).modifyRoomPartial(toRoomModification());
+    }
+
+    public String toString()
+    {
+        return String.format(ModifyRoomPartial.class.getSimpleName() + " (room: %s, modifiedAttributes: %s)",
+                getRoom(), modifiedAttributes);
+    }
+}
@@ -134,6 +134,22 @@ public class ConnectorContainerConfiguration extends CombinedConfiguration
         return getDuration("jade.command-timeout");
     }
 
+    /**
+     * @return maximum number of threads which handle received commands of each type
+     */
+    public int getJadeCommandWorkerCount()
+    {
+        return getInt("jade.command-workers");
+    }
+
+    /**
+     * @return maximum number of received commands of each type which are waiting to be handled
+     */
+    public int getJadeCommandQueueCapacity()
+    {
+        return getInt("jade.command-queue-capacity");
+    }
+
     /**
      * @param configurationFileName
      * @return {@link AbstractConfiguration}
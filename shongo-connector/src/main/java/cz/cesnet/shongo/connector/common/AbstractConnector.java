@@ -83,6 +83,9 @@ abstract public class AbstractConnector implements CommonService
     {
         ConnectorStatus connectorStatus = new ConnectorStatus();
         connectorStatus.setState(ConnectorStatus.State.NOT_AVAILABLE);
+        if (agent != null) {
+            connectorStatus.setCommandStatistics(agent.getCommandStatistics());
+        }
         return connectorStatus;
     }
 
@@ -6,8 +6,21 @@ import cz.cesnet.shongo.connector.api.ConnectorConfiguration;
 import cz.cesnet.shongo.api.ConnectorStatus;
 import cz.cesnet.shongo.connector.api.DeviceConfiguration;
 import cz.cesnet.shongo.api.DeviceConnectorStatus;
+import cz.cesnet.shongo.connector.support.AdaptiveRateLimiter;
+import cz.cesnet.shongo.ssl.ConfiguredSSLContext;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.NoHttpResponseException;
+import org.apache.http.client.HttpClient;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.impl.client.DefaultHttpClient;
+import org.apache.http.protocol.HttpContext;
 import org.joda.time.Duration;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketException;
+
 /**
  * {@link AbstractConnector} for managed device.
  *
@@ -20,12 +33,28 @@ abstract public class AbstractDeviceConnector extends AbstractConnector
      */
     public static final int CONNECTION_STATE_TIMEOUT = 500;
 
+    /**
+     * HTTP status code {@code 429 Too Many Requests} (it isn't defined in {@link HttpStatus}).
+     */
+    private static final int SC_TOO_MANY_REQUESTS = 429;
+
     /**
      * Timeout option
      */
     public static final String OPTION_TIMEOUT = "timeout";
     public static final Duration OPTION_TIMEOUT_DEFAULT = Duration.standardSeconds(30);
 
+    /**
+     * Maximum numbers of concurrent requests to the device options.
+     */
+    public static final String OPTION_MAX_READ_REQUESTS = "max-read-requests";
+    public static final String OPTION_MAX_WRITE_REQUESTS = "max-write-requests";
+
+    /**
+     * Maximum delay between two requests to the device when it is overloaded (see {@link AdaptiveRateLimiter}).
+     */
+    public static final String OPTION_MAX_REQUEST_DELAY = "max-request-delay";
+
     /**
      * {@link DeviceAddress} of managed device.
      */
@@ -56,6 +85,21 @@ abstract public class AbstractDeviceConnector extends AbstractConnector
      */
     protected int requestTimeout;
 
+    /**
+     * @see RequestPipeline
+     */
+    private RequestPipeline requestPipeline;
+
+    /**
+     * {@link HttpClient} with pool of keep-alive connections to the managed device which is shared by all requests.
+     */
+    private DefaultHttpClient httpClient;
+
+    /**
+     * @see AdaptiveRateLimiter
+     */
+    private AdaptiveRateLimiter rateLimiter;
+
     /**
      * @return {@link #deviceAddress}
      */
@@ -136,6 +180,113 @@ abstract public class AbstractDeviceConnector extends AbstractConnector
         return requestTimeout;
     }
 
+    /**
+     * @return {@link #requestPipeline}
+     */
+    public synchronized RequestPipeline getRequestPipeline()
+    {
+        if (requestPipeline == null) {
+            requestPipeline = createRequestPipeline();
+        }
+        return requestPipeline;
+    }
+
+    /**
+     * @return new {@link RequestPipeline} for the managed device
+     */
+    protected RequestPipeline createRequestPipeline()
+    {
+        RequestPipeline requestPipeline;
+        if (configuration != null) {
+            requestPipeline = new RequestPipeline(
+                    configuration.getOptionInt(OPTION_MAX_READ_REQUESTS, RequestPipeline.DEFAULT_MAX_READ_REQUESTS),
+                    configuration.getOptionInt(OPTION_MAX_WRITE_REQUESTS, RequestPipeline.DEFAULT_MAX_WRITE_REQUESTS));
+        }
+        else {
+            requestPipeline = new RequestPipeline(
+                    RequestPipeline.DEFAULT_MAX_READ_REQUESTS, RequestPipeline.DEFAULT_MAX_WRITE_REQUESTS);
+        }
+        if (requestTimeout > 0) {
+            requestPipeline.setTimeout(requestTimeout);
+        }
+        return requestPipeline;
+    }
+
+    /**
+     * @return {@link #httpClient}
+     */
+    public synchronized HttpClient getHttpClient()
+    {
+        if (httpClient == null) {
+            RequestPipeline requestPipeline = getRequestPipeline();
+            int maxConnections = requestPipeline.getMaxRequests(RequestPipeline.RequestType.READ)
+                    + requestPipeline.getMaxRequests(RequestPipeline.RequestType.WRITE);
+            int timeout = (requestTimeout > 0 ? requestTimeout : (int) OPTION_TIMEOUT_DEFAULT.getMillis());
+            httpClient = ConfiguredSSLContext.getInstance().createHttpClient(timeout, maxConnections);
+        }
+        return httpClient;
+    }
+
+    /**
+     * @return {@link #rateLimiter}
+     */
+    public synchronized AdaptiveRateLimiter getRateLimiter()
+    {
+        if (rateLimiter == null) {
+            if (configuration != null) {
+                rateLimiter = new AdaptiveRateLimiter(configuration.getOptionDuration(OPTION_MAX_REQUEST_DELAY,
+                        Duration.millis(AdaptiveRateLimiter.DEFAULT_MAX_DELAY)).getMillis());
+            }
+            else {
+                rateLimiter = new AdaptiveRateLimiter();
+            }
+        }
+        return rateLimiter;
+    }
+
+    /**
+     * Execute given {@code request} by the {@link #httpClient} and adapt the {@link #rateLimiter} to the response.
+     * <p/>
+     * The entity of returned {@link HttpResponse} must be always consumed (or the request must be aborted)
+     * to return the connection to the pool.
+     *
+     * @param request to be executed
+     * @param context to be used for the execution (or {@code null})
+     * @return {@link HttpResponse}
+     * @throws IOException
+     */
+    protected HttpResponse executeHttp(HttpUriRequest request, HttpContext context) throws IOException
+    {
+        AdaptiveRateLimiter rateLimiter = getRateLimiter();
+        try {
+            rateLimiter.acquire();
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the device.");
+        }
+        HttpResponse response;
+        try {
+            response = getHttpClient().execute(request, context);
+        }
+        catch (NoHttpResponseException exception) {
+            rateLimiter.overloaded();
+            throw exception;
+        }
+        catch (SocketException exception) {
+            rateLimiter.overloaded();
+            throw exception;
+        }
+        int statusCode = response.getStatusLine().getStatusCode();
+        if (statusCode == HttpStatus.SC_SERVICE_UNAVAILABLE || statusCode == SC_TOO_MANY_REQUESTS) {
+            rateLimiter.overloaded();
+        }
+        else {
+            rateLimiter.succeeded();
+        }
+        return response;
+    }
+
     @Override
     public final void connect(ConnectorConfiguration configuration) throws CommandException
     {
@@ -143,6 +294,14 @@ abstract public class AbstractDeviceConnector extends AbstractConnector
         this.configuration = configuration;
         this.deviceAddress = deviceConfiguration.getAddress();
         this.requestTimeout = (int) configuration.getOptionDuration(OPTION_TIMEOUT, OPTION_TIMEOUT_DEFAULT).getMillis();
+        synchronized (this) {
+            this.requestPipeline = createRequestPipeline();
+            if (this.httpClient != null) {
+                this.httpClient.getConnectionManager().shutdown();
+                this.httpClient = null;
+            }
+            this.rateLimiter = null;
+        }
 
         String userName = deviceConfiguration.getUserName();
         String password = deviceConfiguration.getPassword();
@@ -1,6 +1,7 @@
 package cz.cesnet.shongo.connector.common;
 
 import cz.cesnet.shongo.api.Room;
+import cz.cesnet.shongo.api.RoomModification;
 import cz.cesnet.shongo.api.jade.CommandException;
 import cz.cesnet.shongo.connector.api.MultipointService;
 
@@ -47,6 +48,39 @@ public abstract class AbstractMultipointConnector extends AbstractDeviceConnecto
         }
     }
 
+    /**
+     * Implementation of {@link MultipointService#modifyRoomPartial} which allows for room recreation
+     * when {@link #isRecreateNeeded} returns {@code true}.
+     * <p/>
+     * The previously applied state of the room from the {@code roomModification} is used instead of retrieving
+     * the current state from the device and nothing is performed when no attribute is modified.
+     *
+     * @param roomModification modification of the room
+     * @return new identifier of the room (it can be the same)
+     * @throws CommandException when the modification fails
+     */
+    @Override
+    public final String modifyRoomPartial(RoomModification roomModification) throws CommandException
+    {
+        Room room = roomModification.getRoom();
+        Room previousRoom = roomModification.getPreviousRoom();
+        if (previousRoom == null) {
+            return modifyRoom(room);
+        }
+        if (!roomModification.isModified()) {
+            return room.getId();
+        }
+        // If recreation is needed, recreate the room (only unique aliases can enforce the recreation)
+        if (roomModification.isModified(RoomModification.Attribute.ALIASES) && isRecreateNeeded(previousRoom, room)) {
+            return recreateRoom(previousRoom, room);
+        }
+        // Otherwise just modify the room
+        else {
+            onModifyRoom(roomModification);
+            return room.getId();
+        }
+    }
+
     /**
      * @param oldRoom
      * @param newRoom
@@ -66,6 +100,20 @@ public abstract class AbstractMultipointConnector extends AbstractDeviceConnecto
      */
     protected abstract void onModifyRoom(Room room) throws CommandException;
 
+    /**
+     * Perform the {@code roomModification} when it doesn't need the {@link #recreateRoom}.
+     * <p/>
+     * Connectors which are able to apply only the modified attributes should override this method, by default
+     * the whole {@link RoomModification#getRoom()} is applied by {@link #onModifyRoom(Room)}.
+     *
+     * @param roomModification to be performed
+     * @throws CommandException when the modification fails
+     */
+    protected void onModifyRoom(RoomModification roomModification) throws CommandException
+    {
+        onModifyRoom(roomModification.getRoom());
+    }
+
     /**
      * Create new room and while deleting the old one.
      * <p/>
@@ -94,6 +94,7 @@ abstract public class AbstractSSHConnector extends AbstractDeviceConnector
         this.username = username;
         this.password = password;
 
+        RequestPipeline.Permit permit = getRequestPipeline().acquireExclusive();
         try {
             JSch jsch = new JSch();
             Session session = jsch.getSession(username, deviceAddress.getHost(), deviceAddress.getPort());
@@ -119,6 +120,20 @@ abstract public class AbstractSSHConnector extends AbstractDeviceConnector
         catch (IOException e) {
             throw new CommandException("Error connecting to the device", e);
         }
+        finally {
+            permit.release();
+        }
+    }
+
+    @Override
+    protected RequestPipeline createRequestPipeline()
+    {
+        // Single shell channel can process only one command at a time
+        RequestPipeline requestPipeline = new RequestPipeline(1);
+        if (requestTimeout > 0) {
+            requestPipeline.setTimeout(requestTimeout);
+        }
+        return requestPipeline;
     }
 
     @Override
@@ -153,8 +168,14 @@ abstract public class AbstractSSHConnector extends AbstractDeviceConnector
      */
     public void disconnect() throws CommandException
     {
-        disconnectImpl();
-        this.connectionState = ConnectionState.DISCONNECTED;
+        RequestPipeline.Permit permit = getRequestPipeline().acquireExclusive();
+        try {
+            disconnectImpl();
+            this.connectionState = ConnectionState.DISCONNECTED;
+        }
+        finally {
+            permit.release();
+        }
     }
 
     private void disconnectImpl() throws CommandException
@@ -179,9 +200,38 @@ abstract public class AbstractSSHConnector extends AbstractDeviceConnector
 
     public void reconnect() throws CommandException
     {
-        this.connectionState = ConnectionState.RECONNECTING;
-        disconnectImpl();
-        connect(deviceAddress, username, password);
+        RequestPipeline.Permit permit = getRequestPipeline().acquireExclusive();
+        try {
+            this.connectionState = ConnectionState.RECONNECTING;
+            disconnectImpl();
+            connect(deviceAddress, username, password);
+        }
+        finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * Sends a command to the device and reads its output. Blocks until a previous command is finished and until
+     * the output is complete.
+     *
+     * @param command     to be sent
+     * @param requestType type of the {@code command}
+     * @return output of the command
+     * @throws IOException      when the sending or reading fails
+     * @throws CommandException when the device is busy for too long
+     */
+    protected String execute(Command command, RequestPipeline.RequestType requestType)
+            throws IOException, CommandException
+    {
+        RequestPipeline.Permit permit = getRequestPipeline().acquire(requestType);
+        try {
+            sendCommand(command);
+            return readOutput();
+        }
+        finally {
+            permit.release();
+        }
     }
 
     protected void sendCommand(Command command) throws IOException
@@ -0,0 +1,244 @@
+package cz.cesnet.shongo.connector.common;
+
+import cz.cesnet.shongo.api.jade.CommandException;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Pipeline of requests which are concurrently performed on a single managed device.
+ * <p/>
+ * Each request to the device must be performed with a {@link Permit} acquired by {@link #acquire} and the number
+ * of concurrent in-flight requests is bounded for each {@link RequestType} separately (and thus, e.g., slow
+ * enumerations cannot delay creation of a room). Connecting and disconnecting of a connector (which modifies
+ * the shared client state) must be performed with a {@link Permit} acquired by {@link #acquireExclusive} which waits
+ * for all in-flight requests and blocks new requests until it is released.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class RequestPipeline
+{
+    /**
+     * Default maximum number of concurrent {@link RequestType#READ} requests.
+     */
+    public static final int DEFAULT_MAX_READ_REQUESTS = 4;
+
+    /**
+     * Default maximum number of concurrent {@link RequestType#WRITE} requests.
+     */
+    public static final int DEFAULT_MAX_WRITE_REQUESTS = 4;
+
+    /**
+     * Lock which is shared by requests and exclusive for connecting/disconnecting.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock(true);
+
+    /**
+     * Maximum number of concurrent requests for each {@link RequestType}.
+     */
+    private final Map<RequestType, Integer> maxRequests = new EnumMap<RequestType, Integer>(RequestType.class);
+
+    /**
+     * Available permits for each {@link RequestType}.
+     */
+    private final Map<RequestType, Semaphore> permits = new EnumMap<RequestType, Semaphore>(RequestType.class);
+
+    /**
+     * Timeout in milliseconds for waiting for a {@link Permit}.
+     */
+    private long timeout = Long.MAX_VALUE;
+
+    /**
+     * Constructor for device which can perform only sequential requests (e.g., single SSH shell).
+     *
+     * @param maxRequests maximum number of concurrent requests of all {@link RequestType}s
+     */
+    public RequestPipeline(int maxRequests)
+    {
+        Semaphore semaphore = new Semaphore(maxRequests, true);
+        for (RequestType requestType : RequestType.values()) {
+            this.maxRequests.put(requestType, maxRequests);
+            this.permits.put(requestType, semaphore);
+        }
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxReadRequests  maximum number of concurrent {@link RequestType#READ} requests
+     * @param maxWriteRequests maximum number of concurrent {@link RequestType#WRITE} requests
+     */
+    public RequestPipeline(int maxReadRequests, int maxWriteRequests)
+    {
+        maxRequests.put(RequestType.READ, maxReadRequests);
+        maxRequests.put(RequestType.WRITE, maxWriteRequests);
+        permits.put(RequestType.READ, new Semaphore(maxReadRequests, true));
+        permits.put(RequestType.WRITE, new Semaphore(maxWriteRequests, true));
+    }
+
+    /**
+     * @param timeout sets the {@link #timeout}
+     */
+    public void setTimeout(long timeout)
+    {
+        this.timeout = timeout;
+    }
+
+    /**
+     * @param requestType
+     * @return maximum number of concurrent requests of given {@code requestType}
+     */
+    public int getMaxRequests(RequestType requestType)
+    {
+        return maxRequests.get(requestType);
+    }
+
+    /**
+     * @param requestType
+     * @return number of in-flight requests of given {@code requestType}
+     */
+    public int getActiveRequests(RequestType requestType)
+    {
+        return maxRequests.get(requestType) - permits.get(requestType).availablePermits();
+    }
+
+    /**
+     * Wait for a free slot for a request of given {@code requestType}.
+     *
+     * @param requestType type of the request
+     * @return acquired {@link Permit} which must be released after the request is performed
+     * @throws CommandException when the slot isn't available in the {@link #timeout}
+     */
+    public Permit acquire(RequestType requestType) throws CommandException
+    {
+        Lock sharedLock = lock.readLock();
+        Semaphore semaphore = permits.get(requestType);
+        try {
+            if (!sharedLock.tryLock(timeout, TimeUnit.MILLISECONDS)) {
+                throw new CommandException("Device is being connected for too long.");
+            }
+            try {
+                if (!semaphore.tryAcquire(timeout, TimeUnit.MILLISECONDS)) {
+                    throw new CommandException("Too many " + requestType + " requests are pending for the device.");
+                }
+            }
+            catch (InterruptedException exception) {
+                sharedLock.unlock();
+                throw exception;
+            }
+            catch (CommandException exception) {
+                sharedLock.unlock();
+                throw exception;
+            }
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CommandException("Interrupted while waiting for the device.", exception);
+        }
+        return new Permit(sharedLock, semaphore);
+    }
+
+    /**
+     * @param requestType type of the request
+     * @return acquired {@link Permit} or {@code null} when a slot for a request of given {@code requestType} isn't
+     *         immediately available
+     */
+    public Permit tryAcquire(RequestType requestType)
+    {
+        Lock sharedLock = lock.readLock();
+        Semaphore semaphore = permits.get(requestType);
+        if (!sharedLock.tryLock()) {
+            return null;
+        }
+        if (!semaphore.tryAcquire()) {
+            sharedLock.unlock();
+            return null;
+        }
+        return new Permit(sharedLock, semaphore);
+    }
+
+    /**
+     * Wait for all in-flight requests to be finished and block new requests (requests from the current thread
+     * are still allowed).
+     *
+     * @return acquired {@link Permit} which must be released after the shared client state is modified
+     * @throws CommandException when the in-flight requests aren't finished in the {@link #timeout}
+     */
+    public Permit acquireExclusive() throws CommandException
+    {
+        Lock exclusiveLock = lock.writeLock();
+        try {
+            if (!exclusiveLock.tryLock(timeout, TimeUnit.MILLISECONDS)) {
+                throw new CommandException("Requests to the device are performed for too long.");
+            }
+        }
+        catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new CommandException("Interrupted while waiting for the device.", exception);
+        }
+        return new Permit(exclusiveLock, null);
+    }
+
+    /**
+     * Type of request.
+     */
+    public static enum RequestType
+    {
+        /**
+         * Request which doesn't modify the device (e.g., status or enumeration).
+         */
+        READ,
+
+        /**
+         * Request which modifies the device (e.g., creation of a room).
+         */
+        WRITE
+    }
+
+    /**
+     * Acquired slot for a request (or for modification of shared client state).
+     */
+    public static class Permit
+    {
+        /**
+         * Acquired {@link Lock}.
+         */
+        private Lock lock;
+
+        /**
+         * Acquired {@link Semaphore} (or {@code null}).
+         */
+        private Semaphore semaphore;
+
+        /**
+         * Constructor.
+         *
+         * @param lock      sets the {@link #lock}
+         * @param semaphore sets the {@link #semaphore}
+         */
+        private Permit(Lock lock, Semaphore semaphore)
+        {
+            this.lock = lock;
+            this.semaphore = semaphore;
+        }
+
+        /**
+         * Release the {@link Permit} (it can be called multiple times).
+         */
+        public synchronized void release()
+        {
+            if (semaphore != null) {
+                semaphore.release();
+                semaphore = null;
+            }
+            if (lock != null) {
+                lock.unlock();
+                lock = null;
+            }
+        }
+    }
+}
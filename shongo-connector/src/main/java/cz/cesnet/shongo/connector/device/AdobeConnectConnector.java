@@ -14,6 +14,14 @@ import cz.cesnet.shongo.connector.common.AbstractMultipointConnector;
 import cz.cesnet.shongo.connector.common.RequestAttributeList;
 import cz.cesnet.shongo.controller.api.jade.NotifyTarget;
 import cz.cesnet.shongo.controller.api.jade.Service;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.params.ClientPNames;
+import org.apache.http.client.params.CookiePolicy;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.util.EntityUtils;
 import org.jdom2.Attribute;
 import org.jdom2.Document;
 import org.jdom2.Element;
@@ -27,13 +35,12 @@ import org.joda.time.Duration;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.StringReader;
 import java.io.UnsupportedEncodingException;
 import java.net.SocketException;
-import java.net.URL;
-import java.net.URLConnection;
 import java.net.URLEncoder;
 import java.util.*;
 import java.util.concurrent.atomic.AtomicReference;
@@ -62,11 +69,6 @@ public class AdobeConnectConnector extends AbstractMultipointConnector implement
     public static final String URL_PATH_EXTRACTION_FROM_URI = "url-path-extraction-from-uri";
 
 
-    /**
-     * Small timeout used between some AC request
-     */
-    public final static long REQUEST_DELAY = 100;
-
     /**
      * The Java session ID that is generated upon successful login.  All calls
      * except login must provide this ID for authentication.
@@ -834,6 +836,67 @@ public class AdobeConnectConnector extends AbstractMultipointConnector implement
         setRoomAccessMode(roomId,accessMode);
     }
 
+    @Override
+    protected void onModifyRoom(RoomModification roomModification) throws CommandException
+    {
+        Room room = roomModification.getRoom();
+        Room previousRoom = roomModification.getPreviousRoom();
+        String roomId = room.getId();
+
+        // Add/modify participants (only when the meeting is started or participants are modified)
+        boolean permissionsReset = false;
+        if (room.getLicenseCount() > 0) {
+            if (previousRoom.getLicenseCount() == 0
+                    || roomModification.isModified(RoomModification.Attribute.PARTICIPANT_ROLES)) {
+                resetPermissions(roomId);
+                startMeeting(roomId);
+                addRoomParticipants(roomId, room.getParticipantRoles());
+                permissionsReset = true;
+            }
+        }
+        else if (previousRoom.getLicenseCount() > 0) {
+            recordingManager.backupRoomRecordings(roomId);
+            resetPermissions(roomId);
+            endMeeting(roomId);
+            permissionsReset = true;
+        }
+
+        // Modify attributes which are stored in the meeting
+        if (roomModification.isModified(RoomModification.Attribute.DESCRIPTION,
+                RoomModification.Attribute.LICENSE_COUNT, RoomModification.Attribute.ALIASES)) {
+            RequestAttributeList attributes = new RequestAttributeList();
+            attributes.add("sco-id", roomId);
+            attributes.add("type", "meeting");
+            setRoomAttributes(attributes, room);
+            execApi("sco-update", attributes);
+        }
+
+        AdobeConnectPermissions accessMode = null;
+        AdobeConnectRoomSetting adobeConnectRoomSetting = room.getRoomSetting(AdobeConnectRoomSetting.class);
+        if (adobeConnectRoomSetting != null) {
+            accessMode = adobeConnectRoomSetting.getAccessMode();
+        }
+        boolean roomSettingModified = roomModification.isRoomSettingModified(AdobeConnectRoomSetting.class);
+
+        // Set passcode (pin), since Adobe Connect 9.0
+        if (roomSettingModified) {
+            RequestAttributeList passcodeAttributes = new RequestAttributeList();
+            passcodeAttributes.add("acl-id", roomId);
+            passcodeAttributes.add("field-id", "meeting-passcode");
+            String pin = "";
+            if (adobeConnectRoomSetting != null && adobeConnectRoomSetting.getPin() != null) {
+                pin = adobeConnectRoomSetting.getPin();
+            }
+            passcodeAttributes.add("value", pin);
+            execApi("acl-field-update", passcodeAttributes);
+        }
+
+        // Set room access mode (it must be set again also when the permissions has been reset)
+        if (roomSettingModified || permissionsReset) {
+            setRoomAccessMode(roomId, accessMode);
+        }
+    }
+
     @Override
     protected String recreateRoom(Room oldRoom, Room newRoom) throws CommandException
     {
@@ -1219,14 +1282,16 @@ public class AdobeConnectConnector extends AbstractMultipointConnector implement
         loginAttributes.add("login", this.login);
         loginAttributes.add("password", this.password);
 
-        URLConnection connection;
+        HttpResponse response;
         try {
             String loginUrl = getActionUrl("login", loginAttributes);
-            connection = new URL(loginUrl).openConnection();
-            connection.connect();
+            HttpGet request = new HttpGet(loginUrl);
+            // The session is managed explicitly by the connectionSession
+            request.getParams().setParameter(ClientPNames.COOKIE_POLICY, CookiePolicy.IGNORE_COOKIES);
+            response = executeHttp(request, null);
 
-            InputStream resultStream = connection.getInputStream();
-            Document resultDocument = new SAXBuilder().build(resultStream);
+            byte[] result = EntityUtils.toByteArray(response.getEntity());
+            Document resultDocument = new SAXBuilder().build(new ByteArrayInputStream(result));
             if (this.isError(resultDocument)) {
                 throw new CommandException("Login to server " + deviceAddress + " failed");
             }
@@ -1238,7 +1303,8 @@ public class AdobeConnectConnector extends AbstractMultipointConnector implement
             throw new CommandException(exception.getMessage(), exception);
         }
 
-        String connectionSessionString = connection.getHeaderField("Set-Cookie");
+        Header connectionSessionHeader = response.getFirstHeader("Set-Cookie");
+        String connectionSessionString = (connectionSessionHeader != null ? connectionSessionHeader.getValue() : "");
         StringTokenizer st = new StringTokenizer(connectionSessionString, "=");
         String sessionName = null;
         if (st.countTokens() > 1) {
@@ -1490,6 +1556,8 @@ public class AdobeConnectConnector extends AbstractMultipointConnector implement
 
     /**
      * Execute command on Adobe Connect server and returns {@link InputStream} with response.
+     * <p/>
+     * The response is read whole and thus the pooled connection is immediately returned for other requests.
      *
      * @param actionUrl
      * @param timeout
@@ -1499,13 +1567,17 @@ public class AdobeConnectConnector extends AbstractMultipointConnector implement
     protected InputStream execApi(String actionUrl, int timeout) throws IOException
     {
         // Send request
-        URL url = new URL(actionUrl);
-        URLConnection connection = url.openConnection();
-        connection.setConnectTimeout(timeout);
-        connection.setReadTimeout(timeout);
-        connection.setRequestProperty("Cookie", "BREEZESESSION=" + this.connectionSession);
-        connection.connect();
-        return connection.getInputStream();
+        HttpGet request = new HttpGet(actionUrl);
+        HttpConnectionParams.setConnectionTimeout(request.getParams(), timeout);
+        HttpConnectionParams.setSoTimeout(request.getParams(), timeout);
+        request.getParams().setParameter(ClientPNames.COOKIE_POLICY, CookiePolicy.IGNORE_COOKIES);
+        request.setHeader("Cookie", "BREEZESESSION=" + this.connectionSession);
+        HttpResponse response = executeHttp(request, null);
+        HttpEntity entity = response.getEntity();
+        if (entity == null) {
+            throw new IOException("Empty response " + response.getStatusLine() + ".");
+        }
+        return new ByteArrayInputStream(EntityUtils.toByteArray(entity));
     }
 
     /**
@@ -53,6 +53,11 @@ public class AdobeConnectRecordingManager
     private static final DateTimeFormatter RECORDING_NAME_DATETIME_FORMATTER =
             DateTimeFormat.forPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZoneUTC();
 
+    /**
+     * Initial delay in milliseconds before the started recording is checked again.
+     */
+    private static final long RECORDING_START_DELAY = 100;
+
     /**
      * @see AdobeConnectConnector
      */
@@ -414,13 +419,6 @@ public class AdobeConnectRecordingManager
         Element response;
         int count = 0;
         while (true) {
-            try {
-                Thread.sleep(AdobeConnectConnector.REQUEST_DELAY);
-            }
-            catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                logger.debug("unexpected wakening, but nothing to worry about");
-            }
             response = connector.execApi("meeting-recorder-activity-info", recAttributes);
 
             if (response.getChild("meeting-recorder-activity-info").getChildText("recording-sco-id") != null) {
@@ -433,6 +431,15 @@ public class AdobeConnectRecordingManager
             if (count > 4) {
                 throw new CommandException("Cannot get recording id for.");
             }
+
+            // wait for the recording to start (longer after each attempt)
+            try {
+                Thread.sleep(RECORDING_START_DELAY << (count - 1));
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.debug("unexpected wakening, but nothing to worry about");
+            }
         }
 
         return response.getChild("meeting-recorder-activity-info").getChildText("recording-sco-id");
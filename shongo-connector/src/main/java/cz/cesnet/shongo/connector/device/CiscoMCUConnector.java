@@ -12,14 +12,13 @@ import cz.cesnet.shongo.connector.api.Configuration;
 import cz.cesnet.shongo.connector.api.UsageStats;
 import cz.cesnet.shongo.connector.common.AbstractMultipointConnector;
 import cz.cesnet.shongo.connector.common.Command;
+import cz.cesnet.shongo.connector.common.RequestPipeline;
 import cz.cesnet.shongo.connector.support.KeepAliveTransportFactory;
 import cz.cesnet.shongo.controller.api.jade.NotifyTarget;
 import cz.cesnet.shongo.controller.api.jade.Service;
-import cz.cesnet.shongo.ssl.ConfiguredSSLContext;
 import cz.cesnet.shongo.util.MathHelper;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.*;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.entity.UrlEncodedFormEntity;
 import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPost;
@@ -34,6 +33,7 @@ import org.apache.tika.metadata.Metadata;
 import org.apache.tika.mime.MediaType;
 import org.apache.xmlrpc.XmlRpcException;
 import org.apache.xmlrpc.client.XmlRpcClient;
+import org.apache.xmlrpc.client.XmlRpcClientConfig;
 import org.apache.xmlrpc.client.XmlRpcClientConfigImpl;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
@@ -107,11 +107,6 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
      */
     private XmlRpcClient xmlRpcClient;
 
-    /**
-     * {@link XmlRpcClient} used for the Http communication with the device.
-     */
-    private HttpClient httpClient;
-
     /**
      * Detector for {@link MediaType}s.
      */
@@ -199,7 +194,27 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
      *
      */
     @Override
-    public synchronized void connect(DeviceAddress deviceAddress, String username, String password) throws CommandException
+    public void connect(DeviceAddress deviceAddress, String username, String password) throws CommandException
+    {
+        RequestPipeline.Permit permit = getRequestPipeline().acquireExclusive();
+        try {
+            connectExclusive(deviceAddress, username, password);
+        }
+        finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * Implementation of {@link #connect} which is performed when no other request to the device is in-flight.
+     *
+     * @param deviceAddress device address to connect to
+     * @param username      username for authentication on the device
+     * @param password      password for authentication on the device
+     * @throws CommandException
+     */
+    private void connectExclusive(DeviceAddress deviceAddress, String username, String password)
+            throws CommandException
     {
         if (deviceAddress.getPort() == DeviceAddress.DEFAULT_PORT) {
             deviceAddress.setPort(DEFAULT_PORT);
@@ -233,10 +248,10 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
             config.setReplyTimeout(requestTimeout);
             xmlRpcClient = new XmlRpcClient();
             xmlRpcClient.setConfig(config);
-            xmlRpcClient.setTransportFactory(new KeepAliveTransportFactory(xmlRpcClient));
-
-            // Create HttpClient for Http communication
-            httpClient = ConfiguredSSLContext.getInstance().createHttpClient(requestTimeout);
+            RequestPipeline requestPipeline = getRequestPipeline();
+            int maxConnections = requestPipeline.getMaxRequests(RequestPipeline.RequestType.READ)
+                    + requestPipeline.getMaxRequests(RequestPipeline.RequestType.WRITE);
+            xmlRpcClient.setTransportFactory(new KeepAliveTransportFactory(xmlRpcClient, maxConnections));
 
             // Get and check device info
             Map<String, Object> device = execApi(new Command("device.query"));
@@ -280,11 +295,16 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
     public ConnectionState getConnectionState()
     {
         try {
-            synchronized (this) {
-                XmlRpcClientConfigImpl configuration = ((XmlRpcClientConfigImpl) xmlRpcClient.getConfig());
-                configuration.setReplyTimeout(CONNECTION_STATE_TIMEOUT);
-                execApi("device.query", null);
-                configuration.setReplyTimeout(requestTimeout);
+            // Shorter timeout only for this request (the client configuration is shared by concurrent requests)
+            XmlRpcClient xmlRpcClient = this.xmlRpcClient;
+            XmlRpcClientConfigImpl configuration = ((XmlRpcClientConfigImpl) xmlRpcClient.getConfig()).cloneMe();
+            configuration.setReplyTimeout(CONNECTION_STATE_TIMEOUT);
+            RequestPipeline.Permit permit = getRequestPipeline().acquire(RequestPipeline.RequestType.READ);
+            try {
+                execApi(xmlRpcClient, configuration, "device.query", null);
+            }
+            finally {
+                permit.release();
             }
             return ConnectionState.CONNECTED;
         }
@@ -295,16 +315,22 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
     }
 
     @Override
-    public synchronized void disconnect() throws CommandException
+    public void disconnect() throws CommandException
     {
-        // TODO: consider publishing feedback events from the MCU
-        // no real operation - the communication protocol is stateless
-        xmlRpcClient = null; // just for sure the attributes are not used anymore
-
-        //Disconnect Alias service
-        if (this.lifeSizeUVCClearSea != null) {
-            this.lifeSizeUVCClearSea.disconnect();
-            this.lifeSizeUVCClearSea = null;
+        RequestPipeline.Permit permit = getRequestPipeline().acquireExclusive();
+        try {
+            // TODO: consider publishing feedback events from the MCU
+            // no real operation - the communication protocol is stateless
+            xmlRpcClient = null; // just for sure the attributes are not used anymore
+
+            //Disconnect Alias service
+            if (this.lifeSizeUVCClearSea != null) {
+                this.lifeSizeUVCClearSea.disconnect();
+                this.lifeSizeUVCClearSea = null;
+            }
+        }
+        finally {
+            permit.release();
         }
     }
 
@@ -665,53 +691,93 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
         cmd.setParameter("conferenceName", truncateString(roomId));
         setConferenceParametersByRoom(cmd, room);
         if (this.lifeSizeUVCClearSea != null) {
-            new Thread() {
-                public void run() {
-                    try {
-                        Alias oldAlias = oldRoom.getAlias(AliasType.H323_E164);
-                        Alias newAlias = room.getAlias(AliasType.H323_E164);
+            modifyAliasServiceAlias(oldRoom, room);
+        }
+        execApi(cmd);
+    }
 
-                        // Parse room number from new alias (old room contains only short version)
-                        if (roomNumberFromH323Number == null) {
-                            throw new CommandException(String.format(
-                                    "Cannot set H.323 E164 number - missing connector device option '%s'",
-                                    ROOM_NUMBER_EXTRACTION_FROM_H323_NUMBER));
-                        }
-                        Matcher matcher = roomNumberFromH323Number.matcher(newAlias.getValue());
-                        if (!matcher.find()) {
-                            throw new CommandException("Invalid E164 number: " + newAlias.getValue());
-                        }
-                        String roomNumber = matcher.group(1);
+    @Override
+    protected void onModifyRoom(RoomModification roomModification) throws CommandException
+    {
+        Room room = roomModification.getRoom();
+        String roomId = room.getId();
 
-                        // Modify CS alias if changed
-                        if (newAlias != null && !(room.getName().equals(oldRoom.getName()) && roomNumber.equals(oldAlias.getValue()))) {
-                            lifeSizeUVCClearSea.modifyAlias(oldRoom.getName(), room.getName(), newAlias.getType(), oldAlias.getValue(), newAlias.getValue());
-                        }
-                    } catch (CommandException ex) {
-                        logger.error("Failed to delete ClearSea alias: " + ex.getMessage());
+        // Participants and technologies aren't configured in the device
+        if (!roomModification.isModified(RoomModification.Attribute.DESCRIPTION,
+                RoomModification.Attribute.LICENSE_COUNT, RoomModification.Attribute.ALIASES,
+                RoomModification.Attribute.LAYOUT, RoomModification.Attribute.ROOM_SETTINGS)) {
+            return;
+        }
 
-                        NotifyTarget notifyTarget = new NotifyTarget(Service.NotifyTargetType.RESOURCE_ADMINS);
-                        notifyTarget.addMessage("en",
-                                "Failed to modify ClearSea alias pro místnost: " + room.getName(),
-                                "Modify of ClearSea alias failed for room \"" + room.getName() + "\"." + "\n"
-                                        + "Thrown exception:" + ex.getMessage());
-                        notifyTarget.addMessage("cs",
-                                "Selhala modifikace ClearSea aliasu pro místnost: " + room.getName(),
-                                "Pro místnost \"" + room.getName() + "\" nebylo možné upravit alias pro ClearSea." + "\n"
-                                        + "Nastala následující chyba:" + ex.getMessage());
+        // Participants must be disconnected only when the license count is decreased
+        Room previousRoom = roomModification.getPreviousRoom();
+        if (room.getLicenseCount() < previousRoom.getLicenseCount()) {
+            disconnectRoomParticipants(roomId, room.getLicenseCount());
+        }
 
-                        try {
-                            performControllerAction(notifyTarget);
-                        } catch (CommandException e) {
-                            logger.error("Failed to send notification: " + e);
-                        }
-                    }
-                }
-            }.start();
+        Command cmd = new Command("conference.modify");
+        cmd.setParameter("conferenceName", truncateString(roomId));
+        setConferenceParametersByRoom(cmd, room);
+        if (this.lifeSizeUVCClearSea != null && roomModification.isModified(RoomModification.Attribute.ALIASES)) {
+            // Alias service requires the short version of aliases which is stored only in the device
+            modifyAliasServiceAlias(getRoom(roomId), room);
         }
         execApi(cmd);
     }
 
+    /**
+     * Modify alias in alias service (in separate thread).
+     *
+     * @param oldRoom old room retrieved from the device
+     * @param room    new room
+     */
+    private void modifyAliasServiceAlias(final Room oldRoom, final Room room)
+    {
+        new Thread() {
+            public void run() {
+                try {
+                    Alias oldAlias = oldRoom.getAlias(AliasType.H323_E164);
+                    Alias newAlias = room.getAlias(AliasType.H323_E164);
+
+                    // Parse room number from new alias (old room contains only short version)
+                    if (roomNumberFromH323Number == null) {
+                        throw new CommandException(String.format(
+                                "Cannot set H.323 E164 number - missing connector device option '%s'",
+                                ROOM_NUMBER_EXTRACTION_FROM_H323_NUMBER));
+                    }
+                    Matcher matcher = roomNumberFromH323Number.matcher(newAlias.getValue());
+                    if (!matcher.find()) {
+                        throw new CommandException("Invalid E164 number: " + newAlias.getValue());
+                    }
+                    String roomNumber = matcher.group(1);
+
+                    // Modify CS alias if changed
+                    if (newAlias != null && !(room.getName().equals(oldRoom.getName()) && roomNumber.equals(oldAlias.getValue()))) {
+                        lifeSizeUVCClearSea.modifyAlias(oldRoom.getName(), room.getName(), newAlias.getType(), oldAlias.getValue(), newAlias.getValue());
+                    }
+                } catch (CommandException ex) {
+                    logger.error("Failed to delete ClearSea alias: " + ex.getMessage());
+
+                    NotifyTarget notifyTarget = new NotifyTarget(Service.NotifyTargetType.RESOURCE_ADMINS);
+                    notifyTarget.addMessage("en",
+                            "Failed to modify ClearSea alias pro místnost: " + room.getName(),
+                            "Modify of ClearSea alias failed for room \"" + room.getName() + "\"." + "\n"
+                                    + "Thrown exception:" + ex.getMessage());
+                    notifyTarget.addMessage("cs",
+                            "Selhala modifikace ClearSea aliasu pro místnost: " + room.getName(),
+                            "Pro místnost \"" + room.getName() + "\" nebylo možné upravit alias pro ClearSea." + "\n"
+                                    + "Nastala následující chyba:" + ex.getMessage());
+
+                    try {
+                        performControllerAction(notifyTarget);
+                    } catch (CommandException e) {
+                        logger.error("Failed to send notification: " + e);
+                    }
+                }
+            }
+        }.start();
+    }
+
     @Override
     public void deleteRoom(String roomId) throws CommandException
     {
@@ -972,21 +1038,24 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
      * @return content as {@link MediaData}
      * @throws CommandException
      */
-    private synchronized MediaData execHttp(String file) throws CommandException
+    private MediaData execHttp(String file) throws CommandException
     {
+        RequestPipeline.Permit permit = getRequestPipeline().acquire(RequestPipeline.RequestType.READ);
         try {
             URL requestUrl = getDeviceHttpUrl(file);
             HttpGet request = new HttpGet(requestUrl.toURI());
             HttpContext context = new BasicHttpContext();
-            HttpResponse response = httpClient.execute(request, context);
+            HttpResponse response = executeHttp(request, context);
             HttpRequest responseRequest = (HttpRequest) context.getAttribute(ExecutionContext.HTTP_REQUEST);
             StatusLine responseStatusLine = response.getStatusLine();
             if (responseStatusLine.getStatusCode() == HttpStatus.SC_OK) {
                 if (responseRequest.getRequestLine().getUri().startsWith("/login.html")) {
+                    // Release the pooled connection
+                    EntityUtils.consume(response.getEntity());
                     // Perform login
                     loginHttp();
                     // Perform the request again
-                    response = httpClient.execute(request, context);
+                    response = executeHttp(request, context);
                 }
                 HttpEntity responseEntity = response.getEntity();
                 if (responseEntity != null) {
@@ -995,6 +1064,7 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
                     return new MediaData(mediaType, mediaContent);
                 }
             }
+            EntityUtils.consume(response.getEntity());
             throw new RuntimeException(response.getStatusLine().toString());
         }
         catch (CommandException exception) {
@@ -1003,14 +1073,17 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
         catch (Exception exception) {
             throw new CommandException("Http request " + file + " failed.", exception);
         }
+        finally {
+            permit.release();
+        }
     }
 
     /**
-     * Try to login for {@link #httpClient}
+     * Try to login for {@link #getHttpClient()} (the login session is shared by all concurrent requests).
      *
      * @throws CommandException when login fails
      */
-    private void loginHttp() throws CommandException
+    private synchronized void loginHttp() throws CommandException
     {
         try {
             HttpPost request = new HttpPost(getDeviceHttpUrl("/login_change.html").toURI());
@@ -1020,9 +1093,10 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
             parameters.add(new BasicNameValuePair("ok", "OK"));
             request.setEntity(new UrlEncodedFormEntity(parameters, "UTF-8"));
             HttpContext context = new BasicHttpContext();
-            HttpResponse response = httpClient.execute(request, context);
+            HttpResponse response = executeHttp(request, context);
             HttpRequest responseRequest = (HttpRequest) context.getAttribute(ExecutionContext.HTTP_REQUEST);
             StatusLine responseStatusLine = response.getStatusLine();
+            EntityUtils.consume(response.getEntity());
             if (responseStatusLine.getStatusCode() != HttpStatus.SC_OK) {
                 throw new RuntimeException("Wrong status " + responseStatusLine);
             }
@@ -1049,8 +1123,14 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
     {
         int retryCount = 5;
         while (retryCount > 0) {
+            RequestPipeline.Permit permit = getRequestPipeline().acquire(getRequestType(command));
             try {
-                return execApi(command.getCommand(), command.getParameters());
+                XmlRpcClient xmlRpcClient = this.xmlRpcClient;
+                if (xmlRpcClient == null) {
+                    throw new CommandException("The connector is disconnected.");
+                }
+                return execApi(xmlRpcClient, xmlRpcClient.getClientConfig(), command.getCommand(),
+                        command.getParameters());
             }
             catch (XmlRpcException exception) {
                 if (isExecApiRetryPossible(exception)) {
@@ -1062,19 +1142,39 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
                     throw new CommandException(exception.getMessage(), exception.getCause());
                 }
             }
+            finally {
+                permit.release();
+            }
         }
         throw new CommandException(String.format("Command %s failed.", command));
     }
 
+    /**
+     * @param command
+     * @return {@link RequestPipeline.RequestType} of given {@code command}
+     */
+    private static RequestPipeline.RequestType getRequestType(Command command)
+    {
+        String commandName = command.getCommand();
+        if (commandName.endsWith(".query") || commandName.endsWith(".status")
+                || commandName.endsWith(".enumerate")) {
+            return RequestPipeline.RequestType.READ;
+        }
+        return RequestPipeline.RequestType.WRITE;
+    }
+
     /**
      * Sends a command to the device. Blocks until response to the command is complete.
      *
+     * @param xmlRpcClient to be used
+     * @param config       to be used
      * @param command
      * @param params
      * @return output of the command
      * @throws XmlRpcException
      */
-    private synchronized Map<String, Object> execApi(String command, Map<String, Object> params) throws XmlRpcException
+    private Map<String, Object> execApi(XmlRpcClient xmlRpcClient, XmlRpcClientConfig config, String command,
+            Map<String, Object> params) throws XmlRpcException
     {
         logger.debug(String.format("Issuing command '%s' on %s", command, deviceAddress));
         HashMap<String, Object> content = new HashMap<String, Object>();
@@ -1084,7 +1184,7 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
         content.put("authenticationUser", authUsername);
         content.put("authenticationPassword", authPassword);
         @SuppressWarnings("unchecked")
-        Map<String, Object> result = (Map<String, Object>) xmlRpcClient.execute(command, new Object[]{content});
+        Map<String, Object> result = (Map<String, Object>) xmlRpcClient.execute(config, command, new Object[]{content});
         return result;
     }
 
@@ -1113,7 +1213,7 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
      *         the list is unmodifiable (so that it may be reused by the execApiEnumerate() method)
      * @throws CommandException
      */
-    private synchronized List<Map<String, Object>> execApiEnumerate(Command command, String enumField)
+    private List<Map<String, Object>> execApiEnumerate(Command command, String enumField)
             throws CommandException
     {
         List<Map<String, Object>> results = new ArrayList<Map<String, Object>>();
@@ -1157,7 +1257,10 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
         }
 
         if (currentRevision != null) {
-            populateResultsFromCache(results, currentRevision, lastRevision, command, enumField);
+            // concurrent enumerations of the same command must not interleave in the cache
+            synchronized (resultsCache) {
+                populateResultsFromCache(results, currentRevision, lastRevision, command, enumField);
+            }
         }
 
         return Collections.unmodifiableList(results);
@@ -1197,7 +1300,10 @@ public class CiscoMCUConnector extends AbstractMultipointConnector
      */
     private Integer prepareCaching(Command command)
     {
-        Integer lastRevision = getCachedRevision(command);
+        Integer lastRevision;
+        synchronized (resultsCache) {
+            lastRevision = getCachedRevision(command);
+        }
         if (lastRevision != null) {
             command.setParameter("lastRevision", lastRevision);
             command.setParameter("listAll", Boolean.TRUE);
@@ -1368,7 +1474,7 @@ ParamsLoop:
         return roomSummary;
     }
 
-    private synchronized Collection<RoomParticipant> getRoomParticipants(String roomId, boolean withHidden) throws CommandException
+    private Collection<RoomParticipant> getRoomParticipants(String roomId, boolean withHidden) throws CommandException
     {
         Command cmd = new Command("participant.enumerate");
         cmd.setParameter("operationScope", new String[]{"currentState"});
@@ -1490,22 +1596,22 @@ ParamsLoop:
     {
         String roomParticipantSnapshotUrl;
         String cacheId = roomId + ":" + roomParticipantId;
-        synchronized (this) {
+        synchronized (roomParticipantSnapshotUrlCache) {
+            roomParticipantSnapshotUrl = roomParticipantSnapshotUrlCache.get(cacheId);
+        }
+        if (roomParticipantSnapshotUrl == null) {
+            Command cmd = new Command("participant.status");
+            cmd.setParameter("operationScope", new String[]{"currentState"});
+            identifyParticipant(cmd, roomId, roomParticipantId);
+            Map<String, Object> result = execApi(cmd);
+            @SuppressWarnings("unchecked")
+            Map<String, Object> state = (Map<String, Object>) result.get("currentState");
+            roomParticipantSnapshotUrl = (String) state.get("previewURL");
+            if (roomParticipantSnapshotUrl == null) {
+                throw new CommandException("Participant " + roomParticipantId + " doesn't have snapshot.");
+            }
             synchronized (roomParticipantSnapshotUrlCache) {
-                roomParticipantSnapshotUrl = roomParticipantSnapshotUrlCache.get(cacheId);
-                if (roomParticipantSnapshotUrl == null) {
-                    Command cmd = new Command("participant.status");
-                    cmd.setParameter("operationScope", new String[]{"currentState"});
-                    identifyParticipant(cmd, roomId, roomParticipantId);
-                    Map<String, Object> result = execApi(cmd);
-                    @SuppressWarnings("unchecked")
-                    Map<String, Object> state = (Map<String, Object>) result.get("currentState");
-                    roomParticipantSnapshotUrl = (String) state.get("previewURL");
-                    if (roomParticipantSnapshotUrl == null) {
-                        throw new CommandException("Participant " + roomParticipantId + " doesn't have snapshot.");
-                    }
-                    roomParticipantSnapshotUrlCache.put(cacheId, roomParticipantSnapshotUrl);
-                }
+                roomParticipantSnapshotUrlCache.put(cacheId, roomParticipantSnapshotUrl);
             }
         }
 
@@ -14,6 +14,7 @@ import cz.cesnet.shongo.connector.api.RecordingService;
 import cz.cesnet.shongo.connector.api.RecordingSettings;
 import cz.cesnet.shongo.connector.common.AbstractDeviceConnector;
 import cz.cesnet.shongo.connector.common.Command;
+import cz.cesnet.shongo.connector.common.RequestPipeline;
 import cz.cesnet.shongo.connector.storage.*;
 import cz.cesnet.shongo.connector.storage.File;
 import cz.cesnet.shongo.controller.NotEnoughSpaceException;
@@ -29,12 +30,14 @@ import org.apache.http.auth.ContextAwareAuthScheme;
 import org.apache.http.auth.UsernamePasswordCredentials;
 import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.entity.ContentType;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.auth.DigestScheme;
 import org.apache.http.message.BasicHttpRequest;
 import org.apache.http.params.CoreProtocolPNames;
+import org.apache.http.params.HttpConnectionParams;
 import org.apache.http.protocol.BasicHttpContext;
 import org.apache.http.util.EntityUtils;
 import org.apache.tika.io.IOUtils;
@@ -56,9 +59,10 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -136,9 +140,10 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
     private final String NS_NS1 = "ns1";
 
     /**
-     * Maximal number of threads for mooving recordings to storage.
+     * {@link HttpClient} for downloading recordings (separated from device requests to not block them by long
+     * downloads), see {@link #getDownloadHttpClient()}.
      */
-    private final int NUM_OF_THREADS = 10;
+    private HttpClient downloadHttpClient;
 
     /**
      * Path for SOAP request on TCS
@@ -862,9 +867,24 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
     @Override
     public void checkRecordings() throws CommandException
     {
-        ExecutorService executorService = performCheckRecordings();
+        List<Future<?>> moves = performCheckRecordings();
+        long deadline = System.currentTimeMillis() + getRequestTimeout();
         try {
-            executorService.awaitTermination(getRequestTimeout(), TimeUnit.MILLISECONDS);
+            for (Future<?> move : moves) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    move.get(remaining, TimeUnit.MILLISECONDS);
+                }
+                catch (ExecutionException exception) {
+                    logger.warn("Moving of recording has failed.", exception.getCause());
+                }
+            }
+        }
+        catch (TimeoutException exception) {
+            logger.debug("Recordings are still being moved.");
         }
         catch (InterruptedException exception) {
             throw new CommandException("Check recordings interrupted", exception);
@@ -969,13 +989,15 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
      * @return Document Element
      * @throws CommandException
      */
-    private synchronized Element execApi(Command command, int timeout, String requestUrl) throws CommandException
+    private Element execApi(Command command, int timeout, String requestUrl) throws CommandException
     {
         if (requestUrl == null) {
             requestUrl = SOAP_PATH;
         }
+        RequestPipeline.RequestType requestType = command.getCommand().startsWith("Get")
+                ? RequestPipeline.RequestType.READ : RequestPipeline.RequestType.WRITE;
+        RequestPipeline.Permit permit = getRequestPipeline().acquire(requestType);
         try {
-            HttpClient httpClient = ConfiguredSSLContext.getInstance().createHttpClient(timeout);
             while (true) {
 
                 logger.debug(String.format("Issuing command '%s' on %s", command.getCommand(), deviceAddress));
@@ -1001,9 +1023,13 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
                 StringEntity lEntity = new StringEntity(xml, ContentType.create("text/xml", "utf-8"));
                 lHttpPost.setEntity(lEntity);
 
-                // Protocol version should be 1.0 because of compatibility with TCS
+                // Protocol version should be 1.0 because of compatibility with TCS (with explicit keep-alive to
+                // reuse pooled connections)
                 lHttpPost.getParams().setParameter(CoreProtocolPNames.PROTOCOL_VERSION, HttpVersion.HTTP_1_0);
-                HttpResponse authResponse = httpClient.execute(lHttpPost);
+                lHttpPost.setHeader("Connection", "Keep-Alive");
+                HttpConnectionParams.setConnectionTimeout(lHttpPost.getParams(), timeout);
+                HttpConnectionParams.setSoTimeout(lHttpPost.getParams(), timeout);
+                HttpResponse authResponse = executeHttp(lHttpPost, null);
 
                 // Validate that we got an HTTP 401 back
                 if (authResponse.getStatusLine().getStatusCode() == HttpStatus.SC_UNAUTHORIZED) {
@@ -1036,7 +1062,7 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
                         System.out.println("===================");
                         */
 
-                        final HttpResponse goodResponse = httpClient.execute(lHttpPost);
+                        final HttpResponse goodResponse = executeHttp(lHttpPost, null);
 
                         String resultString = EntityUtils.toString(goodResponse.getEntity());
 
@@ -1079,11 +1105,13 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
                         return bodyElement;
                     }
                     else {
+                        lHttpPost.releaseConnection();
                         throw new Error("Web-service responded with Http 401, " +
                                 "but didn't send us a usable WWW-Authenticate header.");
                     }
                 }
                 else {
+                    lHttpPost.releaseConnection();
                     throw new Error("Didn't get an Http 401 like we were expecting, but (" +
                             authResponse.getStatusLine().getStatusCode() + ").");
                 }
@@ -1095,6 +1123,9 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
         catch (Exception exception) {
             throw new CommandException("Command '" + command.getCommand() + "' issuing error", exception);
         }
+        finally {
+            permit.release();
+        }
     }
 
     /**
@@ -1620,23 +1651,7 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
             File file = new File();
             file.setFileName(recording.getFileName());
             file.setFolderId(recordingFolderId);
-            final String recordingUrl = recording.getDownloadUrl();
-            final HttpClient httpClient = ConfiguredSSLContext.getInstance().createHttpClient();
-            HttpGet request = new HttpGet(recordingUrl);
-            HttpResponse response = httpClient.execute(request);
-            InputStream inputStream = response.getEntity().getContent();
-            storage.createFile(file, inputStream, new ResumeSupport()
-            {
-                @Override
-                public InputStream reopenInputStream(InputStream oldInputStream, int offset) throws IOException
-                {
-                    // resume input stream for recording data at given offset
-                    HttpGet request = new HttpGet(recordingUrl);
-                    request.setHeader("Range", "bytes=" + offset + "-");
-                    HttpResponse response = httpClient.execute(request);
-                    return response.getEntity().getContent();
-                }
-            });
+            storage.createFile(file, new RecordingRangeSupport(recording.getDownloadUrl()));
 
             updateMetadataFiles(recordingFolderId, recordingId, recordingTcsElement);
 
@@ -1691,10 +1706,10 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
      *
      * @throws CommandException
      */
-    private ExecutorService performCheckRecordings() throws CommandException
+    private List<Future<?>> performCheckRecordings() throws CommandException
     {
-        ExecutorService exec = Executors.newFixedThreadPool(NUM_OF_THREADS);
-        try {
+        List<Future<?>> moves = new LinkedList<Future<?>>();
+        {
             List<Recording> recordingsToMove = new LinkedList<Recording>();
             synchronized (CiscoTCSConnector.class) {
                 logger.debug("Checking recordings to be moved...");
@@ -1731,7 +1746,7 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
             }
 
             for (final Recording recording : recordingsToMove) {
-                exec.submit(new Runnable()
+                moves.add(TransferEngine.getInstance().submit(new Runnable()
                 {
                     @Override
                     public void run()
@@ -1784,13 +1799,10 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
                             }
                         }
                     }
-                });
+                }));
             }
-            return exec;
-        }
-        finally {
-            exec.shutdown();
         }
+        return moves;
     }
 
     public class FaultException extends CommandException
@@ -1835,4 +1847,80 @@ public class CiscoTCSConnector extends AbstractDeviceConnector implements Record
             super(message, cause);
         }
     }
+
+    /**
+     * @return {@link #downloadHttpClient}
+     */
+    private synchronized HttpClient getDownloadHttpClient()
+    {
+        if (downloadHttpClient == null) {
+            downloadHttpClient = ConfiguredSSLContext.getInstance().createHttpClient(getRequestTimeout(),
+                    TransferEngine.MAX_CHUNKS);
+        }
+        return downloadHttpClient;
+    }
+
+    /**
+     * {@link RangeSupport} for recording data which are downloaded from {@link Recording#getDownloadUrl()}
+     * by HTTP range requests.
+     */
+    private class RecordingRangeSupport implements RangeSupport
+    {
+        /**
+         * URL of the recording data.
+         */
+        private final String recordingUrl;
+
+        /**
+         * Constructor.
+         *
+         * @param recordingUrl sets the {@link #recordingUrl}
+         */
+        public RecordingRangeSupport(String recordingUrl)
+        {
+            this.recordingUrl = recordingUrl;
+        }
+
+        @Override
+        public long getContentLength() throws IOException
+        {
+            HttpResponse response = getDownloadHttpClient().execute(new HttpHead(recordingUrl));
+            EntityUtils.consumeQuietly(response.getEntity());
+            Header acceptRanges = response.getFirstHeader("Accept-Ranges");
+            Header contentLength = response.getFirstHeader("Content-Length");
+            if (response.getStatusLine().getStatusCode() != HttpStatus.SC_OK || acceptRanges == null
+                    || !"bytes".equals(acceptRanges.getValue()) || contentLength == null) {
+                return -1;
+            }
+            try {
+                return Long.parseLong(contentLength.getValue());
+            }
+            catch (NumberFormatException exception) {
+                return -1;
+            }
+        }
+
+        @Override
+        public InputStream openInputStream(long offset, long length) throws IOException
+        {
+            HttpGet request = new HttpGet(recordingUrl);
+            if (offset > 0 || length >= 0) {
+                request.setHeader("Range", "bytes=" + offset + "-" + (length >= 0 ? (offset + length - 1) : ""));
+            }
+            HttpResponse response = getDownloadHttpClient().execute(request);
+            int statusCode = response.getStatusLine().getStatusCode();
+            if (statusCode != HttpStatus.SC_PARTIAL_CONTENT && !(statusCode == HttpStatus.SC_OK && offset == 0)) {
+                EntityUtils.consumeQuietly(response.getEntity());
+                throw new IOException("Failed to download " + recordingUrl + " from " + offset + ": "
+                        + response.getStatusLine());
+            }
+            return response.getEntity().getContent();
+        }
+
+        @Override
+        public InputStream reopenInputStream(InputStream oldInputStream, int offset) throws IOException
+        {
+            return openInputStream(offset, -1);
+        }
+    }
 }
@@ -9,6 +9,7 @@ import cz.cesnet.shongo.connector.api.MonitoringService;
 import cz.cesnet.shongo.connector.api.UsageStats;
 import cz.cesnet.shongo.connector.common.AbstractSSHConnector;
 import cz.cesnet.shongo.connector.common.Command;
+import cz.cesnet.shongo.connector.common.RequestPipeline;
 import cz.cesnet.shongo.connector.api.ConnectorInitException;
 import cz.cesnet.shongo.connector.api.EndpointService;
 import org.slf4j.Logger;
@@ -259,20 +260,23 @@ public class CodecC90Connector extends AbstractSSHConnector implements EndpointS
      * @return output of the command
      * @throws IOException
      */
-    private Document exec(Command command) throws IOException, SAXException, ParserConfigurationException
+    private Document exec(Command command)
+            throws IOException, SAXException, ParserConfigurationException, CommandException
     {
-        sendCommand(command);
-
-        String output = readOutput();
+        RequestPipeline.RequestType requestType = command.getCommand().toLowerCase().startsWith("xstatus")
+                ? RequestPipeline.RequestType.READ : RequestPipeline.RequestType.WRITE;
+        String output = execute(command, requestType);
         InputSource is = new InputSource(new StringReader(output));
 
-        if (resultBuilder == null) {
-            // lazy initialization
-            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
-            resultBuilder = factory.newDocumentBuilder();
+        // the builder is shared by all connectors and it isn't thread-safe
+        synchronized (CodecC90Connector.class) {
+            if (resultBuilder == null) {
+                // lazy initialization
+                DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+                resultBuilder = factory.newDocumentBuilder();
+            }
+            return resultBuilder.parse(is);
         }
-
-        return resultBuilder.parse(is);
     }
 
     private static XPathFactory xPathFactory = XPathFactory.newInstance();
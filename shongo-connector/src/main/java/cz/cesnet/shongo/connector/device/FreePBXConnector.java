@@ -12,17 +12,21 @@ import cz.cesnet.shongo.connector.common.RequestAttributeList;
 import cz.cesnet.shongo.connector.util.HttpReqUtils;
 import org.apache.commons.codec.binary.Base64;
 import org.apache.commons.codec.binary.Hex;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.StatusLine;
+import org.apache.http.client.methods.*;
+import org.apache.http.util.EntityUtils;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.crypto.Mac;
 import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.HttpURLConnection;
 import java.net.SocketException;
-import java.net.URL;
 import java.nio.charset.StandardCharsets;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
@@ -368,6 +372,8 @@ public class FreePBXConnector extends AbstractMultipointConnector {
 
     /**
      * Execute command on FreePBX server and returns {@link InputStream} with response.
+     * <p/>
+     * The response is read whole and thus the pooled connection is immediately returned for other requests.
      *
      * @param actionPath
      * @return response in {@link InputStream}
@@ -382,11 +388,14 @@ public class FreePBXConnector extends AbstractMultipointConnector {
             while (retryCount > 0) {
                 try {
                     logger.debug(String.format("Calling action %s on %s", actionPath, deviceAddress));
-                    HttpURLConnection connection = execApi(callUrl, reqMethod);
-                    if (!(200 <= connection.getResponseCode() && connection.getResponseCode() <= 200)) {
-                        throw new RequestFailedCommandException("Response: " + connection.getResponseCode() + " " + connection.getResponseMessage());
+                    HttpResponse response = execApi(callUrl, reqMethod);
+                    StatusLine statusLine = response.getStatusLine();
+                    if (!(200 <= statusLine.getStatusCode() && statusLine.getStatusCode() <= 200)) {
+                        EntityUtils.consume(response.getEntity());
+                        throw new RequestFailedCommandException("Response: " + statusLine.getStatusCode() + " " + statusLine.getReasonPhrase());
                     }
-                    return connection.getInputStream();
+                    HttpEntity entity = response.getEntity();
+                    return new ByteArrayInputStream(entity != null ? EntityUtils.toByteArray(entity) : new byte[0]);
                 } catch (IOException exception) {
                     if (isRequestApiRetryPossible(exception)) {
                         retryCount--;
@@ -409,7 +418,7 @@ public class FreePBXConnector extends AbstractMultipointConnector {
 
     }
 
-    protected HttpURLConnection execApi(String actionUrl, String reqMethod) throws IOException, SignatureException, NoSuchAlgorithmException {
+    protected HttpResponse execApi(String actionUrl, String reqMethod) throws IOException, SignatureException, NoSuchAlgorithmException {
         String nonce = generateNonce();
         String urlWithoutProtocol;
         if (deviceAddress.isSsl()) {
@@ -421,14 +430,25 @@ public class FreePBXConnector extends AbstractMultipointConnector {
         String dataHash = getDataHash(token, urlWithoutProtocol, reqMethod, nonce, "");
         String signature = computeSignature(tokenKey, dataHash);
 
-        HttpURLConnection connection;
-        connection = (HttpURLConnection) new URL(actionUrl).openConnection();
-        connection.setRequestMethod(reqMethod);
-        connection.setRequestProperty("Signature", signature);
-        connection.setRequestProperty("Nonce", nonce);
-        connection.setRequestProperty("Token", token);
-        connection.connect();
-        return connection;
+        HttpRequestBase request;
+        switch (reqMethod) {
+            case HttpPut.METHOD_NAME:
+                request = new HttpPut(actionUrl);
+                break;
+            case HttpPost.METHOD_NAME:
+                request = new HttpPost(actionUrl);
+                break;
+            case HttpDelete.METHOD_NAME:
+                request = new HttpDelete(actionUrl);
+                break;
+            default:
+                request = new HttpGet(actionUrl);
+                break;
+        }
+        request.setHeader("Signature", signature);
+        request.setHeader("Nonce", nonce);
+        request.setHeader("Token", token);
+        return executeHttp(request, null);
     }
 
     public static class RequestFailedCommandException extends CommandException
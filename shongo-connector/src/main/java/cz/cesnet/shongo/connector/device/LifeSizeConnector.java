@@ -9,6 +9,7 @@ import cz.cesnet.shongo.api.DeviceLoadInfo;
 import cz.cesnet.shongo.api.util.DeviceAddress;
 import cz.cesnet.shongo.connector.common.AbstractSSHConnector;
 import cz.cesnet.shongo.connector.common.Command;
+import cz.cesnet.shongo.connector.common.RequestPipeline;
 import cz.cesnet.shongo.connector.api.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -18,7 +19,6 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.util.*;
 import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -499,8 +499,6 @@ public class LifeSizeConnector extends AbstractSSHConnector implements EndpointS
         return new Command(command, " ");
     }
 
-    private volatile ReentrantLock commandLock = new ReentrantLock();
-
     /**
      * Send a command to the device.
      * In case of an error, throws a CommandException with a detailed message.
@@ -510,14 +508,18 @@ public class LifeSizeConnector extends AbstractSSHConnector implements EndpointS
      */
     private String[] issueCommand(Command command) throws CommandException
     {
+        RequestPipeline.RequestType requestType = command.getCommand().startsWith("get")
+                ? RequestPipeline.RequestType.READ : RequestPipeline.RequestType.WRITE;
+        RequestPipeline.Permit permit;
         if (command.getCommand().trim().isEmpty()) {
-            // for flushing commands, just try to get the lock
-            if (!commandLock.tryLock()) {
+            // for flushing commands, just try to get the permit
+            permit = getRequestPipeline().tryAcquire(requestType);
+            if (permit == null) {
                 return null;
             }
         }
         else {
-            commandLock.lock();
+            permit = getRequestPipeline().acquire(requestType);
         }
 
         try {
@@ -579,11 +581,13 @@ Reading:
         }
         catch (IOException e) {
             logger.error("Error issuing command '" + command + "'", e);
+            // the reconnecting waits for all in-flight commands
+            permit.release();
             reconnect();
             throw new CommandException("Command issuing error", e);
         }
         finally {
-            commandLock.unlock();
+            permit.release();
 
             if (!processingAsyncMessages && !asyncMsgQueue.isEmpty()) {
                 processingAsyncMessages = true;
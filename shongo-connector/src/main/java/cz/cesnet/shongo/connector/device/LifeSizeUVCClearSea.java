@@ -7,14 +7,17 @@ import cz.cesnet.shongo.connector.api.AliasService;
 import cz.cesnet.shongo.connector.common.AbstractDeviceConnector;
 import cz.cesnet.shongo.controller.api.jade.NotifyTarget;
 import cz.cesnet.shongo.controller.api.jade.Service;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.methods.*;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.params.HttpConnectionParams;
+import org.apache.http.util.EntityUtils;
 import org.json.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import javax.net.ssl.HttpsURLConnection;
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.MalformedURLException;
 import java.net.SocketTimeoutException;
 import java.net.URL;
@@ -269,10 +272,15 @@ public class LifeSizeUVCClearSea extends AbstractDeviceConnector implements Alia
         Exception exception = null;
         try {
             String actionUrl = buildURLString(ACTION_STATUS);
-            HttpsURLConnection connection = (HttpsURLConnection)new URL(actionUrl).openConnection();
-            connection.setConnectTimeout(this.requestTimeout);
-            // Throws exception when an error is found
-            checkError(connection);
+            HttpGet request = new HttpGet(actionUrl);
+            HttpConnectionParams.setConnectionTimeout(request.getParams(), this.requestTimeout);
+            HttpResponse response = executeHttp(request, null);
+            try {
+                // Throws exception when an error is found
+                checkError(response);
+            } finally {
+                EntityUtils.consume(response.getEntity());
+            }
         } catch (SocketTimeoutException e) {
             logged = false;
             message = "Timeout in checkTokenValidity.";
@@ -328,43 +336,44 @@ public class LifeSizeUVCClearSea extends AbstractDeviceConnector implements Alia
             actionUrl = buildLoginUrlString(action);
         }
 
-        HttpsURLConnection connection;
+        HttpRequestBase request;
         try {
-            connection = (HttpsURLConnection) new URL(actionUrl).openConnection();
-            connection.setConnectTimeout(this.requestTimeout);
+            switch (requestType) {
+                case GET:
+                    request = new HttpGet(actionUrl);
+                    break;
+                case POST:
+                    request = new HttpPost(actionUrl);
+                    break;
+                default:
+                    request = new HttpDelete(actionUrl);
+                    break;
+            }
+            HttpConnectionParams.setConnectionTimeout(request.getParams(), this.requestTimeout);
         }
-        catch (MalformedURLException e) {
+        catch (IllegalArgumentException e) {
             String message = "Malformed URL \"" + actionUrl + "\".";
             logger.error(message);
             throw new CommandException(message, e);
         }
-        catch (IOException e) {
-            String message = "Failed to initialize url connection for action: " + actionUrl;
-            logger.error(message);
-            throw new CommandException(message, e);
-        }
         try {
-            connection.setRequestMethod(requestType.toString());
             JSONObject jsonResponse = null;
             if (requestType == RequestType.GET) {
-                connection.setRequestProperty("Accept", "application/json");
-                checkError(connection);
-                BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(connection.getInputStream()));
-                StringBuilder stringBuilder = new StringBuilder();
-                String responseLine;
-                while ((responseLine = bufferedReader.readLine()) != null) {
-                    stringBuilder.append(responseLine);
-                }
-                jsonResponse = new JSONObject(stringBuilder.toString());
-            } else {
-                connection.setDoOutput(true);
-                connection.setRequestProperty("Content-Type", "application/json");
-                if (jsonObject != null) {
-                    connection.getOutputStream().write(jsonObject.toString().getBytes());
+                request.setHeader("Accept", "application/json");
+            } else if (jsonObject != null && request instanceof HttpEntityEnclosingRequestBase) {
+                ((HttpEntityEnclosingRequestBase) request).setEntity(
+                        new StringEntity(jsonObject.toString(), ContentType.APPLICATION_JSON));
+            }
+            // The pooled connection is kept alive for following requests (when the response is consumed)
+            HttpResponse response = executeHttp(request, null);
+            try {
+                checkError(response);
+                if (requestType == RequestType.GET) {
+                    jsonResponse = new JSONObject(EntityUtils.toString(response.getEntity()));
                 }
-                checkError(connection);
+            } finally {
+                EntityUtils.consume(response.getEntity());
             }
-            connection.disconnect();
             if (actionUrl.contains(API_V2)) {
                 logger.info("Action: " + action + " was successful.");
             } else {
@@ -380,20 +389,18 @@ public class LifeSizeUVCClearSea extends AbstractDeviceConnector implements Alia
         } catch (Exception e) {
             logger.error("UNKWNOW ERROR: ", e);
             planConnection();
-        } finally {
-            connection.disconnect();
         }
         return null;
     }
 
     /**
      * Function throws exceptions for different HTTP connection error response codes.
-     * @param connection https connection
+     * @param response http response
      * @throws CommandException
      */
-    private void checkError(HttpsURLConnection connection) throws CommandException {
+    private void checkError(HttpResponse response) throws CommandException {
         try {
-            int errorCode = connection.getResponseCode();
+            int errorCode = response.getStatusLine().getStatusCode();
             switch (errorCode) {
                 case 200: {
                     // 200 OK - The API call succeeded with no errors; a JSON Result list of objects is returned.
@@ -421,14 +428,10 @@ public class LifeSizeUVCClearSea extends AbstractDeviceConnector implements Alia
                 }
                 default: {
                     if (errorCode > 400) {
-                        throw new CommandException(errorCode + " " + connection.getResponseMessage());
+                        throw new CommandException(errorCode + " " + response.getStatusLine().getReasonPhrase());
                     }
                 }
             }
-        } catch (IOException e) {
-            String message = "Error code could not be read from the connection.";
-            logger.error(message);
-            throw new CommandException(message, e);
         } catch (Exception e) {
             logger.error("CONNECTION ERROR: " + e.getMessage(), e);
             throw e;
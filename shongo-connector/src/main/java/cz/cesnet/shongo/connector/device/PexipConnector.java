@@ -14,10 +14,8 @@ import cz.cesnet.shongo.connector.api.UsageStats;
 import cz.cesnet.shongo.connector.common.AbstractMultipointConnector;
 import cz.cesnet.shongo.connector.common.RequestAttributeList;
 import cz.cesnet.shongo.connector.util.HttpReqUtils;
-import cz.cesnet.shongo.ssl.ConfiguredSSLContext;
 import org.apache.http.HttpResponse;
 import org.apache.http.StatusLine;
-import org.apache.http.client.HttpClient;
 import org.apache.http.client.methods.*;
 import org.apache.http.entity.StringEntity;
 import org.apache.http.message.BasicHeader;
@@ -57,11 +55,6 @@ public class PexipConnector extends AbstractMultipointConnector {
      */
     protected int requestTimeout;
 
-    /**
-     * Client used for the Http communication with the device.
-     */
-    private HttpClient httpClient;
-
     /**
      * Option for the {@link PexipConnector}.
      */
@@ -284,8 +277,6 @@ public class PexipConnector extends AbstractMultipointConnector {
     @Override
     public void disconnect() throws CommandException {
         // no real operation - the communication protocol is stateless
-        httpClient = null; // just for sure the attributes are not used anymore
-
     }
 
     @Override
@@ -526,9 +517,6 @@ public class PexipConnector extends AbstractMultipointConnector {
         this.deviceAddress = deviceAddress;
         this.requestTimeout = (int) configuration.getOptionDuration(OPTION_TIMEOUT, OPTION_TIMEOUT_DEFAULT).getMillis();
 
-        // Create HttpClient for Http communication
-        httpClient = ConfiguredSSLContext.getInstance().createHttpClient(requestTimeout);
-
         //Try to fetch nodes list
         try {
             JSONObject jsonResponse = execApi("/api/admin/status/v1/worker_vm/", null, null, HttpMethod.GET);
@@ -585,7 +573,7 @@ public class PexipConnector extends AbstractMultipointConnector {
 
         try {
             addBodyToRequest(request, body);
-            response = httpClient.execute(request);
+            response = executeHttp(request, null);
             StatusLine responseStatusLine = response.getStatusLine();
 
             if (responseStatusLine.getStatusCode() >= 400) {
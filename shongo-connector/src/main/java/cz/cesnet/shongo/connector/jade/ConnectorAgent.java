@@ -65,6 +65,8 @@ public class ConnectorAgent extends Agent
         addOntology(ConnectorOntology.getInstance());
         addOntology(ControllerOntology.getInstance());
         setCommandTimeout((int) connectorContainerConfiguration.getJadeCommandTimeout().getMillis());
+        setCommandWorkerCount(connectorContainerConfiguration.getJadeCommandWorkerCount());
+        setCommandQueueCapacity(connectorContainerConfiguration.getJadeCommandQueueCapacity());
 
         // Create and initialize connector
         Class<? extends CommonService> connectorClass;
@@ -144,29 +146,36 @@ public class ConnectorAgent extends Agent
     }
 
     @Override
-    public SendLocalCommand sendCommand(String receiverAgentName, Command command)
+    public SendLocalCommand sendCommandAsync(String receiverAgentName, final Command command)
     {
         ConnectorContainer.requestedCommands.info("Action:{} {}.", command.getId(), command);
-        SendLocalCommand sendLocalCommand = super.sendCommand(receiverAgentName, command);
-        String commandState;
-        switch (sendLocalCommand.getState()) {
-            case SUCCESSFUL:
-                Object result = sendLocalCommand.getResult();
-                if (result != null && result instanceof String) {
-                    commandState = String.format("OK: %s", result);
-                }
-                else {
-                    commandState = "OK";
+        final SendLocalCommand sendLocalCommand = super.sendCommandAsync(receiverAgentName, command);
+        sendLocalCommand.addListener(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                String commandState;
+                switch (sendLocalCommand.getState()) {
+                    case SUCCESSFUL:
+                        Object result = sendLocalCommand.getResult();
+                        if (result != null && result instanceof String) {
+                            commandState = String.format("OK: %s", result);
+                        }
+                        else {
+                            commandState = "OK";
+                        }
+                        break;
+                    case FAILED:
+                        commandState = String.format("FAILED: %s", sendLocalCommand.getJadeReport().getMessage());
+                        break;
+                    default:
+                        commandState = "UNKNOWN";
+                        break;
                 }
-                break;
-            case FAILED:
-                commandState = String.format("FAILED: %s", sendLocalCommand.getJadeReport().getMessage());
-                break;
-            default:
-                commandState = "UNKNOWN";
-                break;
-        }
-        ConnectorContainer.requestedCommands.info("Action:{} Done ({}).", command.getId(), commandState);
+                ConnectorContainer.requestedCommands.info("Action:{} Done ({}).", command.getId(), commandState);
+            }
+        }, null);
         return sendLocalCommand;
     }
 
@@ -150,6 +150,12 @@ public class ApacheStorage extends AbstractStorage
         localStorageHandler.createFile(file, fileContent, resumeSupport);
     }
 
+    @Override
+    public void createFile(File file, RangeSupport rangeSupport)
+    {
+        localStorageHandler.createFile(file, rangeSupport);
+    }
+
     @Override
     public void deleteFile(String folderId, String fileName)
     {
@@ -0,0 +1,126 @@
+package cz.cesnet.shongo.connector.storage;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress and throughput of a single transfer of file content performed by {@link TransferEngine}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class FileTransfer
+{
+    /**
+     * Name of the transferred file.
+     */
+    private final String name;
+
+    /**
+     * Expected length of the file in bytes or {@code -1} when it is unknown.
+     */
+    private volatile long length = -1;
+
+    /**
+     * Number of already transferred bytes.
+     */
+    private final AtomicLong transferredBytes = new AtomicLong();
+
+    /**
+     * Time in milliseconds when the transfer has been started.
+     */
+    private final long startTime = System.currentTimeMillis();
+
+    /**
+     * Time in milliseconds when the transfer has been finished (or {@code null} when it is still in progress).
+     */
+    private volatile Long finishTime;
+
+    /**
+     * Constructor.
+     *
+     * @param name sets the {@link #name}
+     */
+    public FileTransfer(String name)
+    {
+        this.name = name;
+    }
+
+    /**
+     * @return {@link #name}
+     */
+    public String getName()
+    {
+        return name;
+    }
+
+    /**
+     * @return {@link #length}
+     */
+    public long getLength()
+    {
+        return length;
+    }
+
+    /**
+     * @param length sets the {@link #length}
+     */
+    public void setLength(long length)
+    {
+        this.length = length;
+    }
+
+    /**
+     * @return {@link #transferredBytes}
+     */
+    public long getTransferredBytes()
+    {
+        return transferredBytes.get();
+    }
+
+    /**
+     * @param bytes to be added to the {@link #transferredBytes} (negative when the data are transferred again)
+     */
+    public void addTransferredBytes(long bytes)
+    {
+        transferredBytes.addAndGet(bytes);
+    }
+
+    /**
+     * @return duration of the transfer in milliseconds
+     */
+    public long getDuration()
+    {
+        Long finishTime = this.finishTime;
+        return (finishTime != null ? finishTime : System.currentTimeMillis()) - startTime;
+    }
+
+    /**
+     * @return average throughput of the transfer in bytes per second
+     */
+    public long getThroughput()
+    {
+        return getTransferredBytes() * 1000 / Math.max(1, getDuration());
+    }
+
+    /**
+     * @return true whether the transfer has been finished, false otherwise
+     */
+    public boolean isFinished()
+    {
+        return finishTime != null;
+    }
+
+    /**
+     * Mark the transfer as finished.
+     */
+    public void finish()
+    {
+        finishTime = System.currentTimeMillis();
+    }
+
+    @Override
+    public String toString()
+    {
+        return String.format("%s (%d of %s bytes in %d ms, %d kB/s)", name, getTransferredBytes(),
+                (length >= 0 ? Long.toString(length) : "?"), getDuration(), getThroughput() / 1024);
+    }
+}
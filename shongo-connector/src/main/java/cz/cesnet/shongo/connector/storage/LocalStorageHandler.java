@@ -21,11 +21,6 @@ public class LocalStorageHandler
 {
     private static Logger logger = LoggerFactory.getLogger(LocalStorageHandler.class);
 
-    /**
-     * Maximum number of consequent resumings.
-     */
-    private final int MAX_RESUME_COUNT = 5;
-
     /**
      * Duration in milliseconds to sleep before resuming.
      */
@@ -196,13 +191,48 @@ public class LocalStorageHandler
      * @param fileContent   input stream from which the file content can be read
      * @param resumeSupport to be used for re-opening given {@code fileContent}
      */
-    public void createFile(File file, InputStream fileContent, ResumeSupport resumeSupport)
+    public void createFile(File file, final InputStream fileContent, final ResumeSupport resumeSupport)
     {
-        String folderId = file.getFolderId();
+        createFile(file, new FileCreation()
+        {
+            @Override
+            public void perform(java.io.File ioFile, TransferEngine.Cancellation cancellation) throws IOException
+            {
+                TransferEngine.getInstance().transfer(ioFile, fileContent, resumeSupport, cancellation);
+            }
+        });
+    }
+
+    /**
+     * Create a new file in existing folder (the file content is downloaded in parallel chunks when it is large enough).
+     *
+     * @param file         information about the new file
+     * @param rangeSupport from which the file content can be read
+     */
+    public void createFile(File file, final RangeSupport rangeSupport)
+    {
+        createFile(file, new FileCreation()
+        {
+            @Override
+            public void perform(java.io.File ioFile, TransferEngine.Cancellation cancellation) throws IOException
+            {
+                TransferEngine.getInstance().transfer(ioFile, rangeSupport, cancellation);
+            }
+        });
+    }
+
+    /**
+     * Create a new file in existing folder.
+     *
+     * @param file         information about the new file
+     * @param fileCreation which writes the file content
+     */
+    private void createFile(File file, FileCreation fileCreation)
+    {
+        final String folderId = file.getFolderId();
         String folderUrl = getUrlFromId(folderId);
         file.setFileName(mangle(file.getFileName()));
         String fileName = file.getFileName();
-//        String fileUrl = getChildPath(folderUrl, fileName);
         java.io.File ioFile = getFileInstance(file);
         String fileUrl = ioFile.getAbsolutePath();
 
@@ -214,120 +244,15 @@ public class LocalStorageHandler
             filesBeingCreated.put(fileName, folderUrl);
         }
         try {
-            int fileContentIndex = 0;
-            OutputStream fileOutputStream = new FileOutputStream(fileUrl);
-            try {
-                byte[] buffer = new byte[4096];
-                while (true) {
-                    // Read next bytes into buffer
-                    int readResumeCount = MAX_RESUME_COUNT;
-                    int bytesRead;
-                    while (true) {
-                        try {
-                            bytesRead = fileContent.read(buffer, 0, buffer.length);
-                            readResumeCount = MAX_RESUME_COUNT;
-                            break;
-                        }
-                        catch (IOException exception) {
-                            // Check if resume isn't available
-                            if (resumeSupport == null || --readResumeCount <= 0) {
-                                throw exception;
-                            }
-
-                            String message = "Creation of file " + getChildPath(folderUrl, fileName) + ": ";
-                            logger.warn(message + "Reading data failed at " + fileContentIndex + ".", exception);
-
-                            // Wait before resuming
-                            try {
-                                Thread.sleep(WAIT_SLEEP);
-                            }
-                            catch (InterruptedException sleepException) {
-                                Thread.currentThread().interrupt();
-                                logger.warn("Thread.sleep", sleepException);
-                            }
-
-                            // Reopen file content stream
-                            logger.info(message + "Trying to resume the reading the data at {}...", fileContentIndex);
-                            InputStream oldFileContent = fileContent;
-                            try {
-                                fileContent = resumeSupport.reopenInputStream(fileContent, fileContentIndex);
-                                logger.info(message + "Resume succeeded, continuing in file creation...");
-                            }
-                            catch (Exception resumeException) {
-                                throw new RuntimeException("Reopening input stream failed for creation of file " +
-                                        getChildPath(folderUrl, fileName) + ".", resumeException);
-                            }
-                            finally {
-                                try {
-                                    oldFileContent.close();
-                                }
-                                catch (IOException closeException) {
-                                    logger.debug("Failed to close old input stream...");
-                                }
-                            }
-                        }
-                        catch (Exception exception) {
-                            throw new RuntimeException("Reading input stream failed for creation of file " +
-                                    getChildPath(folderUrl, fileName) + " at " + fileContentIndex + ".", exception);
-                        }
-                    }
-
-                    // Check for end of file content
-                    if (bytesRead == -1) {
-                        break;
-                    }
-                    // Check if folder isn't already deleted
-                    if (foldersBeingDeleted.contains(file.getFolderId())) {
-                        logger.warn("Creation of file " + getChildPath(folderUrl, fileName) +
-                                " has been stopped because folder " + folderId + " is being deleted.");
-                        break;
-                    }
-                    // Write bytes from buffer
-                    int writeResumeCount = MAX_RESUME_COUNT;
-                    while (true) {
-                        try {
-                            fileOutputStream.write(buffer, 0, bytesRead);
-                            writeResumeCount = MAX_RESUME_COUNT;
-                            break;
-                        }
-                        catch (IOException exception) {
-                            // Close output stream
-                            fileOutputStream.close();
-
-                            // Check if resume isn't available
-                            if (--writeResumeCount <= 0) {
-                                throw exception;
-                            }
-
-                            // Resume writing
-                            try {
-                                fileOutputStream = new FileOutputStream(fileUrl);
-                            }
-                            catch (Exception resumeException) {
-                                throw new RuntimeException("Reopening output stream failed for creation of file " +
-                                        file.getFolderId() + ":" + file.getFileName() + ".", resumeException);
-                            }
-                            logger.warn("Writing file {}:{} failed at {}, resuming...", new Object[]{
-                                    file.getFolderId(), file.getFileName(), fileContentIndex
-                            });
-                            try {
-                                Thread.sleep(WAIT_SLEEP);
-                            }
-                            catch (InterruptedException sleepException) {
-                                Thread.currentThread().interrupt();
-                                logger.warn("Thread.sleep", sleepException);
-                            }
-                        }
-                    }
-
-                    // Move file content
-                    fileContentIndex += bytesRead;
+            // Creation of the file is stopped when the folder is being deleted
+            fileCreation.perform(ioFile, new TransferEngine.Cancellation()
+            {
+                @Override
+                public boolean isCancelled()
+                {
+                    return foldersBeingDeleted.contains(folderId);
                 }
-            }
-            finally {
-                fileContent.close();
-                fileOutputStream.close();
-            }
+            });
         }
         catch (IOException exception) {
             throw new RuntimeException("File '" + fileUrl + "' cannot be created.", exception);
@@ -580,4 +505,17 @@ public class LocalStorageHandler
     {
         return file.getFileName().contains(mangle(fileId));
     }
+
+    /**
+     * Writes content of a new file.
+     */
+    private static interface FileCreation
+    {
+        /**
+         * @param ioFile       to which the content should be written
+         * @param cancellation which can stop the writing
+         * @throws IOException
+         */
+        void perform(java.io.File ioFile, TransferEngine.Cancellation cancellation) throws IOException;
+    }
 }
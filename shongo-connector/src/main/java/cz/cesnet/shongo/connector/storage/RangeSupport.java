@@ -0,0 +1,25 @@
+package cz.cesnet.shongo.connector.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link ResumeSupport} which can open any range of the content (e.g., by HTTP range requests) and thus the content
+ * can be downloaded in multiple parallel chunks.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public interface RangeSupport extends ResumeSupport
+{
+    /**
+     * @return length of the content in bytes or {@code -1} when it is unknown or when the ranges aren't supported
+     */
+    long getContentLength() throws IOException;
+
+    /**
+     * @param offset at which the {@link java.io.InputStream} should be opened
+     * @param length number of bytes which should be read or {@code -1} for the rest of the content
+     * @return newly opened {@link java.io.InputStream}
+     */
+    InputStream openInputStream(long offset, long length) throws IOException;
+}
@@ -66,6 +66,14 @@ public interface Storage
      */
     void createFile(File file, InputStream fileContent, ResumeSupport resumeSupport);
 
+    /**
+     * Create a new file in existing folder in the storage (the file content can be downloaded in parallel chunks).
+     *
+     * @param file         information about the new file
+     * @param rangeSupport from which the file content can be read
+     */
+    void createFile(File file, RangeSupport rangeSupport);
+
     /**
      * Delete existing file in the storage.
      *
@@ -0,0 +1,564 @@
+package cz.cesnet.shongo.connector.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+
+/**
+ * Transfers content of files into local files by {@link FileChannel#transferFrom}. Content of local files
+ * (i.e., {@link FileInputStream}s) is transferred between the file channels without copying the data to user space,
+ * other content (e.g., network streams) is copied by the JDK through a native buffer and thus not through the heap.
+ * <p/>
+ * Content which supports ranges (see {@link RangeSupport}) is downloaded in multiple parallel chunks. Interrupted
+ * transfers are resumed (see {@link ResumeSupport}) and the already transferred data are verified by checksum of
+ * the overlapping part of resumed content (when the content has been changed, the transfer starts from beginning).
+ * <p/>
+ * All transfers are performed in long-lived bounded thread pools which are shared by all connectors.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class TransferEngine
+{
+    private static Logger logger = LoggerFactory.getLogger(TransferEngine.class);
+
+    /**
+     * Maximum number of concurrently performed tasks submitted by {@link #submit}.
+     */
+    public static final int MAX_TASKS = 10;
+
+    /**
+     * Maximum number of concurrently downloaded chunks.
+     */
+    public static final int MAX_CHUNKS = 8;
+
+    /**
+     * Size of single chunk in bytes.
+     */
+    public static final long CHUNK_SIZE = 32 * 1024 * 1024;
+
+    /**
+     * Maximum number of bytes transferred by single {@link FileChannel#transferFrom}.
+     */
+    private static final long BLOCK_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Number of already transferred bytes which are verified when the transfer is resumed.
+     */
+    private static final int VERIFY_LENGTH = 64 * 1024;
+
+    /**
+     * Maximum number of consequent resumings.
+     */
+    private static final int MAX_RESUME_COUNT = 5;
+
+    /**
+     * Duration in milliseconds to sleep before first resuming (it is increased for each consequent resuming).
+     */
+    private static final int WAIT_SLEEP = 100;
+
+    /**
+     * Single instance of {@link TransferEngine}.
+     */
+    private static TransferEngine instance;
+
+    /**
+     * {@link ExecutorService} for tasks submitted by {@link #submit}.
+     */
+    private final ExecutorService taskExecutor = createExecutor("transfer-task", MAX_TASKS);
+
+    /**
+     * {@link ExecutorService} for downloading of chunks.
+     */
+    private final ExecutorService chunkExecutor = createExecutor("transfer-chunk", MAX_CHUNKS);
+
+    /**
+     * Currently performed {@link FileTransfer}s.
+     */
+    private final Set<FileTransfer> activeTransfers =
+            Collections.newSetFromMap(new ConcurrentHashMap<FileTransfer, Boolean>());
+
+    /**
+     * Size of single chunk in bytes.
+     */
+    private final long chunkSize;
+
+    /**
+     * Maximum number of bytes transferred by single {@link FileChannel#transferFrom}.
+     */
+    private final long blockSize;
+
+    /**
+     * Constructor.
+     */
+    private TransferEngine()
+    {
+        this(CHUNK_SIZE, BLOCK_SIZE);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param chunkSize sets the {@link #chunkSize}
+     * @param blockSize sets the {@link #blockSize}
+     */
+    TransferEngine(long chunkSize, long blockSize)
+    {
+        this.chunkSize = chunkSize;
+        this.blockSize = blockSize;
+    }
+
+    /**
+     * @return {@link #instance}
+     */
+    public static synchronized TransferEngine getInstance()
+    {
+        if (instance == null) {
+            instance = new TransferEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * @return currently performed {@link FileTransfer}s
+     */
+    public List<FileTransfer> getActiveTransfers()
+    {
+        return new ArrayList<FileTransfer>(activeTransfers);
+    }
+
+    /**
+     * Submit given {@code task} (e.g., moving of a recording to a storage) to be performed in the shared thread pool.
+     *
+     * @param task to be performed
+     * @return {@link Future} for the {@code task}
+     */
+    public Future<?> submit(Runnable task)
+    {
+        return taskExecutor.submit(task);
+    }
+
+    /**
+     * Transfer given {@code content} into given {@code target} file.
+     *
+     * @param target        file to which the content should be written
+     * @param content       to be read
+     * @param resumeSupport to be used for re-opening given {@code content} (or {@code null})
+     * @param cancellation  which can stop the transfer (or {@code null})
+     * @return finished {@link FileTransfer}
+     * @throws IOException when the transfer fails
+     */
+    public FileTransfer transfer(java.io.File target, InputStream content, ResumeSupport resumeSupport,
+            Cancellation cancellation) throws IOException
+    {
+        FileTransfer fileTransfer = new FileTransfer(target.getPath());
+        activeTransfers.add(fileTransfer);
+        try {
+            RandomAccessFile file = new RandomAccessFile(target, "rw");
+            try {
+                Segment segment = new Segment(fileTransfer, file.getChannel(), blockSize, resumeSupport, cancellation,
+                        0, -1);
+                segment.inputStream = content;
+                segment.run();
+                file.setLength(segment.position);
+            }
+            finally {
+                file.close();
+            }
+        }
+        finally {
+            finish(fileTransfer);
+        }
+        return fileTransfer;
+    }
+
+    /**
+     * Transfer content from given {@code rangeSupport} into given {@code target} file (in parallel chunks when
+     * the content is large enough).
+     *
+     * @param target       file to which the content should be written
+     * @param rangeSupport from which the content should be read
+     * @param cancellation which can stop the transfer (or {@code null})
+     * @return finished {@link FileTransfer}
+     * @throws IOException when the transfer fails
+     */
+    public FileTransfer transfer(java.io.File target, RangeSupport rangeSupport, final Cancellation cancellation)
+            throws IOException
+    {
+        long length = rangeSupport.getContentLength();
+        if (length < 2 * chunkSize) {
+            // Sequential transfer is sufficient
+            InputStream content = rangeSupport.openInputStream(0, length);
+            return transfer(target, content, rangeSupport, cancellation);
+        }
+
+        FileTransfer fileTransfer = new FileTransfer(target.getPath());
+        fileTransfer.setLength(length);
+        activeTransfers.add(fileTransfer);
+        try {
+            RandomAccessFile file = new RandomAccessFile(target, "rw");
+            try {
+                file.setLength(length);
+                FileChannel channel = file.getChannel();
+
+                // Other chunks are stopped when any chunk fails
+                final AtomicBoolean failed = new AtomicBoolean();
+                Cancellation chunkCancellation = new Cancellation()
+                {
+                    @Override
+                    public boolean isCancelled()
+                    {
+                        return failed.get() || (cancellation != null && cancellation.isCancelled());
+                    }
+                };
+                List<Future<Void>> chunks = new LinkedList<Future<Void>>();
+                for (long start = 0; start < length; start += chunkSize) {
+                    final Segment segment = new Segment(fileTransfer, channel, blockSize, rangeSupport,
+                            chunkCancellation, start, Math.min(start + chunkSize, length));
+                    chunks.add(chunkExecutor.submit(new Callable<Void>()
+                    {
+                        @Override
+                        public Void call() throws Exception
+                        {
+                            try {
+                                segment.run();
+                            }
+                            catch (Exception exception) {
+                                failed.set(true);
+                                throw exception;
+                            }
+                            return null;
+                        }
+                    }));
+                }
+                IOException failure = null;
+                for (Future<Void> chunk : chunks) {
+                    try {
+                        chunk.get();
+                    }
+                    catch (InterruptedException exception) {
+                        Thread.currentThread().interrupt();
+                        failed.set(true);
+                        failure = new IOException("Transfer of " + target + " has been interrupted.", exception);
+                        break;
+                    }
+                    catch (ExecutionException exception) {
+                        if (failure == null) {
+                            failure = new IOException("Transfer of chunk of " + target + " failed.",
+                                    exception.getCause());
+                        }
+                    }
+                }
+                if (failure != null) {
+                    throw failure;
+                }
+            }
+            finally {
+                file.close();
+            }
+        }
+        finally {
+            finish(fileTransfer);
+        }
+        return fileTransfer;
+    }
+
+    /**
+     * @param fileTransfer which has been finished
+     */
+    private void finish(FileTransfer fileTransfer)
+    {
+        fileTransfer.finish();
+        activeTransfers.remove(fileTransfer);
+        logger.info("Transfer of {} has been finished.", fileTransfer);
+    }
+
+    /**
+     * @param name       prefix for names of threads
+     * @param maxThreads maximum number of threads
+     * @return new {@link ExecutorService} with daemon threads which are stopped when they aren't used
+     */
+    private static ExecutorService createExecutor(final String name, int maxThreads)
+    {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxThreads, maxThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+        {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, name + "-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Condition which can stop a transfer (the already transferred data are kept).
+     */
+    public static interface Cancellation
+    {
+        /**
+         * @return true whether the transfer should be stopped, false otherwise
+         */
+        boolean isCancelled();
+    }
+
+    /**
+     * Continuous part of content which is transferred by single {@link InputStream} (which is resumed when it fails).
+     */
+    private static class Segment
+    {
+        /**
+         * {@link FileTransfer} to which the segment belongs.
+         */
+        private final FileTransfer fileTransfer;
+
+        /**
+         * {@link FileChannel} to which the segment should be written.
+         */
+        private final FileChannel channel;
+
+        /**
+         * Maximum number of bytes transferred by single {@link FileChannel#transferFrom}.
+         */
+        private final long blockSize;
+
+        /**
+         * @see ResumeSupport
+         */
+        private final ResumeSupport resumeSupport;
+
+        /**
+         * @see Cancellation
+         */
+        private final Cancellation cancellation;
+
+        /**
+         * Position of the first byte of the segment.
+         */
+        private final long start;
+
+        /**
+         * Position after the last byte of the segment (or {@code -1} for the rest of the content).
+         */
+        private final long end;
+
+        /**
+         * Position of the next byte to be transferred.
+         */
+        private long position;
+
+        /**
+         * Currently opened {@link InputStream} (or {@code null} when it should be opened).
+         */
+        private InputStream inputStream;
+
+        /**
+         * Constructor.
+         *
+         * @param fileTransfer  sets the {@link #fileTransfer}
+         * @param channel       sets the {@link #channel}
+         * @param blockSize     sets the {@link #blockSize}
+         * @param resumeSupport sets the {@link #resumeSupport}
+         * @param cancellation  sets the {@link #cancellation}
+         * @param start         sets the {@link #start}
+         * @param end           sets the {@link #end}
+         */
+        public Segment(FileTransfer fileTransfer, FileChannel channel, long blockSize, ResumeSupport resumeSupport,
+                Cancellation cancellation, long start, long end)
+        {
+            this.fileTransfer = fileTransfer;
+            this.channel = channel;
+            this.blockSize = blockSize;
+            this.resumeSupport = resumeSupport;
+            this.cancellation = cancellation;
+            this.start = start;
+            this.end = end;
+            this.position = start;
+        }
+
+        /**
+         * Transfer the segment.
+         *
+         * @throws IOException
+         */
+        public void run() throws IOException
+        {
+            if (inputStream == null) {
+                inputStream = open(start, null);
+            }
+            try {
+                ReadableByteChannel source = getChannel(inputStream);
+                int resumeCount = 0;
+                while (end < 0 || position < end) {
+                    if (cancellation != null && cancellation.isCancelled()) {
+                        logger.warn("Transfer of {} has been cancelled at {}.", fileTransfer.getName(), position);
+                        break;
+                    }
+                    long count = (end < 0 ? blockSize : Math.min(blockSize, end - position));
+                    long transferred;
+                    try {
+                        transferred = channel.transferFrom(source, position, count);
+                        if (transferred == 0 && end >= 0) {
+                            throw new EOFException("Unexpected end of content at " + position + ".");
+                        }
+                    }
+                    catch (IOException exception) {
+                        // Check if resume isn't available
+                        if (resumeSupport == null || ++resumeCount >= MAX_RESUME_COUNT) {
+                            throw exception;
+                        }
+                        logger.warn("Transfer of " + fileTransfer.getName() + " failed at " + position
+                                + ", trying to resume...", exception);
+                        try {
+                            Thread.sleep(WAIT_SLEEP * resumeCount);
+                        }
+                        catch (InterruptedException sleepException) {
+                            Thread.currentThread().interrupt();
+                            throw new IOException("Transfer has been interrupted.", sleepException);
+                        }
+                        resume();
+                        source = getChannel(inputStream);
+                        continue;
+                    }
+                    if (transferred == 0) {
+                        // End of the content
+                        break;
+                    }
+                    position += transferred;
+                    fileTransfer.addTransferredBytes(transferred);
+                    resumeCount = 0;
+                }
+            }
+            finally {
+                close(inputStream);
+            }
+        }
+
+        /**
+         * Re-open the {@link #inputStream} at the {@link #position} and verify the already transferred data.
+         *
+         * @throws IOException
+         */
+        private void resume() throws IOException
+        {
+            long verifyPosition = Math.max(start, position - VERIFY_LENGTH);
+            InputStream oldInputStream = inputStream;
+            inputStream = null;
+            inputStream = open(verifyPosition, oldInputStream);
+            int verifyLength = (int) (position - verifyPosition);
+            if (verifyLength > 0 && !verify(verifyPosition, verifyLength)) {
+                logger.warn("Content of {} has been changed, transferring again from {}...",
+                        fileTransfer.getName(), start);
+                fileTransfer.addTransferredBytes(start - position);
+                position = start;
+                inputStream = open(start, inputStream);
+            }
+            logger.info("Transfer of {} has been resumed at {}.", fileTransfer.getName(), position);
+        }
+
+        /**
+         * @param verifyPosition position of the first byte to be verified
+         * @param verifyLength   number of bytes to be verified
+         * @return true whether the {@link #inputStream} provides the same data as the already transferred data,
+         *         false otherwise
+         * @throws IOException
+         */
+        private boolean verify(long verifyPosition, int verifyLength) throws IOException
+        {
+            byte[] content = new byte[verifyLength];
+            int offset = 0;
+            while (offset < verifyLength) {
+                int bytesRead = inputStream.read(content, offset, verifyLength - offset);
+                if (bytesRead == -1) {
+                    return false;
+                }
+                offset += bytesRead;
+            }
+            ByteBuffer file = ByteBuffer.allocate(verifyLength);
+            while (file.hasRemaining()) {
+                if (channel.read(file, verifyPosition + file.position()) == -1) {
+                    return false;
+                }
+            }
+            CRC32 contentChecksum = new CRC32();
+            contentChecksum.update(content);
+            CRC32 fileChecksum = new CRC32();
+            fileChecksum.update(file.array());
+            return contentChecksum.getValue() == fileChecksum.getValue();
+        }
+
+        /**
+         * @param offset         at which the {@link InputStream} should be opened
+         * @param oldInputStream which should be closed (or {@code null})
+         * @return newly opened {@link InputStream}
+         * @throws IOException
+         */
+        private InputStream open(long offset, InputStream oldInputStream) throws IOException
+        {
+            try {
+                if (resumeSupport instanceof RangeSupport) {
+                    RangeSupport rangeSupport = (RangeSupport) resumeSupport;
+                    return rangeSupport.openInputStream(offset, (end < 0 ? -1 : end - offset));
+                }
+                else if (offset > Integer.MAX_VALUE) {
+                    throw new IOException("Content cannot be resumed at " + offset + ".");
+                }
+                return resumeSupport.reopenInputStream(oldInputStream, (int) offset);
+            }
+            finally {
+                if (oldInputStream != null) {
+                    close(oldInputStream);
+                }
+            }
+        }
+
+        /**
+         * @param inputStream from which the data should be read
+         * @return {@link ReadableByteChannel} for given {@code inputStream} ({@link FileChannel} for
+         *         {@link FileInputStream} which allows {@link FileChannel#transferFrom} to transfer the data
+         *         without copying them to user space)
+         */
+        private static ReadableByteChannel getChannel(InputStream inputStream)
+        {
+            if (inputStream instanceof FileInputStream) {
+                return ((FileInputStream) inputStream).getChannel();
+            }
+            return Channels.newChannel(inputStream);
+        }
+
+        /**
+         * @param inputStream to be closed
+         */
+        private static void close(InputStream inputStream)
+        {
+            if (inputStream == null) {
+                return;
+            }
+            try {
+                inputStream.close();
+            }
+            catch (IOException exception) {
+                logger.debug("Failed to close input stream...", exception);
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package cz.cesnet.shongo.connector.support;
+
+/**
+ * Limits rate of requests to a single device by a delay between starts of two consecutive requests which adapts to
+ * the load of the device (instead of a fixed delay before each request).
+ * <p/>
+ * The delay is doubled (up to {@link #maxDelay}) each time the device reports that it is overloaded
+ * (see {@link #overloaded}) and it is halved after each successful request (see {@link #succeeded}) and thus
+ * the requests are performed without any delay when the device keeps up.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class AdaptiveRateLimiter
+{
+    /**
+     * Default value for {@link #maxDelay}.
+     */
+    public static final long DEFAULT_MAX_DELAY = 5000;
+
+    /**
+     * First non-zero delay in milliseconds which is used when the device gets overloaded.
+     */
+    private static final long MIN_DELAY = 50;
+
+    /**
+     * Maximum delay in milliseconds between two requests.
+     */
+    private final long maxDelay;
+
+    /**
+     * Current delay in milliseconds between two requests.
+     */
+    private long delay = 0;
+
+    /**
+     * Time in milliseconds when the next request can be started.
+     */
+    private long nextRequestTime = 0;
+
+    /**
+     * Constructor.
+     */
+    public AdaptiveRateLimiter()
+    {
+        this(DEFAULT_MAX_DELAY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxDelay sets the {@link #maxDelay}
+     */
+    public AdaptiveRateLimiter(long maxDelay)
+    {
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * @return {@link #delay}
+     */
+    public synchronized long getDelay()
+    {
+        return delay;
+    }
+
+    /**
+     * Wait until a next request can be started.
+     *
+     * @throws InterruptedException
+     */
+    public void acquire() throws InterruptedException
+    {
+        long waitTime;
+        synchronized (this) {
+            long currentTime = System.currentTimeMillis();
+            long requestTime = Math.max(currentTime, nextRequestTime);
+            nextRequestTime = requestTime + delay;
+            waitTime = requestTime - currentTime;
+        }
+        if (waitTime > 0) {
+            Thread.sleep(waitTime);
+        }
+    }
+
+    /**
+     * Decrease the {@link #delay} because the device has successfully handled a request.
+     */
+    public synchronized void succeeded()
+    {
+        if (delay > 0) {
+            delay = (delay / 2 < MIN_DELAY ? 0 : delay / 2);
+        }
+    }
+
+    /**
+     * Increase the {@link #delay} because the device has refused a request (e.g., it has responded by
+     * {@code 503 Service Unavailable} or it has reset the connection).
+     */
+    public synchronized void overloaded()
+    {
+        delay = Math.min(maxDelay, Math.max(MIN_DELAY, delay * 2));
+        nextRequestTime = Math.max(nextRequestTime, System.currentTimeMillis() + delay);
+    }
+}
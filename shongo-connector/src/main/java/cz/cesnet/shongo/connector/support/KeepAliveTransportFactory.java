@@ -1,19 +1,25 @@
 package cz.cesnet.shongo.connector.support;
 
+import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
+import org.apache.commons.httpclient.params.HttpConnectionManagerParams;
 import org.apache.xmlrpc.XmlRpcRequest;
 import org.apache.xmlrpc.client.*;
 
 /**
  * Represents an improved {@link XmlRpcTransportFactory} which allows for keep-alive connection.
+ * <p/>
+ * Each request gets its own {@link XmlRpcTransport} (which isn't thread-safe) but all transports share single
+ * {@link HttpClient} with pool of keep-alive connections and thus the requests can be performed concurrently.
  *
  * @author Martin Srom <martin.srom@cesnet.cz>
  */
 public class KeepAliveTransportFactory extends XmlRpcCommonsTransportFactory
 {
     /**
-     * Single {@link XmlRpcTransport}.
+     * Default maximum number of pooled connections.
      */
-    private XmlRpcTransport transport;
+    public static final int DEFAULT_MAX_CONNECTIONS = 2;
 
     /**
      * Creates a new instance.
@@ -21,17 +27,31 @@ public class KeepAliveTransportFactory extends XmlRpcCommonsTransportFactory
      * @param pClient The client, which is controlling the factory.
      */
     public KeepAliveTransportFactory(XmlRpcClient pClient)
+    {
+        this(pClient, DEFAULT_MAX_CONNECTIONS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param pClient        The client, which is controlling the factory.
+     * @param maxConnections maximum number of pooled keep-alive connections
+     */
+    public KeepAliveTransportFactory(XmlRpcClient pClient, int maxConnections)
     {
         super(pClient);
+
+        MultiThreadedHttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
+        HttpConnectionManagerParams connectionManagerParams = connectionManager.getParams();
+        connectionManagerParams.setDefaultMaxConnectionsPerHost(maxConnections);
+        connectionManagerParams.setMaxTotalConnections(maxConnections);
+        setHttpClient(new HttpClient(connectionManager));
     }
 
     @Override
     public XmlRpcTransport getTransport()
     {
-        if (transport == null) {
-            transport = new Transport(this);
-        }
-        return transport;
+        return new Transport(this);
     }
 
     public static class Transport extends XmlRpcCommonsTransport
@@ -0,0 +1,145 @@
+package cz.cesnet.shongo.connector;
+
+import cz.cesnet.shongo.AliasType;
+import cz.cesnet.shongo.api.Room;
+import cz.cesnet.shongo.api.RoomModification;
+import cz.cesnet.shongo.api.util.DeviceAddress;
+import cz.cesnet.shongo.connector.common.ConnectorConfigurationImpl;
+import cz.cesnet.shongo.connector.device.CiscoMCUConnector;
+import junit.framework.Assert;
+import org.apache.xmlrpc.server.PropertyHandlerMapping;
+import org.apache.xmlrpc.server.XmlRpcServer;
+import org.apache.xmlrpc.server.XmlRpcServerConfigImpl;
+import org.apache.xmlrpc.webserver.WebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Tests for {@link CiscoMCUConnector#modifyRoomPartial}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class CiscoMCUConnectorTest
+{
+    /**
+     * Names of requests which were performed on the device.
+     */
+    private static final List<String> performedRequests = Collections.synchronizedList(new LinkedList<String>());
+
+    private WebServer webServer;
+
+    private CiscoMCUConnector connector;
+
+    @Before
+    public void before() throws Exception
+    {
+        webServer = new WebServer(0);
+        XmlRpcServer xmlRpcServer = webServer.getXmlRpcServer();
+        PropertyHandlerMapping handlerMapping = new PropertyHandlerMapping();
+        handlerMapping.addHandler("device", McuRpcDevice.class);
+        handlerMapping.addHandler("conference", McuRpcConference.class);
+        handlerMapping.addHandler("participant", McuRpcParticipant.class);
+        xmlRpcServer.setHandlerMapping(handlerMapping);
+        XmlRpcServerConfigImpl serverConfig = (XmlRpcServerConfigImpl) xmlRpcServer.getConfig();
+        serverConfig.setEnabledForExtensions(true);
+        serverConfig.setContentLengthOptional(false);
+        webServer.start();
+
+        connector = new CiscoMCUConnector();
+        connector.connect(new ConnectorConfigurationImpl(
+                DeviceAddress.parseAddress("http://127.0.0.1:" + webServer.getPort()), "test", "test"));
+        performedRequests.clear();
+    }
+
+    @After
+    public void after() throws Exception
+    {
+        webServer.shutdown();
+    }
+
+    @Test
+    public void testModifyRoomPartial() throws Exception
+    {
+        // Nothing is modified and thus no request should be performed
+        Room previousRoom = createRoom("description", 5);
+        connector.modifyRoomPartial(RoomModification.create(previousRoom, createRoom("description", 5)));
+        Assert.assertEquals(Collections.<String>emptyList(), performedRequests);
+
+        // Only the conference should be modified
+        performedRequests.clear();
+        connector.modifyRoomPartial(RoomModification.create(previousRoom, createRoom("modified description", 5)));
+        Assert.assertEquals(Arrays.asList("conference.modify"), performedRequests);
+
+        // Participants should be checked only when the license count is decreased
+        performedRequests.clear();
+        connector.modifyRoomPartial(RoomModification.create(previousRoom, createRoom("description", 10)));
+        Assert.assertEquals(Arrays.asList("conference.modify"), performedRequests);
+        performedRequests.clear();
+        connector.modifyRoomPartial(RoomModification.create(previousRoom, createRoom("description", 3)));
+        Assert.assertEquals(Arrays.asList("participant.enumerate", "conference.modify"), performedRequests);
+
+        // Whole room should be applied without previous room
+        performedRequests.clear();
+        connector.modifyRoomPartial(new RoomModification(createRoom("description", 5), null,
+                EnumSet.noneOf(RoomModification.Attribute.class)));
+        Assert.assertTrue(performedRequests.contains("conference.status"));
+        Assert.assertTrue(performedRequests.contains("conference.modify"));
+    }
+
+    private static Room createRoom(String description, int licenseCount)
+    {
+        Room room = new Room("test");
+        room.addAlias(AliasType.ROOM_NAME, "test");
+        room.setDescription(description);
+        room.setLicenseCount(licenseCount);
+        return room;
+    }
+
+    public static class McuRpcDevice
+    {
+        public Map query(Map parameters)
+        {
+            Map<String, Object> result = new HashMap<String, Object>();
+            result.put("apiVersion", "2.9");
+            result.put("model", "Codian MCU Test");
+            return result;
+        }
+    }
+
+    public static class McuRpcConference
+    {
+        public Map status(Map parameters)
+        {
+            performedRequests.add("conference.status");
+            Map<String, Object> result = new HashMap<String, Object>();
+            result.put("conferenceName", "test");
+            result.put("description", "description");
+            result.put("maximumVideoPorts", 5);
+            result.put("pin", "");
+            for (String option : new String[]{"private", "contentContribution", "joinAudioMuted", "joinVideoMuted",
+                    "registerWithGatekeeper", "registerWithSIPRegistrar", "startLocked", "conferenceMeEnabled",
+                    "contentImportant"}) {
+                result.put(option, Boolean.FALSE);
+            }
+            return result;
+        }
+
+        public Map modify(Map parameters)
+        {
+            performedRequests.add("conference.modify");
+            return new HashMap<String, Object>();
+        }
+    }
+
+    public static class McuRpcParticipant
+    {
+        public Map enumerate(Map parameters)
+        {
+            performedRequests.add("participant.enumerate");
+            return new HashMap<String, Object>();
+        }
+    }
+}
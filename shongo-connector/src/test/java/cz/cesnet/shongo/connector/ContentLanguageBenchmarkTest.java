@@ -0,0 +1,234 @@
+package cz.cesnet.shongo.connector;
+
+import cz.cesnet.shongo.AliasType;
+import cz.cesnet.shongo.ParticipantRole;
+import cz.cesnet.shongo.Technology;
+import cz.cesnet.shongo.api.*;
+import cz.cesnet.shongo.api.jade.Command;
+import cz.cesnet.shongo.connector.api.jade.ConnectorOntology;
+import cz.cesnet.shongo.connector.api.jade.multipoint.GetRoomParticipantSnapshots;
+import cz.cesnet.shongo.connector.api.jade.multipoint.ListRoomParticipants;
+import cz.cesnet.shongo.connector.api.jade.multipoint.ListRooms;
+import cz.cesnet.shongo.connector.api.jade.recording.ListRecordings;
+import cz.cesnet.shongo.util.Timer;
+import jade.content.ContentManager;
+import jade.content.lang.Codec;
+import jade.content.lang.leap.LEAPCodec;
+import jade.content.lang.sl.SLCodec;
+import jade.content.onto.Ontology;
+import jade.content.onto.basic.Action;
+import jade.content.onto.basic.Result;
+import jade.core.AID;
+import jade.lang.acl.ACLMessage;
+import org.apache.tika.mime.MediaType;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.Assert;
+import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+
+/**
+ * Benchmark of content languages which can be used for {@link Command}s between controller and connector agents.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ContentLanguageBenchmarkTest
+{
+    private static Logger logger = LoggerFactory.getLogger(ContentLanguageBenchmarkTest.class);
+
+    /**
+     * Number of encoded and decoded messages for each command.
+     */
+    private static final int ITERATIONS = 100;
+
+    @Test
+    public void testListRooms() throws Exception
+    {
+        List<Room> rooms = new LinkedList<Room>();
+        for (int index = 0; index < 100; index++) {
+            Room room = new Room();
+            room.setId("room" + index);
+            room.setDescription("Room number " + index);
+            room.addTechnology(Technology.H323);
+            room.addTechnology(Technology.SIP);
+            room.setLicenseCount(5);
+            room.addAlias(AliasType.ROOM_NAME, "room" + index);
+            room.addAlias(AliasType.H323_E164, "9500872" + index);
+            room.addAlias(AliasType.SIP_URI, "9500872" + index + "@cesnet.cz");
+            rooms.add(room);
+        }
+        benchmark(new ListRooms(), rooms);
+    }
+
+    @Test
+    public void testListRoomParticipants() throws Exception
+    {
+        List<RoomParticipant> roomParticipants = new LinkedList<RoomParticipant>();
+        for (int index = 0; index < 100; index++) {
+            RoomParticipant roomParticipant = new RoomParticipant();
+            roomParticipant.setId("participant" + index);
+            roomParticipant.setRoomId("room");
+            roomParticipant.setDisplayName("Participant " + index);
+            roomParticipant.setAlias(new Alias(AliasType.SIP_URI, "participant" + index + "@cesnet.cz"));
+            roomParticipant.setRole(ParticipantRole.PARTICIPANT);
+            roomParticipant.setJoinTime(DateTime.now());
+            roomParticipant.setMicrophoneEnabled(true);
+            roomParticipant.setMicrophoneLevel(5);
+            roomParticipant.setVideoEnabled(true);
+            roomParticipants.add(roomParticipant);
+        }
+        benchmark(new ListRoomParticipants("room"), roomParticipants);
+    }
+
+    @Test
+    public void testListRecordings() throws Exception
+    {
+        List<Recording> recordings = new LinkedList<Recording>();
+        for (int index = 0; index < 100; index++) {
+            Recording recording = new Recording();
+            recording.setId("recording" + index);
+            recording.setRecordingFolderId("folder");
+            recording.setName("Recording " + index);
+            recording.setFileName("recording" + index + ".mp4");
+            recording.setDownloadUrl("https://recordings.cesnet.cz/download/recording" + index + ".mp4");
+            recording.setViewUrl("https://recordings.cesnet.cz/view/recording" + index);
+            recording.setBeginDate(DateTime.now());
+            recording.setDuration(Duration.standardMinutes(index));
+            recording.setSize(1024L * 1024L * index);
+            recordings.add(recording);
+        }
+        benchmark(new ListRecordings("folder"), recordings);
+    }
+
+    @Test
+    public void testGetRoomParticipantSnapshots() throws Exception
+    {
+        Random random = new Random(0);
+        Set<String> roomParticipantIds = new HashSet<String>();
+        List<MediaData> snapshots = new LinkedList<MediaData>();
+        for (int index = 0; index < 10; index++) {
+            byte[] data = new byte[32 * 1024];
+            random.nextBytes(data);
+            roomParticipantIds.add("participant" + index);
+            snapshots.add(new MediaData(MediaType.image("jpeg"), data));
+        }
+        benchmark(new GetRoomParticipantSnapshots("room", roomParticipantIds), snapshots);
+    }
+
+    /**
+     * Encode and decode given {@code command} and its {@code result} by each content language and log
+     * the elapsed time and message size.
+     *
+     * @param command
+     * @param result
+     * @throws Exception
+     */
+    private void benchmark(Command command, List<?> result) throws Exception
+    {
+        Ontology ontology = ConnectorOntology.getInstance();
+        AID agentId = new AID("benchmark", AID.ISLOCALNAME);
+        Result content = new Result(new Action(agentId, command), result);
+        for (Codec codec : new Codec[]{new SLCodec(), new LEAPCodec()}) {
+            ContentManager contentManager = new ContentManager();
+            contentManager.registerLanguage(codec);
+            contentManager.registerOntology(ontology);
+
+            ACLMessage message = new ACLMessage(ACLMessage.INFORM);
+            message.setLanguage(codec.getName());
+            message.setOntology(ontology.getName());
+
+            // Warm up
+            contentManager.fillContent(message, content);
+            contentManager.extractContent(message);
+
+            Timer timer = new Timer();
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                contentManager.fillContent(message, content);
+            }
+            long encodeDuration = timer.stop();
+
+            Result decodedContent = null;
+            timer.start();
+            for (int iteration = 0; iteration < ITERATIONS; iteration++) {
+                decodedContent = (Result) contentManager.extractContent(message);
+            }
+            long decodeDuration = timer.stop();
+
+            int size = message.hasByteSequenceContent()
+                    ? message.getByteSequenceContent().length : message.getContent().length();
+            logger.info("{} by {}: encode {} ms, decode {} ms, size {} bytes ({} iterations).", new Object[]{
+                    command.getClass().getSimpleName(), codec.getName(), encodeDuration, decodeDuration, size,
+                    ITERATIONS
+            });
+
+            assertDataEquals(codec.getName(), result, decodedContent.getValue());
+        }
+    }
+
+    /**
+     * Assert that given {@code actual} value decoded by a content language is same as {@code expected} value
+     * ({@link AbstractComplexType}s are compared by their {@link AbstractComplexType#toData()} and thus including
+     * date/times, durations, enums and byte arrays).
+     *
+     * @param path     of the value (for error messages)
+     * @param expected original value
+     * @param actual   decoded value
+     */
+    @SuppressWarnings("unchecked")
+    private static void assertDataEquals(String path, Object expected, Object actual)
+    {
+        if (expected instanceof AbstractComplexType) {
+            Assert.assertEquals(path, expected.getClass(), actual.getClass());
+            assertDataEquals(path, ((AbstractComplexType) expected).toData().getData(),
+                    ((AbstractComplexType) actual).toData().getData());
+        }
+        else if (expected instanceof Map) {
+            Map expectedMap = (Map) expected;
+            Map actualMap = (Map) actual;
+            Assert.assertEquals(path, expectedMap.keySet(), actualMap.keySet());
+            for (Object key : expectedMap.keySet()) {
+                assertDataEquals(path + "." + key, expectedMap.get(key), actualMap.get(key));
+            }
+        }
+        else if (expected instanceof List) {
+            List<Object> expectedList = (List<Object>) expected;
+            List<Object> actualList = toList(path, actual);
+            Assert.assertEquals(path, expectedList.size(), actualList.size());
+            for (int index = 0; index < expectedList.size(); index++) {
+                assertDataEquals(path + "[" + index + "]", expectedList.get(index), actualList.get(index));
+            }
+        }
+        else if (expected instanceof byte[]) {
+            Assert.assertArrayEquals(path, (byte[]) expected, (byte[]) actual);
+        }
+        else {
+            Assert.assertEquals(path, expected, actual);
+        }
+    }
+
+    /**
+     * @param path
+     * @param value java or JADE collection
+     * @return given {@code value} as {@link List}
+     */
+    private static List<Object> toList(String path, Object value)
+    {
+        List<Object> list = new ArrayList<Object>();
+        if (value instanceof Collection) {
+            list.addAll((Collection<?>) value);
+        }
+        else if (value instanceof jade.util.leap.Collection) {
+            Iterator iterator = ((jade.util.leap.Collection) value).iterator();
+            while (iterator.hasNext()) {
+                list.add(iterator.next());
+            }
+        }
+        else {
+            Assert.fail(path + " should be a collection but it is " + value);
+        }
+        return list;
+    }
+}
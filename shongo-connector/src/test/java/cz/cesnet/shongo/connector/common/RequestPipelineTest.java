@@ -0,0 +1,217 @@
+package cz.cesnet.shongo.connector.common;
+
+import cz.cesnet.shongo.api.jade.CommandException;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.*;
+
+/**
+ * Tests for {@link RequestPipeline}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class RequestPipelineTest
+{
+    /**
+     * Timeout in milliseconds in which a request which should be blocked must not be performed.
+     */
+    private static final long BLOCKED_TIMEOUT = 200;
+
+    /**
+     * Timeout in seconds in which a request which should be performed must be performed.
+     */
+    private static final long PERFORMED_TIMEOUT = 10;
+
+    private ExecutorService executorService;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        executorService = Executors.newCachedThreadPool();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * Test that concurrent requests are capped for each {@link RequestPipeline.RequestType}.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testConcurrentRequests() throws Exception
+    {
+        RequestPipeline requestPipeline = new RequestPipeline(2, 1);
+
+        Request read1 = new Request(requestPipeline, RequestPipeline.RequestType.READ);
+        Request read2 = new Request(requestPipeline, RequestPipeline.RequestType.READ);
+        read1.assertPerformed();
+        read2.assertPerformed();
+        Assert.assertEquals(2, requestPipeline.getActiveRequests(RequestPipeline.RequestType.READ));
+
+        // Maximum number of read requests is reached
+        Assert.assertNull(requestPipeline.tryAcquire(RequestPipeline.RequestType.READ));
+        Request read3 = new Request(requestPipeline, RequestPipeline.RequestType.READ);
+        read3.assertBlocked();
+
+        // Write requests aren't affected by read requests
+        RequestPipeline.Permit permit = requestPipeline.tryAcquire(RequestPipeline.RequestType.WRITE);
+        Assert.assertNotNull(permit);
+        Assert.assertEquals(1, requestPipeline.getActiveRequests(RequestPipeline.RequestType.WRITE));
+        permit.release();
+        Assert.assertEquals(0, requestPipeline.getActiveRequests(RequestPipeline.RequestType.WRITE));
+
+        // Waiting read request is performed when a slot is released
+        read1.finish();
+        read3.assertPerformed();
+        Assert.assertEquals(2, requestPipeline.getActiveRequests(RequestPipeline.RequestType.READ));
+
+        // Waiting for a slot is limited by timeout
+        requestPipeline.setTimeout(BLOCKED_TIMEOUT);
+        try {
+            requestPipeline.acquire(RequestPipeline.RequestType.READ);
+            Assert.fail("Request should not get a slot.");
+        }
+        catch (CommandException exception) {
+            // Expected
+        }
+
+        read2.finish();
+        read3.finish();
+        Assert.assertEquals(0, requestPipeline.getActiveRequests(RequestPipeline.RequestType.READ));
+    }
+
+    /**
+     * Test that requests of all types share the slots of a sequential device.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSequentialRequests() throws Exception
+    {
+        RequestPipeline requestPipeline = new RequestPipeline(1);
+
+        Request read = new Request(requestPipeline, RequestPipeline.RequestType.READ);
+        read.assertPerformed();
+        Assert.assertNull(requestPipeline.tryAcquire(RequestPipeline.RequestType.WRITE));
+        Request write = new Request(requestPipeline, RequestPipeline.RequestType.WRITE);
+        write.assertBlocked();
+
+        read.finish();
+        write.assertPerformed();
+        write.finish();
+    }
+
+    /**
+     * Test that connecting waits for in-flight requests and that new requests wait for connecting.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testExclusive() throws Exception
+    {
+        RequestPipeline requestPipeline = new RequestPipeline(4, 4);
+
+        Request read1 = new Request(requestPipeline, RequestPipeline.RequestType.READ);
+        read1.assertPerformed();
+
+        // Connecting waits for the in-flight request
+        Request connect = new Request(requestPipeline, null);
+        connect.assertBlocked();
+
+        // New request waits for the waiting connecting
+        Request read2 = new Request(requestPipeline, RequestPipeline.RequestType.READ);
+        read2.assertBlocked();
+
+        // Connecting is performed when the in-flight request is finished and new request still waits
+        read1.finish();
+        connect.assertPerformed();
+        read2.assertBlocked();
+        Assert.assertEquals(0, requestPipeline.getActiveRequests(RequestPipeline.RequestType.READ));
+
+        // New request is performed after connecting
+        connect.finish();
+        read2.assertPerformed();
+        read2.finish();
+    }
+
+    /**
+     * Request which is performed by a separate thread with a {@link RequestPipeline.Permit} (the permit must be
+     * released by the thread which has acquired it).
+     */
+    private class Request implements Callable<Void>
+    {
+        private final RequestPipeline requestPipeline;
+
+        /**
+         * Type of the request or {@code null} for connecting.
+         */
+        private final RequestPipeline.RequestType requestType;
+
+        private final CountDownLatch performed = new CountDownLatch(1);
+
+        private final CountDownLatch finished = new CountDownLatch(1);
+
+        private final Future<Void> future;
+
+        /**
+         * Constructor (the request is started immediately).
+         *
+         * @param requestPipeline sets the {@link #requestPipeline}
+         * @param requestType     sets the {@link #requestType}
+         */
+        public Request(RequestPipeline requestPipeline, RequestPipeline.RequestType requestType)
+        {
+            this.requestPipeline = requestPipeline;
+            this.requestType = requestType;
+            this.future = executorService.submit(this);
+        }
+
+        @Override
+        public Void call() throws Exception
+        {
+            RequestPipeline.Permit permit;
+            if (requestType != null) {
+                permit = requestPipeline.acquire(requestType);
+            }
+            else {
+                permit = requestPipeline.acquireExclusive();
+            }
+            try {
+                performed.countDown();
+                finished.await();
+            }
+            finally {
+                permit.release();
+            }
+            return null;
+        }
+
+        public void assertPerformed() throws Exception
+        {
+            Assert.assertTrue(performed.await(PERFORMED_TIMEOUT, TimeUnit.SECONDS));
+        }
+
+        public void assertBlocked() throws Exception
+        {
+            Assert.assertFalse(performed.await(BLOCKED_TIMEOUT, TimeUnit.MILLISECONDS));
+        }
+
+        /**
+         * Release the {@link RequestPipeline.Permit} and wait for it.
+         *
+         * @throws Exception
+         */
+        public void finish() throws Exception
+        {
+            finished.countDown();
+            future.get(PERFORMED_TIMEOUT, TimeUnit.SECONDS);
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package cz.cesnet.shongo.connector.storage;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.CRC32;
+
+/**
+ * Tests for {@link TransferEngine}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class TransferEngineTest
+{
+    private static final int CHUNK_SIZE = 256 * 1024;
+
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int CONTENT_SIZE = 1024 * 1024;
+
+    private TransferEngine transferEngine = new TransferEngine(CHUNK_SIZE, BLOCK_SIZE);
+
+    private java.io.File target;
+
+    @Before
+    public void before() throws Exception
+    {
+        target = java.io.File.createTempFile("transfer", null);
+    }
+
+    @After
+    public void after() throws Exception
+    {
+        target.delete();
+    }
+
+    @Test
+    public void testResume() throws Exception
+    {
+        TestContent content = new TestContent(createData(1), true);
+        content.addFailure(300000, null);
+
+        FileTransfer fileTransfer = transferEngine.transfer(target, content.openInputStream(0, -1), content, null);
+
+        // Transfer is resumed before the failure position (to verify already transferred data)
+        List<Long> openedOffsets = content.getOpenedOffsets();
+        Assert.assertEquals(2, openedOffsets.size());
+        Assert.assertTrue(openedOffsets.get(1) > 0 && openedOffsets.get(1) < 300000);
+        assertTarget(content.data);
+        Assert.assertEquals(CONTENT_SIZE, fileTransfer.getTransferredBytes());
+    }
+
+    @Test
+    public void testResumeChangedContent() throws Exception
+    {
+        byte[] changedData = createData(1);
+        changedData[290000]++;
+        TestContent content = new TestContent(createData(1), true);
+        content.addFailure(300000, changedData);
+
+        FileTransfer fileTransfer = transferEngine.transfer(target, content.openInputStream(0, -1), content, null);
+
+        // Already transferred data doesn't match and thus the transfer starts from beginning
+        List<Long> openedOffsets = content.getOpenedOffsets();
+        Assert.assertEquals(3, openedOffsets.size());
+        Assert.assertEquals(Long.valueOf(0), openedOffsets.get(2));
+        assertTarget(changedData);
+        Assert.assertEquals(CONTENT_SIZE, fileTransfer.getTransferredBytes());
+    }
+
+    @Test
+    public void testChunks() throws Exception
+    {
+        TestContent content = new TestContent(createData(2), true);
+        content.addFailure(600000, null);
+
+        FileTransfer fileTransfer = transferEngine.transfer(target, content, null);
+
+        // Each chunk is opened separately and only the failed chunk is resumed
+        List<Long> openedOffsets = content.getOpenedOffsets();
+        Assert.assertEquals(CONTENT_SIZE / CHUNK_SIZE + 1, openedOffsets.size());
+        for (long start = 0; start < CONTENT_SIZE; start += CHUNK_SIZE) {
+            Assert.assertTrue(openedOffsets.contains(start));
+        }
+        assertTarget(content.data);
+        Assert.assertEquals(CONTENT_SIZE, fileTransfer.getLength());
+        Assert.assertEquals(CONTENT_SIZE, fileTransfer.getTransferredBytes());
+    }
+
+    @Test
+    public void testFallback() throws Exception
+    {
+        // Content without ranges is transferred sequentially
+        TestContent content = new TestContent(createData(3), false);
+        content.addFailure(500000, null);
+        transferEngine.transfer(target, content, null);
+        Assert.assertEquals(2, content.getOpenedOffsets().size());
+        assertTarget(content.data);
+
+        // Content without resume support fails
+        content = new TestContent(createData(4), false);
+        content.addFailure(500000, null);
+        try {
+            transferEngine.transfer(target, content.openInputStream(0, -1), null, null);
+            Assert.fail("Transfer should fail.");
+        }
+        catch (IOException exception) {
+            Assert.assertEquals(1, content.getOpenedOffsets().size());
+        }
+
+        // Local file is transferred between file channels
+        byte[] data = createData(5);
+        java.io.File source = java.io.File.createTempFile("transfer", null);
+        try {
+            OutputStream outputStream = new FileOutputStream(source);
+            try {
+                outputStream.write(data);
+            }
+            finally {
+                outputStream.close();
+            }
+            transferEngine.transfer(target, new FileInputStream(source), null, null);
+            assertTarget(data);
+        }
+        finally {
+            source.delete();
+        }
+    }
+
+    private static byte[] createData(long seed)
+    {
+        byte[] data = new byte[CONTENT_SIZE];
+        new Random(seed).nextBytes(data);
+        return data;
+    }
+
+    private void assertTarget(byte[] data) throws IOException
+    {
+        byte[] targetData = new byte[(int) target.length()];
+        DataInputStream inputStream = new DataInputStream(new FileInputStream(target));
+        try {
+            inputStream.readFully(targetData);
+        }
+        finally {
+            inputStream.close();
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(data);
+        CRC32 targetChecksum = new CRC32();
+        targetChecksum.update(targetData);
+        Assert.assertEquals(checksum.getValue(), targetChecksum.getValue());
+        Assert.assertArrayEquals(data, targetData);
+    }
+
+    /**
+     * {@link RangeSupport} for content in memory whose streams fail at given positions.
+     */
+    private static class TestContent implements RangeSupport
+    {
+        private volatile byte[] data;
+
+        private final boolean rangesSupported;
+
+        private final Map<Long, byte[]> failures = new HashMap<Long, byte[]>();
+
+        private final List<Long> openedOffsets = new ArrayList<Long>();
+
+        public TestContent(byte[] data, boolean rangesSupported)
+        {
+            this.data = data;
+            this.rangesSupported = rangesSupported;
+        }
+
+        /**
+         * @param position at which the first stream reading it should fail
+         * @param newData  to which the content is changed when it fails (or {@code null})
+         */
+        public synchronized void addFailure(long position, byte[] newData)
+        {
+            failures.put(position, newData);
+        }
+
+        public synchronized List<Long> getOpenedOffsets()
+        {
+            return new ArrayList<Long>(openedOffsets);
+        }
+
+        @Override
+        public long getContentLength()
+        {
+            return (rangesSupported ? data.length : -1);
+        }
+
+        @Override
+        public synchronized InputStream openInputStream(long offset, long length)
+        {
+            openedOffsets.add(offset);
+            long end = (length < 0 ? data.length : offset + length);
+            return new FailingInputStream(offset, end);
+        }
+
+        @Override
+        public InputStream reopenInputStream(InputStream oldInputStream, int offset)
+        {
+            return openInputStream(offset, -1);
+        }
+
+        /**
+         * @param position which is read
+         * @return true whether the reading should fail at given {@code position}
+         */
+        private synchronized boolean fail(long position)
+        {
+            if (!failures.containsKey(position)) {
+                return false;
+            }
+            byte[] newData = failures.remove(position);
+            if (newData != null) {
+                data = newData;
+            }
+            return true;
+        }
+
+        /**
+         * {@link InputStream} which is broken since it reaches a failure position.
+         */
+        private class FailingInputStream extends InputStream
+        {
+            private final long end;
+
+            private long position;
+
+            private boolean broken = false;
+
+            public FailingInputStream(long position, long end)
+            {
+                this.position = position;
+                this.end = end;
+            }
+
+            @Override
+            public int read() throws IOException
+            {
+                byte[] buffer = new byte[1];
+                return (read(buffer, 0, 1) == -1 ? -1 : (buffer[0] & 0xff));
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException
+            {
+                if (position >= end) {
+                    return -1;
+                }
+                int count = (int) Math.min(length, end - position);
+                for (int index = 0; index < count; index++) {
+                    if (broken || fail(position)) {
+                        broken = true;
+                        if (index > 0) {
+                            return index;
+                        }
+                        throw new IOException("Connection reset at " + position + ".");
+                    }
+                    buffer[offset + index] = data[(int) position];
+                    position++;
+                }
+                return count;
+            }
+        }
+    }
+}
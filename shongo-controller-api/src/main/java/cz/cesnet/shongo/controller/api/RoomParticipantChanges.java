@@ -0,0 +1,154 @@
+package cz.cesnet.shongo.controller.api;
+
+import cz.cesnet.shongo.api.AbstractComplexType;
+import cz.cesnet.shongo.api.DataMap;
+import cz.cesnet.shongo.api.RoomParticipant;
+
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Changes of {@link RoomParticipant}s in a room since a given revision.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class RoomParticipantChanges extends AbstractComplexType
+{
+    /**
+     * Current revision of the {@link RoomParticipant}s in the room.
+     */
+    private Long revision;
+
+    /**
+     * Specifies whether {@link #participants} contains all current {@link RoomParticipant}s in the room (the changes
+     * since the requested revision aren't available) or only added and modified {@link RoomParticipant}s.
+     */
+    private boolean complete;
+
+    /**
+     * Added or modified {@link RoomParticipant}s (or all {@link RoomParticipant}s when {@link #complete}).
+     */
+    private List<RoomParticipant> participants = new LinkedList<RoomParticipant>();
+
+    /**
+     * Identifiers of removed {@link RoomParticipant}s.
+     */
+    private List<String> removedParticipantIds = new LinkedList<String>();
+
+    /**
+     * Constructor.
+     */
+    public RoomParticipantChanges()
+    {
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param revision sets the {@link #revision}
+     * @param complete sets the {@link #complete}
+     */
+    public RoomParticipantChanges(Long revision, boolean complete)
+    {
+        this.revision = revision;
+        this.complete = complete;
+    }
+
+    /**
+     * @return {@link #revision}
+     */
+    public Long getRevision()
+    {
+        return revision;
+    }
+
+    /**
+     * @param revision sets the {@link #revision}
+     */
+    public void setRevision(Long revision)
+    {
+        this.revision = revision;
+    }
+
+    /**
+     * @return {@link #complete}
+     */
+    public boolean isComplete()
+    {
+        return complete;
+    }
+
+    /**
+     * @param complete sets the {@link #complete}
+     */
+    public void setComplete(boolean complete)
+    {
+        this.complete = complete;
+    }
+
+    /**
+     * @return {@link #participants}
+     */
+    public List<RoomParticipant> getParticipants()
+    {
+        return participants;
+    }
+
+    /**
+     * @param participant to be added to the {@link #participants}
+     */
+    public void addParticipant(RoomParticipant participant)
+    {
+        participants.add(participant);
+    }
+
+    /**
+     * @return {@link #removedParticipantIds}
+     */
+    public List<String> getRemovedParticipantIds()
+    {
+        return removedParticipantIds;
+    }
+
+    /**
+     * @param removedParticipantId to be added to the {@link #removedParticipantIds}
+     */
+    public void addRemovedParticipantId(String removedParticipantId)
+    {
+        removedParticipantIds.add(removedParticipantId);
+    }
+
+    /**
+     * @return true whether no {@link RoomParticipant} has been changed, false otherwise
+     */
+    public boolean isEmpty()
+    {
+        return !complete && participants.isEmpty() && removedParticipantIds.isEmpty();
+    }
+
+    private static final String REVISION = "revision";
+    private static final String COMPLETE = "complete";
+    private static final String PARTICIPANTS = "participants";
+    private static final String REMOVED_PARTICIPANT_IDS = "removedParticipantIds";
+
+    @Override
+    public DataMap toData()
+    {
+        DataMap dataMap = super.toData();
+        dataMap.set(REVISION, revision);
+        dataMap.set(COMPLETE, complete);
+        dataMap.set(PARTICIPANTS, participants);
+        dataMap.set(REMOVED_PARTICIPANT_IDS, removedParticipantIds);
+        return dataMap;
+    }
+
+    @Override
+    public void fromData(DataMap dataMap)
+    {
+        super.fromData(dataMap);
+        revision = dataMap.getLong(REVISION);
+        complete = dataMap.getBool(COMPLETE);
+        participants = dataMap.getList(PARTICIPANTS, RoomParticipant.class);
+        removedParticipantIds = dataMap.getList(REMOVED_PARTICIPANT_IDS, String.class);
+    }
+}
@@ -0,0 +1,165 @@
+package cz.cesnet.shongo.controller.api.request;
+
+import cz.cesnet.shongo.api.AbstractComplexType;
+import cz.cesnet.shongo.api.DataMap;
+import cz.cesnet.shongo.controller.api.AllocationStateReport;
+import org.joda.time.Interval;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * {@link AbstractResponse} for {@link AvailabilityCheckRequest} which contains availability of each occurrence
+ * of requested periodic slots.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class AvailabilityCheckResponse extends AbstractResponse
+{
+    /**
+     * List of checked {@link Occurrence}s.
+     */
+    private List<Occurrence> occurrences = new LinkedList<Occurrence>();
+
+    /**
+     * Constructor.
+     */
+    public AvailabilityCheckResponse()
+    {
+    }
+
+    /**
+     * @return {@link #occurrences}
+     */
+    public List<Occurrence> getOccurrences()
+    {
+        return Collections.unmodifiableList(occurrences);
+    }
+
+    /**
+     * @param occurrence to be added to the {@link #occurrences}
+     */
+    public void addOccurrence(Occurrence occurrence)
+    {
+        occurrences.add(occurrence);
+    }
+
+    /**
+     * @return true whether all {@link #occurrences} are available, false otherwise
+     */
+    public boolean isAvailable()
+    {
+        return getFirstUnavailableOccurrence() == null;
+    }
+
+    /**
+     * @return first not available {@link Occurrence} or {@code null}
+     */
+    public Occurrence getFirstUnavailableOccurrence()
+    {
+        for (Occurrence occurrence : occurrences) {
+            if (!occurrence.isAvailable()) {
+                return occurrence;
+            }
+        }
+        return null;
+    }
+
+    private static final String OCCURRENCES = "occurrences";
+
+    @Override
+    public DataMap toData()
+    {
+        DataMap dataMap = super.toData();
+        dataMap.set(OCCURRENCES, occurrences);
+        return dataMap;
+    }
+
+    @Override
+    public void fromData(DataMap dataMap)
+    {
+        super.fromData(dataMap);
+        occurrences = dataMap.getList(OCCURRENCES, Occurrence.class);
+    }
+
+    /**
+     * Availability of a single occurrence.
+     */
+    public static class Occurrence extends AbstractComplexType
+    {
+        /**
+         * Time slot of the occurrence.
+         */
+        private Interval slot;
+
+        /**
+         * {@link AllocationStateReport} describing the reason why the occurrence is not available
+         * ({@code null} when it is available).
+         */
+        private AllocationStateReport report;
+
+        /**
+         * Constructor.
+         */
+        public Occurrence()
+        {
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param slot   sets the {@link #slot}
+         * @param report sets the {@link #report}
+         */
+        public Occurrence(Interval slot, AllocationStateReport report)
+        {
+            this.slot = slot;
+            this.report = report;
+        }
+
+        /**
+         * @return {@link #slot}
+         */
+        public Interval getSlot()
+        {
+            return slot;
+        }
+
+        /**
+         * @return {@link #report}
+         */
+        public AllocationStateReport getReport()
+        {
+            return report;
+        }
+
+        /**
+         * @return true whether the occurrence is available, false otherwise
+         */
+        public boolean isAvailable()
+        {
+            return report == null;
+        }
+
+        private static final String SLOT = "slot";
+        private static final String REPORT = "report";
+
+        @Override
+        public DataMap toData()
+        {
+            DataMap dataMap = super.toData();
+            dataMap.set(SLOT, slot);
+            dataMap.set(REPORT, report);
+            return dataMap;
+        }
+
+        @Override
+        public void fromData(DataMap dataMap)
+        {
+            super.fromData(dataMap);
+            slot = dataMap.getInterval(SLOT);
+            report = dataMap.getComplexType(REPORT, AllocationStateReport.class);
+        }
+    }
+}
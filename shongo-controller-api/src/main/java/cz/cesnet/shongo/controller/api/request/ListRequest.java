@@ -20,6 +20,18 @@ public class ListRequest extends AbstractRequest
      */
     private Integer count;
 
+    /**
+     * Opaque token from {@link ListResponse#getContinuation()} which specifies position after which the next items
+     * should be fetched (when it is specified the {@link #start} is ignored).
+     */
+    private String continuation;
+
+    /**
+     * Specifies whether the total number of items shouldn't be computed (the {@link ListResponse#getCount()} then
+     * contains only the number of items up to the returned items increased by one when more items are available).
+     */
+    private boolean skipCount = false;
+
     /**
      * Constructor.
      */
@@ -115,8 +127,42 @@ public class ListRequest extends AbstractRequest
         this.count = count;
     }
 
+    /**
+     * @return {@link #continuation}
+     */
+    public String getContinuation()
+    {
+        return continuation;
+    }
+
+    /**
+     * @param continuation sets the {@link #continuation}
+     */
+    public void setContinuation(String continuation)
+    {
+        this.continuation = continuation;
+    }
+
+    /**
+     * @return {@link #skipCount}
+     */
+    public boolean isSkipCount()
+    {
+        return skipCount;
+    }
+
+    /**
+     * @param skipCount sets the {@link #skipCount}
+     */
+    public void setSkipCount(boolean skipCount)
+    {
+        this.skipCount = skipCount;
+    }
+
     private static final String START = "start";
     private static final String COUNT = "count";
+    private static final String CONTINUATION = "continuation";
+    private static final String SKIP_COUNT = "skipCount";
 
     @Override
     public DataMap toData()
@@ -124,6 +170,8 @@ public class ListRequest extends AbstractRequest
         DataMap dataMap = super.toData();
         dataMap.set(START, start);
         dataMap.set(COUNT, count);
+        dataMap.set(CONTINUATION, continuation);
+        dataMap.set(SKIP_COUNT, skipCount);
         return dataMap;
     }
 
@@ -133,5 +181,7 @@ public class ListRequest extends AbstractRequest
         super.fromData(dataMap);
         start = dataMap.getInteger(START);
         count = dataMap.getInteger(COUNT);
+        continuation = dataMap.getString(CONTINUATION);
+        skipCount = dataMap.getBool(SKIP_COUNT);
     }
 }
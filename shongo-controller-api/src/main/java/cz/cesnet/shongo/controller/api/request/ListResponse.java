@@ -31,6 +31,12 @@ public class ListResponse<T> extends AbstractResponse implements Iterable<T>
      */
     private List<T> items = new LinkedList<T>();
 
+    /**
+     * Opaque token which can be passed to {@link ListRequest#setContinuation} to fetch items following
+     * the {@link #items} (or {@code null} when no more items are available).
+     */
+    private String continuation;
+
     /**
      * Constructor.
      */
@@ -70,6 +76,22 @@ public class ListResponse<T> extends AbstractResponse implements Iterable<T>
         this.count = count;
     }
 
+    /**
+     * @return {@link #continuation}
+     */
+    public String getContinuation()
+    {
+        return continuation;
+    }
+
+    /**
+     * @param continuation sets the {@link #continuation}
+     */
+    public void setContinuation(String continuation)
+    {
+        this.continuation = continuation;
+    }
+
     /**
      * @return {@link #items}
      */
@@ -122,6 +144,7 @@ public class ListResponse<T> extends AbstractResponse implements Iterable<T>
     private static final String START = "start";
     private static final String COUNT = "count";
     private static final String ITEMS = "items";
+    private static final String CONTINUATION = "continuation";
 
     @Override
     public DataMap toData()
@@ -130,6 +153,7 @@ public class ListResponse<T> extends AbstractResponse implements Iterable<T>
         dataMap.set(START, start);
         dataMap.set(COUNT, count);
         dataMap.set(ITEMS, items);
+        dataMap.set(CONTINUATION, continuation);
         return dataMap;
     }
 
@@ -140,6 +164,7 @@ public class ListResponse<T> extends AbstractResponse implements Iterable<T>
         start = dataMap.getInt(START);
         count = dataMap.getInt(COUNT);
         items = (List<T>) dataMap.getList(ITEMS, Object.class);
+        continuation = dataMap.getString(CONTINUATION);
     }
 
     @Override
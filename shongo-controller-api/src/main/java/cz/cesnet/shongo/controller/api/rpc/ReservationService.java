@@ -30,6 +30,16 @@ public interface ReservationService extends Service
     @API
     public Object checkPeriodicAvailability(AvailabilityCheckRequest request);
 
+    /**
+     * Check all occurrences of given periodic {@code request} at once (the occurrences aren't checked one by one
+     * and thus the whole periodic request is evaluated in a single call).
+     *
+     * @param request {@link AvailabilityCheckRequest}
+     * @return {@link AvailabilityCheckResponse} with availability of each occurrence of given periodic {@code request}
+     */
+    @API
+    public AvailabilityCheckResponse checkPeriodicAvailabilityOccurrences(AvailabilityCheckRequest request);
+
     /**
      * Creates a new reservation request.
      * <p/>
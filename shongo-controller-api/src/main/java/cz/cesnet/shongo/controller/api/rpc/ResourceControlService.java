@@ -9,6 +9,7 @@ import cz.cesnet.shongo.api.rpc.Service;
 import cz.cesnet.shongo.controller.ObjectType;
 import cz.cesnet.shongo.controller.api.DeviceResource;
 import cz.cesnet.shongo.controller.api.RecordingCapability;
+import cz.cesnet.shongo.controller.api.RoomParticipantChanges;
 import cz.cesnet.shongo.controller.api.SecurityToken;
 
 import java.util.Collection;
@@ -114,6 +115,21 @@ public interface ResourceControlService extends Service
     @API
     public Collection<RoomParticipant> listRoomParticipants(SecurityToken token, String deviceResourceId, String roomId);
 
+    /**
+     * Gets changes of participants in a room since given {@code revision}. The participants are polled from the device
+     * at most once per a few seconds for all callers and thus the method is suitable for watching the room.
+     *
+     * @param token            security token
+     * @param deviceResourceId shongo-id of the device
+     * @param roomId           room identifier
+     * @param revision         {@link RoomParticipantChanges#getRevision()} which is already known by the caller or
+     *                         {@code null} for all participants
+     * @return {@link RoomParticipantChanges} since given {@code revision}
+     */
+    @API
+    public RoomParticipantChanges getRoomParticipantChanges(SecurityToken token, String deviceResourceId,
+            String roomId, Long revision);
+
     @API
     public RoomParticipant getRoomParticipant(SecurityToken token, String deviceResourceId, String roomId,
             String roomParticipantId);
@@ -109,6 +109,32 @@ public abstract class Component
         public void setNotificationManager(NotificationManager notificationManager);
     }
 
+    /**
+     * Class extending {@link Component} can implement this interface to be aware of
+     * {@link cz.cesnet.shongo.controller.scheduler.ChangeJournal}.
+     */
+    public static interface ChangeJournalAware
+    {
+        /**
+         * @param changeJournal {@link cz.cesnet.shongo.controller.scheduler.ChangeJournal} which can be used by
+         *                      implementing {@link Component}
+         */
+        public void setChangeJournal(cz.cesnet.shongo.controller.scheduler.ChangeJournal changeJournal);
+    }
+
+    /**
+     * Class extending {@link Component} can implement this interface to be aware of
+     * {@link cz.cesnet.shongo.controller.executor.ExecutionTimeline}.
+     */
+    public static interface ExecutionTimelineAware
+    {
+        /**
+         * @param executionTimeline {@link cz.cesnet.shongo.controller.executor.ExecutionTimeline} which can be used by
+         *                          implementing {@link Component}
+         */
+        public void setExecutionTimeline(cz.cesnet.shongo.controller.executor.ExecutionTimeline executionTimeline);
+    }
+
     /**
      * Class extending {@link Component} can implement this interface and the thread returned from
      * the {@link #getThread()} method will be automatically started after the controller is started.
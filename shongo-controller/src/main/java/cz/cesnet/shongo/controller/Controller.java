@@ -14,10 +14,13 @@ import cz.cesnet.shongo.controller.calendar.connector.CalendarConnector;
 import cz.cesnet.shongo.controller.domains.BasicAuthFilter;
 import cz.cesnet.shongo.controller.domains.InterDomainAgent;
 import cz.cesnet.shongo.controller.domains.SSLClientCertFilter;
+import cz.cesnet.shongo.controller.executor.ExecutionTimeline;
 import cz.cesnet.shongo.controller.executor.Executor;
 import cz.cesnet.shongo.controller.notification.executor.EmailNotificationExecutor;
 import cz.cesnet.shongo.controller.notification.executor.NotificationExecutor;
+import cz.cesnet.shongo.controller.notification.EmailOutbox;
 import cz.cesnet.shongo.controller.notification.NotificationManager;
+import cz.cesnet.shongo.controller.scheduler.ChangeJournal;
 import cz.cesnet.shongo.controller.scheduler.Preprocessor;
 import cz.cesnet.shongo.controller.scheduler.Scheduler;
 import cz.cesnet.shongo.controller.util.NativeQuery;
@@ -165,6 +168,16 @@ public class Controller
 
     private CalendarManager calendarManager = new CalendarManager();
 
+    /**
+     * @see ChangeJournal
+     */
+    private ChangeJournal changeJournal = new ChangeJournal();
+
+    /**
+     * @see ExecutionTimeline
+     */
+    private ExecutionTimeline executionTimeline = new ExecutionTimeline();
+
     /**
      * Constructor.
      *
@@ -467,6 +480,22 @@ public class Controller
         return calendarManager;
     }
 
+    /**
+     * @return {@link #changeJournal}
+     */
+    public ChangeJournal getChangeJournal()
+    {
+        return changeJournal;
+    }
+
+    /**
+     * @return {@link #executionTimeline}
+     */
+    public ExecutionTimeline getExecutionTimeline()
+    {
+        return executionTimeline;
+    }
+
     /**
      * @param notificationExecutor to be added to the {@link #notificationManager}
      */
@@ -505,6 +534,8 @@ public class Controller
         // Add common components
         addComponent(notificationManager);
         addComponent(calendarManager);
+        addComponent(changeJournal);
+        addComponent(executionTimeline);
 
         // Initialize components
         for (Component component : components) {
@@ -524,6 +555,14 @@ public class Controller
                 Component.NotificationManagerAware notificationManagerAware = (Component.NotificationManagerAware) component;
                 notificationManagerAware.setNotificationManager(notificationManager);
             }
+            if (component instanceof Component.ChangeJournalAware) {
+                Component.ChangeJournalAware changeJournalAware = (Component.ChangeJournalAware) component;
+                changeJournalAware.setChangeJournal(changeJournal);
+            }
+            if (component instanceof Component.ExecutionTimelineAware) {
+                Component.ExecutionTimelineAware executionTimelineAware = (Component.ExecutionTimelineAware) component;
+                executionTimelineAware.setExecutionTimeline(executionTimeline);
+            }
             component.init(configuration);
         }
     }
@@ -738,6 +777,7 @@ public class Controller
     {
         WorkerThread workerThread = new WorkerThread(getComponent(Preprocessor.class), getComponent(Scheduler.class),
                 notificationManager, calendarManager, entityManagerFactory);
+        workerThread.setChangeJournal(changeJournal);
         workerThread.setPeriod(configuration.getDuration(ControllerConfiguration.WORKER_PERIOD));
         workerThread.setLookahead(configuration.getPeriod(ControllerConfiguration.WORKER_LOOKAHEAD));
         addThread(workerThread);
@@ -1093,14 +1133,22 @@ public class Controller
         Executor executor = new Executor(notificationManager);
         controller.addComponent(executor);
 
-        // Add mail notification executor
-        controller.addNotificationExecutor(new EmailNotificationExecutor(controller.getEmailSender(), configuration));
+        // Add mail notification executor (emails are delivered asynchronously from the outbox when SMTP is configured)
+        EmailNotificationExecutor emailNotificationExecutor =
+                new EmailNotificationExecutor(controller.getEmailSender(), configuration);
+        if (controller.getEmailSender().isInitialized()) {
+            EmailOutbox emailOutbox = new EmailOutbox(controller.getEmailSender());
+            controller.addComponent(emailOutbox);
+            emailNotificationExecutor.setEmailOutbox(emailOutbox);
+        }
+        controller.addNotificationExecutor(emailNotificationExecutor);
 
         controller.addCalendarConnector(controller.getCalendarConnector());
 
         // Initialize Inter Domain agent
         if (configuration.isInterDomainConfigured()) {
-            InterDomainAgent.create(entityManagerFactory, configuration, authorization, controller.getEmailSender(), cache);
+            InterDomainAgent.create(entityManagerFactory, configuration, authorization, controller.getEmailSender(), cache,
+                    controller.getChangeJournal());
         }
 
         // Add XML-RPC services
@@ -1108,7 +1156,9 @@ public class Controller
         controller.addRpcService(new CommonServiceImpl());
         controller.addRpcService(new AuthorizationServiceImpl());
         controller.addRpcService(new ResourceServiceImpl(cache));
-        controller.addRpcService(new ResourceControlServiceImpl(recordingsCache));
+        ResourceControlServiceImpl resourceControlService = new ResourceControlServiceImpl(recordingsCache);
+        resourceControlService.setExecutor(executor);
+        controller.addRpcService(resourceControlService);
         controller.addRpcService(new ReservationServiceImpl(cache));
         controller.addRpcService(new ExecutableServiceImpl(executor, recordingsCache));
 
@@ -87,29 +87,36 @@ public class ControllerAgent extends Agent
     }
 
     @Override
-    public SendLocalCommand sendCommand(String receiverAgentName, Command command)
+    public SendLocalCommand sendCommandAsync(String receiverAgentName, final Command command)
     {
         Controller.loggerRequestedCommands.info("Action:{} {}.", command.getId(), command);
-        SendLocalCommand sendLocalCommand = super.sendCommand(receiverAgentName, command);
-        String commandState;
-        switch (sendLocalCommand.getState()) {
-            case SUCCESSFUL:
-                Object result = sendLocalCommand.getResult();
-                if (result != null && result instanceof String) {
-                    commandState = String.format("OK: %s", result);
-                }
-                else {
-                    commandState = "OK";
+        final SendLocalCommand sendLocalCommand = super.sendCommandAsync(receiverAgentName, command);
+        sendLocalCommand.addListener(new Runnable()
+        {
+            @Override
+            public void run()
+            {
+                String commandState;
+                switch (sendLocalCommand.getState()) {
+                    case SUCCESSFUL:
+                        Object result = sendLocalCommand.getResult();
+                        if (result != null && result instanceof String) {
+                            commandState = String.format("OK: %s", result);
+                        }
+                        else {
+                            commandState = "OK";
+                        }
+                        break;
+                    case FAILED:
+                        commandState = String.format("FAILED: %s", sendLocalCommand.getJadeReport().getMessage());
+                        break;
+                    default:
+                        commandState = "UNKNOWN";
+                        break;
                 }
-                break;
-            case FAILED:
-                commandState = String.format("FAILED: %s", sendLocalCommand.getJadeReport().getMessage());
-                break;
-            default:
-                commandState = "UNKNOWN";
-                break;
-        }
-        Controller.loggerRequestedCommands.info("Action:{} Done ({}).", command.getId(), commandState);
+                Controller.loggerRequestedCommands.info("Action:{} Done ({}).", command.getId(), commandState);
+            }
+        }, null);
         return sendLocalCommand;
     }
 
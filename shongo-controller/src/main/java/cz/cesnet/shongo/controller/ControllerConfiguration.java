@@ -79,6 +79,12 @@ public class ControllerConfiguration extends CombinedConfiguration
      */
     public static final String WORKER_PERIOD = "worker.period";
     public static final String WORKER_LOOKAHEAD = "worker.lookahead";
+    public static final String WORKER_RECONCILIATION_PERIOD = "worker.reconciliation-period";
+
+    /**
+     * Scheduler configuration.
+     */
+    public static final String SCHEDULER_PARALLELISM = "scheduler.parallelism";
 
     /**
      * Maximum duration of reservations.
@@ -104,7 +110,8 @@ public class ControllerConfiguration extends CombinedConfiguration
 
 
     /**
-     * Period in which the executor works.
+     * Period in which the executor checks all executables (between the checks it is woken up by
+     * {@link cz.cesnet.shongo.controller.executor.ExecutionTimeline} only when some executable is due).
      */
     public static final String EXECUTOR_PERIOD = "executor.period";
 
@@ -133,6 +140,22 @@ public class ControllerConfiguration extends CombinedConfiguration
      */
     public static final String EXECUTOR_STARTING_DURATION_ROOM = "executor.starting-duration.room";
 
+    /**
+     * Maximum number of actions which {@link cz.cesnet.shongo.controller.executor.Executor} performs concurrently.
+     */
+    public static final String EXECUTOR_ACTION_POOL_SIZE = "executor.action.pool-size";
+
+    /**
+     * Maximum number of actions which {@link cz.cesnet.shongo.controller.executor.Executor} performs concurrently
+     * for a single device.
+     */
+    public static final String EXECUTOR_ACTION_DEVICE_LIMIT = "executor.action.device-limit";
+
+    /**
+     * Duration after which {@link cz.cesnet.shongo.controller.executor.Executor} interrupts a performed action.
+     */
+    public static final String EXECUTOR_ACTION_TIMEOUT = "executor.action.timeout";
+
     /**
      * URL to AA server.
      */
@@ -206,6 +229,14 @@ public class ControllerConfiguration extends CombinedConfiguration
      */
     public static final String NOTIFICATION_RESERVATION_REQUEST_CONFIRMATION_URL = "notification.reservation-request-confirmation-url";
 
+    /**
+     * Delivery of notification emails from the {@link cz.cesnet.shongo.controller.notification.EmailOutbox}.
+     */
+    public static final String NOTIFICATION_DELIVERY_PERIOD = "notification.delivery.period";
+    public static final String NOTIFICATION_DELIVERY_RETRY_DELAY = "notification.delivery.retry-delay";
+    public static final String NOTIFICATION_DELIVERY_MAX_RETRY_DELAY = "notification.delivery.max-retry-delay";
+    public static final String NOTIFICATION_DELIVERY_MAX_ATTEMPT_COUNT = "notification.delivery.max-attempt-count";
+
     /**
      * Filepath for FreePBX PDF guide.
      */
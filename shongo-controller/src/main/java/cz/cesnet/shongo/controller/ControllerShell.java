@@ -2,6 +2,7 @@ package cz.cesnet.shongo.controller;
 
 import cz.cesnet.shongo.PersonInformation;
 import cz.cesnet.shongo.controller.api.rpc.RpcServerRequestLogger;
+import cz.cesnet.shongo.controller.executor.ExecutionEngine;
 import cz.cesnet.shongo.controller.executor.Executor;
 import cz.cesnet.shongo.controller.notification.NotificationManager;
 import cz.cesnet.shongo.controller.scheduler.Preprocessor;
@@ -16,6 +17,8 @@ import org.apache.log4j.Level;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.Map;
+
 /**
  * Represents an cmd-line shell for the {@link Controller}.
  *
@@ -183,7 +186,7 @@ public class ControllerShell extends Shell
                 }
             }
         });
-        addCommand("executor", "[on|off] Switch on/off executor", new CommandHandler()
+        addCommand("executor", "[on|off|status] Switch on/off executor or show its status", new CommandHandler()
         {
             @Override
             public void perform(CommandLine commandLine)
@@ -201,6 +204,19 @@ public class ControllerShell extends Shell
                     ControllerShell.logger.info("Executor is disabled.");
                     executor.setEnabled(false);
                 }
+                else if (args[1].equals("status")) {
+                    ExecutionEngine executionEngine = executor.getExecutionEngine();
+                    if (executionEngine == null) {
+                        ControllerShell.logger.info("Executor isn't initialized.");
+                        return;
+                    }
+                    ControllerShell.logger.info("Executor has {} waiting and {} running actions.",
+                            executionEngine.getQueueDepth(), executionEngine.getRunningCount());
+                    for (Map.Entry<String, ExecutionEngine.Latency> entry :
+                            executionEngine.getLatencies().entrySet()) {
+                        ControllerShell.logger.info("{}: {}.", entry.getKey(), entry.getValue());
+                    }
+                }
             }
         });
     }
@@ -12,6 +12,8 @@ import javax.mail.*;
 import javax.mail.internet.*;
 import javax.mail.util.ByteArrayDataSource;
 import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.*;
 import java.util.List;
@@ -40,6 +42,16 @@ public class EmailSender
      */
     private Session session;
 
+    /**
+     * Opened connection to the SMTP server which is reused for sending of multiple emails.
+     */
+    private Transport transport;
+
+    /**
+     * Timestamp (in milliseconds) when the {@link #transport} was used for the last time.
+     */
+    private long transportLastUsed;
+
     /**
      * Constructor.
      *
@@ -167,6 +179,22 @@ public class EmailSender
         if (session == null) {
             return;
         }
+        MimeMessage message = createMessage(email);
+        logger.debug("Sending email '{}' from '{}' to '{}'...",
+                new Object[]{email.subject, sender, getRecipientsString(message)});
+        sendMessage(message);
+    }
+
+    /**
+     * @param email
+     * @return new {@link MimeMessage} for given {@code email}
+     * @throws MessagingException
+     */
+    public MimeMessage createMessage(Email email) throws MessagingException
+    {
+        if (session == null) {
+            throw new IllegalStateException("SMTP isn't configured.");
+        }
         MimeMessage message = new MimeMessage(session);
         message.setFrom(new InternetAddress(sender));
         for (InternetAddress recipient : email.recipients) {
@@ -216,7 +244,113 @@ public class EmailSender
 
         // Set message multipart content
         message.setContent(messageMultipart);
+        message.saveChanges();
+        return message;
+    }
 
+    /**
+     * @param message
+     * @return given {@code message} serialized in RFC 822 format
+     * @throws MessagingException
+     */
+    public byte[] serializeMessage(MimeMessage message) throws MessagingException
+    {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try {
+            message.writeTo(outputStream);
+        }
+        catch (IOException exception) {
+            throw new MessagingException("Cannot serialize message.", exception);
+        }
+        return outputStream.toByteArray();
+    }
+
+    /**
+     * @param data message serialized in RFC 822 format by {@link #serializeMessage}
+     * @return {@link MimeMessage} parsed from given {@code data}
+     * @throws MessagingException
+     */
+    public MimeMessage parseMessage(byte[] data) throws MessagingException
+    {
+        if (session == null) {
+            throw new IllegalStateException("SMTP isn't configured.");
+        }
+        return new MimeMessage(session, new ByteArrayInputStream(data));
+    }
+
+    /**
+     * Send given {@code message} to all its recipients (in single SMTP transaction) by the opened {@link #transport}
+     * (new connection is opened only when the previous one has been closed).
+     *
+     * @param message to be sent
+     * @throws MessagingException
+     */
+    public synchronized void sendMessage(MimeMessage message) throws MessagingException
+    {
+        if (session == null) {
+            return;
+        }
+        Address[] recipients = message.getAllRecipients();
+        if (recipients == null || recipients.length == 0) {
+            logger.warn("Email '{}' doesn't have any recipients.", message.getSubject());
+            return;
+        }
+        try {
+            if (transport == null) {
+                transport = session.getTransport("smtp");
+            }
+            if (!transport.isConnected()) {
+                logger.debug("Connecting to SMTP server...");
+                transport.connect();
+            }
+            transport.sendMessage(message, recipients);
+            transportLastUsed = System.currentTimeMillis();
+        }
+        catch (MessagingException exception) {
+            // Connection can be broken and thus it will be opened again for the next message
+            closeConnection();
+            throw exception;
+        }
+    }
+
+    /**
+     * Close the {@link #transport} when it hasn't been used for given {@code idleTimeout}.
+     *
+     * @param idleTimeout in milliseconds
+     */
+    public synchronized void closeIdleConnection(long idleTimeout)
+    {
+        if (transport != null && (System.currentTimeMillis() - transportLastUsed) >= idleTimeout) {
+            closeConnection();
+        }
+    }
+
+    /**
+     * Close the {@link #transport}.
+     */
+    public synchronized void closeConnection()
+    {
+        if (transport != null) {
+            try {
+                if (transport.isConnected()) {
+                    logger.debug("Disconnecting from SMTP server...");
+                    transport.close();
+                }
+            }
+            catch (MessagingException exception) {
+                logger.warn("Failed to close SMTP connection.", exception);
+            }
+            transport = null;
+        }
+    }
+
+    /**
+     * @param message
+     * @return string with all recipients of given {@code message}
+     * @throws MessagingException
+     */
+    public static String getRecipientsString(Message message) throws MessagingException
+    {
         StringBuilder recipientString = new StringBuilder();
         Address[] recipients = message.getRecipients(Message.RecipientType.TO);
         if (recipients != null) {
@@ -227,8 +361,7 @@ public class EmailSender
                 recipientString.append(recipient.toString());
             }
         }
-        logger.debug("Sending email '{}' from '{}' to '{}'...", new Object[]{email.subject, sender, recipientString});
-        Transport.send(message);
+        return recipientString.toString();
     }
 
     public static class Email
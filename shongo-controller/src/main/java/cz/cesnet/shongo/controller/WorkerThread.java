@@ -3,6 +3,7 @@ package cz.cesnet.shongo.controller;
 import cz.cesnet.shongo.Temporal;
 import cz.cesnet.shongo.controller.calendar.CalendarManager;
 import cz.cesnet.shongo.controller.notification.NotificationManager;
+import cz.cesnet.shongo.controller.scheduler.ChangeJournal;
 import cz.cesnet.shongo.controller.scheduler.Preprocessor;
 import cz.cesnet.shongo.controller.scheduler.Scheduler;
 import org.joda.time.DateTime;
@@ -51,6 +52,12 @@ public class WorkerThread extends Thread
 
     private CalendarManager calendarManager;
 
+    /**
+     * {@link ChangeJournal} from which are taken the changes which should be processed
+     * (when it is not set, all reservation requests are processed in each run).
+     */
+    private ChangeJournal changeJournal;
+
     /**
      * {@link EntityManagerFactory} for {@link Preprocessor} and {@link Scheduler}.
      */
@@ -99,6 +106,14 @@ public class WorkerThread extends Thread
         this.lookahead = lookahead;
     }
 
+    /**
+     * @param changeJournal sets the {@link #changeJournal}
+     */
+    public void setChangeJournal(ChangeJournal changeJournal)
+    {
+        this.changeJournal = changeJournal;
+    }
+
     @Override
     public void run()
     {
@@ -150,41 +165,42 @@ public class WorkerThread extends Thread
      */
     private void work()
     {
-        // Globally synchronized (see ThreadLock documentation)
-        //logger.debug("Worker waiting for lock...........................");
-        synchronized (ThreadLock.class) {
-            //logger.debug("Worker lock acquired...   [[[[[")
+        // We want to pre-process and schedule only reservation requests in specific interval
+        Interval interval = new Interval(Temporal.nowRoundedToSeconds(), lookahead);
 
-            // We want to pre-process and schedule only reservation requests in specific interval
-            Interval interval = new Interval(Temporal.nowRoundedToSeconds(), lookahead);
+        // Take changes which should be processed
+        ChangeJournal.Changes changes = null;
+        if (changeJournal != null) {
+            changes = changeJournal.pop(interval.getStart());
+        }
 
-            EntityManager entityManager = entityManagerFactory.createEntityManager();
-            EntityManager bypassEntityManager = entityManagerFactory.createEntityManager();
-            Reporter reporter = Reporter.getInstance();
-            try {
-                // Run preprocessor, scheduler and notifications
-                preprocessor.run(interval, entityManager);
-                scheduler.run(interval, entityManager, bypassEntityManager);
-                notificationManager.executeNotifications(entityManager);
-                calendarManager.sendCalendarNotifications(entityManager);
-
-                // Clear reporter cache once per hour
-                DateTime clearCacheDateTime = Temporal.nowRoundedToHours();
-                if (!clearCacheDateTime.equals(this.clearCacheDateTime)) {
-                    reporter.clearCache(interval.getStart());
-                    this.clearCacheDateTime = clearCacheDateTime;
-                }
-            }
-            catch (Exception exception) {
-                reporter.reportInternalError(Reporter.WORKER, exception);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityManager bypassEntityManager = entityManagerFactory.createEntityManager();
+        Reporter reporter = Reporter.getInstance();
+        try {
+            // Run preprocessor, scheduler and notifications
+            preprocessor.run(interval, entityManager, changes);
+            scheduler.run(interval, entityManager, bypassEntityManager, changes);
+            notificationManager.executeNotifications(entityManager);
+            calendarManager.sendCalendarNotifications(entityManager);
+
+            // Clear reporter cache once per hour
+            DateTime clearCacheDateTime = Temporal.nowRoundedToHours();
+            if (!clearCacheDateTime.equals(this.clearCacheDateTime)) {
+                reporter.clearCache(interval.getStart());
+                this.clearCacheDateTime = clearCacheDateTime;
             }
-            finally {
-                entityManager.close();
-                bypassEntityManager.close();
+        }
+        catch (Exception exception) {
+            if (changeJournal != null) {
+                // Popped changes could be lost
+                changeJournal.requestReconciliation();
             }
-
-            //logger.debug("Worker releasing lock...  ]]]]]");
+            reporter.reportInternalError(Reporter.WORKER, exception);
+        }
+        finally {
+            entityManager.close();
+            bypassEntityManager.close();
         }
-        //logger.debug("Worker lock released...");
     }
 }
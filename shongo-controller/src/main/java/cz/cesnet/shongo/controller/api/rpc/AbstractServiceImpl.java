@@ -3,6 +3,7 @@ package cz.cesnet.shongo.controller.api.rpc;
 import cz.cesnet.shongo.controller.Component;
 import cz.cesnet.shongo.controller.api.request.ListRequest;
 import cz.cesnet.shongo.controller.api.request.ListResponse;
+import cz.cesnet.shongo.controller.util.ListKeyset;
 import cz.cesnet.shongo.controller.util.QueryFilter;
 
 import javax.persistence.EntityManager;
@@ -54,6 +55,22 @@ public abstract class AbstractServiceImpl extends Component
      */
     protected List<Object[]> performNativeListRequest(String query, QueryFilter queryFilter,
             ListRequest listRequest, ListResponse listResponse, EntityManager entityManager)
+    {
+        return performNativeListRequest(query, queryFilter, null, listRequest, listResponse, entityManager);
+    }
+
+    /**
+     * @param query            query
+     * @param queryFilter      {@link QueryFilter} for filtering select and count statement
+     * @param keyset           {@link ListKeyset} which was used for ordering and filtering the {@code query}
+     *                         (or {@code null} when the items should be paged only by offset)
+     * @param listRequest      {@link ListRequest}  object
+     * @param listResponse     {@link ListResponse} object
+     * @param entityManager    to be used for performing queries
+     * @return list of objects
+     */
+    protected List<Object[]> performNativeListRequest(String query, QueryFilter queryFilter, ListKeyset keyset,
+            ListRequest listRequest, ListResponse listResponse, EntityManager entityManager)
     {
         StringBuilder countQueryBuilder = new StringBuilder();
         countQueryBuilder.append("SELECT COUNT(*) FROM (");
@@ -62,7 +79,7 @@ public abstract class AbstractServiceImpl extends Component
 
         Query queryList = entityManager.createNativeQuery(query);
         Query queryCount = entityManager.createNativeQuery(countQueryBuilder.toString());
-        return getResponse(queryList, queryCount, queryFilter, listRequest, listResponse);
+        return getResponse(queryList, queryCount, queryFilter, keyset, listRequest, listResponse);
     }
 
     /**
@@ -86,7 +103,7 @@ public abstract class AbstractServiceImpl extends Component
 
         TypedQuery<T> queryList = entityManager.createQuery(query, queryResultClass);
         TypedQuery<Long> queryCount = entityManager.createQuery(countQuery, Long.class);
-        return getResponse(queryList, queryCount, queryFilter, listRequest, listResponse);
+        return getResponse(queryList, queryCount, queryFilter, null, listRequest, listResponse);
     }
 
     /**
@@ -95,30 +112,47 @@ public abstract class AbstractServiceImpl extends Component
      * @param queryList
      * @param queryCount
      * @param queryFilter
+     * @param keyset
      * @param listRequest
      * @param listResponse
      * @return response
      */
-    private <T> List<T> getResponse(Query queryList, Query queryCount, QueryFilter queryFilter,
+    private <T> List<T> getResponse(Query queryList, Query queryCount, QueryFilter queryFilter, ListKeyset keyset,
             ListRequest listRequest, ListResponse listResponse)
     {
         // Fill filter parameters to queries
         queryFilter.fillQueryParameters(queryList);
-        queryFilter.fillQueryParameters(queryCount);
 
-        // Restrict first result
-        Integer firstResult = listRequest.getStart(0);
+        // Restrict first result (items before keyset position are already filtered out)
+        int start;
+        int firstResult;
+        if (keyset != null && keyset.getStart() != null) {
+            start = keyset.getStart();
+            firstResult = 0;
+        }
+        else {
+            start = ListKeyset.getStart(listRequest);
+            firstResult = start;
+        }
         queryList.setFirstResult(firstResult);
 
         // Restrict result count
         Integer totalResultCount = null;
+        boolean skipCount = listRequest.isSkipCount();
         int maxResultCount = listRequest.getCount();
         if (maxResultCount != -1) {
-            totalResultCount = ((Number) queryCount.getSingleResult()).intValue();
-            if ((firstResult + maxResultCount) > totalResultCount) {
-                maxResultCount = totalResultCount - firstResult;
+            if (skipCount) {
+                // Fetch one more item to determine whether more items are available
+                queryList.setMaxResults(maxResultCount + 1);
+            }
+            else {
+                queryFilter.fillQueryParameters(queryCount);
+                totalResultCount = start - firstResult + ((Number) queryCount.getSingleResult()).intValue();
+                if ((start + maxResultCount) > totalResultCount) {
+                    maxResultCount = totalResultCount - start;
+                }
+                queryList.setMaxResults(maxResultCount);
             }
-            queryList.setMaxResults(maxResultCount);
         }
 
         // List requested results
@@ -131,13 +165,35 @@ public abstract class AbstractServiceImpl extends Component
             resultList = Collections.emptyList();
         }
 
-        if (totalResultCount == null) {
+        boolean moreAvailable;
+        if (skipCount) {
+            moreAvailable = maxResultCount != -1 && resultList.size() > maxResultCount;
+            if (moreAvailable) {
+                resultList = resultList.subList(0, maxResultCount);
+            }
+            totalResultCount = start + resultList.size() + (moreAvailable ? 1 : 0);
+        }
+        else if (totalResultCount == null) {
             totalResultCount = resultList.size();
+            moreAvailable = false;
+        }
+        else {
+            moreAvailable = (start + resultList.size()) < totalResultCount;
         }
 
         // Setup response
         listResponse.setCount(totalResultCount);
-        listResponse.setStart(firstResult);
+        listResponse.setStart(start);
+        if (moreAvailable && !resultList.isEmpty()) {
+            int nextStart = start + resultList.size();
+            T lastResult = resultList.get(resultList.size() - 1);
+            if (keyset != null && lastResult instanceof Object[]) {
+                listResponse.setContinuation(keyset.formatContinuation(nextStart, (Object[]) lastResult));
+            }
+            else {
+                listResponse.setContinuation(ListKeyset.formatContinuation(nextStart));
+            }
+        }
 
         return resultList;
     }
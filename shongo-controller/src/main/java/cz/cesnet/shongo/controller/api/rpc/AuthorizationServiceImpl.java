@@ -19,6 +19,7 @@ import cz.cesnet.shongo.controller.booking.request.ReservationRequest;
 import cz.cesnet.shongo.controller.booking.resource.ForeignResources;
 import cz.cesnet.shongo.controller.booking.resource.Resource;
 import cz.cesnet.shongo.controller.booking.resource.ResourceManager;
+import cz.cesnet.shongo.controller.executor.ExecutionTimeline;
 import cz.cesnet.shongo.controller.settings.UserSettingsManager;
 import cz.cesnet.shongo.controller.util.NativeQuery;
 import cz.cesnet.shongo.controller.util.QueryFilter;
@@ -34,7 +35,8 @@ import java.util.*;
  * @author Martin Srom <martin.srom@cesnet.cz>
  */
 public class AuthorizationServiceImpl extends AbstractServiceImpl
-        implements AuthorizationService, Component.EntityManagerFactoryAware, Component.AuthorizationAware
+        implements AuthorizationService, Component.EntityManagerFactoryAware, Component.AuthorizationAware,
+                   Component.ExecutionTimelineAware
 {
     /**
      * @see javax.persistence.EntityManagerFactory
@@ -46,6 +48,11 @@ public class AuthorizationServiceImpl extends AbstractServiceImpl
      */
     private Authorization authorization;
 
+    /**
+     * @see ExecutionTimeline
+     */
+    private ExecutionTimeline executionTimeline;
+
     @Override
     public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory)
     {
@@ -58,6 +65,12 @@ public class AuthorizationServiceImpl extends AbstractServiceImpl
         this.authorization = authorization;
     }
 
+    @Override
+    public void setExecutionTimeline(ExecutionTimeline executionTimeline)
+    {
+        this.executionTimeline = executionTimeline;
+    }
+
     @Override
     public void init(ControllerConfiguration configuration)
     {
@@ -546,6 +559,7 @@ public class AuthorizationServiceImpl extends AbstractServiceImpl
                     aclEntryApi.getIdentityType(), aclEntryApi.getIdentityPrincipalId(), object, aclEntryApi.getRole());
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
+            markExecutablesModified();
             return (aclEntry != null ? aclEntry.getId().toString() : null);
         }
         finally {
@@ -576,6 +590,7 @@ public class AuthorizationServiceImpl extends AbstractServiceImpl
             authorizationManager.deleteAclEntry(aclEntry);
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
+            markExecutablesModified();
         }
         finally {
             if (authorizationManager.isTransactionActive()) {
@@ -781,6 +796,7 @@ public class AuthorizationServiceImpl extends AbstractServiceImpl
             }
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
+            markExecutablesModified();
         }
         finally {
             if (authorizationManager.isTransactionActive()) {
@@ -870,4 +886,15 @@ public class AuthorizationServiceImpl extends AbstractServiceImpl
         }
         return object;
     }
+
+    /**
+     * Modified {@link cz.cesnet.shongo.controller.acl.AclEntry}s can modify executables and thus the executor should
+     * update them.
+     */
+    private void markExecutablesModified()
+    {
+        if (executionTimeline != null) {
+            executionTimeline.wakeUp();
+        }
+    }
 }
@@ -37,6 +37,7 @@ import cz.cesnet.shongo.controller.domains.InterDomainAgent;
 import cz.cesnet.shongo.controller.executor.ExecutionAction;
 import cz.cesnet.shongo.controller.executor.ExecutionPlan;
 import cz.cesnet.shongo.controller.executor.ExecutionReport;
+import cz.cesnet.shongo.controller.executor.ExecutionTimeline;
 import cz.cesnet.shongo.controller.executor.Executor;
 import cz.cesnet.shongo.controller.notification.AbstractNotification;
 import cz.cesnet.shongo.controller.notification.NotificationManager;
@@ -60,7 +61,7 @@ import java.util.*;
  */
 public class ExecutableServiceImpl extends AbstractServiceImpl
         implements ExecutableService, Component.EntityManagerFactoryAware,
-                   Component.AuthorizationAware, Component.ControllerAgentAware
+                   Component.AuthorizationAware, Component.ControllerAgentAware, Component.ExecutionTimelineAware
 {
     /**
      * @see javax.persistence.EntityManagerFactory
@@ -82,6 +83,11 @@ public class ExecutableServiceImpl extends AbstractServiceImpl
      */
     private final Executor executor;
 
+    /**
+     * @see ExecutionTimeline
+     */
+    private ExecutionTimeline executionTimeline;
+
     /**
      * @see RecordingsCache
      */
@@ -114,6 +120,12 @@ public class ExecutableServiceImpl extends AbstractServiceImpl
         this.controllerAgent = controllerAgent;
     }
 
+    @Override
+    public void setExecutionTimeline(ExecutionTimeline executionTimeline)
+    {
+        this.executionTimeline = executionTimeline;
+    }
+
     @Override
     public void init(ControllerConfiguration configuration)
     {
@@ -462,17 +474,11 @@ public class ExecutableServiceImpl extends AbstractServiceImpl
                     executionPlan.build();
 
                     // Perform execution plan
-                    while (!executionPlan.isEmpty()) {
-                        Collection<ExecutionAction> executionActions = executionPlan.popExecutionActions();
-                        for (ExecutionAction executionAction : executionActions) {
-                            executionAction.start();
-                        }
-                        try {
-                            Thread.sleep(100);
-                        }
-                        catch (InterruptedException exception) {
-                            executor.getLogger().error("Execution interrupted.", exception);
-                        }
+                    try {
+                        executor.getExecutionEngine().perform(executionPlan);
+                    }
+                    catch (InterruptedException exception) {
+                        executor.getLogger().error("Execution interrupted.", exception);
                     }
 
                     // Set services as checked
@@ -566,6 +572,11 @@ public class ExecutableServiceImpl extends AbstractServiceImpl
 
             entityManager.getTransaction().commit();
 
+            // Modified executable should be updated by the executor
+            if (executionTimeline != null) {
+                executionTimeline.markExecutable(executable);
+            }
+
             NotificationManager notificationManager = executor.getNotificationManager();
             notificationManager.addNotifications(notifications, entityManager);
         }
@@ -777,6 +788,10 @@ public class ExecutableServiceImpl extends AbstractServiceImpl
             roomExecutable.setRoomId(deviceRoomId);
             executableManager.update(roomExecutable);
             entityManager.getTransaction().commit();
+
+            if (executionTimeline != null) {
+                executionTimeline.markExecutable(roomExecutable);
+            }
         }
         finally {
             if (entityManager.getTransaction().isActive()) {
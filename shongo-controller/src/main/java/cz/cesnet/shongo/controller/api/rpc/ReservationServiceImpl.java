@@ -9,6 +9,7 @@ import cz.cesnet.shongo.controller.api.*;
 import cz.cesnet.shongo.controller.api.Reservation;
 import cz.cesnet.shongo.controller.api.Specification;
 import cz.cesnet.shongo.controller.api.request.*;
+import cz.cesnet.shongo.controller.authorization.AclEntryFilter;
 import cz.cesnet.shongo.controller.authorization.Authorization;
 import cz.cesnet.shongo.controller.authorization.AuthorizationManager;
 import cz.cesnet.shongo.controller.booking.Allocation;
@@ -29,6 +30,7 @@ import cz.cesnet.shongo.controller.notification.NotificationManager;
 import cz.cesnet.shongo.controller.notification.ReservationRequestConfirmationNotification;
 import cz.cesnet.shongo.controller.notification.ReservationRequestDeniedNotification;
 import cz.cesnet.shongo.controller.scheduler.*;
+import cz.cesnet.shongo.controller.util.ListKeyset;
 import cz.cesnet.shongo.controller.util.NativeQuery;
 import cz.cesnet.shongo.controller.util.QueryFilter;
 import cz.cesnet.shongo.controller.util.iCalendar;
@@ -46,7 +48,7 @@ import java.util.*;
  */
 public class ReservationServiceImpl extends AbstractServiceImpl
         implements ReservationService, Component.EntityManagerFactoryAware,
-                   Component.AuthorizationAware, Component.NotificationManagerAware
+                   Component.AuthorizationAware, Component.NotificationManagerAware, Component.ChangeJournalAware
 {
     /**
      * @see cz.cesnet.shongo.controller.cache.Cache
@@ -68,6 +70,11 @@ public class ReservationServiceImpl extends AbstractServiceImpl
      */
     private NotificationManager notificationManager;
 
+    /**
+     * @see ChangeJournal
+     */
+    private ChangeJournal changeJournal;
+
     /**
      * Constructor.
      */
@@ -94,6 +101,12 @@ public class ReservationServiceImpl extends AbstractServiceImpl
         this.notificationManager = notificationManager;
     }
 
+    @Override
+    public void setChangeJournal(ChangeJournal changeJournal)
+    {
+        this.changeJournal = changeJournal;
+    }
+
     @Override
     public void init(ControllerConfiguration configuration)
     {
@@ -225,144 +238,126 @@ public class ReservationServiceImpl extends AbstractServiceImpl
         SecurityToken securityToken = request.getSecurityToken();
         authorization.validate(securityToken);
         // Check if local resource
-        if (request.getSpecification() instanceof cz.cesnet.shongo.controller.api.ResourceSpecification) {
-            cz.cesnet.shongo.controller.api.ResourceSpecification resourceSpecificationApi =
-                    (cz.cesnet.shongo.controller.api.ResourceSpecification) request.getSpecification();
-            if (!ObjectIdentifier.isLocal(resourceSpecificationApi.getResourceId())) {
-                //TODO: check availability for foreign resources???
-                return Boolean.TRUE;
-            }
+        if (!isLocalSpecification(request.getSpecification())) {
+            //TODO: check availability for foreign resources???
+            return Boolean.TRUE;
         }
 
-        EntityManager entityManager = entityManagerFactory.createEntityManager();
-        ReservationRequestManager reservationRequestManager = new ReservationRequestManager(entityManager);
-        try {
-            List<Interval> slots = new ArrayList<Interval>();
-            for (PeriodicDateTimeSlot slot : request.getSlots()) {
-                PeriodicDateTime periodicDateTime = new PeriodicDateTime(slot.getStart(), slot.getPeriod(), slot.getEnd(), slot.getPeriodicityDayOrder(), slot.getPeriodicityDayInMonth());
-                periodicDateTime.setTimeZone(slot.getTimeZone());
-                periodicDateTime.addAllRules(PeriodicDateTime.RuleType.DISABLE, slot.getExcludeDates());
-
-                for (DateTime slotStart : periodicDateTime.enumerate()) {
-                    slots.add(new Interval(slotStart, slot.getDuration()));
-                }
+        Map<Interval, SchedulerReport> reports = checkAvailabilityOccurrences(request, true);
+        for (SchedulerReport schedulerReport : reports.values()) {
+            if (schedulerReport != null) {
+                // Specification cannot be allocated or reservation request cannot be reused in requested time slot
+                return schedulerReport.toAllocationStateReport(authorization.isAdministrator(securityToken) ?
+                        Report.UserType.DOMAIN_ADMIN : Report.UserType.USER);
             }
+        }
+        // Request is available
+        return Boolean.TRUE;
+    }
 
-            boolean rollback = false;
-            // For each time slot in periodic reservation request
-            for (Interval slotToTest : slots) {
-                // We must check only the future (because scheduler allocates only in future)
-                DateTime minimumDateTime = DateTime.now();
-                Interval slot = slotToTest;
-                if (slot.getEnd().isBefore(minimumDateTime)) {
-                    throw new ControllerReportSet.ReservationRequestEmptyDurationException();
-                }
-                if (slot.getStart().isBefore(minimumDateTime)) {
-                    slot = slot.withStart(minimumDateTime);
-                }
+    @Override
+    public AvailabilityCheckResponse checkPeriodicAvailabilityOccurrences(AvailabilityCheckRequest request)
+    {
+        checkNotNull("request", request);
+        SecurityToken securityToken = request.getSecurityToken();
+        authorization.validate(securityToken);
 
-                Specification specificationApi = request.getSpecification();
-                cz.cesnet.shongo.controller.booking.specification.Specification specification = null;
-                Interval allocationSlot = slot;
-                if (specificationApi != null) {
-                    specification = cz.cesnet.shongo.controller.booking.specification.Specification.createFromApi(
-                            specificationApi, entityManager);
-                    if (specification instanceof SpecificationIntervalUpdater) {
-                        SpecificationIntervalUpdater intervalUpdater = (SpecificationIntervalUpdater) specification;
-                        allocationSlot = intervalUpdater.updateInterval(allocationSlot, minimumDateTime);
-                    }
-                }
+        AvailabilityCheckResponse response = new AvailabilityCheckResponse();
+        if (!isLocalSpecification(request.getSpecification())) {
+            //TODO: check availability for foreign resources???
+            for (Interval slot : getAvailabilityCheckSlots(request)) {
+                response.addOccurrence(new AvailabilityCheckResponse.Occurrence(slot, null));
+            }
+            return response;
+        }
 
-                // Create scheduler context
-                SchedulerContext schedulerContext = new SchedulerContext(DateTime.now(), cache, entityManager,
-                        new AuthorizationManager(entityManager, authorization));
-                schedulerContext.setUserId(securityToken.getUserId());
-                schedulerContext.setPurpose(request.getPurpose());
+        Report.UserType userType = authorization.isAdministrator(securityToken) ?
+                Report.UserType.DOMAIN_ADMIN : Report.UserType.USER;
+        Map<Interval, SchedulerReport> reports = checkAvailabilityOccurrences(request, false);
+        for (Map.Entry<Interval, SchedulerReport> entry : reports.entrySet()) {
+            SchedulerReport schedulerReport = entry.getValue();
+            AllocationStateReport report = null;
+            if (schedulerReport != null) {
+                report = schedulerReport.toAllocationStateReport(userType);
+            }
+            response.addOccurrence(new AvailabilityCheckResponse.Occurrence(entry.getKey(), report));
+        }
+        return response;
+    }
 
+    /**
+     * @param specificationApi
+     * @return true whether given {@code specificationApi} can be checked in the local domain, false otherwise
+     */
+    private boolean isLocalSpecification(Specification specificationApi)
+    {
+        if (specificationApi instanceof cz.cesnet.shongo.controller.api.ResourceSpecification) {
+            cz.cesnet.shongo.controller.api.ResourceSpecification resourceSpecificationApi =
+                    (cz.cesnet.shongo.controller.api.ResourceSpecification) specificationApi;
+            if (!ObjectIdentifier.isLocal(resourceSpecificationApi.getResourceId())) {
+                return false;
+            }
+        }
+        return true;
+    }
 
-                // Ignore reservations for already allocated reservation request
-                SchedulerContextState schedulerContextState = schedulerContext.getState();
-                String ignoredReservationRequestId = request.getIgnoredReservationRequestId();
-                if (ignoredReservationRequestId != null) {
-                    ObjectIdentifier objectId = ObjectIdentifier.parse(
-                            ignoredReservationRequestId, ObjectType.RESERVATION_REQUEST);
-                    cz.cesnet.shongo.controller.booking.request.AbstractReservationRequest ignoredReservationRequest =
-                            reservationRequestManager.get(objectId.getPersistenceId());
-                    for (cz.cesnet.shongo.controller.booking.reservation.Reservation reservation :
-                            ignoredReservationRequest.getAllocation().getReservations()) {
-                        if (allocationSlot.overlaps(reservation.getSlot())) {
-                            schedulerContextState.addAvailableReservation(
-                                    reservation, AvailableReservation.Type.REALLOCATABLE);
-                        }
-                    }
+    /**
+     * @param request {@link AvailabilityCheckRequest}
+     * @return list of occurrences for periodic slots of given {@code request}
+     */
+    private List<Interval> getAvailabilityCheckSlots(AvailabilityCheckRequest request)
+    {
+        List<Interval> slots = new ArrayList<Interval>();
+        for (PeriodicDateTimeSlot slot : request.getSlots()) {
+            PeriodicDateTime periodicDateTime = new PeriodicDateTime(slot.getStart(), slot.getPeriod(), slot.getEnd(), slot.getPeriodicityDayOrder(), slot.getPeriodicityDayInMonth());
+            periodicDateTime.setTimeZone(slot.getTimeZone());
+            periodicDateTime.addAllRules(PeriodicDateTime.RuleType.DISABLE, slot.getExcludeDates());
 
-                    for (cz.cesnet.shongo.controller.booking.request.ReservationRequest childReservationRequest :
-                            ignoredReservationRequest.getAllocation().getChildReservationRequests()) {
-                        for (cz.cesnet.shongo.controller.booking.reservation.Reservation reservation :
-                                childReservationRequest.getAllocation().getReservations()) {
-                            if (reservation.getSlot().overlaps(slot)) {
-                                schedulerContextState.addAvailableReservation(
-                                        reservation, AvailableReservation.Type.REALLOCATABLE);
-                            }
-                        }
-                    }
-                }
+            for (DateTime slotStart : periodicDateTime.enumerate()) {
+                slots.add(new Interval(slotStart, slot.getDuration()));
+            }
+        }
+        return slots;
+    }
 
-                try {
-                    // Check reservation request reusability (TODO: check if permanent room)
-                    String reservationRequestId = request.getReservationRequestId();
-                    if (reservationRequestId != null) {
-                        ObjectIdentifier objectId = ObjectIdentifier.parse(
-                                reservationRequestId, ObjectType.RESERVATION_REQUEST);
-                        cz.cesnet.shongo.controller.booking.request.AbstractReservationRequest reservationRequest =
-                                reservationRequestManager.get(objectId.getPersistenceId());
-                        schedulerContext.setReusableAllocation(reservationRequest.getAllocation(), slot);
-                    }
+    /**
+     * Check availability of all occurrences of given {@code request} by single {@link AvailabilityCheck}.
+     *
+     * @param request         {@link AvailabilityCheckRequest}
+     * @param stopUnavailable specifies whether the checking should stop on the first not available occurrence
+     * @return {@link SchedulerReport}s by occurrences (see {@link AvailabilityCheck#check})
+     */
+    private Map<Interval, SchedulerReport> checkAvailabilityOccurrences(AvailabilityCheckRequest request,
+            boolean stopUnavailable)
+    {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        ReservationRequestManager reservationRequestManager = new ReservationRequestManager(entityManager);
+        try {
+            AvailabilityCheck availabilityCheck = new AvailabilityCheck(cache, entityManager, authorization);
+            availabilityCheck.setUserId(request.getSecurityToken().getUserId());
+            availabilityCheck.setPurpose(request.getPurpose());
+            availabilityCheck.setSpecification(request.getSpecification());
 
-                    // Check specification availability
-                    if (specification != null) {
-                        if (specification instanceof ReservationTaskProvider) {
-                            entityManager.getTransaction().begin();
-                            try {
-                                schedulerContext.setAvailabilityCheck(true);
-                                ReservationTaskProvider reservationTaskProvider = (ReservationTaskProvider) specification;
-                                ReservationTask reservationTask =
-                                        reservationTaskProvider.createReservationTask(schedulerContext, slot);
-                                reservationTask.perform();
-                            } finally {
-                                rollback = true;
-                            }
-                        } else {
-                            throw new SchedulerReportSet.SpecificationNotAllocatableException(specification);
-                        }
-                    }
-                }
-                catch (SchedulerException exception) {
-                    SchedulerReport schedulerReport = exception.getReport();
-
-                    // Specification cannot be allocated or reservation request cannot be reused in requested time slot
-                    /* TODO: PREPARED for reporting all errors at once
-                    if (slotsLeft > 0) {
-                        AvailabilityCheckRequest newRequest = request;
-                        newRequest.setSlot(slots.get(slots.size()-slotsLeft));
-                        Object availabilityCheckResult = checkPeriodicAvailability(newRequest);
-                        if (!Boolean.TRUE.equals(availabilityCheckResult)) {
-                            AllocationStateReport report = (AllocationStateReport) availabilityCheckResult;
-                            return schedulerReport.toAllocationStateReport(report);
-                        }
-                    }*/
-                    return schedulerReport.toAllocationStateReport(authorization.isAdministrator(securityToken) ?
-                            Report.UserType.DOMAIN_ADMIN : Report.UserType.USER);
-                }
-                finally {
-                    if (rollback) {
-                        entityManager.getTransaction().rollback();
-                    }
-                }
+            // Ignore reservations for already allocated reservation request
+            String ignoredReservationRequestId = request.getIgnoredReservationRequestId();
+            if (ignoredReservationRequestId != null) {
+                ObjectIdentifier objectId = ObjectIdentifier.parse(
+                        ignoredReservationRequestId, ObjectType.RESERVATION_REQUEST);
+                availabilityCheck.setIgnoredReservationRequest(
+                        reservationRequestManager.get(objectId.getPersistenceId()));
+            }
 
-            } //END OF FOR-EACH LOOP
-            // Request is available
-            return Boolean.TRUE;
+            // Check reservation request reusability (TODO: check if permanent room)
+            String reservationRequestId = request.getReservationRequestId();
+            if (reservationRequestId != null) {
+                ObjectIdentifier objectId = ObjectIdentifier.parse(
+                        reservationRequestId, ObjectType.RESERVATION_REQUEST);
+                AbstractReservationRequest reservationRequest =
+                        reservationRequestManager.get(objectId.getPersistenceId());
+                availabilityCheck.setReusedAllocation(reservationRequest.getAllocation());
+            }
+
+            return availabilityCheck.check(getAvailabilityCheckSlots(request), stopUnavailable);
         }
         finally {
             entityManager.close();
@@ -440,6 +435,8 @@ public class ReservationServiceImpl extends AbstractServiceImpl
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
 
+            markChange(reservationRequest, false);
+
             if (reservationRequest instanceof ReservationRequest) {
                 ReservationRequest simpleReservationRequest = (ReservationRequest) reservationRequest;
                 if (ReservationRequest.AllocationState.CONFIRM_AWAITING.equals(simpleReservationRequest.getAllocationState())) {
@@ -577,6 +574,8 @@ public class ReservationServiceImpl extends AbstractServiceImpl
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
 
+            markChange(newReservationRequest, true);
+
             return ObjectIdentifier.formatId(newReservationRequest);
         }
         finally {
@@ -645,6 +644,8 @@ public class ReservationServiceImpl extends AbstractServiceImpl
             reservationRequestManager.update(reservationRequest);
 
             entityManager.getTransaction().commit();
+
+            markChange(reservationRequest, false);
         }
         finally {
             if (entityManager.getTransaction().isActive()) {
@@ -849,6 +850,8 @@ public class ReservationServiceImpl extends AbstractServiceImpl
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
 
+            markChange(modifiedReservationRequest, true);
+
             return ObjectIdentifier.formatId(modifiedReservationRequest);
         }
         finally {
@@ -899,6 +902,8 @@ public class ReservationServiceImpl extends AbstractServiceImpl
 
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
+
+            markChange(null, true);
         }
         finally {
             if (authorizationManager.isTransactionActive()) {
@@ -946,6 +951,8 @@ public class ReservationServiceImpl extends AbstractServiceImpl
 
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
+
+            markChange(null, true);
         }
         finally {
             if (authorizationManager.isTransactionActive()) {
@@ -1008,6 +1015,12 @@ public class ReservationServiceImpl extends AbstractServiceImpl
 
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
+
+            markChange(abstractReservationRequest, false);
+            for (ReservationRequest reservationRequest :
+                    abstractReservationRequest.getAllocation().getChildReservationRequests()) {
+                markChange(reservationRequest, false);
+            }
         }
         finally {
             if (authorizationManager.isTransactionActive()) {
@@ -1227,7 +1240,25 @@ public class ReservationServiceImpl extends AbstractServiceImpl
             }
             Boolean sortDescending = request.getSortDescending();
             sortDescending = (sortDescending != null ? sortDescending : false);
-            if (sortDescending) {
+
+            // Keyset pagination for sorting by unique or date/time columns
+            ListKeyset keyset = null;
+            if (sort == null) {
+                keyset = new ListKeyset("reservation_request_summary.id", 0, sortDescending);
+            }
+            else if (sort.equals(ReservationRequestListRequest.Sort.DATETIME)) {
+                keyset = new ListKeyset("reservation_request_summary.created_at", 3,
+                        "reservation_request_summary.id", 0, sortDescending);
+            }
+            else if (sort.equals(ReservationRequestListRequest.Sort.SLOT)) {
+                keyset = new ListKeyset("reservation_request_summary.slot_end", 8,
+                        "reservation_request_summary.id", 0, sortDescending);
+            }
+            if (keyset != null) {
+                keyset.addFilter(queryFilter, request);
+                queryOrderBy = keyset.getOrderBy();
+            }
+            else if (sortDescending) {
                 queryOrderBy = queryOrderBy + " DESC";
             }
 
@@ -1237,7 +1268,8 @@ public class ReservationServiceImpl extends AbstractServiceImpl
             String query = NativeQuery.getNativeQuery(NativeQuery.RESERVATION_REQUEST_LIST, parameters);
 
             ListResponse<ReservationRequestSummary> response = new ListResponse<ReservationRequestSummary>();
-            List<Object[]> records = performNativeListRequest(query, queryFilter, request, response, entityManager);
+            List<Object[]> records = performNativeListRequest(query, queryFilter, keyset, request, response,
+                    entityManager);
             for (Object[] record : records) {
                 ReservationRequestSummary reservationRequestSummary = getReservationRequestSummary(record);
                 response.addItem(reservationRequestSummary);
@@ -1579,20 +1611,21 @@ public class ReservationServiceImpl extends AbstractServiceImpl
                 }
             }
             // List only reservations which is current user permitted to read or which allocates resource owned by the user
-            Set<Long> readableReservationIds = null;
+            AclEntryFilter readableReservationFilter = null;
             if (!hasReadForAll) {
-                readableReservationIds = authorization.getEntitiesWithPermission(securityToken,
+                readableReservationFilter = authorization.getAclEntryFilter(securityToken,
                         cz.cesnet.shongo.controller.booking.reservation.Reservation.class, ObjectPermission.READ);
             }
-            if (readableReservationIds != null) {
+            if (readableReservationFilter != null) {
                 Set<Long> ownedResourceIds = authorization.getEntitiesWithRole(securityToken,
                         cz.cesnet.shongo.controller.booking.resource.Resource.class, ObjectRole.OWNER);
                 StringBuilder filterBuilder = new StringBuilder();
                 filterBuilder.append("1=0");
                 //TODO: except reservations without slot (see AbstractForeingReservation)
-                if (!readableReservationIds.isEmpty()) {
-                    filterBuilder.append(" OR reservation_summary.id IN(:readableReservationIds)");
-                    queryFilter.addFilterParameter("readableReservationIds", readableReservationIds);
+                if (!readableReservationFilter.isEmpty()) {
+                    filterBuilder.append(" OR ");
+                    filterBuilder.append(queryFilter.getAclEntryFilter("reservation_summary.id",
+                            readableReservationFilter));
                 }
                 if (!ownedResourceIds.isEmpty()) {
                     filterBuilder.append(" OR reservation_summary.resource_id IN(:ownedResourceIds)");
@@ -1649,33 +1682,33 @@ public class ReservationServiceImpl extends AbstractServiceImpl
             }
 
             // Sort query part
-            String queryOrderBy;
             ReservationListRequest.Sort sort = request.getSort();
+            Boolean sortDescending = request.getSortDescending();
+            sortDescending = (sortDescending != null ? sortDescending : false);
+            ListKeyset keyset;
             if (sort != null) {
                 switch (sort) {
                     case SLOT:
-                        queryOrderBy = "reservation_summary.slot_start";
+                        keyset = new ListKeyset("reservation_summary.slot_start", 4,
+                                "reservation_summary.id", 0, sortDescending);
                         break;
                     default:
                         throw new TodoImplementException(sort);
                 }
             }
             else {
-                queryOrderBy = "reservation_summary.id";
-            }
-            Boolean sortDescending = request.getSortDescending();
-            sortDescending = (sortDescending != null ? sortDescending : false);
-            if (sortDescending) {
-                queryOrderBy = queryOrderBy + " DESC";
+                keyset = new ListKeyset("reservation_summary.id", 0, sortDescending);
             }
+            keyset.addFilter(queryFilter, request);
 
             Map<String, String> parameters = new HashMap<String, String>();
             parameters.put("filter", queryFilter.toQueryWhere());
-            parameters.put("order", queryOrderBy);
+            parameters.put("order", keyset.getOrderBy());
             String query = NativeQuery.getNativeQuery(NativeQuery.RESERVATION_LIST, parameters);
 
             ListResponse<ReservationSummary> response = new ListResponse<ReservationSummary>();
-            List<Object[]> records = performNativeListRequest(query, queryFilter, request, response, entityManager);
+            List<Object[]> records = performNativeListRequest(query, queryFilter, keyset, request, response,
+                    entityManager);
 
             Set<Long> writableReservationIds = authorization.getEntitiesWithPermission(securityToken,
                     cz.cesnet.shongo.controller.booking.reservation.Reservation.class, ObjectPermission.WRITE);
@@ -2202,4 +2235,24 @@ public class ReservationServiceImpl extends AbstractServiceImpl
         }
         return object;
     }
+
+    /**
+     * Record change of reservation requests to the {@link #changeJournal}.
+     *
+     * @param reservationRequest which has been created or modified (can be {@code null})
+     * @param deletions          specifies whether some allocations, reservations or reservation requests
+     *                           should be deleted
+     */
+    private void markChange(AbstractReservationRequest reservationRequest, boolean deletions)
+    {
+        if (changeJournal == null) {
+            return;
+        }
+        if (reservationRequest != null) {
+            changeJournal.markReservationRequest(reservationRequest);
+        }
+        if (deletions) {
+            changeJournal.markDeletions();
+        }
+    }
 }
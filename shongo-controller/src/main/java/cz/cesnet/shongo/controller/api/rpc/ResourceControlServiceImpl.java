@@ -22,6 +22,7 @@ import cz.cesnet.shongo.connector.api.jade.multipoint.ListRoomParticipants;
 import cz.cesnet.shongo.connector.api.jade.multipoint.ModifyRoomParticipant;
 import cz.cesnet.shongo.connector.api.jade.recording.*;
 import cz.cesnet.shongo.controller.*;
+import cz.cesnet.shongo.controller.api.RoomParticipantChanges;
 import cz.cesnet.shongo.controller.api.SecurityToken;
 import cz.cesnet.shongo.controller.api.domains.request.*;
 import cz.cesnet.shongo.controller.authorization.Authorization;
@@ -35,6 +36,7 @@ import cz.cesnet.shongo.controller.booking.resource.Mode;
 import cz.cesnet.shongo.controller.booking.resource.ResourceManager;
 import cz.cesnet.shongo.controller.domains.DomainsConnector;
 import cz.cesnet.shongo.controller.domains.InterDomainAgent;
+import cz.cesnet.shongo.controller.executor.Executor;
 import cz.cesnet.shongo.jade.SendLocalCommand;
 
 import javax.persistence.EntityManager;
@@ -70,6 +72,16 @@ public class ResourceControlServiceImpl extends AbstractServiceImpl
      */
     private final RecordingsCache recordingsCache;
 
+    /**
+     * {@link Executor} whose applied rooms are reset when a room is modified directly (can be {@code null}).
+     */
+    private Executor executor;
+
+    /**
+     * @see RoomParticipantHub
+     */
+    private final RoomParticipantHub roomParticipantHub = new RoomParticipantHub();
+
     /**
      * Constructor.
      *
@@ -80,6 +92,14 @@ public class ResourceControlServiceImpl extends AbstractServiceImpl
         this.recordingsCache = recordingsCache;
     }
 
+    /**
+     * @param executor sets the {@link #executor}
+     */
+    public void setExecutor(Executor executor)
+    {
+        this.executor = executor;
+    }
+
     @Override
     public void setControllerAgent(ControllerAgent controllerAgent)
     {
@@ -249,39 +269,85 @@ public class ResourceControlServiceImpl extends AbstractServiceImpl
     public String modifyRoom(SecurityToken token, String deviceResourceId, Room room)
     {
         String agentName = validateRoom(token, deviceResourceId, room.getId());
-        return (String) performDeviceCommand(deviceResourceId, agentName, new ModifyRoom(room));
+        try {
+            return (String) performDeviceCommand(deviceResourceId, agentName, new ModifyRoom(room));
+        }
+        finally {
+            resetAppliedRoom(deviceResourceId, room.getId());
+        }
     }
 
     @Override
     public void deleteRoom(SecurityToken token, String deviceResourceId, String roomId)
     {
         String agentName = validateRoom(token, deviceResourceId, roomId);
-        performDeviceCommand(deviceResourceId, agentName, new DeleteRoom(roomId));
+        try {
+            performDeviceCommand(deviceResourceId, agentName, new DeleteRoom(roomId));
+        }
+        finally {
+            resetAppliedRoom(deviceResourceId, roomId);
+        }
     }
 
     @Override
     public Collection<RoomParticipant> listRoomParticipants(SecurityToken token, String deviceResourceId, String roomId)
     {
-        if (isValidForeignRoom(token, roomId)) {
-            DomainsConnector connector = InterDomainAgent.getInstance().getConnector();
+        RoomParticipantHub.Loader loader = createRoomParticipantLoader(token, deviceResourceId, roomId);
+        return roomParticipantHub.getRoomParticipants(deviceResourceId, roomId, loader);
+    }
 
-            try {
-                List<cz.cesnet.shongo.controller.api.domains.response.RoomParticipant> participantList;
-                participantList = connector.listRoomParticipants(roomId);
+    @Override
+    public RoomParticipantChanges getRoomParticipantChanges(SecurityToken token, String deviceResourceId,
+            String roomId, Long revision)
+    {
+        RoomParticipantHub.Loader loader = createRoomParticipantLoader(token, deviceResourceId, roomId);
+        return roomParticipantHub.getRoomParticipantChanges(deviceResourceId, roomId, revision, loader);
+    }
 
-                List<RoomParticipant> participants = new ArrayList<>();
-                for (cz.cesnet.shongo.controller.api.domains.response.RoomParticipant participant : participantList) {
-                    participants.add(participant.toApi());
+    /**
+     * @param token
+     * @param deviceResourceId
+     * @param roomId
+     * @return {@link RoomParticipantHub.Loader} which lists {@link RoomParticipant}s from the device or foreign domain
+     */
+    private RoomParticipantHub.Loader createRoomParticipantLoader(SecurityToken token, final String deviceResourceId,
+            final String roomId)
+    {
+        if (isValidForeignRoom(token, roomId)) {
+            return new RoomParticipantHub.Loader()
+            {
+                @Override
+                public Collection<RoomParticipant> load()
+                {
+                    DomainsConnector connector = InterDomainAgent.getInstance().getConnector();
+                    try {
+                        List<cz.cesnet.shongo.controller.api.domains.response.RoomParticipant> participantList;
+                        participantList = connector.listRoomParticipants(roomId);
+
+                        List<RoomParticipant> participants = new ArrayList<>();
+                        for (cz.cesnet.shongo.controller.api.domains.response.RoomParticipant participant :
+                                participantList) {
+                            participants.add(participant.toApi());
+                        }
+                        return participants;
+                    } catch (ForeignDomainConnectException e) {
+                        String actionName = cz.cesnet.shongo.controller.api.domains.request.ListRoomParticipants.class.getSimpleName();
+                        throw new ControllerReportSet.DeviceCommandFailedException(
+                                roomId, actionName, new JadeReportSet.CommandUnknownErrorReport(actionName, null));
+                    }
                 }
-                return participants;
-            } catch (ForeignDomainConnectException e) {
-                String actionName = cz.cesnet.shongo.controller.api.domains.request.ListRoomParticipants.class.getSimpleName();
-                throw new ControllerReportSet.DeviceCommandFailedException(
-                        roomId, actionName, new JadeReportSet.CommandUnknownErrorReport(actionName, null));
-            }
+            };
         } else {
-            String agentName = validateRoom(token, deviceResourceId, roomId);
-            return (List<RoomParticipant>) performDeviceCommand(deviceResourceId, agentName, new ListRoomParticipants(roomId));
+            final String agentName = validateRoom(token, deviceResourceId, roomId);
+            return new RoomParticipantHub.Loader()
+            {
+                @Override
+                public Collection<RoomParticipant> load()
+                {
+                    return (List<RoomParticipant>) performDeviceCommand(deviceResourceId, agentName,
+                            new ListRoomParticipants(roomId));
+                }
+            };
         }
     }
 
@@ -319,15 +385,27 @@ public class ResourceControlServiceImpl extends AbstractServiceImpl
             performForeignDeviceCommand(roomId, modifyRoomParticipant);
         } else {
             String agentName = validateRoom(token, deviceResourceId, roomParticipant.getRoomId());
-            performDeviceCommand(deviceResourceId, agentName, new ModifyRoomParticipant(roomParticipant));
+            try {
+                performDeviceCommand(deviceResourceId, agentName, new ModifyRoomParticipant(roomParticipant));
+            }
+            finally {
+                resetAppliedRoom(deviceResourceId, roomId);
+            }
         }
+        roomParticipantHub.invalidate(deviceResourceId, roomId);
     }
 
     @Override
     public void modifyRoomParticipants(SecurityToken token, String deviceResourceId, RoomParticipant roomParticipants)
     {
         String agentName = validateRoom(token, deviceResourceId, roomParticipants.getRoomId());
-        performDeviceCommand(deviceResourceId, agentName, new ModifyRoomParticipants(roomParticipants));
+        try {
+            performDeviceCommand(deviceResourceId, agentName, new ModifyRoomParticipants(roomParticipants));
+        }
+        finally {
+            resetAppliedRoom(deviceResourceId, roomParticipants.getRoomId());
+        }
+        roomParticipantHub.invalidate(deviceResourceId, roomParticipants.getRoomId());
     }
 
     @Override
@@ -350,6 +428,7 @@ public class ResourceControlServiceImpl extends AbstractServiceImpl
             String agentName = validateRoom(token, deviceResourceId, roomId);
             performDeviceCommand(deviceResourceId, agentName, new DisconnectRoomParticipant(roomId, roomParticipantId));
         }
+        roomParticipantHub.invalidate(deviceResourceId, roomId);
     }
 
     @Override
@@ -506,6 +585,32 @@ public class ResourceControlServiceImpl extends AbstractServiceImpl
         }
     }
 
+    /**
+     * Room which is modified directly (even unsuccessfully) isn't in the state which was last applied by
+     * the {@link #executor} and thus the next modification by the {@link #executor} must be full.
+     *
+     * @param deviceResourceId
+     * @param roomId
+     */
+    private void resetAppliedRoom(String deviceResourceId, String roomId)
+    {
+        if (executor == null) {
+            return;
+        }
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            ExecutableManager executableManager = new ExecutableManager(entityManager);
+            ObjectIdentifier deviceResourceIdentifier = ObjectIdentifier.parse(deviceResourceId, ObjectType.RESOURCE);
+            for (Long roomEndpointId : executableManager.listResourceRoomEndpointIds(
+                    deviceResourceIdentifier.getPersistenceId(), roomId)) {
+                executor.setAppliedRoom(roomEndpointId, null);
+            }
+        }
+        finally {
+            entityManager.close();
+        }
+    }
+
     /**
      * @param securityToken    to be validated against given {@code deviceResourceId}
      * @param deviceResourceId
@@ -0,0 +1,221 @@
+package cz.cesnet.shongo.controller.api.rpc;
+
+import cz.cesnet.shongo.ExpirationMap;
+import cz.cesnet.shongo.api.RoomParticipant;
+import cz.cesnet.shongo.controller.api.RoomParticipantChanges;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+
+import java.util.*;
+
+/**
+ * Shared state of {@link RoomParticipant}s in rooms which are being watched by clients.
+ * <p/>
+ * Each room is polled at most once per {@link #REFRESH_INTERVAL} regardless of number of clients watching it and
+ * each change is recorded with a revision so that clients can fetch only changes since the revision they know
+ * (see {@link #getRoomParticipantChanges}).
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class RoomParticipantHub
+{
+    /**
+     * Interval in which the {@link RoomParticipant}s are polled from a device.
+     */
+    public static final Duration REFRESH_INTERVAL = Duration.standardSeconds(5);
+
+    /**
+     * Duration after which a room which isn't watched by any client is forgotten.
+     */
+    public static final Duration ROOM_EXPIRATION = Duration.standardMinutes(1);
+
+    /**
+     * Maximum number of removed {@link RoomParticipant}s which are remembered for each room.
+     */
+    private static final int MAX_REMOVED_PARTICIPANTS = 100;
+
+    /**
+     * {@link RoomState} by "deviceResourceId:roomId".
+     */
+    private final ExpirationMap<String, RoomState> roomStates = new ExpirationMap<String, RoomState>(ROOM_EXPIRATION);
+
+    /**
+     * @param deviceResourceId
+     * @param roomId
+     * @param loader           for loading {@link RoomParticipant}s from a device
+     * @return current {@link RoomParticipant}s in given room
+     */
+    public List<RoomParticipant> getRoomParticipants(String deviceResourceId, String roomId, Loader loader)
+    {
+        RoomState roomState = getRoomState(deviceResourceId, roomId);
+        synchronized (roomState) {
+            roomState.refresh(loader);
+            return new ArrayList<RoomParticipant>(roomState.participants.values());
+        }
+    }
+
+    /**
+     * @param deviceResourceId
+     * @param roomId
+     * @param revision         which is known by the client or {@code null}
+     * @param loader           for loading {@link RoomParticipant}s from a device
+     * @return {@link RoomParticipantChanges} in given room since given {@code revision}
+     */
+    public RoomParticipantChanges getRoomParticipantChanges(String deviceResourceId, String roomId, Long revision,
+            Loader loader)
+    {
+        RoomState roomState = getRoomState(deviceResourceId, roomId);
+        synchronized (roomState) {
+            roomState.refresh(loader);
+            boolean complete = revision == null || revision < roomState.minimumRevision
+                    || revision > roomState.revision;
+            RoomParticipantChanges changes = new RoomParticipantChanges(roomState.revision, complete);
+            for (RoomParticipant participant : roomState.participants.values()) {
+                if (complete || roomState.participantRevisions.get(participant.getId()) > revision) {
+                    changes.addParticipant(participant);
+                }
+            }
+            if (!complete) {
+                for (Map.Entry<String, Long> entry : roomState.removedParticipantRevisions.entrySet()) {
+                    if (entry.getValue() > revision) {
+                        changes.addRemovedParticipantId(entry.getKey());
+                    }
+                }
+            }
+            return changes;
+        }
+    }
+
+    /**
+     * Force refresh of {@link RoomParticipant}s in given room (e.g., because they have been modified).
+     *
+     * @param deviceResourceId
+     * @param roomId
+     */
+    public void invalidate(String deviceResourceId, String roomId)
+    {
+        RoomState roomState;
+        synchronized (roomStates) {
+            roomState = roomStates.get(deviceResourceId + ":" + roomId);
+        }
+        if (roomState != null) {
+            synchronized (roomState) {
+                roomState.refreshTime = null;
+            }
+        }
+    }
+
+    /**
+     * @param deviceResourceId
+     * @param roomId
+     * @return {@link RoomState} for given room
+     */
+    private RoomState getRoomState(String deviceResourceId, String roomId)
+    {
+        String roomStateId = deviceResourceId + ":" + roomId;
+        synchronized (roomStates) {
+            roomStates.clearExpired(DateTime.now());
+            RoomState roomState = roomStates.get(roomStateId);
+            if (roomState == null) {
+                roomState = new RoomState();
+            }
+            // Prolong the expiration of the room state
+            roomStates.put(roomStateId, roomState);
+            return roomState;
+        }
+    }
+
+    /**
+     * Loads {@link RoomParticipant}s from a device.
+     */
+    public static interface Loader
+    {
+        /**
+         * @return current {@link RoomParticipant}s in a room
+         */
+        Collection<RoomParticipant> load();
+    }
+
+    /**
+     * State of {@link RoomParticipant}s in a single room.
+     */
+    private static class RoomState
+    {
+        /**
+         * Current revision (it starts at current time so that revisions of a forgotten {@link RoomState} are
+         * always lower than revisions of a new one).
+         */
+        private long revision = System.currentTimeMillis();
+
+        /**
+         * Revision since which the changes are available in {@link #removedParticipantRevisions}.
+         */
+        private long minimumRevision = revision;
+
+        /**
+         * Time when the {@link #participants} have been loaded or {@code null} when they should be loaded.
+         */
+        private DateTime refreshTime;
+
+        /**
+         * Current {@link RoomParticipant}s by identifiers.
+         */
+        private final Map<String, RoomParticipant> participants = new LinkedHashMap<String, RoomParticipant>();
+
+        /**
+         * Revisions in which the {@link #participants} have been added or modified.
+         */
+        private final Map<String, Long> participantRevisions = new HashMap<String, Long>();
+
+        /**
+         * Revisions in which {@link RoomParticipant}s have been removed by identifiers (ordered by revision).
+         */
+        private final Map<String, Long> removedParticipantRevisions = new LinkedHashMap<String, Long>();
+
+        /**
+         * Load {@link #participants} by given {@code loader} when they are older than {@link #REFRESH_INTERVAL}
+         * and record the changes in new revision.
+         *
+         * @param loader
+         */
+        private void refresh(Loader loader)
+        {
+            DateTime now = DateTime.now();
+            if (refreshTime != null && refreshTime.plus(REFRESH_INTERVAL).isAfter(now)) {
+                return;
+            }
+            Collection<RoomParticipant> loadedParticipants = loader.load();
+            refreshTime = now;
+
+            long newRevision = revision + 1;
+            boolean changed = false;
+            Set<String> removedParticipantIds = new HashSet<String>(participants.keySet());
+            for (RoomParticipant participant : loadedParticipants) {
+                String participantId = participant.getId();
+                removedParticipantIds.remove(participantId);
+                if (!participant.isSame(participants.get(participantId))) {
+                    participants.put(participantId, participant);
+                    participantRevisions.put(participantId, newRevision);
+                    removedParticipantRevisions.remove(participantId);
+                    changed = true;
+                }
+            }
+            for (String participantId : removedParticipantIds) {
+                participants.remove(participantId);
+                participantRevisions.remove(participantId);
+                removedParticipantRevisions.put(participantId, newRevision);
+                changed = true;
+            }
+            if (changed) {
+                revision = newRevision;
+            }
+
+            // Forget the oldest removed participants
+            Iterator<Map.Entry<String, Long>> iterator = removedParticipantRevisions.entrySet().iterator();
+            while (removedParticipantRevisions.size() > MAX_REMOVED_PARTICIPANTS) {
+                minimumRevision = iterator.next().getValue();
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package cz.cesnet.shongo.controller.authorization;
+
+import cz.cesnet.shongo.controller.acl.AclEntry;
+import cz.cesnet.shongo.controller.acl.AclIdentity;
+import cz.cesnet.shongo.controller.acl.AclObjectClass;
+
+import java.util.Set;
+
+/**
+ * Represents a filter of {@link AclEntry}s which grants a permission for objects of a single {@link AclObjectClass}
+ * to a single user. It is used for filtering objects directly in the database (by joining the acl_entry table)
+ * instead of passing all object identifiers which are accessible to the user.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ * @see Authorization#getAclEntryFilter
+ */
+public class AclEntryFilter
+{
+    /**
+     * {@link AclIdentity#id}s of the user and of groups in which the user is member.
+     */
+    private final Set<Long> aclIdentityIds;
+
+    /**
+     * {@link AclObjectClass#id} of the objects.
+     */
+    private final Long aclObjectClassId;
+
+    /**
+     * Roles which grant the permission.
+     */
+    private final Set<String> roles;
+
+    /**
+     * Constructor.
+     *
+     * @param aclIdentityIds   sets the {@link #aclIdentityIds}
+     * @param aclObjectClassId sets the {@link #aclObjectClassId}
+     * @param roles            sets the {@link #roles}
+     */
+    public AclEntryFilter(Set<Long> aclIdentityIds, Long aclObjectClassId, Set<String> roles)
+    {
+        this.aclIdentityIds = aclIdentityIds;
+        this.aclObjectClassId = aclObjectClassId;
+        this.roles = roles;
+    }
+
+    /**
+     * @return {@link #aclIdentityIds}
+     */
+    public Set<Long> getAclIdentityIds()
+    {
+        return aclIdentityIds;
+    }
+
+    /**
+     * @return {@link #aclObjectClassId}
+     */
+    public Long getAclObjectClassId()
+    {
+        return aclObjectClassId;
+    }
+
+    /**
+     * @return {@link #roles}
+     */
+    public Set<String> getRoles()
+    {
+        return roles;
+    }
+
+    /**
+     * @return true whether no object can be matched by the filter, false otherwise
+     */
+    public boolean isEmpty()
+    {
+        return aclIdentityIds.isEmpty() || roles.isEmpty();
+    }
+}
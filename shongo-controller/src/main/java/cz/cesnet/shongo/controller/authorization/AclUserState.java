@@ -5,6 +5,7 @@ import cz.cesnet.shongo.controller.ObjectPermission;
 import cz.cesnet.shongo.controller.ObjectRole;
 import cz.cesnet.shongo.controller.ObjectType;
 import cz.cesnet.shongo.controller.acl.AclEntry;
+import cz.cesnet.shongo.controller.acl.AclIdentity;
 import cz.cesnet.shongo.controller.acl.AclObjectClass;
 import cz.cesnet.shongo.controller.acl.AclObjectIdentity;
 import cz.cesnet.shongo.controller.booking.ObjectTypeResolver;
@@ -18,6 +19,11 @@ import java.util.*;
  */
 public class AclUserState
 {
+    /**
+     * Set of {@link AclIdentity#id}s of the user (including identities of groups in which the user is member).
+     */
+    private Set<Long> aclIdentityIds = new HashSet<>();
+
     /**
      * Set of {@link AclEntry}s for the user.
      */
@@ -53,6 +59,22 @@ public class AclUserState
      */
     private Map<AclObjectClass, Set<Long>> writableObjectsByClass = new HashMap<>();
 
+    /**
+     * @param aclIdentity to be added to the {@link #aclIdentityIds}
+     */
+    public synchronized void addAclIdentity(AclIdentity aclIdentity)
+    {
+        aclIdentityIds.add(aclIdentity.getId());
+    }
+
+    /**
+     * @return {@link #aclIdentityIds}
+     */
+    public synchronized Set<Long> getAclIdentityIds()
+    {
+        return Collections.unmodifiableSet(new HashSet<>(aclIdentityIds));
+    }
+
     /**
      * @param aclEntry to be added to the {@link AclUserState}
      */
@@ -80,6 +80,13 @@ public abstract class Authorization
      */
     private AuthorizationCache cache = new AuthorizationCache();
 
+    /**
+     * Number of active {@link AuthorizationManager} transactions which modify {@link AclEntry}s of objects
+     * (by {@link #getUncommittedAclObjectKey}). Such objects can be already committed to the database,
+     * but theirs {@link AclEntry}s are not in the {@link AuthorizationCache} yet.
+     */
+    private final Map<String, Integer> uncommittedAclObjects = new HashMap<String, Integer>();
+
     /**
      * Set of access-tokens which has administrator access.
      */
@@ -664,6 +671,41 @@ public abstract class Authorization
         return entities;
     }
 
+    /**
+     * @param securityToken    of the user
+     * @param objectClass      of objects which should be filtered
+     * @param objectPermission which the user must have for the objects
+     * @return {@link AclEntryFilter} which can be used to filter objects of given {@code objectClass} for which the
+     * user has given {@code objectPermission} directly in the database or null if the user has permission all objects
+     */
+    public AclEntryFilter getAclEntryFilter(SecurityToken securityToken,
+            Class<? extends PersistentObject> objectClass, ObjectPermission objectPermission)
+    {
+        AclObjectClass aclObjectClass = aclProvider.getObjectClass(objectClass);
+        if (isAdministrator(securityToken)) {
+            // Administrator has all possible permissions for all objects
+            return null;
+        }
+        if (ObjectPermission.READ.equals(objectPermission) && isOperator(securityToken)) {
+            // Operator has READ permission for all objects
+            return null;
+        }
+        String userId = securityToken.getUserId();
+        AclUserState aclUserState = cache.getAclUserStateByUserId(userId);
+        if (aclUserState == null) {
+            aclUserState = fetchAclUserState(userId);
+            cache.putAclUserStateByUserId(userId, aclUserState);
+        }
+        Set<String> roles = new HashSet<String>();
+        ObjectType objectType = ObjectTypeResolver.getObjectType(aclObjectClass);
+        for (ObjectRole objectRole : objectType.getRoles()) {
+            if (objectType.getRolePermissions(objectRole).contains(objectPermission)) {
+                roles.add(objectRole.toString());
+            }
+        }
+        return new AclEntryFilter(aclUserState.getAclIdentityIds(), aclObjectClass.getId(), roles);
+    }
+
     /**
      * @param persistentObject for which the users must have given {@code role}
      * @param objectRole       which the users must have for given {@code persistentObject}
@@ -1058,6 +1100,9 @@ public abstract class Authorization
             aclIdentities.add(aclProvider.getIdentity(AclIdentityType.GROUP, groupId));
         }
         aclIdentities.add(aclProvider.getIdentity(AclIdentityType.GROUP, EVERYONE_GROUP_ID));
+        for (AclIdentity aclIdentity : aclIdentities) {
+            aclUserState.addAclIdentity(aclIdentity);
+        }
         EntityManager entityManager = entityManagerFactory.createEntityManager();
         AuthorizationManager authorizationManager = new AuthorizationManager(entityManager, authorization);
         try {
@@ -1188,6 +1233,65 @@ public abstract class Authorization
         }
     }
 
+    /**
+     * Mark object with given {@code aclObjectIdentity} that its {@link AclEntry}s are being modified.
+     *
+     * @param aclObjectIdentity
+     */
+    void addUncommittedAclObject(AclObjectIdentity aclObjectIdentity)
+    {
+        String key = getUncommittedAclObjectKey(ObjectTypeResolver.getObjectType(aclObjectIdentity),
+                aclObjectIdentity.getObjectId());
+        synchronized (uncommittedAclObjects) {
+            Integer count = uncommittedAclObjects.get(key);
+            uncommittedAclObjects.put(key, (count != null ? count + 1 : 1));
+        }
+    }
+
+    /**
+     * Unmark object with given {@code aclObjectIdentity} that its {@link AclEntry}s are being modified.
+     *
+     * @param aclObjectIdentity
+     */
+    void removeUncommittedAclObject(AclObjectIdentity aclObjectIdentity)
+    {
+        String key = getUncommittedAclObjectKey(ObjectTypeResolver.getObjectType(aclObjectIdentity),
+                aclObjectIdentity.getObjectId());
+        synchronized (uncommittedAclObjects) {
+            Integer count = uncommittedAclObjects.get(key);
+            if (count == null || count <= 1) {
+                uncommittedAclObjects.remove(key);
+            }
+            else {
+                uncommittedAclObjects.put(key, count - 1);
+            }
+        }
+    }
+
+    /**
+     * @param object
+     * @return true whether all {@link AclEntry}s of given {@code object} are committed to the
+     *         {@link AuthorizationCache}, false otherwise (e.g., the object has been just allocated by
+     *         {@link cz.cesnet.shongo.controller.scheduler.Scheduler} which is committing its {@link AclEntry}s)
+     */
+    public boolean isAclCommitted(PersistentObject object)
+    {
+        String key = getUncommittedAclObjectKey(ObjectTypeResolver.getObjectType(object), object.getId());
+        synchronized (uncommittedAclObjects) {
+            return !uncommittedAclObjects.containsKey(key);
+        }
+    }
+
+    /**
+     * @param objectType
+     * @param objectId
+     * @return key for {@link #uncommittedAclObjects}
+     */
+    private static String getUncommittedAclObjectKey(ObjectType objectType, Long objectId)
+    {
+        return objectType + ":" + objectId;
+    }
+
     /**
      * Single instance of {@link Authorization}.
      */
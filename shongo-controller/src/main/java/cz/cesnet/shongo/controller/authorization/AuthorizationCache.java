@@ -13,11 +13,19 @@ import java.util.Set;
 
 /**
  * Represents a cache of {@link AclEntry}s
+ * <p/>
+ * Single {@link ExpirationMap}s are thread-safe and thus only the methods which modify multiple
+ * {@link ExpirationMap}s together are synchronized.
  *
  * @author Martin Srom <martin.srom@cesnet.cz>
  */
 public class AuthorizationCache
 {
+    /**
+     * Maximum number of cached access tokens.
+     */
+    private static final int MAX_ACCESS_TOKENS = 10000;
+
     /**
      * Cache of user-id by access token.
      */
@@ -71,6 +79,17 @@ public class AuthorizationCache
      */
     private ExpirationMap<String, UserIdSet> userIdsByGroupId = new ExpirationMap<String, UserIdSet>();
 
+    /**
+     * Constructor.
+     */
+    public AuthorizationCache()
+    {
+        userIdByAccessTokenCache.setMaximumSize(MAX_ACCESS_TOKENS);
+        userAuthorizationDataByAccessTokenCache.setMaximumSize(MAX_ACCESS_TOKENS);
+        userIdByAccessTokenCache.setSweep(true);
+        userAuthorizationDataByAccessTokenCache.setSweep(true);
+    }
+
     /**
      * @param expiration sets the {@link #userIdByAccessTokenCache} expiration
      */
@@ -128,7 +147,7 @@ public class AuthorizationCache
      * @param accessToken
      * @return user-id by given {@code accessToken}
      */
-    public synchronized String getUserIdByAccessToken(String accessToken)
+    public String getUserIdByAccessToken(String accessToken)
     {
         return userIdByAccessTokenCache.get(accessToken);
     }
@@ -139,7 +158,7 @@ public class AuthorizationCache
      * @param accessToken
      * @param userId
      */
-    public synchronized void putUserIdByAccessToken(String accessToken, String userId)
+    public void putUserIdByAccessToken(String accessToken, String userId)
     {
         userIdByAccessTokenCache.put(accessToken, userId);
     }
@@ -148,7 +167,7 @@ public class AuthorizationCache
      * @param principalName
      * @return user-id by given {@code principalName}
      */
-    public synchronized String getUserIdByPrincipalName(String principalName)
+    public String getUserIdByPrincipalName(String principalName)
     {
         return userIdByPrincipalNameCache.get(principalName);
     }
@@ -157,7 +176,7 @@ public class AuthorizationCache
      * @param principalName
      * @return whether user with given {@code principalName} exists in cache
      */
-    public synchronized boolean hasUserIdByPrincipalName(String principalName)
+    public boolean hasUserIdByPrincipalName(String principalName)
     {
         return userIdByPrincipalNameCache.contains(principalName);
     }
@@ -168,7 +187,7 @@ public class AuthorizationCache
      * @param principalName
      * @param userId
      */
-    public synchronized void putUserIdByPrincipalName(String principalName, String userId)
+    public void putUserIdByPrincipalName(String principalName, String userId)
     {
         userIdByPrincipalNameCache.put(principalName, userId);
     }
@@ -177,7 +196,7 @@ public class AuthorizationCache
      * @param userId
      * @return {@link UserData} by given {@code userId}
      */
-    public synchronized UserData getUserDataByUserId(String userId)
+    public UserData getUserDataByUserId(String userId)
     {
         return userDataByUserIdCache.get(userId);
     }
@@ -186,7 +205,7 @@ public class AuthorizationCache
      * @param userId
      * @return true whether user with given {@code userId} has cached {@link UserData}
      */
-    public synchronized boolean hasUserDataByUserId(String userId)
+    public boolean hasUserDataByUserId(String userId)
     {
         return userDataByUserIdCache.contains(userId);
     }
@@ -197,7 +216,7 @@ public class AuthorizationCache
      * @param userId
      * @param userData
      */
-    public synchronized void putUserDataByUserId(String userId, UserData userData)
+    public void putUserDataByUserId(String userId, UserData userData)
     {
         userDataByUserIdCache.put(userId, userData);
     }
@@ -206,7 +225,7 @@ public class AuthorizationCache
      * @param accessToken
      * @return {@link UserAuthorizationData} by given {@code accessToken}
      */
-    public synchronized UserAuthorizationData getUserAuthorizationDataByAccessToken(String accessToken)
+    public UserAuthorizationData getUserAuthorizationDataByAccessToken(String accessToken)
     {
         return userAuthorizationDataByAccessTokenCache.get(accessToken);
     }
@@ -215,7 +234,7 @@ public class AuthorizationCache
      * @param accessToken
      * @return true whether user with given {@code accessToken} has cached {@link UserAuthorizationData}
      */
-    public synchronized boolean hasUserAuthorizationDataByAccessToken(String accessToken)
+    public boolean hasUserAuthorizationDataByAccessToken(String accessToken)
     {
         return userAuthorizationDataByAccessTokenCache.contains(accessToken);
     }
@@ -226,7 +245,7 @@ public class AuthorizationCache
      * @param accessToken
      * @param userAuthorizationData
      */
-    public synchronized void putUserAuthorizationDataByAccessToken(String accessToken,
+    public void putUserAuthorizationDataByAccessToken(String accessToken,
             UserAuthorizationData userAuthorizationData)
     {
         userAuthorizationDataByAccessTokenCache.put(accessToken, userAuthorizationData);
@@ -236,7 +255,7 @@ public class AuthorizationCache
      * @param aclEntryId
      * @return {@link AclEntry} by given {@code aclEntryId}
      */
-    public synchronized AclEntry getAclEntryById(Long aclEntryId)
+    public AclEntry getAclEntryById(Long aclEntryId)
     {
         return aclEntryCache.get(aclEntryId);
     }
@@ -244,7 +263,7 @@ public class AuthorizationCache
     /**
      * @return {@link AclEntry}s
      */
-    public synchronized Iterable<AclEntry> getAclEntries()
+    public Iterable<AclEntry> getAclEntries()
     {
         return aclEntryCache;
     }
@@ -254,7 +273,7 @@ public class AuthorizationCache
      *
      * @param aclEntry
      */
-    public synchronized void putAclEntryById(AclEntry aclEntry)
+    public void putAclEntryById(AclEntry aclEntry)
     {
         aclEntryCache.put(aclEntry.getId(), aclEntry);
     }
@@ -265,7 +284,7 @@ public class AuthorizationCache
      * @param aclEntry
      * @return removed {@link AclEntry}
      */
-    public synchronized AclEntry removeAclEntryById(AclEntry aclEntry)
+    public AclEntry removeAclEntryById(AclEntry aclEntry)
     {
         return aclEntryCache.remove(aclEntry.getId());
     }
@@ -274,7 +293,7 @@ public class AuthorizationCache
      * @param userId
      * @return {@link AclUserState} by given {@code userId}
      */
-    public synchronized AclUserState getAclUserStateByUserId(String userId)
+    public AclUserState getAclUserStateByUserId(String userId)
     {
         return aclUserStateCache.get(userId);
     }
@@ -282,7 +301,7 @@ public class AuthorizationCache
     /**
      * @return List of {@link AclUserState}
      */
-    public synchronized Collection<AclUserState> listAclUserStates()
+    public Collection<AclUserState> listAclUserStates()
     {
         return aclUserStateCache.values();
     }
@@ -293,7 +312,7 @@ public class AuthorizationCache
      * @param userId
      * @param aclUserState
      */
-    public synchronized void putAclUserStateByUserId(String userId, AclUserState aclUserState)
+    public void putAclUserStateByUserId(String userId, AclUserState aclUserState)
     {
         aclUserStateCache.put(userId, aclUserState);
     }
@@ -302,7 +321,7 @@ public class AuthorizationCache
      * @param aclObjectIdentity
      * @return {@link AclObjectState} by given {@code aclObjectIdentity}
      */
-    public synchronized AclObjectState getAclObjectStateByIdentity(AclObjectIdentity aclObjectIdentity)
+    public AclObjectState getAclObjectStateByIdentity(AclObjectIdentity aclObjectIdentity)
     {
         return aclObjectStateCache.get(aclObjectIdentity);
     }
@@ -313,7 +332,7 @@ public class AuthorizationCache
      * @param aclObjectIdentity
      * @param aclObjectState
      */
-    public synchronized void putAclObjectStateByIdentity(AclObjectIdentity aclObjectIdentity,
+    public void putAclObjectStateByIdentity(AclObjectIdentity aclObjectIdentity,
             AclObjectState aclObjectState)
     {
         aclObjectStateCache.put(aclObjectIdentity, aclObjectState);
@@ -323,7 +342,7 @@ public class AuthorizationCache
      * @param groupId
      * @return {@link Group} by given {@code groupId}
      */
-    public synchronized Group getGroupByGroupId(String groupId)
+    public Group getGroupByGroupId(String groupId)
     {
         return groupByGroupId.get(groupId);
     }
@@ -332,7 +351,7 @@ public class AuthorizationCache
      * @param groupId
      * @return true whether group with given {@code groupId} has cached {@link Group}
      */
-    public synchronized boolean hasGroupByGroupId(String groupId)
+    public boolean hasGroupByGroupId(String groupId)
     {
         return groupByGroupId.contains(groupId);
     }
@@ -343,7 +362,7 @@ public class AuthorizationCache
      * @param groupId
      * @param group
      */
-    public synchronized void putGroupByGroupId(String groupId, Group group)
+    public void putGroupByGroupId(String groupId, Group group)
     {
         groupByGroupId.put(groupId, group);
     }
@@ -352,7 +371,7 @@ public class AuthorizationCache
      * @param groupName
      * @return group-id for given {@code groupName}
      */
-    public synchronized String getGroupIdByName(String groupName)
+    public String getGroupIdByName(String groupName)
     {
         return groupIdByName.get(groupName);
     }
@@ -363,7 +382,7 @@ public class AuthorizationCache
      * @param groupName
      * @param groupId
      */
-    public synchronized void putGroupIdByName(String groupName, String groupId)
+    public void putGroupIdByName(String groupName, String groupId)
     {
         groupIdByName.put(groupName, groupId);
     }
@@ -372,7 +391,7 @@ public class AuthorizationCache
      * @param groupId
      * @return set of user-ids for given {@code groupId}
      */
-    public synchronized UserIdSet getUserIdsInGroup(String groupId)
+    public UserIdSet getUserIdsInGroup(String groupId)
     {
         return userIdsByGroupId.get(groupId);
     }
@@ -383,7 +402,7 @@ public class AuthorizationCache
      * @param groupId
      * @param userIds
      */
-    public synchronized void putUserIdsInGroup(String groupId, UserIdSet userIds)
+    public void putUserIdsInGroup(String groupId, UserIdSet userIds)
     {
         userIdsByGroupId.put(groupId, userIds);
     }
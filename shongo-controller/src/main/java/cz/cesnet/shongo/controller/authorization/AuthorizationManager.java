@@ -585,6 +585,12 @@ public class AuthorizationManager extends AclEntryManager
          */
         private Set<AclEntry> removedAclEntries = new HashSet<AclEntry>();
 
+        /**
+         * Set of {@link AclObjectIdentity}s whose {@link AclEntry}s are modified in the {@link Transaction}
+         * (they are marked as uncommitted in the {@link Authorization} until the {@link Transaction} is destroyed).
+         */
+        private Set<AclObjectIdentity> uncommittedObjectIdentities = new HashSet<AclObjectIdentity>();
+
         /**
          * Constructor.
          */
@@ -599,6 +605,21 @@ public class AuthorizationManager extends AclEntryManager
         {
             addedAclEntries.clear();
             removedAclEntries.clear();
+            for (AclObjectIdentity objectIdentity : uncommittedObjectIdentities) {
+                authorization.removeUncommittedAclObject(objectIdentity);
+            }
+            uncommittedObjectIdentities.clear();
+        }
+
+        /**
+         * @param aclEntry whose object should be marked as uncommitted
+         */
+        private void addUncommittedObject(AclEntry aclEntry)
+        {
+            AclObjectIdentity objectIdentity = aclEntry.getObjectIdentity();
+            if (authorization != null && uncommittedObjectIdentities.add(objectIdentity)) {
+                authorization.addUncommittedAclObject(objectIdentity);
+            }
         }
 
         /**
@@ -624,6 +645,7 @@ public class AuthorizationManager extends AclEntryManager
          */
         public void addAclEntry(AclEntry aclEntry)
         {
+            addUncommittedObject(aclEntry);
             if (!removedAclEntries.remove(aclEntry)) {
                 addedAclEntries.add(aclEntry);
             }
@@ -634,6 +656,7 @@ public class AuthorizationManager extends AclEntryManager
          */
         public void removeAclEntry(AclEntry aclEntry)
         {
+            addUncommittedObject(aclEntry);
             if (!addedAclEntries.remove(aclEntry)) {
                 removedAclEntries.add(aclEntry);
             }
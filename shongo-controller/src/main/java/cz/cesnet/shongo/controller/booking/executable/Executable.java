@@ -602,7 +602,6 @@ public abstract class Executable extends ExecutionTarget
      */
     public void updateExecutableSummary(EntityManager entityManager, boolean deleteOnly)
     {
-        entityManager.flush();
         ExecutableManager executableManager = new ExecutableManager(entityManager);
         executableManager.updateExecutableSummary(this, deleteOnly);
     }
@@ -11,13 +11,15 @@ import cz.cesnet.shongo.controller.booking.resource.DeviceResource;
 import cz.cesnet.shongo.controller.booking.room.ResourceRoomEndpoint;
 import cz.cesnet.shongo.controller.booking.room.RoomEndpoint;
 import cz.cesnet.shongo.controller.booking.room.UsedRoomEndpoint;
+import cz.cesnet.shongo.controller.executor.ExecutableLocks;
 import cz.cesnet.shongo.controller.executor.ExecutionReportSet;
-import cz.cesnet.shongo.controller.util.NativeQuery;
 import cz.cesnet.shongo.controller.util.QueryFilter;
+import cz.cesnet.shongo.controller.util.SummaryUpdater;
 import cz.cesnet.shongo.jade.SendLocalCommand;
 import org.joda.time.DateTime;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityNotFoundException;
 import javax.persistence.NoResultException;
 import javax.persistence.TypedQuery;
 import java.util.*;
@@ -72,22 +74,16 @@ public class ExecutableManager extends AbstractManager
 
     /**
      * Updates table executable_summary, DO NOT USE directly, for more see {@link Executable#updateExecutableSummary(EntityManager, boolean)}
+     * <p/>
+     * The update is performed by {@link SummaryUpdater} only once for each executable when the current
+     * transaction is committed.
      *
      * @param executable
      * @param deleteOnly
      */
     public void updateExecutableSummary(Executable executable, boolean deleteOnly)
     {
-        Map<String, String> parameters = new HashMap<>();
-        parameters.put("executable_id", executable.getId().toString());
-
-        String deleteQuery = NativeQuery.getNativeQuery(NativeQuery.EXECUTABLE_SUMMARY_DELETE, parameters);
-        entityManager.createNativeQuery(deleteQuery).executeUpdate();
-
-        if (!deleteOnly) {
-            String updateQuery = NativeQuery.getNativeQuery(NativeQuery.EXECUTABLE_SUMMARY_INSERT, parameters);
-            entityManager.createNativeQuery(updateQuery).executeUpdate();
-        }
+        SummaryUpdater.updateExecutable(entityManager, executable.getId(), deleteOnly);
     }
 
     /**
@@ -261,6 +257,28 @@ public class ExecutableManager extends AbstractManager
                 .getResultList();
     }
 
+    /**
+     * @param from            start of the interval
+     * @param to              end of the interval
+     * @param maxAttemptCount
+     * @return list of (slotStart, slotEnd, nextAttempt) for {@link ExecutionTarget}s which can still be executed and
+     *         whose slot starts, slot ends or next attempt takes place in given interval
+     */
+    public List<Object[]> listExecutionTargetDateTimes(DateTime from, DateTime to, int maxAttemptCount)
+    {
+        return entityManager.createQuery(
+                "SELECT target.slotStart, target.slotEnd, target.nextAttempt FROM ExecutionTarget target"
+                        + " WHERE ((target.slotStart >= :from AND target.slotStart <= :to)"
+                        + "        OR (target.slotEnd >= :from AND target.slotEnd <= :to)"
+                        + "        OR (target.nextAttempt >= :from AND target.nextAttempt <= :to))"
+                        + " AND (target.attemptCount < :maxAttemptCount)",
+                Object[].class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setParameter("maxAttemptCount", maxAttemptCount)
+                .getResultList();
+    }
+
     /**
      * @param referenceDateTime which represents now
      * @param maxAttemptCount
@@ -309,11 +327,14 @@ public class ExecutableManager extends AbstractManager
      * Delete all {@link Executable}s which are not placed inside another {@link Executable} and not referenced by
      * any {@link Reservation} and which should be automatically
      * deleted ({@link Executable.State#NOT_ALLOCATED} or {@link Executable.State#NOT_STARTED}).
+     * {@link Executable}s which are locked by another thread are skipped (they will be deleted next time).
      *
      * @param authorizationManager
-     * @return true whether some {@link Executable} has been deleted, false otherwise
+     * @param executableLocks      which must be acquired for deleted {@link Executable}s (can be {@code null})
+     * @return true whether all {@link Executable}s which should be deleted have been deleted,
+     *         false whether some have been skipped
      */
-    public boolean deleteAllNotReferenced(AuthorizationManager authorizationManager)
+    public boolean deleteAllNotReferenced(AuthorizationManager authorizationManager, ExecutableLocks executableLocks)
     {
         List<Executable> executablesForDeletion = entityManager
                 .createQuery("SELECT executable FROM Executable executable"
@@ -344,10 +365,76 @@ public class ExecutableManager extends AbstractManager
                 executablesForDeletion.add(topReferencedReservation);
             }
         }
+        // Executables which are referenced by skipped executables must be also skipped
+        List<Executable> skippedReferencedExecutables = new LinkedList<Executable>();
+        boolean skipped = false;
         for (Executable executable : executablesForDeletion) {
-            delete(executable, authorizationManager);
+            if (skippedReferencedExecutables.contains(executable)
+                    || (executableLocks != null && !lock(executable, executableLocks))) {
+                skipped = true;
+            }
+            else if (!Executable.State.TO_DELETE.equals(executable.getState())
+                    && !Executable.State.NOT_STARTED.equals(executable.getState())) {
+                // Executable has been executed before it was locked and thus it is no longer for deletion
+            }
+            else {
+                delete(executable, authorizationManager);
+                continue;
+            }
+            getReferencedExecutables(SimplePersistentObject.getLazyImplementation(executable),
+                    skippedReferencedExecutables);
         }
-        return executablesForDeletion.size() > 0;
+        return !skipped;
+    }
+
+    /**
+     * Lock given {@code executable} and all its child {@link Executable}s by the current thread. Newly locked
+     * {@link Executable}s are refreshed from the database because they could have been modified
+     * by the thread which has held the lock before.
+     *
+     * @param executable      to be locked
+     * @param executableLocks to be used
+     * @return true whether given {@code executable} (and all its child {@link Executable}s) is locked
+     *         by the current thread, false whether it is locked by another thread or it has been deleted
+     *         (the already acquired locks are held until {@link ExecutableLocks#unlockAll()})
+     */
+    public boolean lock(Executable executable, ExecutableLocks executableLocks)
+    {
+        executable = SimplePersistentObject.getLazyImplementation(executable);
+        Long executableId = executable.getId();
+        if (!executableLocks.isLockedByCurrentThread(executableId)) {
+            if (!executableLocks.tryLock(executableId)) {
+                return false;
+            }
+            try {
+                entityManager.refresh(executable);
+            }
+            catch (EntityNotFoundException exception) {
+                return false;
+            }
+        }
+        for (Executable childExecutable : executable.getChildExecutables()) {
+            if (!lock(childExecutable, executableLocks)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param deviceResourceId
+     * @param roomId
+     * @return identifiers of {@link ResourceRoomEndpoint}s in given {@code deviceResourceId} with given {@code roomId}
+     */
+    public List<Long> listResourceRoomEndpointIds(Long deviceResourceId, String roomId)
+    {
+        return entityManager.createQuery(
+                "SELECT room.id FROM ResourceRoomEndpoint room"
+                        + " WHERE room.roomProviderCapability.resource.id = :resourceId"
+                        + " AND room.roomId = :roomId", Long.class)
+                .setParameter("resourceId", deviceResourceId)
+                .setParameter("roomId", roomId)
+                .getResultList();
     }
 
     /**
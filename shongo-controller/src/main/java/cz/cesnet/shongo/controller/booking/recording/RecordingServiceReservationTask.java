@@ -164,8 +164,8 @@ public class RecordingServiceReservationTask extends ReservationTask
             }
 
             // Get available recorder
-            List<RecordingServiceReservation> roomReservations =
-                    reservationManager.getRecordingServiceReservations(recordingCapability, slot);
+            List<RecordingServiceReservation> roomReservations = cache.getReservationCache().getReservations(
+                    RecordingServiceReservation.class, recordingCapability.getId(), slot, entityManager);
             schedulerContextState.applyReservations(
                     recordingCapability.getId(), this.slot, roomReservations, RecordingServiceReservation.class);
             RangeSet<RecordingServiceReservation, DateTime> rangeSet =
@@ -14,7 +14,7 @@ import cz.cesnet.shongo.controller.booking.specification.Specification;
 import cz.cesnet.shongo.controller.booking.reservation.Reservation;
 import cz.cesnet.shongo.controller.booking.reservation.ReservationManager;
 import cz.cesnet.shongo.controller.scheduler.SchedulerReport;
-import cz.cesnet.shongo.controller.util.NativeQuery;
+import cz.cesnet.shongo.controller.util.SummaryUpdater;
 import org.joda.time.Interval;
 
 import javax.persistence.EntityManager;
@@ -40,23 +40,17 @@ public class ReservationRequestManager extends AbstractManager
     }
 
     /**
-     * Updates table executable_summary, DO NOT USE directly, for more see {@link Specification#updateSpecificationSummary(EntityManager, boolean)}
+     * Updates table specification_summary, DO NOT USE directly, for more see {@link Specification#updateSpecificationSummary(EntityManager, boolean)}
+     * <p/>
+     * The update is performed by {@link SummaryUpdater} only once for each specification when the current
+     * transaction is committed.
      *
      * @param specification
      * @param deleteOnly
      */
     public void updateSpecificationSummary(Specification specification, boolean deleteOnly)
     {
-        Map<String, String> parameters = new HashMap<>();
-        parameters.put("specification_id", specification.getId().toString());
-
-        String deleteQuery = NativeQuery.getNativeQuery(NativeQuery.SPECIFICATION_SUMMARY_DELETE, parameters);
-        entityManager.createNativeQuery(deleteQuery).executeUpdate();
-
-        if (!deleteOnly) {
-            String updateQuery = NativeQuery.getNativeQuery(NativeQuery.SPECIFICATION_SUMMARY_INSERT, parameters);
-            entityManager.createNativeQuery(updateQuery).executeUpdate();
-        }
+        SummaryUpdater.updateSpecification(entityManager, specification.getId(), deleteOnly);
     }
 
     /**
@@ -386,6 +380,30 @@ public class ReservationRequestManager extends AbstractManager
         return reservationRequestList;
     }
 
+    /**
+     * @param interval
+     * @param reservationRequestSetIds identifiers of {@link ReservationRequestSet}s which should be checked
+     * @return list of {@link ReservationRequestSet}s with given {@code reservationRequestSetIds}
+     *         which aren't preprocessed in given interval
+     */
+    public List<ReservationRequestSet> listNotPreprocessedReservationRequestSets(Interval interval,
+            Collection<Long> reservationRequestSetIds)
+    {
+        List<ReservationRequestSet> reservationRequestList = entityManager
+                .createQuery("SELECT reservationRequest FROM ReservationRequestSet reservationRequest"
+                        + " WHERE reservationRequest.id IN(:ids)"
+                        + " AND reservationRequest.state = :activeState AND reservationRequest NOT IN ("
+                        + " SELECT state.reservationRequest FROM PreprocessedState state"
+                        + " WHERE state.start <= :from AND state.end >= :to)",
+                        ReservationRequestSet.class)
+                .setParameter("ids", reservationRequestSetIds)
+                .setParameter("activeState", AbstractReservationRequest.State.ACTIVE)
+                .setParameter("from", interval.getStart())
+                .setParameter("to", interval.getEnd())
+                .getResultList();
+        return reservationRequestList;
+    }
+
     /**
      * @param interval
      * @return list of {@link ReservationRequest}s in {@link ReservationRequest.AllocationState#COMPLETE} state and
@@ -409,6 +427,32 @@ public class ReservationRequestManager extends AbstractManager
         return reservationRequests;
     }
 
+    /**
+     * @param interval
+     * @param reservationRequestIds identifiers of {@link ReservationRequest}s which should be checked
+     * @return list of {@link ReservationRequest}s with given {@code reservationRequestIds} in
+     *         {@link ReservationRequest.AllocationState#COMPLETE} state and starting in given {@code interval}
+     */
+    public List<ReservationRequest> listCompletedReservationRequests(Interval interval,
+            Collection<Long> reservationRequestIds)
+    {
+        List<ReservationRequest> reservationRequests = entityManager.createQuery(
+                "SELECT reservationRequest FROM ReservationRequest reservationRequest"
+                        + " WHERE reservationRequest.id IN(:ids)"
+                        + " AND reservationRequest.state = :activeState"
+                        + " AND reservationRequest.allocationState = :allocationState"
+                        + " AND reservationRequest.slotStart < :end"
+                        + " AND reservationRequest.slotEnd > :start",
+                ReservationRequest.class)
+                .setParameter("ids", reservationRequestIds)
+                .setParameter("activeState", AbstractReservationRequest.State.ACTIVE)
+                .setParameter("allocationState", ReservationRequest.AllocationState.COMPLETE)
+                .setParameter("start", interval.getStart())
+                .setParameter("end", interval.getEnd())
+                .getResultList();
+        return reservationRequests;
+    }
+
     /**
      * @param reservationRequest
      * @return list of {@link AbstractReservationRequest}s which reuse given {@code reservationRequest}
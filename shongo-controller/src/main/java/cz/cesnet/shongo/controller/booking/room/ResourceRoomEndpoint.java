@@ -1,11 +1,14 @@
 package cz.cesnet.shongo.controller.booking.room;
 
 import cz.cesnet.shongo.AliasType;
+import cz.cesnet.shongo.JadeReport;
+import cz.cesnet.shongo.JadeReportSet;
 import cz.cesnet.shongo.Technology;
 import cz.cesnet.shongo.api.*;
 import cz.cesnet.shongo.connector.api.jade.multipoint.CreateRoom;
 import cz.cesnet.shongo.connector.api.jade.multipoint.DeleteRoom;
 import cz.cesnet.shongo.connector.api.jade.multipoint.ModifyRoom;
+import cz.cesnet.shongo.connector.api.jade.multipoint.ModifyRoomPartial;
 import cz.cesnet.shongo.connector.api.jade.recording.DeleteRecordingFolder;
 import cz.cesnet.shongo.connector.api.jade.recording.ModifyRecordingFolder;
 import cz.cesnet.shongo.controller.ControllerAgent;
@@ -361,18 +364,44 @@ public class ResourceRoomEndpoint extends RoomEndpoint
         String agentName = managedMode.getConnectorAgentName();
         ControllerAgent controllerAgent = executor.getControllerAgent();
 
-        // TODO: Retrieve current room state and only apply changes
-
-        SendLocalCommand sendLocalCommand = controllerAgent.sendCommand(agentName, new ModifyRoom(roomApi));
+        // Apply only changes from the last applied room (when it is known)
+        SendLocalCommand sendLocalCommand = null;
+        Room appliedRoomApi = executor.getAppliedRoom(getId());
+        if (appliedRoomApi != null && roomApi.getId().equals(appliedRoomApi.getId())) {
+            RoomModification roomModification = RoomModification.create(appliedRoomApi, roomApi);
+            sendLocalCommand = controllerAgent.sendCommand(agentName, new ModifyRoomPartial(roomModification));
+            if (sendLocalCommand.isFailed() && isCommandNotSupported(sendLocalCommand.getJadeReport())) {
+                // Connector doesn't support partial modification and thus the whole room must be modified
+                sendLocalCommand = null;
+            }
+        }
+        if (sendLocalCommand == null) {
+            sendLocalCommand = controllerAgent.sendCommand(agentName, new ModifyRoom(roomApi));
+        }
         if (sendLocalCommand.getState() == SendLocalCommand.State.SUCCESSFUL) {
             setRoomId((String) sendLocalCommand.getResult());
+            roomApi.setId(getRoomId());
+            executor.setAppliedRoom(getId(), roomApi);
         }
         else {
+            // Room state is unknown after failure
+            executor.setAppliedRoom(getId(), null);
             throw new ExecutionReportSet.CommandFailedException(
                     sendLocalCommand.getName(), sendLocalCommand.getJadeReport());
         }
     }
 
+    /**
+     * @param jadeReport
+     * @return true whether given {@code jadeReport} means that the command isn't supported by the connector,
+     *         false otherwise
+     */
+    private static boolean isCommandNotSupported(JadeReport jadeReport)
+    {
+        return jadeReport instanceof JadeReportSet.CommandNotSupportedReport
+                || jadeReport instanceof JadeReportSet.CommandNotUnderstoodReport;
+    }
+
     @Override
     protected State onStart(Executor executor, ExecutableManager executableManager)
     {
@@ -390,6 +419,8 @@ public class ResourceRoomEndpoint extends RoomEndpoint
         SendLocalCommand sendLocalCommand = controllerAgent.sendCommand(agentName, new CreateRoom(roomApi));
         if (sendLocalCommand.isSuccessful()) {
             setRoomId((String) sendLocalCommand.getResult());
+            roomApi.setId(getRoomId());
+            executor.setAppliedRoom(getId(), roomApi);
             return State.STARTED;
         }
         else {
@@ -470,6 +501,7 @@ public class ResourceRoomEndpoint extends RoomEndpoint
         }
         SendLocalCommand sendLocalCommand = controllerAgent.sendCommand(agentName, new DeleteRoom(roomId));
         if (sendLocalCommand.isSuccessful()) {
+            executor.setAppliedRoom(getId(), null);
             return State.STOPPED;
         }
         else {
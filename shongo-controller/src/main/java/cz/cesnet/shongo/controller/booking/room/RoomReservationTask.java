@@ -839,9 +839,9 @@ public class RoomReservationTask extends ReservationTask
         Collection<AvailableExecutable<RoomEndpoint>> availableRoomEndpoints =
                 schedulerContextState.getAvailableExecutables(RoomEndpoint.class);
 
-        // Find all matching room provider variants
-        beginReport(new SchedulerReportSet.FindingAvailableResourceReport());
-        List<RoomProviderVariant> roomProviderVariants = new LinkedList<RoomProviderVariant>();
+        // Find room providers with matching technology variants
+        Map<RoomProviderCapability, List<Set<Technology>>> technologyVariantsByRoomProvider =
+                new LinkedHashMap<RoomProviderCapability, List<Set<Technology>>>();
         for (RoomProviderCapability roomProviderCapability : roomProviderCapabilities) {
             DeviceResource deviceResource = roomProviderCapability.getDeviceResource();
 
@@ -858,6 +858,21 @@ public class RoomReservationTask extends ReservationTask
             if (technologyVariants.size() == 0) {
                 continue;
             }
+            technologyVariantsByRoomProvider.put(roomProviderCapability, technologyVariants);
+        }
+
+        // Evaluate available rooms in all matching room providers at once
+        Map<RoomProviderCapability, AvailableRoom> availableRooms = schedulerContext.getAvailableRooms(
+                technologyVariantsByRoomProvider.keySet(), slot, this);
+
+        // Find all matching room provider variants
+        beginReport(new SchedulerReportSet.FindingAvailableResourceReport());
+        List<RoomProviderVariant> roomProviderVariants = new LinkedList<RoomProviderVariant>();
+        for (Map.Entry<RoomProviderCapability, List<Set<Technology>>> entry :
+                technologyVariantsByRoomProvider.entrySet()) {
+            RoomProviderCapability roomProviderCapability = entry.getKey();
+            List<Set<Technology>> technologyVariants = entry.getValue();
+            DeviceResource deviceResource = roomProviderCapability.getDeviceResource();
 
             // Check whether room provider can be allocated
             try {
@@ -876,8 +891,7 @@ public class RoomReservationTask extends ReservationTask
                 }
                 // Lazy initialization of room provider (only when some technology variant matches)
                 if (roomProvider == null) {
-                    roomProvider = new RoomProvider(roomProviderCapability,
-                            schedulerContext.getAvailableRoom(roomProviderCapability, slot, this));
+                    roomProvider = new RoomProvider(roomProviderCapability, availableRooms.get(roomProviderCapability));
                 }
 
                 RoomProviderVariant roomProviderVariant;
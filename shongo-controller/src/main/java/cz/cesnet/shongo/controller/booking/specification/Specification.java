@@ -102,7 +102,8 @@ public abstract class Specification extends SimplePersistentObject implements Re
      */
     public void updateSpecificationSummary(EntityManager entityManager, boolean deleteOnly)
     {
-        updateSpecificationSummary(entityManager, deleteOnly, true);
+        // The summary is updated when the transaction is committed and thus the flush isn't needed
+        updateSpecificationSummary(entityManager, deleteOnly, false);
     }
 
     /**
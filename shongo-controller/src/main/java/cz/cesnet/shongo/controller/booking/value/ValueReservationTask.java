@@ -1,8 +1,11 @@
 package cz.cesnet.shongo.controller.booking.value;
 
 import cz.cesnet.shongo.controller.booking.value.provider.FilteredValueProvider;
+import cz.cesnet.shongo.controller.booking.value.provider.PatternValueAllocator;
+import cz.cesnet.shongo.controller.booking.value.provider.PatternValueProvider;
 import cz.cesnet.shongo.controller.booking.value.provider.ValueProvider;
 import cz.cesnet.shongo.controller.cache.Cache;
+import cz.cesnet.shongo.controller.cache.ReservationCache;
 import cz.cesnet.shongo.controller.cache.ResourceCache;
 import cz.cesnet.shongo.controller.booking.reservation.ExistingReservation;
 import cz.cesnet.shongo.controller.booking.reservation.Reservation;
@@ -75,7 +78,10 @@ public class ValueReservationTask extends ReservationTask
         }
 
         // Already used values for targetValueProvider in the interval
-        Map<String, Interval> usedValues = getUsedValues(targetValueProvider, slot);
+        ReservationCache reservationCache = cache.getReservationCache();
+        Map<Long, Map.Entry<String, Interval>> committedValues =
+                reservationCache.getValueReservations(targetValueProvider.getId(), slot);
+        Map<String, Interval> usedValues = getUsedValues(targetValueProvider, slot, committedValues);
 
         // Get available value reservations
         List<AvailableReservation<ValueReservation>> availableReservations =
@@ -131,7 +137,23 @@ public class ValueReservationTask extends ReservationTask
                 value = valueProvider.generateValue(usedValues.keySet(), requestedValue);
             }
             else {
-                value = valueProvider.generateValue(usedValues.keySet());
+                PatternValueAllocator valueAllocator = null;
+                if (committedValues != null && targetValueProvider instanceof PatternValueProvider) {
+                    valueAllocator = reservationCache.getValueAllocator((PatternValueProvider) targetValueProvider, slot);
+                }
+                if (valueAllocator != null) {
+                    // Values which are committed but which are reused or deleted in the current transaction
+                    Set<String> releasedValues = new HashSet<String>();
+                    for (Map.Entry<String, Interval> committedValue : committedValues.values()) {
+                        if (!usedValues.containsKey(committedValue.getKey())) {
+                            releasedValues.add(committedValue.getKey());
+                        }
+                    }
+                    value = valueProvider.generateValue(usedValues.keySet(), valueAllocator, releasedValues);
+                }
+                else {
+                    value = valueProvider.generateValue(usedValues.keySet());
+                }
             }
             valueReservation.setSlot(slot);
             valueReservation.setValueProvider(targetValueProvider);
@@ -157,23 +179,30 @@ public class ValueReservationTask extends ReservationTask
     }
 
     /**
-     * @param valueProvider for which the used values should be returned
-     * @param interval      for which interval
+     * @param valueProvider   for which the used values should be returned
+     * @param interval        for which interval
+     * @param committedValues values of committed reservations from {@link ReservationCache} (or {@code null}
+     *                        when they should be queried from the database)
      * @return set of used values for given {@code valueProvider} in given {@code interval}
      */
-    private Map<String, Interval> getUsedValues(ValueProvider valueProvider, Interval interval)
+    private Map<String, Interval> getUsedValues(ValueProvider valueProvider, Interval interval,
+            Map<Long, Map.Entry<String, Interval>> committedValues)
     {
-        ResourceManager resourceManager = new ResourceManager(schedulerContext.getEntityManager());
         Long valueProviderId = valueProvider.getId();
-        List<Tuple> allocatedValues =
-                resourceManager.listValueReservationsInInterval(valueProviderId, interval);
-
         Map<Long, Map.Entry<String, Interval>> usedReservations = new HashMap<>();
-        for (Tuple allocatedValue : allocatedValues) {
-            DateTime slotStart = (DateTime) allocatedValue.get(2);
-            DateTime slotEnd = (DateTime) allocatedValue.get(3);
-            Map.Entry<String, Interval> value = new AbstractMap.SimpleEntry<>((String) allocatedValue.get(1), new Interval(slotStart, slotEnd));
-            usedReservations.put((Long) allocatedValue.get(0), value);
+        if (committedValues != null) {
+            usedReservations.putAll(committedValues);
+        }
+        else {
+            ResourceManager resourceManager = new ResourceManager(schedulerContext.getEntityManager());
+            List<Tuple> allocatedValues =
+                    resourceManager.listValueReservationsInInterval(valueProviderId, interval);
+            for (Tuple allocatedValue : allocatedValues) {
+                DateTime slotStart = (DateTime) allocatedValue.get(2);
+                DateTime slotEnd = (DateTime) allocatedValue.get(3);
+                Map.Entry<String, Interval> value = new AbstractMap.SimpleEntry<>((String) allocatedValue.get(1), new Interval(slotStart, slotEnd));
+                usedReservations.put((Long) allocatedValue.get(0), value);
+            }
         }
 
         schedulerContextState.applyValueReservations(valueProviderId, slot, usedReservations);
@@ -137,6 +137,17 @@ public class FilteredValueProvider extends ValueProvider
         return value;
     }
 
+    @Override
+    public String generateValue(Set<String> usedValues, PatternValueAllocator valueAllocator,
+            Set<String> releasedValues) throws NoAvailableValueException
+    {
+        String value = valueProvider.generateValue(usedValues, valueAllocator, releasedValues);
+        if (value != null) {
+            value = FilterType.applyFilter(value, type);
+        }
+        return value;
+    }
+
     @Override
     @Transient
     public String generateValue(Set<String> usedValues, String requestedValue)
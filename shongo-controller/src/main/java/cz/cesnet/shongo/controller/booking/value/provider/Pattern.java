@@ -38,6 +38,12 @@ public class Pattern extends ArrayList<Pattern.PatternComponent>
      */
     private int generatedCount = 0;
 
+    /**
+     * {@link java.util.regex.Pattern} for splitting values to {@link PatternComponent}s
+     * (only for {@link #isIndexed()} patterns).
+     */
+    private java.util.regex.Pattern valueIndexPattern;
+
     /**
      * Parse pattern from string.
      *
@@ -75,6 +81,27 @@ public class Pattern extends ArrayList<Pattern.PatternComponent>
             add(new Pattern.ConstantPatternComponent(pattern));
         }
         singleValuePattern = size() == 1 && get(0) instanceof Pattern.ConstantPatternComponent;
+
+        // Prepare pattern for splitting values only when each value can be split in a single way
+        int variableLengthCount = 0;
+        StringBuilder valueIndexPatternBuilder = new StringBuilder();
+        for (PatternComponent patternComponent : this) {
+            if (patternComponent instanceof IndexedPatternComponent) {
+                if (((IndexedPatternComponent) patternComponent).isVariableLength()) {
+                    variableLengthCount++;
+                }
+            }
+            else if (!(patternComponent instanceof ConstantPatternComponent)) {
+                variableLengthCount = Integer.MAX_VALUE;
+                break;
+            }
+            valueIndexPatternBuilder.append("(");
+            valueIndexPatternBuilder.append(patternComponent.getRegexPattern());
+            valueIndexPatternBuilder.append(")");
+        }
+        if (variableLengthCount <= 1) {
+            valueIndexPattern = java.util.regex.Pattern.compile(valueIndexPatternBuilder.toString());
+        }
     }
 
     /**
@@ -125,6 +152,97 @@ public class Pattern extends ArrayList<Pattern.PatternComponent>
         return builder.toString();
     }
 
+    /**
+     * @return true whether all values of this pattern can be enumerated by {@link #getValue(long)}
+     *         and {@link #getValueIndex(String)}, false otherwise
+     */
+    public boolean isIndexed()
+    {
+        return valueIndexPattern != null;
+    }
+
+    /**
+     * @return number of values which can be enumerated for {@link #isIndexed()} pattern
+     *         (or {@link Long#MAX_VALUE} when the number is too large)
+     */
+    public long getValueCount()
+    {
+        long valueCount = 1;
+        for (PatternComponent patternComponent : this) {
+            if (patternComponent instanceof IndexedPatternComponent) {
+                long componentValueCount = ((IndexedPatternComponent) patternComponent).getValueCount();
+                if (valueCount > Long.MAX_VALUE / componentValueCount) {
+                    return Long.MAX_VALUE;
+                }
+                valueCount *= componentValueCount;
+            }
+        }
+        return valueCount;
+    }
+
+    /**
+     * @return index of the first value which is generated by the {@link #generate()}
+     *         (the {@link DigitPatternComponent} starts generating from one)
+     */
+    public long getFirstValueIndex()
+    {
+        for (int index = size() - 1; index >= 0; index--) {
+            PatternComponent patternComponent = get(index);
+            if (patternComponent instanceof GeneratedPatternComponent) {
+                return (patternComponent instanceof DigitPatternComponent) ? 1 : 0;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @param valueIndex index of the value in {@link #isIndexed()} pattern
+     * @return value with given {@code valueIndex} (values are ordered in the same way as by the {@link #generate()})
+     */
+    public String getValue(long valueIndex)
+    {
+        StringBuilder builder = new StringBuilder();
+        for (int index = size() - 1; index >= 0; index--) {
+            PatternComponent patternComponent = get(index);
+            if (patternComponent instanceof IndexedPatternComponent) {
+                IndexedPatternComponent indexedPatternComponent = (IndexedPatternComponent) patternComponent;
+                long componentValueCount = indexedPatternComponent.getValueCount();
+                builder.insert(0, indexedPatternComponent.getValue(valueIndex % componentValueCount));
+                valueIndex /= componentValueCount;
+            }
+            else {
+                builder.insert(0, patternComponent.getConstant());
+            }
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @param value for which the index should be returned
+     * @return index of given {@code value} in {@link #isIndexed()} pattern or {@code -1}
+     *         when the {@code value} doesn't belong to the pattern
+     */
+    public long getValueIndex(String value)
+    {
+        Matcher matcher = valueIndexPattern.matcher(value);
+        if (!matcher.matches()) {
+            return -1;
+        }
+        long valueIndex = 0;
+        for (int index = 0; index < size(); index++) {
+            PatternComponent patternComponent = get(index);
+            if (patternComponent instanceof IndexedPatternComponent) {
+                IndexedPatternComponent indexedPatternComponent = (IndexedPatternComponent) patternComponent;
+                long componentValueIndex = indexedPatternComponent.getValueIndex(matcher.group(index + 1));
+                if (componentValueIndex < 0) {
+                    return -1;
+                }
+                valueIndex = valueIndex * indexedPatternComponent.getValueCount() + componentValueIndex;
+            }
+        }
+        return valueIndex;
+    }
+
     /**
      * {@link Pattern} component.
      */
@@ -207,10 +325,38 @@ public class Pattern extends ArrayList<Pattern.PatternComponent>
         public boolean available();
     }
 
+    /**
+     * {@link GeneratedPatternComponent} whose values can be enumerated.
+     */
+    public static interface IndexedPatternComponent extends GeneratedPatternComponent
+    {
+        /**
+         * @return number of values
+         */
+        public long getValueCount();
+
+        /**
+         * @param valueIndex
+         * @return value with given {@code valueIndex}
+         */
+        public String getValue(long valueIndex);
+
+        /**
+         * @param value
+         * @return index of given {@code value} or {@code -1} when the {@code value} isn't valid
+         */
+        public long getValueIndex(String value);
+
+        /**
+         * @return true whether values can have different lengths, false otherwise
+         */
+        public boolean isVariableLength();
+    }
+
     /**
      * {@link PatternComponent} which returns increasing numbers of given length.
      */
-    public static class DigitPatternComponent implements GeneratedPatternComponent
+    public static class DigitPatternComponent implements IndexedPatternComponent
     {
         /**
          * Maximum length.
@@ -290,12 +436,39 @@ public class Pattern extends ArrayList<Pattern.PatternComponent>
         {
             return true;
         }
+
+        @Override
+        public long getValueCount()
+        {
+            return (long) Math.pow(10, length);
+        }
+
+        @Override
+        public String getValue(long valueIndex)
+        {
+            return String.format(format, valueIndex);
+        }
+
+        @Override
+        public long getValueIndex(String value)
+        {
+            if (value.length() != length) {
+                return -1;
+            }
+            return Long.valueOf(value);
+        }
+
+        @Override
+        public boolean isVariableLength()
+        {
+            return false;
+        }
     }
 
     /**
      * {@link PatternComponent} which returns increasing numbers of given length.
      */
-    public static class NumberRangePatternComponent implements GeneratedPatternComponent
+    public static class NumberRangePatternComponent implements IndexedPatternComponent
     {
         /**
          * Min value.
@@ -387,6 +560,34 @@ public class Pattern extends ArrayList<Pattern.PatternComponent>
             Integer parsedValue = Integer.valueOf(value);
             return parsedValue >= minValue && parsedValue <= maxValue;
         }
+
+        @Override
+        public long getValueCount()
+        {
+            return (long) maxValue - minValue + 1;
+        }
+
+        @Override
+        public String getValue(long valueIndex)
+        {
+            return String.format(format, minValue + valueIndex);
+        }
+
+        @Override
+        public long getValueIndex(String value)
+        {
+            long parsedValue = Long.valueOf(value);
+            if (parsedValue < minValue || parsedValue > maxValue || !getValue(parsedValue - minValue).equals(value)) {
+                return -1;
+            }
+            return parsedValue - minValue;
+        }
+
+        @Override
+        public boolean isVariableLength()
+        {
+            return String.format(format, minValue).length() != String.format(format, maxValue).length();
+        }
     }
 
     /**
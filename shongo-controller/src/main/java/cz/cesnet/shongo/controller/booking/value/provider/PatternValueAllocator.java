@@ -0,0 +1,133 @@
+package cz.cesnet.shongo.controller.booking.value.provider;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Allocation index of values for {@link Pattern}s of a {@link PatternValueProvider}. For each {@link Pattern} it holds
+ * a bitmap of used value indexes and the index of the first free value and thus a free value can be found without
+ * generating and probing all values of the {@link Pattern}s.
+ * <p/>
+ * The {@link PatternValueAllocator} is immutable after construction (it can be shared by multiple threads) and
+ * changes which aren't committed yet are passed to {@link #allocateValue(Set, Set)}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class PatternValueAllocator
+{
+    /**
+     * Maximum number of values of all {@link Pattern}s which can be indexed.
+     */
+    public static final long MAXIMUM_VALUE_COUNT = 1 << 22;
+
+    /**
+     * {@link Pattern}s for the allocation.
+     */
+    private final List<Pattern> patterns;
+
+    /**
+     * Bitmaps of used value indexes for {@link #patterns}.
+     */
+    private final BitSet[] usedValueIndexes;
+
+    /**
+     * Indexes of the first free values for {@link #patterns}.
+     */
+    private final int[] freeValueIndexes;
+
+    /**
+     * Constructor.
+     *
+     * @param patterns   sets the {@link #patterns}
+     * @param usedValues values which are already used
+     */
+    public PatternValueAllocator(List<Pattern> patterns, Collection<String> usedValues)
+    {
+        if (!isSupported(patterns)) {
+            throw new IllegalArgumentException("Patterns aren't supported.");
+        }
+        this.patterns = patterns;
+        this.usedValueIndexes = new BitSet[patterns.size()];
+        this.freeValueIndexes = new int[patterns.size()];
+        for (int patternIndex = 0; patternIndex < patterns.size(); patternIndex++) {
+            usedValueIndexes[patternIndex] = new BitSet();
+        }
+        for (String usedValue : usedValues) {
+            for (int patternIndex = 0; patternIndex < patterns.size(); patternIndex++) {
+                long valueIndex = patterns.get(patternIndex).getValueIndex(usedValue);
+                if (valueIndex >= 0) {
+                    usedValueIndexes[patternIndex].set((int) valueIndex);
+                }
+            }
+        }
+        for (int patternIndex = 0; patternIndex < patterns.size(); patternIndex++) {
+            int firstValueIndex = (int) patterns.get(patternIndex).getFirstValueIndex();
+            freeValueIndexes[patternIndex] = usedValueIndexes[patternIndex].nextClearBit(firstValueIndex);
+        }
+    }
+
+    /**
+     * @param patterns
+     * @return true whether given {@code patterns} can be used for {@link PatternValueAllocator}, false otherwise
+     */
+    public static boolean isSupported(List<Pattern> patterns)
+    {
+        long valueCount = 0;
+        for (Pattern pattern : patterns) {
+            if (!pattern.isIndexed()) {
+                return false;
+            }
+            valueCount += pattern.getValueCount();
+            if (valueCount > MAXIMUM_VALUE_COUNT) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Find the first free value (in the same order as values are generated by the {@link Pattern}s).
+     *
+     * @param usedValues     all currently used values (including values which aren't indexed yet)
+     * @param releasedValues values which are indexed as used but which aren't used anymore
+     * @return free value or {@code null} when no value is available
+     */
+    public String allocateValue(Set<String> usedValues, Set<String> releasedValues)
+    {
+        for (int patternIndex = 0; patternIndex < patterns.size(); patternIndex++) {
+            Pattern pattern = patterns.get(patternIndex);
+            BitSet patternUsedValueIndexes = usedValueIndexes[patternIndex];
+            long valueCount = pattern.getValueCount();
+            long firstValueIndex = pattern.getFirstValueIndex();
+
+            // Find the first value which isn't indexed as used (and skip values which aren't indexed yet)
+            long allocatedValueIndex = -1;
+            int valueIndex = freeValueIndexes[patternIndex];
+            while (valueIndex < valueCount) {
+                if (!usedValues.contains(pattern.getValue(valueIndex))) {
+                    allocatedValueIndex = valueIndex;
+                    break;
+                }
+                valueIndex = patternUsedValueIndexes.nextClearBit(valueIndex + 1);
+            }
+
+            // Released values can precede the found value
+            for (String releasedValue : releasedValues) {
+                long releasedValueIndex = pattern.getValueIndex(releasedValue);
+                if (releasedValueIndex < firstValueIndex || usedValues.contains(releasedValue)) {
+                    continue;
+                }
+                if (allocatedValueIndex == -1 || releasedValueIndex < allocatedValueIndex) {
+                    allocatedValueIndex = releasedValueIndex;
+                }
+            }
+
+            if (allocatedValueIndex != -1) {
+                return pattern.getValue(allocatedValueIndex);
+            }
+        }
+        return null;
+    }
+}
@@ -7,6 +7,7 @@ import cz.cesnet.shongo.TodoImplementException;
 
 import javax.persistence.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -224,6 +225,35 @@ public class PatternValueProvider extends ValueProvider
         return value;
     }
 
+    @Override
+    public String generateValue(Set<String> usedValues, PatternValueAllocator valueAllocator,
+            Set<String> releasedValues) throws NoAvailableValueException
+    {
+        if (valueAllocator == null) {
+            return generateValue(usedValues);
+        }
+        String value = valueAllocator.allocateValue(usedValues, releasedValues);
+        if (value == null) {
+            throw new NoAvailableValueException();
+        }
+        return value;
+    }
+
+    /**
+     * @param usedValues values which are already used
+     * @return new {@link PatternValueAllocator} for {@link #patterns}
+     *         or {@code null} when the {@link #patterns} aren't supported by the {@link PatternValueAllocator}
+     */
+    @Transient
+    public PatternValueAllocator createValueAllocator(Collection<String> usedValues)
+    {
+        List<Pattern> parsedPatterns = getParsedPatterns();
+        if (!PatternValueAllocator.isSupported(parsedPatterns)) {
+            return null;
+        }
+        return new PatternValueAllocator(parsedPatterns, usedValues);
+    }
+
     @Override
     @Transient
     public String generateValue(Set<String> usedValues, String requestedValue)
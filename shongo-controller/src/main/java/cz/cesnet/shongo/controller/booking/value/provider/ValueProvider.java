@@ -131,6 +131,19 @@ public abstract class ValueProvider extends SimplePersistentObject
      */
     public abstract String generateValue(Set<String> usedValues) throws NoAvailableValueException;
 
+    /**
+     * @param usedValues     set of already used values (which should not be generated)
+     * @param valueAllocator {@link PatternValueAllocator} for the {@link #getTargetValueProvider()}
+     * @param releasedValues values which are used in the {@code valueAllocator} but not in the {@code usedValues}
+     * @return new generated value if available,
+     *         null otherwise
+     */
+    public String generateValue(Set<String> usedValues, PatternValueAllocator valueAllocator,
+            Set<String> releasedValues) throws NoAvailableValueException
+    {
+        return generateValue(usedValues);
+    }
+
     /**
      * @param usedValues     set of already used values (which should not be generated)
      * @param requestedValue which should be generated
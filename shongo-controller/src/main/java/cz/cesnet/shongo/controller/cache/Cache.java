@@ -45,6 +45,11 @@ public class Cache extends Component implements Component.EntityManagerFactoryAw
      */
     private DomainCache domainCache;
 
+    /**
+     * @see ReservationCache
+     */
+    private ReservationCache reservationCache = new ReservationCache();
+
     /**
      * {@link EntityManagerFactory} used to load resources in {@link #init(cz.cesnet.shongo.controller.ControllerConfiguration)} method.
      */
@@ -67,6 +72,7 @@ public class Cache extends Component implements Component.EntityManagerFactoryAw
         this.resourceCache = new ResourceCache();
         domainCache = new DomainCache();
         this.entityManagerFactory = entityManagerFactory;
+        this.reservationCache.setEntityManagerFactory(entityManagerFactory);
     }
 
     public void addICalReservation (String resourceId, String iCalendarData)
@@ -114,10 +120,19 @@ public class Cache extends Component implements Component.EntityManagerFactoryAw
         return domainCache;
     }
 
+    /**
+     * @return {@link #reservationCache}
+     */
+    public ReservationCache getReservationCache()
+    {
+        return reservationCache;
+    }
+
     @Override
     public synchronized void setEntityManagerFactory(EntityManagerFactory entityManagerFactory)
     {
         this.entityManagerFactory = entityManagerFactory;
+        this.reservationCache.setEntityManagerFactory(entityManagerFactory);
     }
 
     @Override
@@ -215,6 +230,9 @@ public class Cache extends Component implements Component.EntityManagerFactoryAw
     {
         // Remove resource from resource cache
         resourceCache.removeObject(resource);
+
+        // Reservations for the resource will be reloaded
+        reservationCache.clear();
     }
 
     /**
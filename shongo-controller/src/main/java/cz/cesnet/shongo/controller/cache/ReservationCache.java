@@ -0,0 +1,708 @@
+package cz.cesnet.shongo.controller.cache;
+
+import cz.cesnet.shongo.controller.booking.recording.RecordingServiceReservation;
+import cz.cesnet.shongo.controller.booking.reservation.Reservation;
+import cz.cesnet.shongo.controller.booking.reservation.TargetedReservation;
+import cz.cesnet.shongo.controller.booking.resource.ResourceReservation;
+import cz.cesnet.shongo.controller.booking.room.RoomReservation;
+import cz.cesnet.shongo.controller.booking.value.ValueReservation;
+import cz.cesnet.shongo.controller.booking.value.provider.PatternValueAllocator;
+import cz.cesnet.shongo.controller.booking.value.provider.PatternValueProvider;
+import org.joda.time.DateTime;
+import org.joda.time.Interval;
+import org.joda.time.Period;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.*;
+
+/**
+ * Represents a cache of committed {@link TargetedReservation}s in efficient form. For each target (e.g., resource
+ * or room provider capability) it holds an index of reservation time slots which is loaded on first usage and
+ * which is updated by reservations created, modified or deleted by committed transactions
+ * (see {@link #update(Collection, EntityManager)}). Targets whose reservations were modified by transactions which
+ * were rolled back are reloaded (see {@link #refresh(Collection)}).
+ *
+ * The index is used to find colliding reservations without querying the database. Only reservations which really
+ * collide are loaded (by a single query).
+ * For {@link ValueReservation}s the index holds also the values and {@link PatternValueAllocator}s for requested
+ * slots (see {@link #getValueAllocator}).
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ReservationCache
+{
+    private static Logger logger = LoggerFactory.getLogger(ReservationCache.class);
+
+    /**
+     * Reservations which end before {@link DateTime#now()} minus this period are not loaded into the index.
+     */
+    private static final Period HISTORY_PERIOD = Period.days(1);
+
+    /**
+     * Maximum number of {@link PatternValueAllocator}s (for different slots) which are kept for a single target.
+     */
+    private static final int VALUE_ALLOCATOR_COUNT = 16;
+
+    /**
+     * Supported types of {@link TargetedReservation}s and path to identifier of theirs targets.
+     */
+    private static final Map<Class<? extends TargetedReservation>, String> TARGET_ID_PATH_BY_TYPE;
+
+    static {
+        Map<Class<? extends TargetedReservation>, String> targetIdPathByType =
+                new LinkedHashMap<Class<? extends TargetedReservation>, String>();
+        targetIdPathByType.put(RoomReservation.class, "reservation.roomProviderCapability.id");
+        targetIdPathByType.put(RecordingServiceReservation.class, "reservation.recordingCapability.id");
+        targetIdPathByType.put(ResourceReservation.class, "reservation.resource.id");
+        targetIdPathByType.put(ValueReservation.class, "reservation.valueProvider.id");
+        TARGET_ID_PATH_BY_TYPE = Collections.unmodifiableMap(targetIdPathByType);
+    }
+
+    /**
+     * {@link EntityManagerFactory} used to load committed reservations (when {@code null} the cache is disabled).
+     */
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Loaded {@link TargetIndex}es by {@link Target}s.
+     */
+    private final Map<Target, TargetIndex> targetIndexes = new HashMap<Target, TargetIndex>();
+
+    /**
+     * Constructor.
+     */
+    public ReservationCache()
+    {
+    }
+
+    /**
+     * @param entityManagerFactory sets the {@link #entityManagerFactory}
+     */
+    public synchronized void setEntityManagerFactory(EntityManagerFactory entityManagerFactory)
+    {
+        this.entityManagerFactory = entityManagerFactory;
+        targetIndexes.clear();
+    }
+
+    /**
+     * @return true whether the {@link ReservationCache} is enabled (it has {@link #entityManagerFactory}),
+     *         false otherwise
+     */
+    public synchronized boolean isEnabled()
+    {
+        return entityManagerFactory != null;
+    }
+
+    /**
+     * Remove all loaded {@link TargetIndex}es (they will be loaded again on first usage).
+     */
+    public synchronized void clear()
+    {
+        targetIndexes.clear();
+    }
+
+    /**
+     * @param reservationType
+     * @return type of {@link TargetedReservation}s which is used for indexing given {@code reservationType}
+     *         or {@code null} when given {@code reservationType} isn't indexed
+     */
+    public static Class<? extends TargetedReservation> getIndexType(Class<? extends Reservation> reservationType)
+    {
+        for (Class<? extends TargetedReservation> indexType : TARGET_ID_PATH_BY_TYPE.keySet()) {
+            if (indexType.isAssignableFrom(reservationType)) {
+                return indexType;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @param reservation for which the {@link Target}s should be added (including child reservations)
+     * @param targets     to which the {@link Target}s should be added
+     */
+    public static void getTargets(Reservation reservation, Set<Target> targets)
+    {
+        if (reservation instanceof TargetedReservation) {
+            Class<? extends TargetedReservation> indexType = getIndexType(reservation.getClass());
+            if (indexType != null) {
+                Long targetId = ((TargetedReservation) reservation).getTargetId();
+                if (targetId != null) {
+                    targets.add(new Target(indexType, targetId));
+                }
+            }
+        }
+        for (Reservation childReservation : reservation.getChildReservations()) {
+            getTargets(childReservation, targets);
+        }
+    }
+
+    /**
+     * Update loaded {@link TargetIndex}es by given {@code reservations} (and theirs child reservations) which were
+     * created, modified or deleted by just committed transaction of given {@code entityManager}. Reservations which
+     * aren't managed by the {@code entityManager} anymore are considered as deleted. Not loaded {@link TargetIndex}es
+     * are skipped because they will be loaded with committed reservations on first usage.
+     *
+     * @param reservations  which were modified
+     * @param entityManager which committed the modifications
+     */
+    public synchronized void update(Collection<Reservation> reservations, EntityManager entityManager)
+    {
+        List<Reservation> allReservations = new LinkedList<Reservation>();
+        for (Reservation reservation : reservations) {
+            getAllReservations(reservation, allReservations);
+        }
+        for (Reservation reservation : allReservations) {
+            Long reservationId = reservation.getId();
+            if (reservationId == null || !(reservation instanceof TargetedReservation)) {
+                continue;
+            }
+            Class<? extends TargetedReservation> indexType = getIndexType(reservation.getClass());
+            Long targetId = ((TargetedReservation) reservation).getTargetId();
+            if (indexType == null || targetId == null) {
+                continue;
+            }
+            TargetIndex targetIndex = targetIndexes.get(new Target(indexType, targetId));
+            if (targetIndex == null) {
+                continue;
+            }
+            targetIndex.remove(reservationId);
+            if (entityManager.contains(reservation)) {
+                long slotStart = reservation.getSlotStart().getMillis();
+                long slotEnd = reservation.getSlotEnd().getMillis();
+                if (slotEnd > targetIndex.loadedFrom) {
+                    String value = null;
+                    if (reservation instanceof ValueReservation) {
+                        value = ((ValueReservation) reservation).getValue();
+                    }
+                    targetIndex.add(reservationId, slotStart, slotEnd, value);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param reservation  to be added to given {@code reservations} together with all its child reservations
+     * @param reservations to which the reservations should be added
+     */
+    private static void getAllReservations(Reservation reservation, List<Reservation> reservations)
+    {
+        reservations.add(reservation);
+        for (Reservation childReservation : reservation.getChildReservations()) {
+            getAllReservations(childReservation, reservations);
+        }
+    }
+
+    /**
+     * Remove {@link TargetIndex}es for given {@code targets} and thus they will be reloaded from committed
+     * reservations on next usage. It should be called after a transaction which modified reservations
+     * for given {@code targets} is rolled back (or when the modified reservations aren't known).
+     *
+     * @param targets to be refreshed
+     */
+    public synchronized void refresh(Collection<Target> targets)
+    {
+        for (Target target : targets) {
+            targetIndexes.remove(target);
+        }
+    }
+
+    /**
+     * Get list of reservations of given {@code reservationType} for given {@code targetId} which intersects
+     * given {@code slot}. When the {@link ReservationCache} is disabled or the given {@code slot} isn't indexed,
+     * the reservations are queried from the database.
+     *
+     * @param reservationType type of reservations
+     * @param targetId        identifier of the target (resource or capability)
+     * @param slot            which must be intersected by returned reservations
+     * @param entityManager   to be used for loading of reservation entities
+     * @return list of reservations ordered by theirs slot start
+     */
+    public <T extends TargetedReservation> List<T> getReservations(Class<T> reservationType, Long targetId,
+            Interval slot, EntityManager entityManager)
+    {
+        Set<Long> reservationIds = getReservationIds(reservationType, targetId, slot);
+        if (reservationIds == null) {
+            return listReservations(reservationType, targetId, slot, entityManager);
+        }
+        List<T> reservations = new ArrayList<T>(reservationIds.size());
+        if (!reservationIds.isEmpty()) {
+            for (T reservation : entityManager.createQuery("SELECT reservation"
+                    + " FROM " + reservationType.getSimpleName() + " reservation"
+                    + " WHERE reservation.id IN(:reservationIds)", reservationType)
+                    .setParameter("reservationIds", reservationIds)
+                    .getResultList()) {
+                // Reservation can be modified in the current transaction
+                if (targetId.equals(reservation.getTargetId()) && reservation.getSlot().overlaps(slot)) {
+                    reservations.add(reservation);
+                }
+            }
+        }
+        Collections.sort(reservations, new Comparator<T>()
+        {
+            @Override
+            public int compare(T reservation1, T reservation2)
+            {
+                return reservation1.getSlotStart().compareTo(reservation2.getSlotStart());
+            }
+        });
+        return reservations;
+    }
+
+    /**
+     * Get lists of reservations of given {@code reservationType} for all given {@code targetIds} which intersects
+     * given {@code slot}. Reservations are loaded at once (by a single query for indexed targets and by a single
+     * query for not indexed targets) instead of a query per target.
+     *
+     * @param reservationType type of reservations
+     * @param targetIds       identifiers of the targets (resources or capabilities)
+     * @param slot            which must be intersected by returned reservations
+     * @param entityManager   to be used for loading of reservation entities
+     * @return map of lists of reservations ordered by theirs slot start by target identifiers
+     */
+    public <T extends TargetedReservation> Map<Long, List<T>> getReservations(Class<T> reservationType,
+            Collection<Long> targetIds, Interval slot, EntityManager entityManager)
+    {
+        Map<Long, List<T>> reservationsByTargetId = new LinkedHashMap<Long, List<T>>();
+        Map<Long, Long> targetIdByReservationId = new HashMap<Long, Long>();
+        List<Long> notIndexedTargetIds = new LinkedList<Long>();
+        for (Long targetId : targetIds) {
+            reservationsByTargetId.put(targetId, new ArrayList<T>());
+            Set<Long> reservationIds = getReservationIds(reservationType, targetId, slot);
+            if (reservationIds == null) {
+                notIndexedTargetIds.add(targetId);
+            }
+            else {
+                for (Long reservationId : reservationIds) {
+                    targetIdByReservationId.put(reservationId, targetId);
+                }
+            }
+        }
+        if (!targetIdByReservationId.isEmpty()) {
+            List<T> reservations = entityManager.createQuery("SELECT reservation"
+                    + " FROM " + reservationType.getSimpleName() + " reservation"
+                    + " WHERE reservation.id IN(:reservationIds)", reservationType)
+                    .setParameter("reservationIds", targetIdByReservationId.keySet())
+                    .getResultList();
+            for (T reservation : reservations) {
+                // Reservation can be modified in the current transaction
+                Long targetId = targetIdByReservationId.get(reservation.getId());
+                if (targetId.equals(reservation.getTargetId()) && reservation.getSlot().overlaps(slot)) {
+                    reservationsByTargetId.get(targetId).add(reservation);
+                }
+            }
+        }
+        if (!notIndexedTargetIds.isEmpty()) {
+            for (T reservation : listReservations(reservationType, notIndexedTargetIds, slot, entityManager)) {
+                List<T> reservations = reservationsByTargetId.get(reservation.getTargetId());
+                if (reservations != null) {
+                    reservations.add(reservation);
+                }
+            }
+        }
+        Comparator<T> comparator = new Comparator<T>()
+        {
+            @Override
+            public int compare(T reservation1, T reservation2)
+            {
+                return reservation1.getSlotStart().compareTo(reservation2.getSlotStart());
+            }
+        };
+        for (List<T> reservations : reservationsByTargetId.values()) {
+            Collections.sort(reservations, comparator);
+        }
+        return reservationsByTargetId;
+    }
+
+    /**
+     * @param reservationType
+     * @param targetId
+     * @param slot
+     * @return set of identifiers of reservations which intersects given {@code slot}
+     *         or {@code null} when it cannot be determined by the {@link ReservationCache}
+     */
+    private synchronized Set<Long> getReservationIds(Class<? extends TargetedReservation> reservationType,
+            Long targetId, Interval slot)
+    {
+        Class<? extends TargetedReservation> indexType = getIndexType(reservationType);
+        if (indexType == null || !indexType.equals(reservationType)) {
+            // Only whole index types are supported
+            return null;
+        }
+        TargetIndex targetIndex = getTargetIndex(new Target(indexType, targetId), slot);
+        if (targetIndex == null) {
+            return null;
+        }
+        return targetIndex.getReservationIds(slot.getStartMillis(), slot.getEndMillis());
+    }
+
+    /**
+     * Get values of {@link ValueReservation}s for given {@code valueProviderId} which intersects given {@code slot}.
+     *
+     * @param valueProviderId identifier of the {@link cz.cesnet.shongo.controller.booking.value.provider.ValueProvider}
+     * @param slot            which must be intersected by returned reservations
+     * @return map of values and slots by reservation identifiers
+     *         or {@code null} when it cannot be determined by the {@link ReservationCache}
+     */
+    public synchronized Map<Long, Map.Entry<String, Interval>> getValueReservations(Long valueProviderId,
+            Interval slot)
+    {
+        TargetIndex targetIndex = getTargetIndex(new Target(ValueReservation.class, valueProviderId), slot);
+        if (targetIndex == null) {
+            return null;
+        }
+        Map<Long, Map.Entry<String, Interval>> valueReservations = new HashMap<Long, Map.Entry<String, Interval>>();
+        for (Entry entry : targetIndex.getEntries(slot.getStartMillis(), slot.getEndMillis())) {
+            valueReservations.put(entry.reservationId, new AbstractMap.SimpleEntry<String, Interval>(
+                    entry.value, new Interval(entry.slotStart, entry.slotEnd)));
+        }
+        return valueReservations;
+    }
+
+    /**
+     * Get {@link PatternValueAllocator} for values of committed {@link ValueReservation}s for given
+     * {@code valueProvider} which intersects given {@code slot}. The {@link PatternValueAllocator} is created only
+     * once for the same {@code slot} until the {@link ValueReservation}s for the {@code valueProvider} are refreshed.
+     *
+     * @param valueProvider for which the {@link PatternValueAllocator} should be returned
+     * @param slot          which must be intersected by used values
+     * @return {@link PatternValueAllocator} or {@code null} when it cannot be determined by the {@link ReservationCache}
+     *         or when the {@code valueProvider} isn't supported
+     */
+    public synchronized PatternValueAllocator getValueAllocator(PatternValueProvider valueProvider, Interval slot)
+    {
+        TargetIndex targetIndex = getTargetIndex(new Target(ValueReservation.class, valueProvider.getId()), slot);
+        if (targetIndex == null) {
+            return null;
+        }
+        if (targetIndex.valueAllocators.containsKey(slot)) {
+            return targetIndex.valueAllocators.get(slot);
+        }
+        List<String> usedValues = new LinkedList<String>();
+        for (Entry entry : targetIndex.getEntries(slot.getStartMillis(), slot.getEndMillis())) {
+            usedValues.add(entry.value);
+        }
+        PatternValueAllocator valueAllocator = valueProvider.createValueAllocator(usedValues);
+        targetIndex.valueAllocators.put(slot, valueAllocator);
+        return valueAllocator;
+    }
+
+    /**
+     * @param target
+     * @param slot
+     * @return (loaded) {@link TargetIndex} for given {@code target}
+     *         or {@code null} when the {@link ReservationCache} is disabled or given {@code slot} isn't indexed
+     */
+    private TargetIndex getTargetIndex(Target target, Interval slot)
+    {
+        if (entityManagerFactory == null) {
+            return null;
+        }
+        TargetIndex targetIndex = targetIndexes.get(target);
+        if (targetIndex == null) {
+            targetIndex = loadTargetIndex(target);
+            targetIndexes.put(target, targetIndex);
+        }
+        if (slot.getStartMillis() < targetIndex.loadedFrom) {
+            return null;
+        }
+        return targetIndex;
+    }
+
+    /**
+     * @param target for which the {@link TargetIndex} should be loaded
+     * @return loaded {@link TargetIndex}
+     */
+    private TargetIndex loadTargetIndex(Target target)
+    {
+        DateTime loadedFrom = DateTime.now().minus(HISTORY_PERIOD);
+        TargetIndex targetIndex = new TargetIndex(loadedFrom.getMillis());
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            boolean value = ValueReservation.class.equals(target.type);
+            List<Object[]> results = entityManager.createQuery("SELECT reservation.id, reservation.slotStart,"
+                    + " reservation.slotEnd" + (value ? ", reservation.value" : "")
+                    + " FROM " + target.type.getSimpleName() + " reservation"
+                    + " WHERE " + TARGET_ID_PATH_BY_TYPE.get(target.type) + " = :targetId"
+                    + " AND reservation.slotEnd > :loadedFrom", Object[].class)
+                    .setParameter("targetId", target.id)
+                    .setParameter("loadedFrom", loadedFrom)
+                    .getResultList();
+            for (Object[] result : results) {
+                DateTime slotStart = (DateTime) result[1];
+                DateTime slotEnd = (DateTime) result[2];
+                targetIndex.add((Long) result[0], slotStart.getMillis(), slotEnd.getMillis(),
+                        (value ? (String) result[3] : null));
+            }
+        }
+        finally {
+            entityManager.close();
+        }
+        logger.trace("Loaded {} reservations for {}.", targetIndex.size(), target);
+        return targetIndex;
+    }
+
+    /**
+     * @param reservationType
+     * @param targetId
+     * @param slot
+     * @param entityManager
+     * @return list of reservations queried from the database
+     */
+    private static <T extends TargetedReservation> List<T> listReservations(Class<T> reservationType, Long targetId,
+            Interval slot, EntityManager entityManager)
+    {
+        Class<? extends TargetedReservation> indexType = getIndexType(reservationType);
+        if (indexType == null) {
+            throw new IllegalArgumentException(reservationType.getSimpleName() + " isn't supported.");
+        }
+        return entityManager.createQuery("SELECT reservation"
+                + " FROM " + reservationType.getSimpleName() + " reservation"
+                + " WHERE " + TARGET_ID_PATH_BY_TYPE.get(indexType) + " = :targetId"
+                + " AND NOT(reservation.slotStart >= :end OR reservation.slotEnd <= :start)"
+                + " ORDER BY reservation.slotStart", reservationType)
+                .setParameter("targetId", targetId)
+                .setParameter("start", slot.getStart())
+                .setParameter("end", slot.getEnd())
+                .getResultList();
+    }
+
+    /**
+     * @param reservationType
+     * @param targetIds
+     * @param slot
+     * @param entityManager
+     * @return list of reservations for all given {@code targetIds} queried from the database
+     */
+    private static <T extends TargetedReservation> List<T> listReservations(Class<T> reservationType,
+            Collection<Long> targetIds, Interval slot, EntityManager entityManager)
+    {
+        Class<? extends TargetedReservation> indexType = getIndexType(reservationType);
+        if (indexType == null) {
+            throw new IllegalArgumentException(reservationType.getSimpleName() + " isn't supported.");
+        }
+        return entityManager.createQuery("SELECT reservation"
+                + " FROM " + reservationType.getSimpleName() + " reservation"
+                + " WHERE " + TARGET_ID_PATH_BY_TYPE.get(indexType) + " IN(:targetIds)"
+                + " AND NOT(reservation.slotStart >= :end OR reservation.slotEnd <= :start)", reservationType)
+                .setParameter("targetIds", targetIds)
+                .setParameter("start", slot.getStart())
+                .setParameter("end", slot.getEnd())
+                .getResultList();
+    }
+
+    /**
+     * Identification of a target of indexed {@link TargetedReservation}s.
+     */
+    public static class Target
+    {
+        /**
+         * Type of indexed {@link TargetedReservation}s.
+         */
+        private final Class<? extends TargetedReservation> type;
+
+        /**
+         * @see TargetedReservation#getTargetId()
+         */
+        private final Long id;
+
+        /**
+         * Constructor.
+         *
+         * @param type sets the {@link #type}
+         * @param id   sets the {@link #id}
+         */
+        public Target(Class<? extends TargetedReservation> type, Long id)
+        {
+            this.type = type;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object object)
+        {
+            if (this == object) {
+                return true;
+            }
+            if (object == null || getClass() != object.getClass()) {
+                return false;
+            }
+            Target target = (Target) object;
+            return type.equals(target.type) && id.equals(target.id);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return 31 * type.hashCode() + id.hashCode();
+        }
+
+        @Override
+        public String toString()
+        {
+            return type.getSimpleName() + ":" + id;
+        }
+    }
+
+    /**
+     * Index of reservation time slots for a single {@link Target}. Entries are ordered by slot start and because
+     * the maximum slot duration is known, all entries which intersects a given slot can be found only in the range
+     * of entries starting in {@code [start - maximumDuration, end)}.
+     */
+    static class TargetIndex
+    {
+        /**
+         * Only reservations which ends after this date/time (in milliseconds) are indexed.
+         */
+        private final long loadedFrom;
+
+        /**
+         * Entries ordered by slot start (and reservation identifier).
+         */
+        private final TreeSet<Entry> entries = new TreeSet<Entry>();
+
+        /**
+         * {@link #entries} by reservation identifiers.
+         */
+        private final Map<Long, Entry> entryByReservationId = new HashMap<Long, Entry>();
+
+        /**
+         * Maximum slot duration of all {@link #entries}.
+         */
+        private long maximumDuration = 0;
+
+        /**
+         * Created {@link PatternValueAllocator}s by slots (for {@link ValueReservation}s).
+         */
+        private final Map<Interval, PatternValueAllocator> valueAllocators =
+                new LinkedHashMap<Interval, PatternValueAllocator>(VALUE_ALLOCATOR_COUNT, 0.75f, true)
+                {
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<Interval, PatternValueAllocator> eldest)
+                    {
+                        return size() > VALUE_ALLOCATOR_COUNT;
+                    }
+                };
+
+        /**
+         * Constructor.
+         *
+         * @param loadedFrom sets the {@link #loadedFrom}
+         */
+        TargetIndex(long loadedFrom)
+        {
+            this.loadedFrom = loadedFrom;
+        }
+
+        /**
+         * @return number of {@link #entries}
+         */
+        int size()
+        {
+            return entries.size();
+        }
+
+        /**
+         * @param reservationId
+         * @param slotStart
+         * @param slotEnd
+         */
+        void add(Long reservationId, long slotStart, long slotEnd)
+        {
+            add(reservationId, slotStart, slotEnd, null);
+        }
+
+        /**
+         * @param reservationId
+         * @param slotStart
+         * @param slotEnd
+         * @param value
+         */
+        void add(Long reservationId, long slotStart, long slotEnd, String value)
+        {
+            remove(reservationId);
+            Entry entry = new Entry(reservationId, slotStart, slotEnd, value);
+            entries.add(entry);
+            entryByReservationId.put(reservationId, entry);
+            maximumDuration = Math.max(maximumDuration, slotEnd - slotStart);
+            valueAllocators.clear();
+        }
+
+        /**
+         * @param reservationId of the {@link Entry} to be removed
+         */
+        void remove(Long reservationId)
+        {
+            Entry entry = entryByReservationId.remove(reservationId);
+            if (entry != null) {
+                entries.remove(entry);
+                valueAllocators.clear();
+            }
+        }
+
+        /**
+         * @param start
+         * @param end
+         * @return list of {@link Entry}s whose slots intersects given {@code start} and {@code end}
+         */
+        List<Entry> getEntries(long start, long end)
+        {
+            List<Entry> intersectingEntries = new LinkedList<Entry>();
+            Entry fromEntry = new Entry(Long.MIN_VALUE, start - maximumDuration, 0, null);
+            Entry toEntry = new Entry(Long.MIN_VALUE, end, 0, null);
+            for (Entry entry : entries.subSet(fromEntry, true, toEntry, false)) {
+                if (entry.slotEnd > start) {
+                    intersectingEntries.add(entry);
+                }
+            }
+            return intersectingEntries;
+        }
+
+        /**
+         * @param start
+         * @param end
+         * @return set of reservation identifiers whose slots intersects given {@code start} and {@code end}
+         */
+        Set<Long> getReservationIds(long start, long end)
+        {
+            Set<Long> reservationIds = new LinkedHashSet<Long>();
+            for (Entry entry : getEntries(start, end)) {
+                reservationIds.add(entry.reservationId);
+            }
+            return reservationIds;
+        }
+    }
+
+    /**
+     * Entry of the {@link TargetIndex}.
+     */
+    private static class Entry implements Comparable<Entry>
+    {
+        private final Long reservationId;
+
+        private final long slotStart;
+
+        private final long slotEnd;
+
+        private final String value;
+
+        private Entry(Long reservationId, long slotStart, long slotEnd, String value)
+        {
+            this.reservationId = reservationId;
+            this.slotStart = slotStart;
+            this.slotEnd = slotEnd;
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Entry entry)
+        {
+            if (slotStart != entry.slotStart) {
+                return slotStart < entry.slotStart ? -1 : 1;
+            }
+            return reservationId.compareTo(entry.reservationId);
+        }
+    }
+}
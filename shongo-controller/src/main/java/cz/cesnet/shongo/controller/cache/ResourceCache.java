@@ -217,9 +217,9 @@ public class ResourceCache extends AbstractCache<Resource>
 
         // Check if resource is not already allocated
         Long resourceId = resource.getId();
-        ResourceManager resourceManager = new ResourceManager(schedulerContext.getEntityManager());
-        List<ResourceReservation> resourceReservations =
-                resourceManager.listResourceReservationsInInterval(resourceId, slot);
+        ReservationCache reservationCache = schedulerContext.getCache().getReservationCache();
+        List<ResourceReservation> resourceReservations = reservationCache.getReservations(
+                ResourceReservation.class, resourceId, slot, schedulerContext.getEntityManager());
 
         // Apply transaction
         SchedulerContextState schedulerContextState = schedulerContext.getState();
@@ -0,0 +1,105 @@
+package cz.cesnet.shongo.controller.domains;
+
+/**
+ * Circuit breaker for requests to a single foreign domain.
+ * <p/>
+ * After {@link #failureThreshold} consecutive failures (i.e., the domain cannot be connected or it doesn't respond)
+ * the circuit is opened and requests to the domain fail immediately for {@link #openDuration}. Afterwards a single
+ * trial request is allowed and according to its result the circuit is closed or opened again.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class DomainCircuitBreaker
+{
+    /**
+     * Number of consecutive failures after which the circuit is opened.
+     */
+    private final int failureThreshold;
+
+    /**
+     * Duration in milliseconds for which the circuit stays open.
+     */
+    private final long openDuration;
+
+    /**
+     * Number of consecutive failures.
+     */
+    private int failureCount = 0;
+
+    /**
+     * Time in milliseconds until which the circuit is open.
+     */
+    private long openUntil = 0;
+
+    /**
+     * Specifies whether the trial request is being performed.
+     */
+    private boolean trial = false;
+
+    /**
+     * Constructor.
+     *
+     * @param failureThreshold sets the {@link #failureThreshold}
+     * @param openDuration     sets the {@link #openDuration}
+     */
+    public DomainCircuitBreaker(int failureThreshold, long openDuration)
+    {
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+    }
+
+    /**
+     * @param currentTime which represents "now"
+     * @return true whether requests to the domain fail immediately, false otherwise
+     */
+    public synchronized boolean isOpen(long currentTime)
+    {
+        return failureCount >= failureThreshold && (currentTime < openUntil || trial);
+    }
+
+    /**
+     * @param currentTime which represents "now"
+     * @return true whether a request to the domain can be performed, false otherwise
+     *         (the result of the request must be recorded by {@link #recordSuccess} or {@link #recordFailure})
+     */
+    public synchronized boolean allowRequest(long currentTime)
+    {
+        if (failureCount < failureThreshold) {
+            return true;
+        }
+        if (currentTime < openUntil || trial) {
+            return false;
+        }
+        trial = true;
+        return true;
+    }
+
+    /**
+     * Record that the domain has responded.
+     */
+    public synchronized void recordSuccess()
+    {
+        failureCount = 0;
+        trial = false;
+    }
+
+    /**
+     * Record that the domain hasn't responded.
+     *
+     * @param currentTime which represents "now"
+     */
+    public synchronized void recordFailure(long currentTime)
+    {
+        failureCount++;
+        trial = false;
+        if (failureCount >= failureThreshold) {
+            openUntil = currentTime + openDuration;
+        }
+    }
+
+    @Override
+    public synchronized String toString()
+    {
+        return String.format("DomainCircuitBreaker (failures: %d, open until: %d)", failureCount, openUntil);
+    }
+}
@@ -21,6 +21,7 @@ import cz.cesnet.shongo.controller.booking.reservation.ReservationManager;
 import cz.cesnet.shongo.controller.booking.resource.*;
 import cz.cesnet.shongo.controller.cache.Cache;
 import cz.cesnet.shongo.controller.cache.DomainCache;
+import cz.cesnet.shongo.controller.scheduler.ChangeJournal;
 import cz.cesnet.shongo.controller.util.NativeQuery;
 import cz.cesnet.shongo.controller.util.QueryFilter;
 import org.joda.time.DateTime;
@@ -43,7 +44,8 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
  *
  * @author Ondrej Pavelka <pavelka@cesnet.cz>
  */
-public class DomainService extends AbstractServiceImpl implements Component.EntityManagerFactoryAware, Component.AuthorizationAware
+public class DomainService extends AbstractServiceImpl implements Component.EntityManagerFactoryAware, Component.AuthorizationAware,
+                                                                   Component.ChangeJournalAware
 {
     private static Logger logger = LoggerFactory.getLogger(DomainService.class);
 
@@ -65,6 +67,11 @@ public class DomainService extends AbstractServiceImpl implements Component.Enti
      */
     private Authorization authorization;
 
+    /**
+     * @see ChangeJournal
+     */
+    private ChangeJournal changeJournal;
+
     public DomainService(EntityManagerFactory entityManagerFactory, Authorization authorization, Cache cache)
     {
         this.entityManagerFactory = entityManagerFactory;
@@ -79,6 +86,12 @@ public class DomainService extends AbstractServiceImpl implements Component.Enti
         this.entityManagerFactory = entityManagerFactory;
     }
 
+    @Override
+    public void setChangeJournal(ChangeJournal changeJournal)
+    {
+        this.changeJournal = changeJournal;
+    }
+
     @Override
     public void setAuthorization(Authorization authorization)
     {
@@ -784,6 +797,10 @@ public class DomainService extends AbstractServiceImpl implements Component.Enti
 
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
+
+            if (changeJournal != null) {
+                changeJournal.markDeletions();
+            }
         }
         finally {
             if (authorizationManager.isTransactionActive()) {
@@ -24,6 +24,7 @@ import org.apache.commons.collections4.MultiMap;
 import org.apache.commons.collections4.map.MultiValueMap;
 import org.apache.ws.commons.util.Base64;
 
+import org.codehaus.jackson.JsonProcessingException;
 import org.codehaus.jackson.map.ObjectMapper;
 import org.codehaus.jackson.map.ObjectReader;
 import org.codehaus.jackson.map.SerializationConfig;
@@ -35,6 +36,7 @@ import org.slf4j.LoggerFactory;
 import javax.net.ssl.HttpsURLConnection;
 import javax.net.ssl.KeyManagerFactory;
 import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManagerFactory;
 import java.io.*;
 import java.net.MalformedURLException;
@@ -43,6 +45,7 @@ import java.security.GeneralSecurityException;
 import java.security.KeyStore;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Foreign domains connector for Inter Domain Agent
@@ -53,8 +56,70 @@ public class DomainsConnector
 {
     private final Integer CORE_POOL_SIZE = 10;
 
+    /**
+     * Maximum number of threads which perform requests to foreign domains concurrently.
+     */
+    private final Integer MAXIMUM_POOL_SIZE = 50;
+
+    /**
+     * Number of consecutive failures of a domain after which the requests to the domain fail immediately.
+     */
+    private final int CIRCUIT_BREAKER_FAILURE_THRESHOLD = 3;
+
+    /**
+     * Duration in milliseconds for which the requests to a failed domain fail immediately.
+     */
+    private final long CIRCUIT_BREAKER_OPEN_DURATION = 60 * 1000;
+
+    /**
+     * Executor for periodic tasks (e.g., refreshing of caches).
+     */
     private ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(CORE_POOL_SIZE);
 
+    /**
+     * Executor for requests to foreign domains (idle threads are terminated and when all threads are busy
+     * the requests are queued).
+     */
+    private final ThreadPoolExecutor requestExecutor = new ThreadPoolExecutor(MAXIMUM_POOL_SIZE, MAXIMUM_POOL_SIZE,
+            60, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new ThreadFactory()
+    {
+        private final AtomicInteger threadNumber = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "domain-request-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * Executor which cancels requests to foreign domains which aren't done in {@link #DOMAIN_TIMEOUT}
+     * since they were started.
+     */
+    private final ScheduledThreadPoolExecutor timeoutExecutor = new ScheduledThreadPoolExecutor(1, new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "domain-request-timeout");
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    /**
+     * {@link SSLSocketFactory}s by domain names and certificates (reusing of the same factory allows
+     * the keep-alive connections and TLS sessions to be reused for the domain).
+     */
+    private final ConcurrentMap<String, SSLSocketFactory> sslSocketFactories = new ConcurrentHashMap<>();
+
+    /**
+     * {@link DomainCircuitBreaker}s by domain names.
+     */
+    private final ConcurrentMap<String, DomainCircuitBreaker> circuitBreakers = new ConcurrentHashMap<>();
+
     private final Logger logger = LoggerFactory.getLogger(InterDomainAgent.class);
 
     private final ConcurrentMap<String, String> clientAccessTokens = new ConcurrentHashMap<>();
@@ -69,14 +134,21 @@ public class DomainsConnector
 
     private final int COMMAND_TIMEOUT;
 
-    private final int THREAD_TIMEOUT = 500;
+    /**
+     * Maximum duration in milliseconds to wait for a single domain since its request is started (connecting and
+     * reading both for the login and for the request itself are limited by {@link #COMMAND_TIMEOUT}).
+     */
+    private final int DOMAIN_TIMEOUT;
 
     public DomainsConnector(ControllerConfiguration configuration, DomainService domainService, DomainAdminNotifier notifier)
     {
         this.domainService = domainService;
         this.configuration = configuration;
         COMMAND_TIMEOUT = configuration.getInterDomainCommandTimeout();
+        DOMAIN_TIMEOUT = 4 * COMMAND_TIMEOUT;
         this.notifier = notifier;
+        requestExecutor.allowCoreThreadTimeOut(true);
+        timeoutExecutor.setRemoveOnCancelPolicy(true);
         mapper.configure(SerializationConfig.Feature.WRITE_DATES_AS_TIMESTAMPS, false);
     }
 
@@ -85,6 +157,21 @@ public class DomainsConnector
         return executor;
     }
 
+    /**
+     * Stop all periodic tasks and requests.
+     */
+    public void destroy()
+    {
+        executor.shutdownNow();
+        for (Runnable runnable : requestExecutor.shutdownNow()) {
+            // Requests which haven't been started are cancelled so that nobody waits for them
+            if (runnable instanceof Future) {
+                ((Future<?>) runnable).cancel(true);
+            }
+        }
+        timeoutExecutor.shutdownNow();
+    }
+
     protected DomainService getDomainService()
     {
         return this.domainService;
@@ -147,32 +234,17 @@ public class DomainsConnector
      * @param result      collection to store the result
      * @param returnClass {@link Class<T>} of the object to return
      */
-    protected synchronized <T> void performRequests(final InterDomainAction.HttpMethod method, final String action,
-                                                    final MultiMap<String, String> parameters, final Object data,
-                                                    final Collection<Domain> domains, final ObjectReader reader,
-                                                    final Map<String, ?> result, final Class<T> returnClass)
+    protected <T> void performRequests(final InterDomainAction.HttpMethod method, final String action,
+                                       final MultiMap<String, String> parameters, final Object data,
+                                       final Collection<Domain> domains, final ObjectReader reader,
+                                       final Map<String, ?> result, final Class<T> returnClass)
     {
-        final ConcurrentMap<String, Future<T>> futureTasks = new ConcurrentHashMap<>();
-
+        List<DomainTask<T>> tasks = new ArrayList<>();
         for (final Domain domain : domains) {
-            Callable<T> task = new DomainTask<>(method, action, parameters, data, domain, reader, returnClass, result, null);
-            futureTasks.put(domain.getName(), executor.submit(task));
+            tasks.add(new DomainTask<>(method, action, parameters, data, domain, reader, returnClass, result, null));
         }
 
-        while (!futureTasks.isEmpty()) {
-            try {
-                Iterator<Map.Entry<String, Future<T>>> iterator = futureTasks.entrySet().iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<String, Future<T>> entry = iterator.next();
-                    if (entry.getValue().isDone()) {
-                        iterator.remove();
-                    }
-                }
-                Thread.sleep(THREAD_TIMEOUT);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
+        performTasks(tasks);
     }
 
     /**
@@ -186,32 +258,18 @@ public class DomainsConnector
      * @param result      collection to store the result
      * @param returnClass {@link Class<T>} of the object to return
      */
-    protected synchronized <T> void performRequests(final InterDomainAction.HttpMethod method, final String action,
-                                                    final Map<Domain, MultiMap<String, String>> parametersByDomain,
-                                                    final Object data, final ObjectReader reader,
-                                                    final Map<String, ?> result, final Class<T> returnClass)
+    protected <T> void performRequests(final InterDomainAction.HttpMethod method, final String action,
+                                       final Map<Domain, MultiMap<String, String>> parametersByDomain,
+                                       final Object data, final ObjectReader reader,
+                                       final Map<String, ?> result, final Class<T> returnClass)
     {
-        final ConcurrentMap<String, Future<T>> futureTasks = new ConcurrentHashMap<>();
-
+        List<DomainTask<T>> tasks = new ArrayList<>();
         for (final Domain domain : parametersByDomain.keySet()) {
-            Callable<T> task = new DomainTask<>(method, action, parametersByDomain.get(domain), data, domain, reader, returnClass, result, null);
-            futureTasks.put(domain.getName(), executor.submit(task));
+            tasks.add(new DomainTask<>(method, action, parametersByDomain.get(domain), data, domain, reader,
+                    returnClass, result, null));
         }
 
-        while (!futureTasks.isEmpty()) {
-            try {
-                Iterator<Map.Entry<String, Future<T>>> iterator = futureTasks.entrySet().iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<String, Future<T>> entry = iterator.next();
-                    if (entry.getValue().isDone()) {
-                        iterator.remove();
-                    }
-                }
-                Thread.sleep(THREAD_TIMEOUT);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }
+        performTasks(tasks);
     }
 
     /**
@@ -225,32 +283,74 @@ public class DomainsConnector
      * @param result      collection to store the result
      * @param returnClass {@link Class<T>} of the object to return
      */
-    protected synchronized <T> void performRequests(final InterDomainAction.HttpMethod method, final String action,
-                                                    final MultiMap<String, String> parameters,
-                                                    final Map<Domain, Object> dataByDomain, final ObjectReader reader,
-                                                    final Map<String, ?> result, final Class<T> returnClass)
+    protected <T> void performRequests(final InterDomainAction.HttpMethod method, final String action,
+                                       final MultiMap<String, String> parameters,
+                                       final Map<Domain, Object> dataByDomain, final ObjectReader reader,
+                                       final Map<String, ?> result, final Class<T> returnClass)
     {
-        final ConcurrentMap<String, Future<T>> futureTasks = new ConcurrentHashMap<>();
-
+        List<DomainTask<T>> tasks = new ArrayList<>();
         for (final Domain domain : dataByDomain.keySet()) {
-            Callable<T> task = new DomainTask<>(method, action, parameters, dataByDomain.get(domain), domain, reader, returnClass, result, null);
-            futureTasks.put(domain.getName(), executor.submit(task));
+            tasks.add(new DomainTask<>(method, action, parameters, dataByDomain.get(domain), domain, reader,
+                    returnClass, result, null));
         }
 
-        while (!futureTasks.isEmpty()) {
+        performTasks(tasks);
+    }
+
+    /**
+     * Perform given {@code tasks} concurrently and wait until all of them are done. Each task is cancelled when it
+     * isn't done in {@link #DOMAIN_TIMEOUT} since it was started (and thus the tasks which wait in the queue behind
+     * busy threads get the whole timeout too) and results of cancelled tasks are not stored.
+     *
+     * @param tasks to be performed
+     */
+    private <T> void performTasks(List<DomainTask<T>> tasks)
+    {
+        List<Future<T>> futures = new ArrayList<>();
+        for (DomainTask<T> task : tasks) {
+            FutureTask<T> future = new FutureTask<T>(task);
+            task.future = future;
+            requestExecutor.execute(future);
+            futures.add(future);
+        }
+        for (int index = 0; index < futures.size(); index++) {
+            Future<T> future = futures.get(index);
+            DomainTask<T> task = tasks.get(index);
             try {
-                Iterator<Map.Entry<String, Future<T>>> iterator = futureTasks.entrySet().iterator();
-                while (iterator.hasNext()) {
-                    Map.Entry<String, Future<T>> entry = iterator.next();
-                    if (entry.getValue().isDone()) {
-                        iterator.remove();
-                    }
-                }
-                Thread.sleep(THREAD_TIMEOUT);
-            } catch (InterruptedException e) {
+                future.get();
+            }
+            catch (ExecutionException exception) {
+                logger.debug("Request {} to domain {} has failed.", task.action, task.domain.getName());
+            }
+            catch (CancellationException exception) {
+                logger.debug("Request {} to domain {} has been cancelled.", task.action, task.domain.getName());
+            }
+            catch (InterruptedException exception) {
                 Thread.currentThread().interrupt();
+                for (int cancelIndex = index; cancelIndex < futures.size(); cancelIndex++) {
+                    tasks.get(cancelIndex).abandon();
+                    futures.get(cancelIndex).cancel(true);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param domain
+     * @return {@link DomainCircuitBreaker} for given {@code domain}
+     */
+    protected DomainCircuitBreaker getCircuitBreaker(Domain domain)
+    {
+        DomainCircuitBreaker circuitBreaker = circuitBreakers.get(domain.getName());
+        if (circuitBreaker == null) {
+            circuitBreaker = new DomainCircuitBreaker(CIRCUIT_BREAKER_FAILURE_THRESHOLD, CIRCUIT_BREAKER_OPEN_DURATION);
+            DomainCircuitBreaker existingCircuitBreaker = circuitBreakers.putIfAbsent(domain.getName(), circuitBreaker);
+            if (existingCircuitBreaker != null) {
+                circuitBreaker = existingCircuitBreaker;
             }
         }
+        return circuitBreaker;
     }
 
 //    protected <T> T performRequest(final InterDomainAction.HttpMethod method, final String action, final Map<String, String> parameters, final Domain domain, Class<T> objectClass)
@@ -275,14 +375,56 @@ public class DomainsConnector
      * @param clazz  {@link Class<T>} of the object to return
      * @return result object as instance of given {@code clazz}
      */
-    private <T> T performRequest(final InterDomainAction.HttpMethod method, final String action, final MultiMap<String, String> parameters,
-                                 Object data, final Domain domain, final ObjectReader reader, Class<T> clazz)
+    protected <T> T performRequest(final InterDomainAction.HttpMethod method, final String action,
+                                   final MultiMap<String, String> parameters, Object data, final Domain domain,
+                                   final ObjectReader reader, Class<T> clazz)
     throws ForeignDomainConnectException
     {
         if (action == null || domain == null || reader == null) {
             throw new IllegalArgumentException("Action, domain and reader cannot be null.");
         }
         URL actionUrl = buildRequestUrl(domain, action, parameters);
+        DomainCircuitBreaker circuitBreaker = getCircuitBreaker(domain);
+        if (!circuitBreaker.allowRequest(System.currentTimeMillis())) {
+            throw new ForeignDomainConnectException(domain, actionUrl.toString(),
+                    "Domain is not available (it has failed repeatedly).");
+        }
+        try {
+            T response = performRequest(method, actionUrl, data, domain, reader);
+            circuitBreaker.recordSuccess();
+            return response;
+        }
+        catch (ForeignDomainConnectException exception) {
+            Throwable cause = exception.getCause();
+            if (cause instanceof IOException && !(cause instanceof JsonProcessingException)) {
+                // Domain cannot be connected or it doesn't respond
+                circuitBreaker.recordFailure(System.currentTimeMillis());
+            }
+            else {
+                circuitBreaker.recordSuccess();
+            }
+            throw exception;
+        }
+        catch (RuntimeException exception) {
+            circuitBreaker.recordSuccess();
+            throw exception;
+        }
+    }
+
+    /**
+     * Perform request on one foreign domain.
+     *
+     * @param method    {@link cz.cesnet.shongo.controller.api.domains.InterDomainAction.HttpMethod}
+     * @param actionUrl to be requested
+     * @param data      to send by POST
+     * @param domain    for which perform the request
+     * @param reader    to parse JSON
+     * @return parsed response
+     */
+    private <T> T performRequest(final InterDomainAction.HttpMethod method, final URL actionUrl, Object data,
+                                 final Domain domain, final ObjectReader reader)
+            throws ForeignDomainConnectException
+    {
         logger.debug(String.format("Calling action %s on domain %s", actionUrl, domain.getName()));
         HttpsURLConnection connection = buildConnection(domain, actionUrl);
         // If basic auth is required
@@ -317,15 +459,21 @@ public class DomainsConnector
 //                    System.out.println("DEBUG JSON END");
 //                    return reader.readValue(jsonResponse);
 //                  ====================DEBUG=====================
-                    return reader.readValue(connection.getInputStream());
+                    return readResponse(connection, reader);
                 case POST:
                     connection.setDoOutput(true);
                     connection.setRequestProperty("Content-Type", "application/json");
-                    if (data != null) {
-                        connection.getOutputStream().write(mapper.writeValueAsBytes(data));
+                    OutputStream outputStream = connection.getOutputStream();
+                    try {
+                        if (data != null) {
+                            outputStream.write(mapper.writeValueAsBytes(data));
+                        }
+                    }
+                    finally {
+                        outputStream.close();
                     }
                     processError(connection, domain);
-                    return reader.readValue(connection.getInputStream());
+                    return readResponse(connection, reader);
                 case PUT:
                 case DELETE:
                     throw new TodoImplementException();
@@ -341,7 +489,30 @@ public class DomainsConnector
             if (success) {
                 logger.debug("Action: " + actionUrl + " was successful.");
             }
-            connection.disconnect();
+            else {
+                // Keep-alive connection is reused only after successful response
+                connection.disconnect();
+            }
+        }
+    }
+
+    /**
+     * Read response from given {@code connection} and close its input stream (thus the underlying keep-alive
+     * connection can be reused for next request to the same domain).
+     *
+     * @param connection from which the response should be read
+     * @param reader     to parse JSON
+     * @return parsed response
+     * @throws IOException
+     */
+    private <T> T readResponse(HttpsURLConnection connection, ObjectReader reader) throws IOException
+    {
+        InputStream inputStream = connection.getInputStream();
+        try {
+            return reader.readValue(inputStream);
+        }
+        finally {
+            inputStream.close();
         }
     }
 
@@ -388,22 +559,7 @@ public class DomainsConnector
             connection.setReadTimeout(COMMAND_TIMEOUT);
             // For secure connection
             if ("HTTPS".equals(url.getProtocol().toUpperCase())) {
-                TrustManagerFactory trustManagerFactory = null;
-                String certificatePath = domain.getCertificatePath();
-                if (certificatePath != null) {
-                    KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
-                    trustStore.load(null);
-                    trustStore.setCertificateEntry(certificatePath.substring(0, certificatePath.lastIndexOf('.')),
-                            SSLCommunication.readPEMCert(certificatePath));
-                    trustManagerFactory = TrustManagerFactory.getInstance("SunX509");
-                    trustManagerFactory.init(trustStore);
-                }
-
-                KeyManagerFactory keyManagerFactory = InterDomainAgent.getInstance().getAuthentication().getKeyManagerFactory();
-                SSLContext sslContext = SSLContext.getInstance("TLS");
-                sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory == null ? null : trustManagerFactory.getTrustManagers(), null);
-
-                connection.setSSLSocketFactory(sslContext.getSocketFactory());
+                connection.setSSLSocketFactory(getSSLSocketFactory(domain));
             }
             return connection;
         } catch (IOException e) {
@@ -417,6 +573,44 @@ public class DomainsConnector
         }
     }
 
+    /**
+     * @param domain
+     * @return {@link SSLSocketFactory} for given {@code domain} (the same instance is returned for the same domain
+     *         and certificate and thus the keep-alive connections can be reused)
+     * @throws IOException
+     * @throws GeneralSecurityException
+     */
+    protected SSLSocketFactory getSSLSocketFactory(Domain domain) throws IOException, GeneralSecurityException
+    {
+        String certificatePath = domain.getCertificatePath();
+        String key = domain.getName() + ":" + certificatePath;
+        SSLSocketFactory sslSocketFactory = sslSocketFactories.get(key);
+        if (sslSocketFactory == null) {
+            TrustManagerFactory trustManagerFactory = null;
+            if (certificatePath != null) {
+                KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+                trustStore.load(null);
+                trustStore.setCertificateEntry(certificatePath.substring(0, certificatePath.lastIndexOf('.')),
+                        SSLCommunication.readPEMCert(certificatePath));
+                trustManagerFactory = TrustManagerFactory.getInstance("SunX509");
+                trustManagerFactory.init(trustStore);
+            }
+
+            KeyManagerFactory keyManagerFactory =
+                    InterDomainAgent.getInstance().getAuthentication().getKeyManagerFactory();
+            SSLContext sslContext = SSLContext.getInstance("TLS");
+            sslContext.init(keyManagerFactory.getKeyManagers(),
+                    trustManagerFactory == null ? null : trustManagerFactory.getTrustManagers(), null);
+
+            sslSocketFactory = sslContext.getSocketFactory();
+            SSLSocketFactory existingSslSocketFactory = sslSocketFactories.putIfAbsent(key, sslSocketFactory);
+            if (existingSslSocketFactory != null) {
+                sslSocketFactory = existingSslSocketFactory;
+            }
+        }
+        return sslSocketFactory;
+    }
+
     protected void processError(HttpsURLConnection connection, final Domain domain) throws ForeignDomainConnectException
     {
         String actionUrl = connection.getURL().toString();
@@ -477,15 +671,14 @@ public class DomainsConnector
 
             processError(connection, domain);
             ObjectReader reader = mapper.reader(DomainLogin.class);
-            InputStream inputStream = connection.getInputStream();
-            domainLogin = reader.readValue(inputStream);
+            domainLogin = readResponse(connection, reader);
         } catch (IOException e) {
             logger.error("Failed to perform login to domain.", e);
+            connection.disconnect();
             throw new ForeignDomainConnectException(domain, loginUrl.toString(), e);
-        } finally {
-            if (connection != null) {
-                connection.disconnect();
-            }
+        } catch (ForeignDomainConnectException e) {
+            connection.disconnect();
+            throw e;
         }
 
         String accessToken = domainLogin.getAccessToken();
@@ -856,6 +1049,18 @@ public class DomainsConnector
          */
         private Set<String> unavailableDomains;
 
+        /**
+         * Specifies whether the caller doesn't wait for the task anymore and thus the {@code result}
+         * shouldn't be modified (synchronized on the {@code result}).
+         */
+        private boolean abandoned = false;
+
+        /**
+         * {@link Future} of the task when it is performed by {@link #performTasks} (it is cancelled
+         * when the task isn't done in {@link #DOMAIN_TIMEOUT}).
+         */
+        private Future<T> future;
+
         public DomainTask(final InterDomainAction.HttpMethod method, final String action,
                           final MultiMap<String, String> parameters, final Object data, final Domain domain,
                           final ObjectReader reader, final Class<T> returnClass,
@@ -884,13 +1089,22 @@ public class DomainsConnector
                 Thread.currentThread().setName(Thread.currentThread().getName() + "-domainTask-" + domain.getName());
             }
             boolean failed = true;
+            ScheduledFuture<?> timeout = scheduleTimeout();
             try {
-                if (InterDomainAgent.getInstance().getDomainService().getDomain(domain.getId()) == null) {
+                if (getDomainService().getDomain(domain.getId()) == null) {
                     terminateDomainTask();
                 }
+                if (getCircuitBreaker(domain).isOpen(System.currentTimeMillis())) {
+                    logger.debug("Skipping action {} on domain {} because it has failed repeatedly.", action,
+                            domain.getName());
+                    return null;
+                }
                 T response = performRequest(method, action, parameters, data, domain, reader, returnClass);
                 if (result != null && response != null) {
                     synchronized (result) {
+                        if (abandoned) {
+                            return response;
+                        }
                         ((Map<String, T>) result).put(domain.getName(), response);
                         if (unavailableDomains != null) {
                             unavailableDomains.remove(domain.getName());
@@ -911,6 +1125,9 @@ public class DomainsConnector
                 }
                 return null;
             } finally {
+                if (timeout != null) {
+                    timeout.cancel(false);
+                }
                 // If {@code unavailableDomains} is set and request failed add it and also to {@link result}
                 // with empty {@code ArrayList} if possible.
                 // NOTICE: {@code unavailableDomains} is used only by CachedDomainsConnector.
@@ -941,13 +1158,48 @@ public class DomainsConnector
             if (!Thread.currentThread().getName().contains("domainTask")) {
                 Thread.currentThread().setName(Thread.currentThread().getName() + "-domainTask-" + domain.getName());
             }
-            Domain internalDomain = InterDomainAgent.getInstance().getDomainService().getDomain(domain.getId());
+            Domain internalDomain = getDomainService().getDomain(domain.getId());
             if (internalDomain == null || !internalDomain.isAllocatable()) {
                 terminateDomainTask();
             }
             call();
         }
 
+        /**
+         * Schedule cancelling of the task when it isn't done in {@link #DOMAIN_TIMEOUT} since now.
+         *
+         * @return scheduled timeout or {@code null} when the task isn't performed by {@link #performTasks}
+         */
+        private ScheduledFuture<?> scheduleTimeout()
+        {
+            final Future<T> future = this.future;
+            if (future == null) {
+                return null;
+            }
+            return timeoutExecutor.schedule(new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    logger.warn("Request {} to domain {} has timed out.", action, domain.getName());
+                    abandon();
+                    future.cancel(true);
+                }
+            }, DOMAIN_TIMEOUT, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * Abandon the task (its result won't be stored).
+         */
+        public void abandon()
+        {
+            if (result != null) {
+                synchronized (result) {
+                    abandoned = true;
+                }
+            }
+        }
+
         private void terminateDomainTask() throws IllegalStateException
         {
             synchronized (result) {
@@ -4,6 +4,7 @@ import cz.cesnet.shongo.controller.ControllerConfiguration;
 import cz.cesnet.shongo.controller.EmailSender;
 import cz.cesnet.shongo.controller.authorization.Authorization;
 import cz.cesnet.shongo.controller.cache.Cache;
+import cz.cesnet.shongo.controller.scheduler.ChangeJournal;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,12 +33,18 @@ public class InterDomainAgent{
 
     private final ControllerConfiguration configuration;
 
+    /**
+     * @see ChangeJournal
+     */
+    private final ChangeJournal changeJournal;
+
     /**
      * Constructor
      * @param configuration
      */
     protected InterDomainAgent(EntityManagerFactory entityManagerFactory, ControllerConfiguration configuration,
-                               Authorization authorization, EmailSender emailSender, Cache cache) {
+                               Authorization authorization, EmailSender emailSender, Cache cache,
+                               ChangeJournal changeJournal) {
         if (configuration == null || !configuration.isInterDomainConfigured()) {
             throw new IllegalStateException("Inter Domain connection is not configured.");
         }
@@ -45,8 +52,10 @@ public class InterDomainAgent{
         this.configuration = configuration;
 
         this.entityManagerFactory = entityManagerFactory;
+        this.changeJournal = changeJournal;
 
         domainService = new DomainService(entityManagerFactory, authorization, cache);
+        domainService.setChangeJournal(changeJournal);
         domainService.init(configuration);
 
         this.notifier = new DomainAdminNotifier(logger, emailSender, configuration);
@@ -60,11 +69,12 @@ public class InterDomainAgent{
     synchronized public static InterDomainAgent create(EntityManagerFactory entityManagerFactory,
                                                        ControllerConfiguration configuration,
                                                        Authorization authorization, EmailSender emailSender,
-                                                       Cache cache) {
+                                                       Cache cache, ChangeJournal changeJournal) {
         if (instance != null) {
             throw new IllegalStateException("Another instance of InterDomainAgent already exists.");
         }
-        instance = new InterDomainAgent(entityManagerFactory, configuration, authorization, emailSender, cache);
+        instance = new InterDomainAgent(entityManagerFactory, configuration, authorization, emailSender, cache,
+                changeJournal);
         return instance;
     }
 
@@ -85,7 +95,7 @@ public class InterDomainAgent{
 
     synchronized public static void destroy() {
         if (instance != null) {
-            instance.getConnector().getExecutor().shutdownNow();
+            instance.getConnector().destroy();
             instance = null;
         }
     }
@@ -102,6 +112,13 @@ public class InterDomainAgent{
         return authentication;
     }
 
+    /**
+     * @return {@link #changeJournal} (can be {@code null})
+     */
+    protected ChangeJournal getChangeJournal() {
+        return changeJournal;
+    }
+
     protected EntityManager createEntityManager()
     {
         return entityManagerFactory.createEntityManager();
@@ -41,6 +41,7 @@ import cz.cesnet.shongo.controller.booking.room.RoomReservation;
 import cz.cesnet.shongo.controller.booking.specification.Specification;
 import cz.cesnet.shongo.controller.api.domains.response.RoomSpecification.RoomState;
 
+import cz.cesnet.shongo.controller.scheduler.ChangeJournal;
 import cz.cesnet.shongo.controller.scheduler.SchedulerReport;
 import cz.cesnet.shongo.jade.SendLocalCommand;
 import cz.cesnet.shongo.report.Report;
@@ -203,6 +204,7 @@ public class InterDomainController implements InterDomainProtocol
                 reservationRequestManager.modify(previousReservationRequest, newReservationRequest);
             }
             entityManager.getTransaction().commit();
+            markChange(newReservationRequest, previousReservationRequest != null);
 
             reservation.setForeignReservationRequestId(ObjectIdentifier.formatId(newReservationRequest));
 
@@ -320,6 +322,7 @@ public class InterDomainController implements InterDomainProtocol
                 reservationRequestManager.modify(previousReservationRequest, newReservationRequest);
             }
             entityManager.getTransaction().commit();
+            markChange(newReservationRequest, previousReservationRequest != null);
 
             reservation.setForeignReservationRequestId(ObjectIdentifier.formatId(newReservationRequest));
 
@@ -817,6 +820,25 @@ public class InterDomainController implements InterDomainProtocol
         return InterDomainAgent.getInstance().getAuthentication();
     }
 
+    /**
+     * Record change of reservation requests to the {@link ChangeJournal}.
+     *
+     * @param reservationRequest which has been created or modified
+     * @param deletions          specifies whether some allocations, reservations or reservation requests
+     *                           should be deleted
+     */
+    private void markChange(AbstractReservationRequest reservationRequest, boolean deletions)
+    {
+        ChangeJournal changeJournal = InterDomainAgent.getInstance().getChangeJournal();
+        if (changeJournal == null) {
+            return;
+        }
+        changeJournal.markReservationRequest(reservationRequest);
+        if (deletions) {
+            changeJournal.markDeletions();
+        }
+    }
+
     public class IntervalEditor extends PropertyEditorSupport
     {
         public IntervalEditor()
@@ -0,0 +1,63 @@
+package cz.cesnet.shongo.controller.executor;
+
+import cz.cesnet.shongo.controller.booking.executable.Executable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Holds {@link Executable}s which are being executed by the {@link Executor} or modified by
+ * the {@link cz.cesnet.shongo.controller.scheduler.Scheduler}. {@link Executable}s aren't versioned and thus
+ * concurrent modifications from both would overwrite each other (e.g., a room could be started for an
+ * {@link Executable} which is being deleted).
+ * <p/>
+ * Locks are held by threads until {@link #unlockAll()} and they are never waited for. The thread which doesn't get
+ * the lock skips the {@link Executable} and tries it again later.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ExecutableLocks
+{
+    /**
+     * Threads which hold locks by identifiers of {@link Executable}s.
+     */
+    private final Map<Long, Thread> owners = new HashMap<Long, Thread>();
+
+    /**
+     * @param executableId identifier of {@link Executable}
+     * @return true whether the {@link Executable} is locked by the current thread, false otherwise
+     */
+    public synchronized boolean isLockedByCurrentThread(Long executableId)
+    {
+        return Thread.currentThread().equals(owners.get(executableId));
+    }
+
+    /**
+     * @param executableId identifier of {@link Executable} to be locked by the current thread
+     * @return true whether the {@link Executable} is locked by the current thread,
+     *         false whether it is locked by another thread
+     */
+    public synchronized boolean tryLock(Long executableId)
+    {
+        Thread owner = owners.get(executableId);
+        if (owner == null) {
+            owners.put(executableId, Thread.currentThread());
+            return true;
+        }
+        return owner.equals(Thread.currentThread());
+    }
+
+    /**
+     * Release all locks held by the current thread.
+     */
+    public synchronized void unlockAll()
+    {
+        Iterator<Thread> iterator = owners.values().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().equals(Thread.currentThread())) {
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -15,7 +15,7 @@ import java.util.Set;
  *
  * @author Martin Srom <martin.srom@cesnet.cz>
  */
-public abstract class ExecutionAction<T> extends Thread
+public abstract class ExecutionAction<T> implements Runnable
 {
     /**
      * Target for which the {@link ExecutionAction} is being executed.
@@ -45,6 +45,11 @@ public abstract class ExecutionAction<T> extends Thread
      */
     private boolean skipPerform = false;
 
+    /**
+     * Specifies whether this {@link ExecutionAction} has been already removed from the {@link #executionPlan}.
+     */
+    private boolean completed = false;
+
     /**
      * Constructor.
      *
@@ -117,6 +122,18 @@ public abstract class ExecutionAction<T> extends Thread
         this.skipPerform = skipPerform;
     }
 
+    /**
+     * Remove this {@link ExecutionAction} from the {@link #executionPlan} (it satisfies all dependencies to it).
+     * It can be called more times (the following calls are ignored).
+     */
+    public synchronized void complete()
+    {
+        if (!completed) {
+            completed = true;
+            executionPlan.removeExecutionAction(this);
+        }
+    }
+
     /**
      * Create dependency from {@code actionFrom} to {@code actionTo}.
      *
@@ -193,7 +210,7 @@ public abstract class ExecutionAction<T> extends Thread
         }
         finally {
             // Remove action from plan
-            executionPlan.removeExecutionAction(this);
+            complete();
 
             if (entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().rollback();
@@ -0,0 +1,542 @@
+package cz.cesnet.shongo.controller.executor;
+
+import cz.cesnet.shongo.controller.Reporter;
+import cz.cesnet.shongo.controller.booking.executable.ExecutableService;
+import cz.cesnet.shongo.controller.booking.executable.ExecutionTarget;
+import cz.cesnet.shongo.controller.booking.executable.ResourceEndpoint;
+import cz.cesnet.shongo.controller.booking.resource.DeviceResource;
+import cz.cesnet.shongo.controller.booking.room.RoomEndpoint;
+import org.joda.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Performs {@link ExecutionAction}s from {@link ExecutionPlan}s on a bounded pool of threads.
+ * <p/>
+ * {@link ExecutionAction}s are dispatched as soon as theirs dependencies are completed, the number of concurrently
+ * performed {@link ExecutionAction}s for a single device is limited and {@link ExecutionAction}s which are performed
+ * longer than a timeout are interrupted. Interrupted {@link ExecutionAction}s are still waited for because they could
+ * still modify theirs {@link ExecutionTarget}s and devices (theirs dependent {@link ExecutionAction}s stay blocked
+ * and the {@link ExecutionPlan} can't be finished meanwhile). Each command sent to a device has own timeout and thus
+ * interrupted {@link ExecutionAction}s end at latest when theirs current command times out.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ExecutionEngine
+{
+    private static Logger logger = LoggerFactory.getLogger(ExecutionEngine.class);
+
+    /**
+     * Period in which the dispatching thread checks timeouts of performed {@link ExecutionAction}s.
+     */
+    private static final long CHECK_PERIOD = 1000;
+
+    /**
+     * Maximum number of concurrently performed {@link ExecutionAction}s for a single device.
+     */
+    private final int deviceLimit;
+
+    /**
+     * Maximum duration of a single {@link ExecutionAction}.
+     */
+    private final Duration timeout;
+
+    /**
+     * Pool of threads which perform {@link ExecutionAction}s.
+     */
+    private final ExecutorService executorService;
+
+    /**
+     * Number of dispatched {@link ExecutionAction}s by identifiers of {@link ExecutionTarget}s for which they are
+     * performed. Multiple
+     * {@link ExecutionPlan}s (e.g., from {@link Executor} and from API) can be performed concurrently for
+     * the same {@link ExecutionTarget} and thus the {@link ExecutionAction}s must be counted.
+     */
+    private final Map<Long, Integer> activeExecutionTargetCounts = new HashMap<Long, Integer>();
+
+    /**
+     * Number of {@link ExecutionAction}s which are ready but waiting for a free thread or device.
+     */
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    /**
+     * Number of {@link ExecutionAction}s which are being performed.
+     */
+    private final AtomicInteger runningCount = new AtomicInteger();
+
+    /**
+     * {@link Latency} by {@link ExecutionAction} type.
+     */
+    private final Map<String, Latency> latencies = new TreeMap<String, Latency>();
+
+    /**
+     * Constructor.
+     *
+     * @param poolSize    maximum number of concurrently performed {@link ExecutionAction}s
+     * @param deviceLimit sets the {@link #deviceLimit}
+     * @param timeout     sets the {@link #timeout}
+     */
+    public ExecutionEngine(int poolSize, int deviceLimit, Duration timeout)
+    {
+        if (poolSize < 1 || deviceLimit < 1) {
+            throw new IllegalArgumentException("Pool size and device limit must be positive.");
+        }
+        this.deviceLimit = deviceLimit;
+        this.timeout = timeout;
+        this.executorService = Executors.newFixedThreadPool(poolSize, new ThreadFactory()
+        {
+            private final AtomicInteger threadNumber = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable);
+                thread.setName("executor-action-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Stop all threads.
+     */
+    public void destroy()
+    {
+        executorService.shutdownNow();
+    }
+
+    /**
+     * @return number of {@link ExecutionAction}s which are ready but waiting for a free thread or device
+     */
+    public int getQueueDepth()
+    {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return number of {@link ExecutionAction}s which are being performed
+     */
+    public int getRunningCount()
+    {
+        return runningCount.get();
+    }
+
+    /**
+     * @return {@link Latency} by {@link ExecutionAction} type
+     */
+    public Map<String, Latency> getLatencies()
+    {
+        synchronized (latencies) {
+            Map<String, Latency> result = new TreeMap<String, Latency>();
+            for (Map.Entry<String, Latency> entry : latencies.entrySet()) {
+                result.put(entry.getKey(), new Latency(entry.getValue()));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @param executionTarget
+     * @return true whether some {@link ExecutionAction} for given {@code executionTarget} is being performed,
+     *         false otherwise
+     */
+    public boolean isActive(ExecutionTarget executionTarget)
+    {
+        synchronized (activeExecutionTargetCounts) {
+            return activeExecutionTargetCounts.containsKey(executionTarget.getId());
+        }
+    }
+
+    /**
+     * @param executionTargetId identifier of {@link ExecutionTarget} for which an {@link ExecutionAction} is dispatched
+     */
+    private void activateExecutionTarget(Long executionTargetId)
+    {
+        synchronized (activeExecutionTargetCounts) {
+            Integer count = activeExecutionTargetCounts.get(executionTargetId);
+            activeExecutionTargetCounts.put(executionTargetId, (count != null ? count + 1 : 1));
+        }
+    }
+
+    /**
+     * @param executionTargetId identifier of {@link ExecutionTarget} for which an {@link ExecutionAction} has ended
+     */
+    private void deactivateExecutionTarget(Long executionTargetId)
+    {
+        synchronized (activeExecutionTargetCounts) {
+            Integer count = activeExecutionTargetCounts.get(executionTargetId);
+            if (count == null || count <= 1) {
+                activeExecutionTargetCounts.remove(executionTargetId);
+            }
+            else {
+                activeExecutionTargetCounts.put(executionTargetId, count - 1);
+            }
+        }
+    }
+
+    /**
+     * Perform all {@link ExecutionAction}s from given {@code executionPlan} and wait for them.
+     *
+     * @param executionPlan to be performed (it must be already built)
+     * @throws InterruptedException when the current thread is interrupted
+     */
+    public void perform(ExecutionPlan executionPlan) throws InterruptedException
+    {
+        BlockingQueue<Task> endedTasks = new LinkedBlockingQueue<Task>();
+        List<Task> waitingTasks = new LinkedList<Task>();
+        Set<Task> runningTasks = new HashSet<Task>();
+        Map<Long, Integer> runningCountByDevice = new HashMap<Long, Integer>();
+        try {
+            while (!executionPlan.isEmpty()) {
+                // Add actions which have satisfied dependencies
+                for (ExecutionAction executionAction : executionPlan.popExecutionActions()) {
+                    waitingTasks.add(new Task(executionAction, endedTasks));
+                    queueDepth.incrementAndGet();
+                }
+
+                // Dispatch waiting actions for devices which are not fully loaded
+                Iterator<Task> waitingTaskIterator = waitingTasks.iterator();
+                while (waitingTaskIterator.hasNext()) {
+                    Task task = waitingTaskIterator.next();
+                    Integer deviceCount = (task.deviceId != null ? runningCountByDevice.get(task.deviceId) : null);
+                    if (deviceCount != null && deviceCount >= deviceLimit) {
+                        continue;
+                    }
+                    if (task.deviceId != null) {
+                        runningCountByDevice.put(task.deviceId, (deviceCount != null ? deviceCount + 1 : 1));
+                    }
+                    waitingTaskIterator.remove();
+                    runningTasks.add(task);
+                    task.submit();
+                }
+                if (runningTasks.isEmpty()) {
+                    if (executionPlan.isEmpty()) {
+                        break;
+                    }
+                    throw new IllegalStateException(
+                            "Execution plan doesn't contain any action which can be performed.");
+                }
+
+                // Wait for ended actions
+                Task endedTask = endedTasks.poll(CHECK_PERIOD, TimeUnit.MILLISECONDS);
+                List<Task> finishedTasks = new LinkedList<Task>();
+                if (endedTask != null) {
+                    finishedTasks.add(endedTask);
+                    endedTasks.drainTo(finishedTasks);
+                }
+
+                // Interrupt actions which are performed for too long (they are still waited for)
+                long now = System.currentTimeMillis();
+                for (Task task : runningTasks) {
+                    if (!finishedTasks.contains(task) && task.isTimedOut(now) && task.interrupt()) {
+                        Reporter.getInstance().reportInternalError(Reporter.EXECUTOR,
+                                new TimeoutException(task.executionAction + " hasn't ended in " + timeout + "."));
+                    }
+                }
+
+                // Release devices by ended actions
+                for (Task task : finishedTasks) {
+                    runningTasks.remove(task);
+                    if (task.deviceId != null) {
+                        int deviceCount = runningCountByDevice.get(task.deviceId) - 1;
+                        if (deviceCount > 0) {
+                            runningCountByDevice.put(task.deviceId, deviceCount);
+                        }
+                        else {
+                            runningCountByDevice.remove(task.deviceId);
+                        }
+                    }
+                }
+            }
+        }
+        finally {
+            queueDepth.addAndGet(-waitingTasks.size());
+            for (Task task : runningTasks) {
+                task.cancel();
+            }
+        }
+        if (logger.isDebugEnabled()) {
+            logger.debug("Execution plan performed (latencies: {}).", getLatencies());
+        }
+    }
+
+    /**
+     * @param target of {@link ExecutionAction}
+     * @return identifier of {@link DeviceResource} which is used by given {@code target} or {@code null}
+     */
+    private static Long getDeviceId(Object target)
+    {
+        if (target instanceof ExecutableService) {
+            target = ((ExecutableService) target).getExecutable();
+        }
+        else if (target instanceof Migration) {
+            target = ((Migration) target).getTargetExecutable();
+        }
+        DeviceResource deviceResource = null;
+        if (target instanceof RoomEndpoint) {
+            deviceResource = ((RoomEndpoint) target).getResource();
+        }
+        else if (target instanceof ResourceEndpoint) {
+            deviceResource = ((ResourceEndpoint) target).getDeviceResource();
+        }
+        return (deviceResource != null ? deviceResource.getId() : null);
+    }
+
+    /**
+     * {@link ExecutionAction} which is dispatched to the {@link #executorService}.
+     */
+    private class Task implements Runnable
+    {
+        /**
+         * {@link ExecutionAction} to be performed.
+         */
+        private final ExecutionAction executionAction;
+
+        /**
+         * Queue to which this {@link Task} is added when it ends.
+         */
+        private final BlockingQueue<Task> endedTasks;
+
+        /**
+         * @see ExecutionEngine#getDeviceId
+         */
+        private final Long deviceId;
+
+        /**
+         * Identifier of {@link ExecutionTarget} of the {@link #executionAction}.
+         */
+        private final Long executionTargetId;
+
+        /**
+         * Time when the {@link Task} was created.
+         */
+        private final long createdAt = System.currentTimeMillis();
+
+        /**
+         * Specifies whether the {@link Task} has been started or cancelled before it was started (the first one
+         * releases the {@link #queueDepth} and the {@link #activeExecutionTargetCounts}).
+         */
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        /**
+         * Time when the {@link #executionAction} was started.
+         */
+        private volatile long startedAt = 0;
+
+        /**
+         * Specifies whether the {@link #executionAction} has been interrupted because of the {@link #timeout}.
+         */
+        private boolean interrupted = false;
+
+        /**
+         * {@link Future} of the {@link Task}.
+         */
+        private Future<?> future;
+
+        /**
+         * Constructor.
+         *
+         * @param executionAction sets the {@link #executionAction}
+         * @param endedTasks      sets the {@link #endedTasks}
+         */
+        public Task(ExecutionAction executionAction, BlockingQueue<Task> endedTasks)
+        {
+            Object target = executionAction.getTarget();
+            this.executionAction = executionAction;
+            this.endedTasks = endedTasks;
+            this.deviceId = getDeviceId(target);
+            this.executionTargetId = (target instanceof ExecutionTarget ? ((ExecutionTarget) target).getId() : null);
+        }
+
+        /**
+         * @param now current time
+         * @return true whether the {@link #executionAction} is performed longer than the {@link #timeout}
+         */
+        public boolean isTimedOut(long now)
+        {
+            return timeout != null && startedAt != 0 && (now - startedAt) > timeout.getMillis();
+        }
+
+        @Override
+        public void run()
+        {
+            if (!started.compareAndSet(false, true)) {
+                // Cancelled before it was started
+                return;
+            }
+            startedAt = System.currentTimeMillis();
+            queueDepth.decrementAndGet();
+            runningCount.incrementAndGet();
+            try {
+                executionAction.run();
+            }
+            finally {
+                // Dependent actions are released only when the action has really ended (even when interrupted)
+                executionAction.complete();
+
+                long endedAt = System.currentTimeMillis();
+                runningCount.decrementAndGet();
+                if (executionTargetId != null) {
+                    deactivateExecutionTarget(executionTargetId);
+                }
+                String type = executionAction.getClass().getSimpleName();
+                synchronized (latencies) {
+                    Latency latency = latencies.get(type);
+                    if (latency == null) {
+                        latency = new Latency();
+                        latencies.put(type, latency);
+                    }
+                    latency.add(startedAt - createdAt, endedAt - startedAt);
+                }
+                endedTasks.add(this);
+            }
+        }
+
+        /**
+         * Submit this {@link Task} to the {@link #executorService}.
+         */
+        private void submit()
+        {
+            if (executionTargetId != null) {
+                activateExecutionTarget(executionTargetId);
+            }
+            future = executorService.submit(this);
+        }
+
+        /**
+         * Interrupt the performed {@link #executionAction} (it is still waited for until it ends).
+         *
+         * @return true whether the {@link #executionAction} has been interrupted now,
+         *         false whether it has been already interrupted before
+         */
+        private boolean interrupt()
+        {
+            if (interrupted) {
+                return false;
+            }
+            interrupted = true;
+            future.cancel(true);
+            return true;
+        }
+
+        /**
+         * Cancel this {@link Task} (when it hasn't been started yet, it will be never started and thus it is
+         * released here).
+         */
+        private void cancel()
+        {
+            if (future != null) {
+                future.cancel(true);
+            }
+            if (started.compareAndSet(false, true)) {
+                queueDepth.decrementAndGet();
+                if (executionTargetId != null) {
+                    deactivateExecutionTarget(executionTargetId);
+                }
+            }
+        }
+    }
+
+    /**
+     * Latency statistics for a type of {@link ExecutionAction}s.
+     */
+    public static class Latency
+    {
+        /**
+         * Number of performed {@link ExecutionAction}s.
+         */
+        private long count;
+
+        /**
+         * Total time in milliseconds which {@link ExecutionAction}s spent waiting for a thread.
+         */
+        private long totalWaiting;
+
+        /**
+         * Total time in milliseconds which {@link ExecutionAction}s were performed.
+         */
+        private long totalDuration;
+
+        /**
+         * Maximum time in milliseconds for which an {@link ExecutionAction} was performed.
+         */
+        private long maximumDuration;
+
+        /**
+         * Constructor.
+         */
+        private Latency()
+        {
+        }
+
+        /**
+         * Copy constructor.
+         *
+         * @param latency to be copied
+         */
+        private Latency(Latency latency)
+        {
+            this.count = latency.count;
+            this.totalWaiting = latency.totalWaiting;
+            this.totalDuration = latency.totalDuration;
+            this.maximumDuration = latency.maximumDuration;
+        }
+
+        /**
+         * @param waiting  time in milliseconds which an {@link ExecutionAction} spent waiting for a thread
+         * @param duration time in milliseconds for which an {@link ExecutionAction} was performed
+         */
+        private void add(long waiting, long duration)
+        {
+            count++;
+            totalWaiting += waiting;
+            totalDuration += duration;
+            maximumDuration = Math.max(maximumDuration, duration);
+        }
+
+        /**
+         * @return {@link #count}
+         */
+        public long getCount()
+        {
+            return count;
+        }
+
+        /**
+         * @return average time in milliseconds which {@link ExecutionAction}s spent waiting for a thread
+         */
+        public long getAverageWaiting()
+        {
+            return (count > 0 ? totalWaiting / count : 0);
+        }
+
+        /**
+         * @return average time in milliseconds for which {@link ExecutionAction}s were performed
+         */
+        public long getAverageDuration()
+        {
+            return (count > 0 ? totalDuration / count : 0);
+        }
+
+        /**
+         * @return {@link #maximumDuration}
+         */
+        public long getMaximumDuration()
+        {
+            return maximumDuration;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("count: %d, waiting: %d ms, duration: %d ms, maximum: %d ms",
+                    count, getAverageWaiting(), getAverageDuration(), maximumDuration);
+        }
+    }
+}
@@ -307,6 +307,11 @@ public class ExecutionPlan
                         }
                     }
                 }
+
+                // Wake up the executor for the next action or attempt
+                if (executor != null && executor.getExecutionTimeline() != null) {
+                    executor.getExecutionTimeline().markExecutionTarget(executionTarget);
+                }
             }
         }
         return executionResult;
@@ -0,0 +1,267 @@
+package cz.cesnet.shongo.controller.executor;
+
+import cz.cesnet.shongo.controller.Component;
+import cz.cesnet.shongo.controller.ControllerConfiguration;
+import cz.cesnet.shongo.controller.booking.executable.Executable;
+import cz.cesnet.shongo.controller.booking.executable.ExecutableService;
+import cz.cesnet.shongo.controller.booking.executable.ExecutionTarget;
+import cz.cesnet.shongo.controller.booking.reservation.Reservation;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+/**
+ * Represents a {@link Component} which holds upcoming date/times (deadlines) in which some {@link ExecutionTarget}s
+ * should be executed (started, stopped, finalized or attempted again). It is kept current by
+ * the {@link cz.cesnet.shongo.controller.scheduler.Scheduler}, by the {@link Executor} and by RPC services
+ * and it allows the {@link Executor} to sleep until the nearest deadline instead of checking all
+ * {@link ExecutionTarget}s in a fixed period.
+ * <p/>
+ * Only deadlines within the {@link #horizon} are held and the {@link Executor} periodically performs the full
+ * reconciliation which adds the deadlines for the next {@link #horizon} from the database (it also covers changes
+ * which cannot be recorded, e.g., modifications made directly in the database).
+ * <p/>
+ * It also holds {@link ExecutableLocks} because it is shared by the {@link Executor} and by the
+ * {@link cz.cesnet.shongo.controller.scheduler.Scheduler}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ExecutionTimeline extends Component
+{
+    /**
+     * Upcoming deadlines in milliseconds.
+     */
+    private final SortedSet<Long> deadlines = new TreeSet<Long>();
+
+    /**
+     * @see ControllerConfiguration#EXECUTOR_EXECUTABLE_START
+     */
+    private Duration executableStart = Duration.ZERO;
+
+    /**
+     * @see ControllerConfiguration#EXECUTOR_EXECUTABLE_END
+     */
+    private Duration executableEnd = Duration.ZERO;
+
+    /**
+     * Deadlines which take place after this duration from now are ignored (they are added by the reconciliation).
+     */
+    private Duration horizon = null;
+
+    /**
+     * @see ExecutableLocks
+     */
+    private final ExecutableLocks executableLocks = new ExecutableLocks();
+
+    @Override
+    public void init(ControllerConfiguration configuration)
+    {
+        super.init(configuration);
+
+        executableStart = configuration.getDuration(ControllerConfiguration.EXECUTOR_EXECUTABLE_START);
+        executableEnd = configuration.getDuration(ControllerConfiguration.EXECUTOR_EXECUTABLE_END);
+        horizon = configuration.getDuration(ControllerConfiguration.EXECUTOR_PERIOD).multipliedBy(2);
+    }
+
+    /**
+     * @param executableStart sets the {@link #executableStart}
+     */
+    public void setExecutableStart(Duration executableStart)
+    {
+        this.executableStart = executableStart;
+    }
+
+    /**
+     * @param executableEnd sets the {@link #executableEnd}
+     */
+    public void setExecutableEnd(Duration executableEnd)
+    {
+        this.executableEnd = executableEnd;
+    }
+
+    /**
+     * @return {@link #horizon}
+     */
+    public Duration getHorizon()
+    {
+        return horizon;
+    }
+
+    /**
+     * @param horizon sets the {@link #horizon}
+     */
+    public void setHorizon(Duration horizon)
+    {
+        this.horizon = horizon;
+    }
+
+    /**
+     * @return {@link #executableLocks}
+     */
+    public ExecutableLocks getExecutableLocks()
+    {
+        return executableLocks;
+    }
+
+    /**
+     * Record deadlines for {@link Executable}s of given {@code reservation} and all its child {@link Reservation}s.
+     *
+     * @param reservation which has been allocated or modified
+     */
+    public void markReservation(Reservation reservation)
+    {
+        markExecutable(reservation.getExecutable());
+        for (Reservation childReservation : reservation.getChildReservations()) {
+            markReservation(childReservation);
+        }
+    }
+
+    /**
+     * Record deadlines for given {@code executable}, its child {@link Executable}s and theirs
+     * {@link ExecutableService}s.
+     *
+     * @param executable which has been created or modified (can be {@code null})
+     */
+    public void markExecutable(Executable executable)
+    {
+        if (executable == null) {
+            return;
+        }
+        markExecutionTarget(executable);
+        if (executable.isModified()) {
+            wakeUp();
+        }
+        for (ExecutableService service : executable.getServices()) {
+            markExecutionTarget(service);
+        }
+        for (Executable childExecutable : executable.getChildExecutables()) {
+            markExecutable(childExecutable);
+        }
+    }
+
+    /**
+     * Record deadlines for given {@code executionTarget}.
+     *
+     * @param executionTarget which has been created or modified
+     */
+    public void markExecutionTarget(ExecutionTarget executionTarget)
+    {
+        markSlot(executionTarget.getSlotStart(), executionTarget.getSlotEnd(), executionTarget.getNextAttempt());
+    }
+
+    /**
+     * Record deadlines for an {@link ExecutionTarget} with given attributes.
+     *
+     * @param slotStart   start of the {@link ExecutionTarget} slot (can be {@code null})
+     * @param slotEnd     end of the {@link ExecutionTarget} slot (can be {@code null})
+     * @param nextAttempt next attempt of the {@link ExecutionTarget} (can be {@code null})
+     */
+    public synchronized void markSlot(DateTime slotStart, DateTime slotEnd, DateTime nextAttempt)
+    {
+        if (slotStart != null) {
+            // Start
+            addDeadline(slotStart.plus(executableStart));
+        }
+        if (slotEnd != null) {
+            // Stop
+            addDeadline(slotEnd.plus(executableEnd));
+            // Finalization
+            addDeadline(slotEnd.plusMillis(1));
+        }
+        if (nextAttempt != null) {
+            // Next attempt is compared with the same date/times as the slot
+            addDeadline(nextAttempt.plus(executableStart));
+            addDeadline(nextAttempt.plus(executableEnd));
+            addDeadline(nextAttempt);
+        }
+    }
+
+    /**
+     * Record given {@code deadline}. Deadlines which already passed wake up the {@link Executor} immediately.
+     *
+     * @param deadline date/time when the {@link Executor} should be woken up
+     */
+    public synchronized void addDeadline(DateTime deadline)
+    {
+        long now = System.currentTimeMillis();
+        long deadlineMillis = Math.max(deadline.getMillis(), now);
+        if (horizon != null && deadlineMillis > now + horizon.getMillis()) {
+            return;
+        }
+        if (deadlines.add(deadlineMillis) && deadlines.first() == deadlineMillis) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Wake up the {@link Executor} immediately (e.g., when an {@link Executable} has been modified).
+     */
+    public synchronized void wakeUp()
+    {
+        deadlines.add(System.currentTimeMillis());
+        notifyAll();
+    }
+
+    /**
+     * @return nearest recorded deadline or {@code null}
+     */
+    public synchronized DateTime getNextDeadline()
+    {
+        if (deadlines.isEmpty()) {
+            return null;
+        }
+        return new DateTime(deadlines.first());
+    }
+
+    /**
+     * @return number of recorded deadlines
+     */
+    public synchronized int getDeadlineCount()
+    {
+        return deadlines.size();
+    }
+
+    /**
+     * Remove all deadlines which take place before or at given {@code dateTime}.
+     *
+     * @param dateTime which represents "now"
+     * @return true whether some deadline has been removed, false otherwise
+     */
+    public synchronized boolean popDeadlines(DateTime dateTime)
+    {
+        SortedSet<Long> passedDeadlines = deadlines.headSet(dateTime.getMillis() + 1);
+        if (passedDeadlines.isEmpty()) {
+            return false;
+        }
+        passedDeadlines.clear();
+        return true;
+    }
+
+    /**
+     * Wait until the nearest deadline passes or until given {@code maximumDateTime}.
+     *
+     * @param maximumDateTime maximum date/time until which it should be waited
+     * @return true whether a deadline has passed, false whether the {@code maximumDateTime} has been reached
+     * @throws InterruptedException
+     */
+    public synchronized boolean awaitDeadline(DateTime maximumDateTime) throws InterruptedException
+    {
+        long maximum = maximumDateTime.getMillis();
+        while (true) {
+            long now = System.currentTimeMillis();
+            if (popDeadlines(new DateTime(now))) {
+                return true;
+            }
+            if (now >= maximum) {
+                return false;
+            }
+            long waitUntil = maximum;
+            if (!deadlines.isEmpty()) {
+                waitUntil = Math.min(deadlines.first(), maximum);
+            }
+            wait(waitUntil - now);
+        }
+    }
+}
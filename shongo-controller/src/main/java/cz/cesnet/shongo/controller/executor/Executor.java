@@ -1,6 +1,7 @@
 package cz.cesnet.shongo.controller.executor;
 
 import cz.cesnet.shongo.ExpirationSet;
+import cz.cesnet.shongo.api.Room;
 import cz.cesnet.shongo.connector.api.jade.recording.CreateRecordingFolder;
 import cz.cesnet.shongo.controller.*;
 import cz.cesnet.shongo.controller.api.Reservation;
@@ -14,6 +15,7 @@ import cz.cesnet.shongo.controller.booking.resource.DeviceResource;
 import cz.cesnet.shongo.controller.booking.resource.ManagedMode;
 import cz.cesnet.shongo.controller.notification.AbstractNotification;
 import cz.cesnet.shongo.controller.notification.NotificationManager;
+import cz.cesnet.shongo.controller.scheduler.ChangeJournal;
 import cz.cesnet.shongo.jade.SendLocalCommand;
 import cz.cesnet.shongo.util.DateTimeFormatter;
 import org.joda.time.DateTime;
@@ -33,13 +35,19 @@ import java.util.*;
  */
 public class Executor extends SwitchableComponent
         implements Component.WithThread, Component.EntityManagerFactoryAware, Component.ControllerAgentAware,
-                   Component.AuthorizationAware, Runnable
+                   Component.AuthorizationAware, Component.ChangeJournalAware, Component.ExecutionTimelineAware,
+                   Runnable
 {
     /**
      * {@link Logger} for {@link Executor}
      */
     private static Logger logger = LoggerFactory.getLogger(Executor.class);
 
+    /**
+     * Duration after which the {@link Executable}s which were not ready for execution are checked again.
+     */
+    private static final Duration NOT_READY_RECHECK = Duration.standardSeconds(15);
+
     /**
      * @see NotificationManager
      */
@@ -55,6 +63,16 @@ public class Executor extends SwitchableComponent
      */
     private ControllerAgent controllerAgent;
 
+    /**
+     * @see ChangeJournal
+     */
+    private ChangeJournal changeJournal;
+
+    /**
+     * @see ExecutionTimeline
+     */
+    private ExecutionTimeline executionTimeline;
+
     /**
      * @see Authorization
      */
@@ -90,11 +108,21 @@ public class Executor extends SwitchableComponent
      */
     private int maxAttemptCount;
 
+    /**
+     * @see ExecutionEngine
+     */
+    private ExecutionEngine executionEngine;
+
     /**
      * Map of (maps of recording folders by recording capabilities) by recordable endpoint ids.
      */
     private final Map<Long, Map<Long, String>> recordingFolders = new HashMap<Long, Map<Long, String>>();
 
+    /**
+     * Map of last successfully applied {@link Room}s by room endpoint ids.
+     */
+    private final Map<Long, Room> appliedRooms = new HashMap<Long, Room>();
+
     /**
      * Set of identifiers of {@link cz.cesnet.shongo.controller.api.ExecutableService}s which should not be checked again.
      */
@@ -155,6 +183,14 @@ public class Executor extends SwitchableComponent
         return maxAttemptCount;
     }
 
+    /**
+     * @return {@link #executionEngine}
+     */
+    public ExecutionEngine getExecutionEngine()
+    {
+        return executionEngine;
+    }
+
     @Override
     public Thread getThread()
     {
@@ -191,6 +227,26 @@ public class Executor extends SwitchableComponent
         this.controllerAgent = controllerAgent;
     }
 
+    @Override
+    public void setChangeJournal(ChangeJournal changeJournal)
+    {
+        this.changeJournal = changeJournal;
+    }
+
+    /**
+     * @return {@link #executionTimeline}
+     */
+    public ExecutionTimeline getExecutionTimeline()
+    {
+        return executionTimeline;
+    }
+
+    @Override
+    public void setExecutionTimeline(ExecutionTimeline executionTimeline)
+    {
+        this.executionTimeline = executionTimeline;
+    }
+
     /**
      * @return {@link #authorization}
      */
@@ -219,6 +275,21 @@ public class Executor extends SwitchableComponent
         nextAttempt = configuration.getDuration(ControllerConfiguration.EXECUTOR_EXECUTABLE_NEXT_ATTEMPT);
         startingDurationRoom = configuration.getDuration(ControllerConfiguration.EXECUTOR_STARTING_DURATION_ROOM);
         maxAttemptCount = configuration.getInt(ControllerConfiguration.EXECUTOR_EXECUTABLE_MAX_ATTEMPT_COUNT);
+
+        executionEngine = new ExecutionEngine(
+                configuration.getInt(ControllerConfiguration.EXECUTOR_ACTION_POOL_SIZE),
+                configuration.getInt(ControllerConfiguration.EXECUTOR_ACTION_DEVICE_LIMIT),
+                configuration.getDuration(ControllerConfiguration.EXECUTOR_ACTION_TIMEOUT));
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (executionEngine != null) {
+            executionEngine.destroy();
+            executionEngine = null;
+        }
+        super.destroy();
     }
 
     @Override
@@ -226,9 +297,21 @@ public class Executor extends SwitchableComponent
     {
         logger.debug("Executor started!");
 
+        DateTime reconciliationDateTime = null;
         while (!Thread.interrupted()) {
             try {
-                Thread.sleep(period.getMillis());
+                if (executionTimeline != null) {
+                    // Wait for the nearest deadline and periodically perform the full reconciliation
+                    DateTime dateTime = DateTime.now();
+                    if (reconciliationDateTime == null || !dateTime.isBefore(reconciliationDateTime.plus(period))) {
+                        reconcileExecutionTimeline(dateTime);
+                        reconciliationDateTime = dateTime;
+                    }
+                    executionTimeline.awaitDeadline(reconciliationDateTime.plus(period));
+                }
+                else {
+                    Thread.sleep(period.getMillis());
+                }
             }
             catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
@@ -240,6 +323,36 @@ public class Executor extends SwitchableComponent
         logger.debug("Executor stopped!");
     }
 
+    /**
+     * Add deadlines of all {@link cz.cesnet.shongo.controller.booking.executable.ExecutionTarget}s which take place
+     * in the {@link ExecutionTimeline#getHorizon()} to the {@link #executionTimeline} and wake up the execution
+     * (to execute everything which should have been already executed).
+     *
+     * @param dateTime which represents "now"
+     */
+    private void reconcileExecutionTimeline(DateTime dateTime)
+    {
+        logger.debug("Reconciling execution timeline at '{}'...", dateTime);
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            // Deadlines are shifted from the date/times by executable start/end
+            Duration horizon = executionTimeline.getHorizon();
+            Duration shift = new Duration(Math.abs(executableStart.getMillis()) + Math.abs(executableEnd.getMillis()));
+            ExecutableManager executableManager = new ExecutableManager(entityManager);
+            for (Object[] dateTimes : executableManager.listExecutionTargetDateTimes(
+                    dateTime.minus(shift), dateTime.plus(horizon).plus(shift), maxAttemptCount)) {
+                executionTimeline.markSlot((DateTime) dateTimes[0], (DateTime) dateTimes[1], (DateTime) dateTimes[2]);
+            }
+        }
+        catch (Exception exception) {
+            Reporter.getInstance().reportInternalError(Reporter.EXECUTOR, exception);
+        }
+        finally {
+            entityManager.close();
+        }
+        executionTimeline.wakeUp();
+    }
+
     /**
      * Execute {@link Reservation}s which should be executed for given {@code interval}.
      *
@@ -253,107 +366,172 @@ public class Executor extends SwitchableComponent
             return new ExecutionResult();
         }
 
-        // Globally synchronized (see ThreadLock documentation)
-        //logger.info("Executor waiting for lock...............................");
-        synchronized (ThreadLock.class) {
-            //logger.info("Executor lock acquired...     (((((");
-
-            DateTimeFormatter dateTimeFormatter = DateTimeFormatter.getInstance(DateTimeFormatter.Type.LONG);
-            logger.debug("Checking executables for execution at '{}'...", dateTimeFormatter.formatDateTime(dateTime));
-
-            EntityManager entityManager = entityManagerFactory.createEntityManager();
-            ExecutableManager executableManager = new ExecutableManager(entityManager);
-            try {
-                // Create execution plan
-                DateTime start = dateTime.minus(executableStart);
-                DateTime stop = dateTime.minus(executableEnd);
-                ExecutionPlan executionPlan = new ExecutionPlan(this);
-                for (Executable executable : executableManager.listExecutablesForStart(start, maxAttemptCount)) {
-                    executionPlan.addExecutionAction(new ExecutionAction.StartExecutableAction(executable));
-                    Executable migrateFromExecutable = executable.getMigrateFromExecutable();
-                    if (migrateFromExecutable != null) {
-                        if (migrateFromExecutable.getState().isStarted()) {
-                            Migration migration = new Migration(migrateFromExecutable, executable);
-                            executionPlan.addExecutionAction(new ExecutionAction.MigrationAction(migration));
-                        }
-                        else {
-                            logger.warn("Cannot migrate executable {} ({}) from {} ({}, {}).", new Object[]{
-                                    executable.getId(), executable.getSlot(), migrateFromExecutable.getId(),
-                                    migrateFromExecutable.getSlot(), migrateFromExecutable.getState()});
-                        }
+        DateTimeFormatter dateTimeFormatter = DateTimeFormatter.getInstance(DateTimeFormatter.Type.LONG);
+        logger.debug("Checking executables for execution at '{}'...", dateTimeFormatter.formatDateTime(dateTime));
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        ExecutableManager executableManager = new ExecutableManager(entityManager);
+        try {
+            // Create execution plan
+            DateTime start = dateTime.minus(executableStart);
+            DateTime stop = dateTime.minus(executableEnd);
+            ExecutionPlan executionPlan = new ExecutionPlan(this);
+            for (Executable executable : executableManager.listExecutablesForStart(start, maxAttemptCount)) {
+                if (!isExecutableReady(executable, executableManager)) {
+                    continue;
+                }
+                Executable migrateFromExecutable = executable.getMigrateFromExecutable();
+                if (migrateFromExecutable != null && !isExecutableReady(migrateFromExecutable, executableManager)) {
+                    continue;
+                }
+                executionPlan.addExecutionAction(new ExecutionAction.StartExecutableAction(executable));
+                if (migrateFromExecutable != null) {
+                    if (migrateFromExecutable.getState().isStarted()) {
+                        Migration migration = new Migration(migrateFromExecutable, executable);
+                        executionPlan.addExecutionAction(new ExecutionAction.MigrationAction(migration));
+                    }
+                    else {
+                        logger.warn("Cannot migrate executable {} ({}) from {} ({}, {}).", new Object[]{
+                                executable.getId(), executable.getSlot(), migrateFromExecutable.getId(),
+                                migrateFromExecutable.getSlot(), migrateFromExecutable.getState()});
                     }
                 }
-                for (Executable executable : executableManager.listExecutablesForStop(stop, maxAttemptCount)) {
-                    executionPlan.addExecutionAction(new ExecutionAction.StopExecutableAction(executable));
+            }
+            for (Executable executable : executableManager.listExecutablesForStop(stop, maxAttemptCount)) {
+                if (!isExecutableReady(executable, executableManager)) {
+                    continue;
                 }
-                for (Executable executable : executableManager.listExecutablesForFinalization(dateTime, maxAttemptCount)) {
-                    executionPlan.addExecutionAction(new ExecutionAction.FinalizeExecutableAction(executable));
+                executionPlan.addExecutionAction(new ExecutionAction.StopExecutableAction(executable));
+            }
+            for (Executable executable : executableManager.listExecutablesForFinalization(dateTime, maxAttemptCount)) {
+                if (!isExecutableReady(executable, executableManager)) {
+                    continue;
                 }
-                for (Executable executable : executableManager.listExecutablesForUpdate(dateTime, maxAttemptCount)) {
-                    ExecutionAction executionAction = executionPlan.getActionByExecutionTarget(executable);
-                    if (executionAction != null) {
-                        // Skip updating executable when other action is planned (i.e., start or stop)
-                        continue;
-                    }
-                    executionPlan.addExecutionAction(new ExecutionAction.UpdateExecutableAction(executable));
+                executionPlan.addExecutionAction(new ExecutionAction.FinalizeExecutableAction(executable));
+            }
+            for (Executable executable : executableManager.listExecutablesForUpdate(dateTime, maxAttemptCount)) {
+                if (!isExecutableReady(executable, executableManager)) {
+                    continue;
                 }
-                for (ExecutableService service : executableManager.listServicesForActivation(start, maxAttemptCount)) {
-                    executionPlan.addExecutionAction(new ExecutionAction.ActivateExecutableServiceAction(service));
+                ExecutionAction executionAction = executionPlan.getActionByExecutionTarget(executable);
+                if (executionAction != null) {
+                    // Skip updating executable when other action is planned (i.e., start or stop)
+                    continue;
                 }
-                for (ExecutableService service : executableManager.listServicesForDeactivation(stop, maxAttemptCount)) {
-                    executionPlan.addExecutionAction(new ExecutionAction.DeactivateExecutableServiceAction(service));
+                executionPlan.addExecutionAction(new ExecutionAction.UpdateExecutableAction(executable));
+            }
+            for (ExecutableService service : executableManager.listServicesForActivation(start, maxAttemptCount)) {
+                if (!isExecutableReady(service.getExecutable(), executableManager)) {
+                    continue;
                 }
-                executionPlan.build();
-
-                // Perform execution plan
-                while (!executionPlan.isEmpty()) {
-                    Collection<ExecutionAction> executionActions = executionPlan.popExecutionActions();
-                    for (ExecutionAction executionAction : executionActions) {
-                        executionAction.start();
-                    }
-                    for (ExecutionAction executionAction : executionActions) {
-                        executionAction.join();
-                    }
+                executionPlan.addExecutionAction(new ExecutionAction.ActivateExecutableServiceAction(service));
+            }
+            for (ExecutableService service : executableManager.listServicesForDeactivation(stop, maxAttemptCount)) {
+                if (!isExecutableReady(service.getExecutable(), executableManager)) {
+                    continue;
                 }
+                executionPlan.addExecutionAction(new ExecutionAction.DeactivateExecutableServiceAction(service));
+            }
+            executionPlan.build();
 
-                // Finish execution plan
-                entityManager.getTransaction().begin();
-                ExecutionResult executionResult = executionPlan.finish(entityManager, dateTime);
-                entityManager.getTransaction().commit();
+            // Perform execution plan
+            executionEngine.perform(executionPlan);
 
-                // Set all activated and deactivated services as checked
-                for (ExecutableService executableService : executionResult.getActivatedExecutableServices()) {
-                    addCheckedExecutableService(executableService);
-                }
-                for (ExecutableService executableService : executionResult.getDeactivatedExecutableServices()) {
-                    addCheckedExecutableService(executableService);
-                }
+            // Finish execution plan
+            entityManager.getTransaction().begin();
+            ExecutionResult executionResult = executionPlan.finish(entityManager, dateTime);
+            entityManager.getTransaction().commit();
 
-                // Add notifications
-                entityManager.getTransaction().begin();
-                synchronized (notifications) {
-                    notificationManager.addNotifications(notifications, entityManager);
-                    notifications.clear();
-                }
-                entityManager.getTransaction().commit();
+            // Stopped executables can be deleted by the scheduler when they are no longer referenced
+            if (changeJournal != null && !executionResult.getStoppedExecutables().isEmpty()) {
+                changeJournal.markExecutables();
+            }
 
-                return executionResult;
+            // Set all activated and deactivated services as checked
+            for (ExecutableService executableService : executionResult.getActivatedExecutableServices()) {
+                addCheckedExecutableService(executableService);
             }
-            catch (Exception exception) {
-                Reporter.getInstance().reportInternalError(Reporter.EXECUTOR, exception);
-                return null;
+            for (ExecutableService executableService : executionResult.getDeactivatedExecutableServices()) {
+                addCheckedExecutableService(executableService);
             }
-            finally {
-                if (entityManager.getTransaction().isActive()) {
-                    entityManager.getTransaction().rollback();
-                }
 
-                entityManager.close();
+            // Add notifications
+            entityManager.getTransaction().begin();
+            synchronized (notifications) {
+                notificationManager.addNotifications(notifications, entityManager);
+                notifications.clear();
+            }
+            entityManager.getTransaction().commit();
+
+            return executionResult;
+        }
+        catch (Exception exception) {
+            Reporter.getInstance().reportInternalError(Reporter.EXECUTOR, exception);
+            return null;
+        }
+        finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            if (executionTimeline != null) {
+                executionTimeline.getExecutableLocks().unlockAll();
             }
 
-            //logger.info("Executor releasing lock...    )))))");
+            entityManager.close();
+        }
+    }
+
+    /**
+     * {@link Executable}s are allocated by the {@link cz.cesnet.shongo.controller.scheduler.Scheduler} concurrently
+     * with the {@link Executor} and theirs {@link cz.cesnet.shongo.controller.acl.AclEntry}s are committed to the
+     * {@link Authorization} after the database transaction. Such {@link Executable}s must not be executed
+     * until the {@link cz.cesnet.shongo.controller.acl.AclEntry}s are committed (they will be executed next time).
+     * Ready {@link Executable}s are locked in {@link ExecutableLocks} until the end of the execution and thus
+     * the {@link cz.cesnet.shongo.controller.scheduler.Scheduler} cannot delete or modify them meanwhile.
+     *
+     * @param executable        to be checked
+     * @param executableManager to be used for locking
+     * @return true whether given {@code executable} can be executed, false otherwise
+     */
+    private boolean isExecutableReady(Executable executable, ExecutableManager executableManager)
+    {
+        if (executable == null) {
+            return true;
+        }
+        if (executionEngine.isActive(executable)) {
+            logger.debug("Skipping executable {} because it is still being executed.", executable.getId());
+        }
+        else if (authorization != null && !authorization.isAclCommitted(executable)) {
+            logger.debug("Skipping executable {} because its ACL entries are not committed yet.", executable.getId());
+        }
+        else if (!lockExecutable(executable, executableManager)) {
+            logger.debug("Skipping executable {} because it is being modified by the scheduler.", executable.getId());
+        }
+        else {
+            return true;
+        }
+        if (executionTimeline != null) {
+            executionTimeline.addDeadline(DateTime.now().plus(NOT_READY_RECHECK));
+        }
+        return false;
+    }
+
+    /**
+     * @param executable        to be locked by the current thread
+     * @param executableManager to be used
+     * @return true whether given {@code executable} has been locked and it hasn't been modified
+     *         by the {@link cz.cesnet.shongo.controller.scheduler.Scheduler} since it was loaded, false otherwise
+     */
+    private boolean lockExecutable(Executable executable, ExecutableManager executableManager)
+    {
+        if (executionTimeline == null) {
+            return true;
+        }
+        Executable.State state = executable.getState();
+        if (!executableManager.lock(executable, executionTimeline.getExecutableLocks())) {
+            return false;
         }
-        //logger.info("Executor lock released...");
+        return state.equals(executable.getState());
     }
 
     /**
@@ -401,6 +579,35 @@ public class Executor extends SwitchableComponent
         }
     }
 
+    /**
+     * @param roomEndpointId
+     * @return {@link Room} which was last successfully applied for room endpoint with given {@code roomEndpointId}
+     *         or {@code null} when it isn't known
+     */
+    public Room getAppliedRoom(Long roomEndpointId)
+    {
+        synchronized (appliedRooms) {
+            return appliedRooms.get(roomEndpointId);
+        }
+    }
+
+    /**
+     * @param roomEndpointId
+     * @param room           which was successfully applied for room endpoint with given {@code roomEndpointId}
+     *                       ({@code null} when the applied state isn't known anymore)
+     */
+    public void setAppliedRoom(Long roomEndpointId, Room room)
+    {
+        synchronized (appliedRooms) {
+            if (room != null) {
+                appliedRooms.put(roomEndpointId, room);
+            }
+            else {
+                appliedRooms.remove(roomEndpointId);
+            }
+        }
+    }
+
     /**
      * @param executableService which has been just {@link ExecutableService#check}ed
      */
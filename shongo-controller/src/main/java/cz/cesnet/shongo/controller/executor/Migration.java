@@ -116,11 +116,13 @@ public class Migration
                 targetResourceRoom.setState(Executable.State.STARTED);
                 targetResourceRoom.setModified(true);
                 targetResourceRoom.setRoomId(sourceRoom.getRoomId());
+                executor.setAppliedRoom(targetResourceRoom.getId(), executor.getAppliedRoom(sourceResourceRoom.getId()));
                 Boolean result = targetResourceRoom.update(executor, executableManager);
                 if (Boolean.TRUE.equals(result)) {
                     targetResourceRoom.setState(Executable.State.STARTED);
                     sourceResourceRoom.setState(Executable.State.STOPPED);
                     sourceResourceRoom.setModified(false);
+                    executor.setAppliedRoom(sourceResourceRoom.getId(), null);
                     return true;
                 }
                 else {
@@ -19,8 +19,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.persistence.EntityManager;
+import java.io.IOException;
 import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Represents a notification for a list of recipients.
@@ -180,9 +183,7 @@ public abstract class AbstractNotification
         Map<String, Object> templateParameters = new HashMap<String, Object>();
         templateParameters.put("context", context);
         templateParameters.put("notification", this);
-        for (Map.Entry<String, Object> parameter : context.getParameters().entrySet()) {
-            templateParameters.put(parameter.getKey(), parameter.getValue());
-        }
+        templateParameters.putAll(context.getParameters());
         return renderTemplate(fileName, templateParameters);
     }
 
@@ -246,7 +247,7 @@ public abstract class AbstractNotification
     public static String renderTemplate(String templateFileName, Map<String, Object> templateParameters)
     {
         try {
-            Template template = getTemplateConfiguration().getTemplate("notification/" + templateFileName);
+            Template template = getTemplate(templateFileName);
             StringWriter stringWriter = new StringWriter();
             template.process(templateParameters, stringWriter);
             return stringWriter.toString();
@@ -261,10 +262,15 @@ public abstract class AbstractNotification
      */
     private static Configuration templateConfiguration;
 
+    /**
+     * Already compiled {@link Template}s by file names (compiled {@link Template} can be processed concurrently).
+     */
+    private static final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<String, Template>();
+
     /**
      * @return {@link #templateConfiguration}
      */
-    private static Configuration getTemplateConfiguration()
+    private static synchronized Configuration getTemplateConfiguration()
     {
         if (templateConfiguration == null) {
             templateConfiguration = new Configuration();
@@ -274,6 +280,27 @@ public abstract class AbstractNotification
         return templateConfiguration;
     }
 
+    /**
+     * @param templateFileName
+     * @return compiled {@link Template} for given {@code templateFileName} from {@link #templates}
+     * @throws IOException when the template cannot be loaded
+     */
+    private static Template getTemplate(String templateFileName) throws IOException
+    {
+        Template template = templates.get(templateFileName);
+        if (template == null) {
+            Configuration templateConfiguration = getTemplateConfiguration();
+            synchronized (templateConfiguration) {
+                template = templateConfiguration.getTemplate("notification/" + templateFileName);
+            }
+            Template existingTemplate = templates.putIfAbsent(templateFileName, template);
+            if (existingTemplate != null) {
+                template = existingTemplate;
+            }
+        }
+        return template;
+    }
+
     /**
      * Context for rendering of {@link AbstractNotification}.
      */
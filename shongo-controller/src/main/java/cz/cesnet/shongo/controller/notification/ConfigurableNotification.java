@@ -5,7 +5,6 @@ import cz.cesnet.shongo.api.Converter;
 import cz.cesnet.shongo.api.UserInformation;
 import cz.cesnet.shongo.controller.ControllerConfiguration;
 import cz.cesnet.shongo.controller.api.UserSettings;
-import cz.cesnet.shongo.controller.settings.UserSettingsManager;
 import cz.cesnet.shongo.util.MessageSource;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
@@ -36,10 +35,19 @@ public abstract class ConfigurableNotification extends AbstractNotification
             new HashMap<PersonInformation, List<Configuration>>();
 
     /**
-     * {@link NotificationMessage} for each required {@link Configuration}.
+     * {@link NotificationMessage} for each required {@link Configuration} and recipient variant
+     * (see {@link #getRecipientVariant}).
      */
-    private Map<Configuration, NotificationMessage> configurationMessage =
-            new HashMap<Configuration, NotificationMessage>();
+    private Map<List<Object>, NotificationMessage> configurationMessage =
+            new HashMap<List<Object>, NotificationMessage>();
+
+    /**
+     * {@link NotificationMessage} composed from messages for multiple {@link Configuration}s for each distinct
+     * list of {@link Configuration}s, recipient variant and recipient type (recipients which doesn't prefer any
+     * language share the same composed message).
+     */
+    private Map<List<Object>, NotificationMessage> composedMessage =
+            new HashMap<List<Object>, NotificationMessage>();
 
     /**
      * Constructor.
@@ -144,9 +152,8 @@ public abstract class ConfigurableNotification extends AbstractNotification
             DateTimeZone timeZone = null;
             if (recipient instanceof UserInformation) {
                 UserInformation userInformation = (UserInformation) recipient;
-                UserSettingsManager userSettingsManager = new UserSettingsManager(
-                        entityManager, notificationManager.getAuthorization());
-                UserSettings userSettings = userSettingsManager.getUserSettings(userInformation.getUserId(), null);
+                UserSettings userSettings =
+                        notificationManager.getUserSettings(userInformation.getUserId(), entityManager);
                 if (userSettings != null) {
                     locale = userSettings.getLocale();
                     timeZone = userSettings.getCurrentTimeZone();
@@ -189,36 +196,74 @@ public abstract class ConfigurableNotification extends AbstractNotification
         }
         else {
             // Multiple messages
-            NotificationMessage notificationMessage = new NotificationMessage(recipient, notificationManager);
-            for (Configuration configuration : configurations) {
-                NotificationMessage configurationMessage =
-                        getRenderedMessage(recipient, configuration, notificationManager);
-                notificationMessage.appendMessage(configurationMessage);
+            List<Object> composedMessageKey = Arrays.asList(
+                    configurations, getRecipientVariant(recipient), recipient instanceof UserInformation);
+            NotificationMessage notificationMessage = composedMessage.get(composedMessageKey);
+            if (notificationMessage == null) {
+                notificationMessage = new NotificationMessage(recipient, notificationManager);
+                for (Configuration configuration : configurations) {
+                    NotificationMessage configurationMessage =
+                            getRenderedMessage(recipient, configuration, notificationManager);
+                    notificationMessage.appendMessage(configurationMessage);
+                }
+                composedMessage.put(composedMessageKey, notificationMessage);
+            }
+            try {
+                return notificationMessage.clone();
+            }
+            catch (CloneNotSupportedException exception) {
+                throw new RuntimeException(exception);
             }
-            return notificationMessage;
         }
     }
 
     /**
-     * Render or return already rendered {@link NotificationMessage} for given {@code configuration}.
+     * Recipients with equal variant (and equal {@link Configuration}) receive the same {@link NotificationMessage}
+     * which is thus rendered only once. Notifications whose content differs for recipients must override this
+     * method to return value which distinguishes the content (e.g., list of recipient roles).
      *
+     * @param recipient for who the message should be rendered
+     * @return value which determines the recipient specific content of the message or {@code null}
+     */
+    protected Object getRecipientVariant(PersonInformation recipient)
+    {
+        return null;
+    }
+
+    /**
+     * Render or return already rendered {@link NotificationMessage} for given {@code configuration}.
      *
-     * @param recipient
+     * @param recipient     for who the message should be rendered
      * @param configuration to be rendered
      * @param manager
      * @return rendered {@link NotificationMessage}
      */
-    protected NotificationMessage getRenderedMessage(PersonInformation recipient, Configuration configuration,
+    protected final NotificationMessage getRenderedMessage(PersonInformation recipient, Configuration configuration,
             NotificationManager manager)
     {
-        NotificationMessage notificationMessage = configurationMessage.get(configuration);
+        List<Object> configurationMessageKey = Arrays.asList(configuration, getRecipientVariant(recipient));
+        NotificationMessage notificationMessage = configurationMessage.get(configurationMessageKey);
         if (notificationMessage == null) {
-            notificationMessage = renderMessage(configuration, manager);
-            configurationMessage.put(configuration, notificationMessage);
+            notificationMessage = renderMessage(recipient, configuration, manager);
+            configurationMessage.put(configurationMessageKey, notificationMessage);
         }
         return notificationMessage;
     }
 
+    /**
+     * Render {@link NotificationMessage} for given {@code recipient} and {@code configuration}.
+     *
+     * @param recipient     for who the message should be rendered
+     * @param configuration to be rendered
+     * @param manager
+     * @return rendered {@link NotificationMessage}
+     */
+    protected NotificationMessage renderMessage(PersonInformation recipient, Configuration configuration,
+            NotificationManager manager)
+    {
+        return renderMessage(configuration, manager);
+    }
+
     /**
      * Render {@link NotificationMessage} for given {@code configuration}.
      *
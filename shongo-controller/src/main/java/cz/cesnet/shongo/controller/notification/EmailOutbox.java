@@ -0,0 +1,285 @@
+package cz.cesnet.shongo.controller.notification;
+
+import cz.cesnet.shongo.controller.Component;
+import cz.cesnet.shongo.controller.ControllerConfiguration;
+import cz.cesnet.shongo.controller.EmailSender;
+import cz.cesnet.shongo.controller.Reporter;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.mail.MessagingException;
+import javax.mail.SendFailedException;
+import javax.mail.internet.MimeMessage;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+/**
+ * Persistent outbox of emails which are delivered by a dedicated thread (and thus the thread which executes
+ * {@link AbstractNotification}s only stores rendered emails as {@link OutboxEmail}s and continues immediately).
+ * <p/>
+ * The delivery thread reuses one SMTP connection for all pending emails, failed deliveries are retried
+ * with exponential backoff and emails which are not delivered are kept in the database across restarts.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class EmailOutbox extends Component
+        implements Component.WithThread, Component.EntityManagerFactoryAware, Runnable
+{
+    private static Logger logger = LoggerFactory.getLogger(EmailOutbox.class);
+
+    /**
+     * Maximum number of {@link OutboxEmail}s which are loaded at once.
+     */
+    private static final int BATCH_SIZE = 100;
+
+    /**
+     * @see EmailSender
+     */
+    private final EmailSender emailSender;
+
+    /**
+     * {@link EntityManagerFactory} used for loading {@link OutboxEmail}s.
+     */
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * @see ControllerConfiguration#NOTIFICATION_DELIVERY_PERIOD
+     */
+    private Duration period;
+
+    /**
+     * @see ControllerConfiguration#NOTIFICATION_DELIVERY_RETRY_DELAY
+     */
+    private Duration retryDelay;
+
+    /**
+     * @see ControllerConfiguration#NOTIFICATION_DELIVERY_MAX_RETRY_DELAY
+     */
+    private Duration maxRetryDelay;
+
+    /**
+     * @see ControllerConfiguration#NOTIFICATION_DELIVERY_MAX_ATTEMPT_COUNT
+     */
+    private int maxAttemptCount;
+
+    /**
+     * Specifies whether the delivery thread should deliver emails without waiting for the {@link #period}.
+     */
+    private boolean deliveryRequested = false;
+
+    /**
+     * Constructor.
+     *
+     * @param emailSender sets the {@link #emailSender}
+     */
+    public EmailOutbox(EmailSender emailSender)
+    {
+        this.emailSender = emailSender;
+    }
+
+    @Override
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory)
+    {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void init(ControllerConfiguration configuration)
+    {
+        checkDependency(entityManagerFactory, EntityManagerFactory.class);
+        super.init(configuration);
+
+        period = configuration.getDuration(ControllerConfiguration.NOTIFICATION_DELIVERY_PERIOD);
+        retryDelay = configuration.getDuration(ControllerConfiguration.NOTIFICATION_DELIVERY_RETRY_DELAY);
+        maxRetryDelay = configuration.getDuration(ControllerConfiguration.NOTIFICATION_DELIVERY_MAX_RETRY_DELAY);
+        maxAttemptCount = configuration.getInt(ControllerConfiguration.NOTIFICATION_DELIVERY_MAX_ATTEMPT_COUNT);
+    }
+
+    @Override
+    public Thread getThread()
+    {
+        Thread thread = new Thread(this);
+        thread.setName("email-outbox");
+        return thread;
+    }
+
+    /**
+     * Store given {@code email} to the outbox (when SMTP isn't configured, the {@code email} is ignored).
+     *
+     * @param email         to be stored
+     * @param entityManager to be used for storing (the email is delivered after the transaction is committed)
+     * @throws MessagingException when the email cannot be rendered
+     */
+    public void addEmail(EmailSender.Email email, EntityManager entityManager) throws MessagingException
+    {
+        if (!emailSender.isInitialized()) {
+            return;
+        }
+        MimeMessage message = emailSender.createMessage(email);
+        DateTime dateTime = DateTime.now();
+        OutboxEmail outboxEmail = new OutboxEmail();
+        outboxEmail.setSubject(email.getSubject());
+        outboxEmail.setMessage(emailSender.serializeMessage(message));
+        outboxEmail.setCreatedAt(dateTime);
+        outboxEmail.setNextAttemptAt(dateTime);
+        entityManager.persist(outboxEmail);
+    }
+
+    /**
+     * Wake up the delivery thread to deliver newly stored emails.
+     */
+    public synchronized void requestDelivery()
+    {
+        deliveryRequested = true;
+        notifyAll();
+    }
+
+    @Override
+    public void run()
+    {
+        logger.debug("Email outbox started!");
+
+        while (!Thread.interrupted()) {
+            try {
+                deliver(DateTime.now());
+            }
+            catch (Exception exception) {
+                Reporter.getInstance().reportInternalError(Reporter.NOTIFICATION, exception);
+            }
+            try {
+                synchronized (this) {
+                    if (!deliveryRequested) {
+                        wait(period.getMillis());
+                    }
+                    deliveryRequested = false;
+                }
+            }
+            catch (InterruptedException exception) {
+                Thread.currentThread().interrupt();
+            }
+            emailSender.closeIdleConnection(period.getMillis());
+        }
+        emailSender.closeConnection();
+
+        logger.debug("Email outbox stopped!");
+    }
+
+    /**
+     * Deliver all {@link OutboxEmail}s which should be delivered at given {@code dateTime}.
+     *
+     * @param dateTime
+     * @return number of delivered emails
+     */
+    public int deliver(DateTime dateTime)
+    {
+        int deliveredCount = 0;
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            while (true) {
+                List<OutboxEmail> outboxEmails = entityManager.createQuery(
+                        "SELECT outboxEmail FROM OutboxEmail outboxEmail"
+                                + " WHERE outboxEmail.nextAttemptAt <= :dateTime"
+                                + " ORDER BY outboxEmail.id", OutboxEmail.class)
+                        .setParameter("dateTime", dateTime)
+                        .setMaxResults(BATCH_SIZE)
+                        .getResultList();
+                for (OutboxEmail outboxEmail : outboxEmails) {
+                    entityManager.getTransaction().begin();
+                    try {
+                        deliverEmail(outboxEmail, dateTime);
+                        entityManager.remove(outboxEmail);
+                        deliveredCount++;
+                    }
+                    catch (MessagingException exception) {
+                        onDeliveryFailed(outboxEmail, exception, dateTime, entityManager);
+                        if (!(exception instanceof SendFailedException)) {
+                            // SMTP server isn't available and thus other emails should wait for the next attempt
+                            entityManager.getTransaction().commit();
+                            return deliveredCount;
+                        }
+                    }
+                    finally {
+                        if (entityManager.getTransaction().isActive()) {
+                            entityManager.getTransaction().commit();
+                        }
+                    }
+                }
+                entityManager.clear();
+                if (outboxEmails.size() < BATCH_SIZE) {
+                    break;
+                }
+            }
+        }
+        finally {
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            entityManager.close();
+        }
+        if (deliveredCount > 0) {
+            logger.info("Delivered {} email(s) from outbox.", deliveredCount);
+        }
+        return deliveredCount;
+    }
+
+    /**
+     * @param outboxEmail to be delivered
+     * @param dateTime    current date/time
+     * @throws MessagingException when the delivery fails
+     */
+    private void deliverEmail(OutboxEmail outboxEmail, DateTime dateTime) throws MessagingException
+    {
+        MimeMessage message = emailSender.parseMessage(outboxEmail.getMessage());
+        if (logger.isDebugEnabled()) {
+            logger.debug("Sending email '{}' to '{}' (attempt {}, waiting {})...", new Object[]{
+                    outboxEmail.getSubject(), EmailSender.getRecipientsString(message),
+                    outboxEmail.getAttemptCount() + 1, new Duration(outboxEmail.getCreatedAt(), dateTime)
+            });
+        }
+        emailSender.sendMessage(message);
+    }
+
+    /**
+     * Plan next attempt for given {@code outboxEmail} or remove it when the maximum attempt count is reached.
+     *
+     * @param outboxEmail   which failed to be delivered
+     * @param exception     which caused the failure
+     * @param dateTime      current date/time
+     * @param entityManager to be used
+     */
+    private void onDeliveryFailed(OutboxEmail outboxEmail, MessagingException exception, DateTime dateTime,
+            EntityManager entityManager)
+    {
+        int attemptCount = outboxEmail.getAttemptCount() + 1;
+        if (attemptCount >= maxAttemptCount) {
+            Reporter.getInstance().reportInternalError(Reporter.NOTIFICATION,
+                    "Failed to send email '" + outboxEmail.getSubject() + "' (" + attemptCount + " attempts).",
+                    exception);
+            entityManager.remove(outboxEmail);
+        }
+        else {
+            DateTime nextAttemptAt = dateTime.plus(getRetryDelay(attemptCount));
+            logger.warn("Failed to send email '{}' (attempt {}), next attempt at {}: {}", new Object[]{
+                    outboxEmail.getSubject(), attemptCount, nextAttemptAt, exception.getMessage()
+            });
+            outboxEmail.setAttemptCount(attemptCount);
+            outboxEmail.setNextAttemptAt(nextAttemptAt);
+        }
+    }
+
+    /**
+     * @param attemptCount number of already failed attempts
+     * @return {@link #retryDelay} doubled for each failed attempt (at most {@link #maxRetryDelay})
+     */
+    private Duration getRetryDelay(int attemptCount)
+    {
+        long delay = retryDelay.getMillis();
+        for (int attempt = 1; attempt < attemptCount && delay < maxRetryDelay.getMillis(); attempt++) {
+            delay *= 2;
+        }
+        return new Duration(Math.min(delay, maxRetryDelay.getMillis()));
+    }
+}
@@ -3,11 +3,13 @@ package cz.cesnet.shongo.controller.notification;
 import cz.cesnet.shongo.PersonInformation;
 import cz.cesnet.shongo.controller.Component;
 import cz.cesnet.shongo.controller.ControllerConfiguration;
+import cz.cesnet.shongo.controller.api.UserSettings;
 import cz.cesnet.shongo.controller.authorization.Authorization;
 import cz.cesnet.shongo.controller.authorization.AuthorizationManager;
 import cz.cesnet.shongo.controller.booking.request.AbstractReservationRequest;
 import cz.cesnet.shongo.controller.booking.room.RoomEndpoint;
 import cz.cesnet.shongo.controller.notification.executor.NotificationExecutor;
+import cz.cesnet.shongo.controller.settings.UserSettingsManager;
 import org.joda.time.DateTime;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -69,6 +71,13 @@ public class NotificationManager extends Component implements Component.Authoriz
     protected Map<Long, RoomGroupNotification> roomGroupNotificationByRoomEndpointId =
             new HashMap<Long, RoomGroupNotification>();
 
+    /**
+     * {@link UserSettings} by user-id which are loaded once for all {@link AbstractNotification}s
+     * executed by single {@link #executeNotifications} (and thus recipients of many notifications
+     * are not loaded again for each of them).
+     */
+    private Map<String, UserSettings> userSettingsByUserId = new HashMap<String, UserSettings>();
+
     /**
      * @return {@link #authorization}
      */
@@ -193,8 +202,13 @@ public class NotificationManager extends Component implements Component.Authoriz
                 removedNotifications.add(notification);
             }
             entityManager.getTransaction().commit();
+
+            for (NotificationExecutor notificationExecutor : notificationExecutors) {
+                notificationExecutor.onNotificationsExecuted();
+            }
         }
         finally {
+            userSettingsByUserId.clear();
             for (AbstractNotification notification : removedNotifications) {
                 notification.onAfterRemoved(this);
             }
@@ -204,6 +218,22 @@ public class NotificationManager extends Component implements Component.Authoriz
         }
     }
 
+    /**
+     * @param userId        of user whose settings should be returned
+     * @param entityManager to be used for loading
+     * @return {@link UserSettings} for given {@code userId} (loaded once for all executed notifications)
+     */
+    public synchronized UserSettings getUserSettings(String userId, EntityManager entityManager)
+    {
+        UserSettings userSettings = userSettingsByUserId.get(userId);
+        if (userSettings == null && !userSettingsByUserId.containsKey(userId)) {
+            UserSettingsManager userSettingsManager = new UserSettingsManager(entityManager, authorization);
+            userSettings = userSettingsManager.getUserSettings(userId, null);
+            userSettingsByUserId.put(userId, userSettings);
+        }
+        return userSettings;
+    }
+
     /**
      * @param notification to be executed
      */
@@ -168,10 +168,10 @@ outer:
     {
         NotificationMessage notificationMessage = (NotificationMessage) super.clone();
         notificationMessage.userSettingsUrl = this.userSettingsUrl;
-        notificationMessage.languages.addAll(this.languages);
+        notificationMessage.languages = new HashSet<String>(this.languages);
         notificationMessage.title = this.title;
-        notificationMessage.content = this.content;
-        notificationMessage.attachments.addAll(this.attachments);
+        notificationMessage.content = new StringBuilder(this.content);
+        notificationMessage.attachments = new LinkedList<NotificationAttachment>(this.attachments);
         return notificationMessage;
     }
 
@@ -0,0 +1,139 @@
+package cz.cesnet.shongo.controller.notification;
+
+import cz.cesnet.shongo.SimplePersistentObject;
+import cz.cesnet.shongo.api.AbstractComplexType;
+import cz.cesnet.shongo.hibernate.PersistentDateTime;
+import org.joda.time.DateTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+
+/**
+ * Represents an email which was rendered from a {@link AbstractNotification} and which is waiting in the
+ * {@link EmailOutbox} for the delivery.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+@Entity
+public class OutboxEmail extends SimplePersistentObject
+{
+    /**
+     * Maximum length of the {@link #message}.
+     */
+    public static final int MESSAGE_MAXIMUM_LENGTH = 16 * 1024 * 1024;
+
+    /**
+     * Subject of the email (only for logging).
+     */
+    private String subject;
+
+    /**
+     * Whole email message in RFC 822 format.
+     */
+    private byte[] message;
+
+    /**
+     * Date/time when the email was added to the outbox.
+     */
+    private DateTime createdAt;
+
+    /**
+     * Number of failed delivery attempts.
+     */
+    private int attemptCount;
+
+    /**
+     * Date/time when the next delivery attempt should be performed.
+     */
+    private DateTime nextAttemptAt;
+
+    /**
+     * @return {@link #subject}
+     */
+    @Column(length = AbstractComplexType.DEFAULT_COLUMN_LENGTH)
+    public String getSubject()
+    {
+        return subject;
+    }
+
+    /**
+     * @param subject sets the {@link #subject}
+     */
+    public void setSubject(String subject)
+    {
+        if (subject != null && subject.length() > AbstractComplexType.DEFAULT_COLUMN_LENGTH) {
+            subject = subject.substring(0, AbstractComplexType.DEFAULT_COLUMN_LENGTH);
+        }
+        this.subject = subject;
+    }
+
+    /**
+     * @return {@link #message}
+     */
+    @Column(nullable = false, length = MESSAGE_MAXIMUM_LENGTH)
+    public byte[] getMessage()
+    {
+        return message;
+    }
+
+    /**
+     * @param message sets the {@link #message}
+     */
+    public void setMessage(byte[] message)
+    {
+        this.message = message;
+    }
+
+    /**
+     * @return {@link #createdAt}
+     */
+    @Column(nullable = false)
+    @org.hibernate.annotations.Type(type = PersistentDateTime.NAME)
+    public DateTime getCreatedAt()
+    {
+        return createdAt;
+    }
+
+    /**
+     * @param createdAt sets the {@link #createdAt}
+     */
+    public void setCreatedAt(DateTime createdAt)
+    {
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * @return {@link #attemptCount}
+     */
+    @Column(nullable = false, columnDefinition = "integer default 0")
+    public int getAttemptCount()
+    {
+        return attemptCount;
+    }
+
+    /**
+     * @param attemptCount sets the {@link #attemptCount}
+     */
+    public void setAttemptCount(int attemptCount)
+    {
+        this.attemptCount = attemptCount;
+    }
+
+    /**
+     * @return {@link #nextAttemptAt}
+     */
+    @Column(nullable = false)
+    @org.hibernate.annotations.Type(type = PersistentDateTime.NAME)
+    public DateTime getNextAttemptAt()
+    {
+        return nextAttemptAt;
+    }
+
+    /**
+     * @param nextAttemptAt sets the {@link #nextAttemptAt}
+     */
+    public void setNextAttemptAt(DateTime nextAttemptAt)
+    {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+}
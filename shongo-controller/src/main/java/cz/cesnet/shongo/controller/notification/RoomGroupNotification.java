@@ -82,7 +82,29 @@ public class RoomGroupNotification extends ConfigurableNotification
     }
 
     @Override
-    protected NotificationMessage getRenderedMessage(PersonInformation recipient,
+    protected Object getRecipientVariant(PersonInformation recipient)
+    {
+        // Content of the message differs only by notifications and roles of the recipient
+        List<Object> recipientVariant = new LinkedList<Object>();
+        for (RoomNotification roomNotification : this.notifications) {
+            PersonParticipant personParticipant = roomNotification.getParticipant(recipient);
+            if (personParticipant == null) {
+                continue;
+            }
+            recipientVariant.add(roomNotification);
+            recipientVariant.add(personParticipant.getRole());
+            if (roomNotification instanceof RoomNotification.RoomModified) {
+                RoomNotification.RoomModified roomModified = (RoomNotification.RoomModified) roomNotification;
+                if (roomModified.isParticipantRoleModified(recipient)) {
+                    recipientVariant.add(roomModified.getOldParticipant(recipient).getRole());
+                }
+            }
+        }
+        return recipientVariant;
+    }
+
+    @Override
+    protected NotificationMessage renderMessage(PersonInformation recipient,
             Configuration configuration, NotificationManager manager)
     {
         ConfiguredRenderContext context = new ConfiguredRenderContext(configuration, "notification", manager);
@@ -46,6 +46,12 @@ public class EmailNotificationExecutor extends NotificationExecutor
      */
     private ControllerConfiguration configuration;
 
+    /**
+     * {@link EmailOutbox} to which the emails are stored for asynchronous delivery
+     * (when it isn't set, the emails are sent immediately).
+     */
+    private EmailOutbox emailOutbox;
+
     /**
      * Constructor.
      *
@@ -57,6 +63,14 @@ public class EmailNotificationExecutor extends NotificationExecutor
         this.configuration = configuration;
     }
 
+    /**
+     * @param emailOutbox sets the {@link #emailOutbox}
+     */
+    public void setEmailOutbox(EmailOutbox emailOutbox)
+    {
+        this.emailOutbox = emailOutbox;
+    }
+
     @Override
     public void executeNotification(PersonInformation recipient, AbstractNotification notification,
             NotificationManager manager, EntityManager entityManager)
@@ -141,11 +155,24 @@ public class EmailNotificationExecutor extends NotificationExecutor
 
             }
 
-            // Send email
-            emailSender.sendEmail(email);
+            // Send email (or store it for delivery)
+            if (emailOutbox != null) {
+                emailOutbox.addEmail(email, entityManager);
+            }
+            else {
+                emailSender.sendEmail(email);
+            }
         }
         catch (Exception exception) {
             Reporter.getInstance().reportInternalError(Reporter.NOTIFICATION, "Failed to send email", exception);
         }
     }
+
+    @Override
+    public void onNotificationsExecuted()
+    {
+        if (emailOutbox != null) {
+            emailOutbox.requestDelivery();
+        }
+    }
 }
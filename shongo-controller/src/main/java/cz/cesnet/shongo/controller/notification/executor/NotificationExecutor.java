@@ -35,4 +35,11 @@ public abstract class NotificationExecutor
      */
     public abstract void executeNotification(PersonInformation recipient, AbstractNotification notification,
             NotificationManager manager, EntityManager entityManager);
+
+    /**
+     * Called after all {@link AbstractNotification}s have been executed and the transaction has been committed.
+     */
+    public void onNotificationsExecuted()
+    {
+    }
 }
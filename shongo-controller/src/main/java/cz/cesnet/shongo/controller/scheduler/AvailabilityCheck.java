@@ -0,0 +1,312 @@
+package cz.cesnet.shongo.controller.scheduler;
+
+import cz.cesnet.shongo.controller.ControllerReportSet;
+import cz.cesnet.shongo.controller.ReservationRequestPurpose;
+import cz.cesnet.shongo.controller.authorization.Authorization;
+import cz.cesnet.shongo.controller.authorization.AuthorizationManager;
+import cz.cesnet.shongo.controller.booking.Allocation;
+import cz.cesnet.shongo.controller.booking.request.AbstractReservationRequest;
+import cz.cesnet.shongo.controller.booking.request.ReservationRequest;
+import cz.cesnet.shongo.controller.booking.reservation.Reservation;
+import cz.cesnet.shongo.controller.booking.specification.Specification;
+import cz.cesnet.shongo.controller.cache.Cache;
+import org.joda.time.DateTime;
+import org.joda.time.Interval;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+
+/**
+ * Checks availability of a {@link Specification} for all occurrences of a periodic slot at once. All occurrences are
+ * evaluated in a single rolled-back transaction with a single {@link EntityManager} (and thus reservations which are
+ * loaded for the first occurrence are reused from the persistence context and from the {@link Cache} for the others)
+ * and reservations of the ignored reservation request are loaded only once for the whole span.
+ * <p/>
+ * The {@link Specification} is created from API only once and it is cloned for each occurrence. When an occurrence
+ * fails only by reasons which don't depend on the slot (e.g., the resource isn't allocatable), the same
+ * {@link SchedulerReport} is used for all remaining occurrences without performing their {@link ReservationTask}s.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class AvailabilityCheck
+{
+    /**
+     * Types of leaf {@link SchedulerReport}s which don't depend on the checked slot.
+     */
+    private static final List<Class<? extends SchedulerReport>> SLOT_INDEPENDENT_REPORTS =
+            new ArrayList<Class<? extends SchedulerReport>>();
+
+    static {
+        SLOT_INDEPENDENT_REPORTS.add(SchedulerReportSet.ResourceNotAllocatableReport.class);
+        SLOT_INDEPENDENT_REPORTS.add(SchedulerReportSet.ResourceNotEndpointReport.class);
+        SLOT_INDEPENDENT_REPORTS.add(SchedulerReportSet.UserNotAllowedReport.class);
+        SLOT_INDEPENDENT_REPORTS.add(SchedulerReportSet.UserNotOwnerReport.class);
+        SLOT_INDEPENDENT_REPORTS.add(SchedulerReportSet.SpecificationNotAllocatableReport.class);
+    }
+
+    /**
+     * @see Cache
+     */
+    private final Cache cache;
+
+    /**
+     * {@link EntityManager} which is used for all occurrences.
+     */
+    private final EntityManager entityManager;
+
+    /**
+     * @see Authorization
+     */
+    private final Authorization authorization;
+
+    /**
+     * User-id of the user who checks the availability.
+     */
+    private String userId;
+
+    /**
+     * @see ReservationRequestPurpose
+     */
+    private ReservationRequestPurpose purpose;
+
+    /**
+     * API {@link cz.cesnet.shongo.controller.api.Specification} which should be checked.
+     */
+    private cz.cesnet.shongo.controller.api.Specification specificationApi;
+
+    /**
+     * {@link Allocation} which should be reused.
+     */
+    private Allocation reusedAllocation;
+
+    /**
+     * {@link Reservation}s of the ignored reservation request (they are available in all occurrences).
+     */
+    private final List<Reservation> ignoredReservations = new LinkedList<Reservation>();
+
+    /**
+     * {@link Reservation}s of child reservation requests of the ignored reservation request.
+     */
+    private final List<Reservation> ignoredChildReservations = new LinkedList<Reservation>();
+
+    /**
+     * Number of occurrences for which the {@link ReservationTask} was performed by the last {@link #check}.
+     */
+    private int checkedOccurrenceCount;
+
+    /**
+     * Constructor.
+     *
+     * @param cache         sets the {@link #cache}
+     * @param entityManager sets the {@link #entityManager}
+     * @param authorization sets the {@link #authorization}
+     */
+    public AvailabilityCheck(Cache cache, EntityManager entityManager, Authorization authorization)
+    {
+        this.cache = cache;
+        this.entityManager = entityManager;
+        this.authorization = authorization;
+    }
+
+    /**
+     * @param userId sets the {@link #userId}
+     */
+    public void setUserId(String userId)
+    {
+        this.userId = userId;
+    }
+
+    /**
+     * @param purpose sets the {@link #purpose}
+     */
+    public void setPurpose(ReservationRequestPurpose purpose)
+    {
+        this.purpose = purpose;
+    }
+
+    /**
+     * @param specificationApi sets the {@link #specificationApi}
+     */
+    public void setSpecification(cz.cesnet.shongo.controller.api.Specification specificationApi)
+    {
+        this.specificationApi = specificationApi;
+    }
+
+    /**
+     * @param reusedAllocation sets the {@link #reusedAllocation}
+     */
+    public void setReusedAllocation(Allocation reusedAllocation)
+    {
+        this.reusedAllocation = reusedAllocation;
+    }
+
+    /**
+     * @param ignoredReservationRequest whose reservations should be ignored (they are available)
+     */
+    public void setIgnoredReservationRequest(AbstractReservationRequest ignoredReservationRequest)
+    {
+        ignoredReservations.clear();
+        ignoredChildReservations.clear();
+        Allocation allocation = ignoredReservationRequest.getAllocation();
+        ignoredReservations.addAll(allocation.getReservations());
+        for (ReservationRequest childReservationRequest : allocation.getChildReservationRequests()) {
+            ignoredChildReservations.addAll(childReservationRequest.getAllocation().getReservations());
+        }
+    }
+
+    /**
+     * @return {@link #checkedOccurrenceCount}
+     */
+    public int getCheckedOccurrenceCount()
+    {
+        return checkedOccurrenceCount;
+    }
+
+    /**
+     * Check availability for given {@code slots}.
+     *
+     * @param slots           occurrences which should be checked
+     * @param stopUnavailable specifies whether the checking should stop on the first not available occurrence
+     * @return map of {@link SchedulerReport}s describing the reason why the occurrences are not available
+     *         (or {@code null} when they are available) by occurrences in the same order as given {@code slots}
+     */
+    public Map<Interval, SchedulerReport> check(Collection<Interval> slots, boolean stopUnavailable)
+    {
+        Map<Interval, SchedulerReport> reports = new LinkedHashMap<Interval, SchedulerReport>();
+        checkedOccurrenceCount = 0;
+        entityManager.getTransaction().begin();
+        try {
+            Specification specification = null;
+            if (specificationApi != null) {
+                specification = Specification.createFromApi(specificationApi, entityManager);
+            }
+            SchedulerReport slotIndependentReport = null;
+            for (Interval occurrenceSlot : slots) {
+                if (reports.containsKey(occurrenceSlot)) {
+                    continue;
+                }
+                if (slotIndependentReport != null) {
+                    // Occurrence would fail by the same reason as the previous one
+                    reports.put(occurrenceSlot, slotIndependentReport);
+                    continue;
+                }
+                SchedulerReport report = checkOccurrence(occurrenceSlot, specification);
+                checkedOccurrenceCount++;
+                reports.put(occurrenceSlot, report);
+                if (report != null) {
+                    if (stopUnavailable) {
+                        break;
+                    }
+                    if (isSlotIndependent(report)) {
+                        slotIndependentReport = report;
+                    }
+                }
+            }
+        }
+        finally {
+            entityManager.getTransaction().rollback();
+        }
+        return reports;
+    }
+
+    /**
+     * @param report of not available occurrence
+     * @return true whether given {@code report} would be the same for any other occurrence, false otherwise
+     */
+    private boolean isSlotIndependent(SchedulerReport report)
+    {
+        // Reservations which are available only in some occurrences can be reused instead of the failed ones
+        if (reusedAllocation != null || !ignoredReservations.isEmpty() || !ignoredChildReservations.isEmpty()) {
+            return false;
+        }
+        List<SchedulerReport> childReports = report.getChildReports();
+        if (childReports.isEmpty()) {
+            for (Class<? extends SchedulerReport> reportType : SLOT_INDEPENDENT_REPORTS) {
+                if (reportType.isInstance(report)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        for (SchedulerReport childReport : childReports) {
+            if (!isSlotIndependent(childReport)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @param occurrenceSlot        to be checked
+     * @param templateSpecification to be cloned and checked for given {@code occurrenceSlot} (or {@code null})
+     * @return {@link SchedulerReport} describing the reason why the occurrence is not available
+     *         or {@code null} when it is available
+     */
+    private SchedulerReport checkOccurrence(Interval occurrenceSlot, Specification templateSpecification)
+    {
+        // We must check only the future (because scheduler allocates only in future)
+        DateTime minimumDateTime = DateTime.now();
+        Interval slot = occurrenceSlot;
+        if (slot.getEnd().isBefore(minimumDateTime)) {
+            throw new ControllerReportSet.ReservationRequestEmptyDurationException();
+        }
+        if (slot.getStart().isBefore(minimumDateTime)) {
+            slot = slot.withStart(minimumDateTime);
+        }
+
+        Specification specification = null;
+        Interval allocationSlot = slot;
+        if (templateSpecification != null) {
+            specification = templateSpecification.clone(entityManager);
+            if (specification instanceof SpecificationIntervalUpdater) {
+                SpecificationIntervalUpdater intervalUpdater = (SpecificationIntervalUpdater) specification;
+                allocationSlot = intervalUpdater.updateInterval(allocationSlot, minimumDateTime);
+            }
+        }
+
+        // Create scheduler context
+        SchedulerContext schedulerContext = new SchedulerContext(DateTime.now(), cache, entityManager,
+                new AuthorizationManager(entityManager, authorization));
+        schedulerContext.setUserId(userId);
+        schedulerContext.setPurpose(purpose);
+        schedulerContext.setAvailabilityCheck(true);
+
+        // Ignore reservations for already allocated reservation request
+        SchedulerContextState schedulerContextState = schedulerContext.getState();
+        for (Reservation reservation : ignoredReservations) {
+            if (allocationSlot.overlaps(reservation.getSlot())) {
+                schedulerContextState.addAvailableReservation(reservation, AvailableReservation.Type.REALLOCATABLE);
+            }
+        }
+        for (Reservation reservation : ignoredChildReservations) {
+            if (reservation.getSlot().overlaps(slot)) {
+                schedulerContextState.addAvailableReservation(reservation, AvailableReservation.Type.REALLOCATABLE);
+            }
+        }
+
+        try {
+            // Check reservation request reusability
+            if (reusedAllocation != null) {
+                schedulerContext.setReusableAllocation(reusedAllocation, slot);
+            }
+
+            // Check specification availability
+            if (specification != null) {
+                if (specification instanceof ReservationTaskProvider) {
+                    ReservationTaskProvider reservationTaskProvider = (ReservationTaskProvider) specification;
+                    ReservationTask reservationTask =
+                            reservationTaskProvider.createReservationTask(schedulerContext, slot);
+                    reservationTask.perform();
+                }
+                else {
+                    throw new SchedulerReportSet.SpecificationNotAllocatableException(specification);
+                }
+            }
+        }
+        catch (SchedulerException exception) {
+            // Specification cannot be allocated or reservation request cannot be reused in requested time slot
+            return exception.getReport();
+        }
+        return null;
+    }
+}
@@ -0,0 +1,326 @@
+package cz.cesnet.shongo.controller.scheduler;
+
+import cz.cesnet.shongo.controller.Component;
+import cz.cesnet.shongo.controller.ControllerConfiguration;
+import cz.cesnet.shongo.controller.booking.request.AbstractReservationRequest;
+import cz.cesnet.shongo.controller.booking.request.ReservationRequest;
+import cz.cesnet.shongo.controller.booking.request.ReservationRequestSet;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Represents a {@link Component} which records changes made by RPC services, {@link Preprocessor},
+ * {@link Scheduler} and {@link cz.cesnet.shongo.controller.executor.Executor} which must be processed by
+ * the {@link Preprocessor} and the {@link Scheduler}. It allows them to process only the changed objects instead of
+ * scanning all objects in each run. The full scan (reconciliation) is still performed periodically and whenever
+ * it is explicitly requested (e.g., after a failure), because some changes (e.g., the moving working interval or
+ * modifications made directly in the database) cannot be recorded.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ChangeJournal extends Component
+{
+    private static Logger logger = LoggerFactory.getLogger(ChangeJournal.class);
+
+    /**
+     * Identifiers of {@link ReservationRequestSet}s which should be pre-processed.
+     */
+    private Set<Long> reservationRequestSetIds = new HashSet<Long>();
+
+    /**
+     * Identifiers of {@link ReservationRequest}s which should be allocated.
+     */
+    private Set<Long> reservationRequestIds = new HashSet<Long>();
+
+    /**
+     * Specifies whether some allocations, reservations or reservation requests should be deleted.
+     */
+    private boolean deletions = false;
+
+    /**
+     * Specifies whether some executables should be deleted.
+     */
+    private boolean executables = false;
+
+    /**
+     * Specifies whether the full reconciliation has been requested.
+     */
+    private boolean reconciliation = true;
+
+    /**
+     * @see ControllerConfiguration#WORKER_RECONCILIATION_PERIOD
+     */
+    private Duration reconciliationPeriod;
+
+    /**
+     * {@link DateTime} of the last full reconciliation.
+     */
+    private DateTime reconciliationDateTime;
+
+    @Override
+    public void init(ControllerConfiguration configuration)
+    {
+        super.init(configuration);
+
+        reconciliationPeriod = configuration.getDuration(ControllerConfiguration.WORKER_RECONCILIATION_PERIOD);
+    }
+
+    /**
+     * @param reconciliationPeriod sets the {@link #reconciliationPeriod}
+     */
+    public void setReconciliationPeriod(Duration reconciliationPeriod)
+    {
+        this.reconciliationPeriod = reconciliationPeriod;
+    }
+
+    /**
+     * Record that given {@code reservationRequest} has been created or modified.
+     *
+     * @param reservationRequest which should be pre-processed or allocated
+     */
+    public synchronized void markReservationRequest(AbstractReservationRequest reservationRequest)
+    {
+        if (reservationRequest instanceof ReservationRequestSet) {
+            reservationRequestSetIds.add(reservationRequest.getId());
+        }
+        else if (reservationRequest instanceof ReservationRequest) {
+            reservationRequestIds.add(reservationRequest.getId());
+        }
+    }
+
+    /**
+     * Record that {@link ReservationRequest} with given {@code reservationRequestId} should be allocated.
+     *
+     * @param reservationRequestId identifier of {@link ReservationRequest}
+     */
+    private synchronized void markReservationRequestId(Long reservationRequestId)
+    {
+        reservationRequestIds.add(reservationRequestId);
+    }
+
+    /**
+     * Record that some allocations, reservations or reservation requests should be deleted
+     * (and thus also some executables).
+     */
+    public synchronized void markDeletions()
+    {
+        deletions = true;
+        executables = true;
+    }
+
+    /**
+     * Record that some executables should be deleted.
+     */
+    public synchronized void markExecutables()
+    {
+        executables = true;
+    }
+
+    /**
+     * Request full reconciliation in the next run.
+     */
+    public synchronized void requestReconciliation()
+    {
+        reconciliation = true;
+    }
+
+    /**
+     * Pop all recorded changes.
+     *
+     * @param dateTime current date/time
+     * @return {@link Changes} recorded since the last call
+     */
+    public synchronized Changes pop(DateTime dateTime)
+    {
+        if (reconciliationDateTime == null || reconciliationPeriod == null
+                || !dateTime.isBefore(reconciliationDateTime.plus(reconciliationPeriod))) {
+            reconciliation = true;
+        }
+        Changes changes = new Changes(this, reconciliation, reservationRequestSetIds, reservationRequestIds,
+                deletions, executables);
+        if (reconciliation) {
+            logger.debug("Full reconciliation is performed.");
+            reconciliationDateTime = dateTime;
+        }
+        reservationRequestSetIds = new HashSet<Long>();
+        reservationRequestIds = new HashSet<Long>();
+        deletions = false;
+        executables = false;
+        reconciliation = false;
+        return changes;
+    }
+
+    /**
+     * Changes popped from the {@link ChangeJournal}.
+     */
+    public static class Changes
+    {
+        /**
+         * {@link ChangeJournal} from which the changes were popped.
+         */
+        private final ChangeJournal changeJournal;
+
+        /**
+         * @see ChangeJournal#reconciliation
+         */
+        private final boolean reconciliation;
+
+        /**
+         * @see ChangeJournal#reservationRequestSetIds
+         */
+        private final Set<Long> reservationRequestSetIds;
+
+        /**
+         * @see ChangeJournal#reservationRequestIds
+         */
+        private final Set<Long> reservationRequestIds;
+
+        /**
+         * @see ChangeJournal#deletions
+         */
+        private boolean deletions;
+
+        /**
+         * @see ChangeJournal#executables
+         */
+        private boolean executables;
+
+        /**
+         * Constructor.
+         *
+         * @param changeJournal            sets the {@link #changeJournal}
+         * @param reconciliation           sets the {@link #reconciliation}
+         * @param reservationRequestSetIds sets the {@link #reservationRequestSetIds}
+         * @param reservationRequestIds    sets the {@link #reservationRequestIds}
+         * @param deletions                sets the {@link #deletions}
+         * @param executables              sets the {@link #executables}
+         */
+        private Changes(ChangeJournal changeJournal, boolean reconciliation, Set<Long> reservationRequestSetIds,
+                Set<Long> reservationRequestIds, boolean deletions, boolean executables)
+        {
+            this.changeJournal = changeJournal;
+            this.reconciliation = reconciliation;
+            this.reservationRequestSetIds = reservationRequestSetIds;
+            this.reservationRequestIds = reservationRequestIds;
+            this.deletions = deletions;
+            this.executables = executables;
+        }
+
+        /**
+         * @return {@link #reconciliation}
+         */
+        public boolean isReconciliation()
+        {
+            return reconciliation;
+        }
+
+        /**
+         * @return {@link #reservationRequestSetIds}
+         */
+        public Set<Long> getReservationRequestSetIds()
+        {
+            return Collections.unmodifiableSet(reservationRequestSetIds);
+        }
+
+        /**
+         * @return {@link #reservationRequestIds}
+         */
+        public Set<Long> getReservationRequestIds()
+        {
+            return Collections.unmodifiableSet(reservationRequestIds);
+        }
+
+        /**
+         * @param reservationRequestId to be added to the {@link #reservationRequestIds}
+         */
+        public void addReservationRequestId(Long reservationRequestId)
+        {
+            reservationRequestIds.add(reservationRequestId);
+        }
+
+        /**
+         * @return true whether allocations, reservations or reservation requests should be deleted, false otherwise
+         */
+        public boolean hasDeletions()
+        {
+            return reconciliation || deletions;
+        }
+
+        /**
+         * @return true whether executables should be deleted, false otherwise
+         */
+        public boolean hasExecutables()
+        {
+            return reconciliation || executables;
+        }
+
+        /**
+         * Record that some allocations, reservations or reservation requests should be deleted.
+         */
+        public void markDeletions()
+        {
+            deletions = true;
+            executables = true;
+        }
+
+        /**
+         * Record that some executables should be deleted.
+         */
+        public void markExecutables()
+        {
+            executables = true;
+        }
+
+        /**
+         * Record given {@code reservationRequestId} to the {@link ChangeJournal} to be allocated in the next run
+         * (e.g., when it cannot be allocated now).
+         *
+         * @param reservationRequestId identifier of {@link ReservationRequest}
+         */
+        public void postponeReservationRequest(Long reservationRequestId)
+        {
+            changeJournal.markReservationRequestId(reservationRequestId);
+        }
+
+        /**
+         * Record deletions to the {@link ChangeJournal} to be performed in the next run
+         * (e.g., when some cannot be performed now).
+         */
+        public void postponeDeletions()
+        {
+            changeJournal.markDeletions();
+        }
+
+        /**
+         * Record deletion of executables to the {@link ChangeJournal} to be performed in the next run
+         * (e.g., when some cannot be performed now).
+         */
+        public void postponeExecutables()
+        {
+            changeJournal.markExecutables();
+        }
+
+        /**
+         * Processing of the changes has failed and thus the full reconciliation must be performed in the next run.
+         */
+        public void fail()
+        {
+            changeJournal.requestReconciliation();
+        }
+
+        /**
+         * @return true whether no change is recorded, false otherwise
+         */
+        public boolean isEmpty()
+        {
+            return !reconciliation && !deletions && !executables
+                    && reservationRequestSetIds.isEmpty() && reservationRequestIds.isEmpty();
+        }
+    }
+}
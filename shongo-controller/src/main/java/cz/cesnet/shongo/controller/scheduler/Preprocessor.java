@@ -21,6 +21,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.persistence.EntityManager;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -49,6 +50,11 @@ public class Preprocessor extends SwitchableComponent implements Component.Autho
      */
     private NotificationManager notificationManager;
 
+    /**
+     * Interval for which the last full pre-processing was performed.
+     */
+    private Interval preprocessedInterval;
+
     /**
      * @param cache sets the {@link #cache}
      */
@@ -81,7 +87,20 @@ public class Preprocessor extends SwitchableComponent implements Component.Autho
      *
      * @param interval
      */
-    public synchronized Result run(Interval interval, EntityManager entityManager)
+    public Result run(Interval interval, EntityManager entityManager)
+    {
+        return run(interval, entityManager, null);
+    }
+
+    /**
+     * Run preprocessor for a given interval.
+     *
+     * @param interval
+     * @param changes  which should be processed (all reservation request sets are processed when it is {@code null}
+     *                 or when the reconciliation is requested or when the interval has changed) and to which
+     *                 the created and modified reservation requests are added
+     */
+    public synchronized Result run(Interval interval, EntityManager entityManager, ChangeJournal.Changes changes)
     {
         Result result = new Result();
         if (!isEnabled()) {
@@ -106,11 +125,21 @@ public class Preprocessor extends SwitchableComponent implements Component.Autho
         ReservationRequestManager reservationRequestManager = new ReservationRequestManager(entityManager);
         try {
 
-            // Process all not-preprocessed reservation request sets
-            List<ReservationRequestSet> reservationRequestSets =
-                    reservationRequestManager.listNotPreprocessedReservationRequestSets(interval);
+            // Process all not-preprocessed reservation request sets (or only the changed ones)
+            List<ReservationRequestSet> reservationRequestSets;
+            if (changes == null || changes.isReconciliation() || !interval.equals(preprocessedInterval)) {
+                reservationRequestSets = reservationRequestManager.listNotPreprocessedReservationRequestSets(interval);
+                preprocessedInterval = interval;
+            }
+            else if (!changes.getReservationRequestSetIds().isEmpty()) {
+                reservationRequestSets = reservationRequestManager.listNotPreprocessedReservationRequestSets(
+                        interval, changes.getReservationRequestSetIds());
+            }
+            else {
+                reservationRequestSets = Collections.emptyList();
+            }
             for (ReservationRequestSet reservationRequestSet : reservationRequestSets) {
-                processReservationRequestSet(reservationRequestSet, interval, entityManager, result);
+                processReservationRequestSet(reservationRequestSet, interval, entityManager, changes, result);
             }
 
             if (!result.isEmpty()) {
@@ -122,6 +151,9 @@ public class Preprocessor extends SwitchableComponent implements Component.Autho
 
         }
         catch (Exception exception) {
+            if (changes != null) {
+                changes.fail();
+            }
             Reporter.getInstance().reportInternalError(Reporter.PREPROCESSOR, exception);
         }
         return result;
@@ -131,7 +163,7 @@ public class Preprocessor extends SwitchableComponent implements Component.Autho
      * Synchronize (create/modify/delete) {@link ReservationRequest}s from a single {@link ReservationRequestSet}.
      */
     private void processReservationRequestSet(ReservationRequestSet reservationRequestSet, Interval interval,
-            EntityManager entityManager, Result result) throws Exception
+            EntityManager entityManager, ChangeJournal.Changes changes, Result result) throws Exception
     {
         reservationRequestSet.checkPersisted();
 
@@ -150,6 +182,7 @@ public class Preprocessor extends SwitchableComponent implements Component.Autho
             // List all child reservation requests for the set
             List<ReservationRequest> childReservationRequests =
                     reservationRequestManager.listChildReservationRequests(reservationRequestSet, interval);
+            List<ReservationRequest> processedReservationRequests = new LinkedList<ReservationRequest>();
 
             // For each requested slot we must create or modify reservation request.
             // If we find date/time slot in prepared map we modify the corresponding request
@@ -224,6 +257,8 @@ public class Preprocessor extends SwitchableComponent implements Component.Autho
 
                 // Update state for modified/new reservation request
                 childReservationRequest.updateStateBySpecification();
+
+                processedReservationRequests.add(childReservationRequest);
             }
 
             // All child reservation requests that remains in list must be deleted
@@ -256,6 +291,16 @@ public class Preprocessor extends SwitchableComponent implements Component.Autho
 
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
+
+            // Child reservation requests should be allocated and deleted ones deallocated
+            if (changes != null) {
+                for (ReservationRequest reservationRequest : processedReservationRequests) {
+                    changes.addReservationRequestId(reservationRequest.getId());
+                }
+                if (!childReservationRequests.isEmpty()) {
+                    changes.markDeletions();
+                }
+            }
         }
         catch (Exception exception) {
             if (authorizationManager.isTransactionActive()) {
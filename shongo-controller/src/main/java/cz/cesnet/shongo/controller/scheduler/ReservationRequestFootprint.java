@@ -0,0 +1,262 @@
+package cz.cesnet.shongo.controller.scheduler;
+
+import cz.cesnet.shongo.controller.booking.Allocation;
+import cz.cesnet.shongo.controller.booking.alias.AliasProviderCapability;
+import cz.cesnet.shongo.controller.booking.alias.AliasSetSpecification;
+import cz.cesnet.shongo.controller.booking.alias.AliasSpecification;
+import cz.cesnet.shongo.controller.booking.recording.RecordingCapability;
+import cz.cesnet.shongo.controller.booking.request.ReservationRequest;
+import cz.cesnet.shongo.controller.booking.reservation.ExistingReservation;
+import cz.cesnet.shongo.controller.booking.reservation.Reservation;
+import cz.cesnet.shongo.controller.booking.resource.Capability;
+import cz.cesnet.shongo.controller.booking.resource.Resource;
+import cz.cesnet.shongo.controller.booking.resource.ResourceSpecification;
+import cz.cesnet.shongo.controller.booking.room.RoomProviderCapability;
+import cz.cesnet.shongo.controller.booking.room.RoomSpecification;
+import cz.cesnet.shongo.controller.booking.specification.Specification;
+import cz.cesnet.shongo.controller.booking.value.ValueSpecification;
+import cz.cesnet.shongo.controller.booking.value.provider.ValueProvider;
+import cz.cesnet.shongo.controller.cache.Cache;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Set of keys identifying everything which can be modified when a {@link ReservationRequest} is allocated
+ * (top-level {@link Resource}s of allocated capabilities and value providers and {@link Allocation}s).
+ * Two {@link ReservationRequest}s with disjoint footprints can be allocated concurrently.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ReservationRequestFootprint
+{
+    /**
+     * Keys of the footprint.
+     */
+    private final Set<String> keys = new HashSet<String>();
+
+    /**
+     * Constructor.
+     */
+    private ReservationRequestFootprint()
+    {
+    }
+
+    /**
+     * @return {@link #keys}
+     */
+    public Set<String> getKeys()
+    {
+        return keys;
+    }
+
+    /**
+     * @param footprint
+     * @return true whether this footprint shares any key with given {@code footprint}, false otherwise
+     */
+    public boolean intersects(ReservationRequestFootprint footprint)
+    {
+        for (String key : footprint.keys) {
+            if (keys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param footprint to be merged to this footprint
+     */
+    public void merge(ReservationRequestFootprint footprint)
+    {
+        keys.addAll(footprint.keys);
+    }
+
+    /**
+     * @param keys to be checked
+     * @return true whether all given {@code keys} belongs to this footprint, false otherwise
+     */
+    public boolean containsAll(Collection<String> keys)
+    {
+        return this.keys.containsAll(keys);
+    }
+
+    /**
+     * Estimate footprint of given {@code reservationRequest}. The estimate is conservative, any
+     * {@link Specification} for which it is not possible to determine the footprint results in {@code null}.
+     *
+     * @param reservationRequest for which the footprint should be estimated
+     * @param cache              to be used for lookup of shared capabilities
+     * @return {@link ReservationRequestFootprint} or {@code null} when it cannot be determined
+     */
+    public static ReservationRequestFootprint estimate(ReservationRequest reservationRequest, Cache cache)
+    {
+        ReservationRequestFootprint footprint = new ReservationRequestFootprint();
+        footprint.addAllocation(reservationRequest.getAllocation());
+        footprint.addAllocation(reservationRequest.getReusedAllocation());
+        footprint.addAllocation(reservationRequest.getParentAllocation());
+        if (!footprint.addSpecification(reservationRequest.getSpecification(), cache)) {
+            return null;
+        }
+        return footprint;
+    }
+
+    /**
+     * Fill keys which are actually modified by given {@code reservation} (recursive).
+     *
+     * @param reservation which has been allocated
+     * @param keys        to which the keys should be added
+     */
+    public static void getKeys(Reservation reservation, Set<String> keys)
+    {
+        Resource allocatedResource = reservation.getAllocatedResource();
+        if (allocatedResource != null) {
+            keys.add(getResourceKey(allocatedResource));
+        }
+        if (reservation instanceof ExistingReservation) {
+            ExistingReservation existingReservation = (ExistingReservation) reservation;
+            Allocation allocation = existingReservation.getReusedReservation().getAllocation();
+            if (allocation != null) {
+                keys.add(getAllocationKey(allocation));
+            }
+        }
+        for (Reservation childReservation : reservation.getChildReservations()) {
+            getKeys(childReservation, keys);
+        }
+    }
+
+    /**
+     * @param resource
+     * @return key for top-level parent of given {@code resource}
+     */
+    public static String getResourceKey(Resource resource)
+    {
+        while (resource.getParentResource() != null) {
+            resource = resource.getParentResource();
+        }
+        return "resource:" + resource.getId();
+    }
+
+    /**
+     * @param allocation
+     * @return key for given {@code allocation}
+     */
+    private static String getAllocationKey(Allocation allocation)
+    {
+        return "allocation:" + allocation.getId();
+    }
+
+    /**
+     * @param allocation to be added to the {@link #keys}
+     */
+    private void addAllocation(Allocation allocation)
+    {
+        if (allocation != null) {
+            keys.add(getAllocationKey(allocation));
+        }
+    }
+
+    /**
+     * @param resource to be added to the {@link #keys}
+     */
+    private void addResource(Resource resource)
+    {
+        keys.add(getResourceKey(resource));
+    }
+
+    /**
+     * @param valueProvider to be added to the {@link #keys}
+     */
+    private void addValueProvider(ValueProvider valueProvider)
+    {
+        addResource(valueProvider.getCapabilityResource());
+        addResource(valueProvider.getTargetValueProvider().getCapabilityResource());
+    }
+
+    /**
+     * @param aliasProviderCapability to be added to the {@link #keys}
+     */
+    private void addAliasProvider(AliasProviderCapability aliasProviderCapability)
+    {
+        addResource(aliasProviderCapability.getResource());
+        addValueProvider(aliasProviderCapability.getValueProvider());
+    }
+
+    /**
+     * @param capabilityType whose all resources should be added to the {@link #keys}
+     * @param cache          from which the capabilities should be loaded
+     */
+    private void addCapabilities(Class<? extends Capability> capabilityType, Cache cache)
+    {
+        for (Capability capability : cache.getResourceCache().getCapabilities(capabilityType)) {
+            addResource(capability.getResource());
+        }
+    }
+
+    /**
+     * @param cache from which the alias providers should be loaded
+     */
+    private void addAliasProviders(Cache cache)
+    {
+        for (AliasProviderCapability capability :
+                cache.getResourceCache().getCapabilities(AliasProviderCapability.class)) {
+            addAliasProvider(capability);
+        }
+    }
+
+    /**
+     * @param specification to be added to the {@link #keys}
+     * @param cache         to be used
+     * @return true whether the footprint of given {@code specification} is known, false otherwise
+     */
+    private boolean addSpecification(Specification specification, Cache cache)
+    {
+        if (specification instanceof ResourceSpecification) {
+            ResourceSpecification resourceSpecification = (ResourceSpecification) specification;
+            if (resourceSpecification.getResource() == null) {
+                // Foreign resources are allocated in other domains
+                return false;
+            }
+            addResource(resourceSpecification.getResource());
+            return true;
+        }
+        else if (specification instanceof ValueSpecification) {
+            ValueSpecification valueSpecification = (ValueSpecification) specification;
+            addValueProvider(valueSpecification.getValueProvider());
+            return true;
+        }
+        else if (specification instanceof AliasSpecification) {
+            AliasSpecification aliasSpecification = (AliasSpecification) specification;
+            if (aliasSpecification.getAliasProviderCapability() != null) {
+                addAliasProvider(aliasSpecification.getAliasProviderCapability());
+            }
+            else {
+                addAliasProviders(cache);
+            }
+            return true;
+        }
+        else if (specification instanceof AliasSetSpecification) {
+            AliasSetSpecification aliasSetSpecification = (AliasSetSpecification) specification;
+            for (AliasSpecification aliasSpecification : aliasSetSpecification.getAliasSpecifications()) {
+                addSpecification(aliasSpecification, cache);
+            }
+            return true;
+        }
+        else if (specification instanceof RoomSpecification) {
+            RoomSpecification roomSpecification = (RoomSpecification) specification;
+            if (roomSpecification.getDeviceResource() != null) {
+                addResource(roomSpecification.getDeviceResource());
+            }
+            else {
+                addCapabilities(RoomProviderCapability.class, cache);
+            }
+            addAliasProviders(cache);
+            if (!roomSpecification.getServiceSpecifications().isEmpty()) {
+                addCapabilities(RecordingCapability.class, cache);
+            }
+            return true;
+        }
+        return false;
+    }
+}
@@ -10,11 +10,11 @@ import cz.cesnet.shongo.controller.booking.recording.RecordingCapability;
 import cz.cesnet.shongo.controller.booking.recording.RecordingServiceReservation;
 import cz.cesnet.shongo.controller.booking.reservation.ExistingReservation;
 import cz.cesnet.shongo.controller.booking.reservation.Reservation;
-import cz.cesnet.shongo.controller.booking.reservation.ReservationManager;
 import cz.cesnet.shongo.controller.booking.resource.EndpointReservation;
 import cz.cesnet.shongo.controller.booking.resource.ResourceReservation;
 import cz.cesnet.shongo.controller.booking.room.RoomReservation;
 import cz.cesnet.shongo.controller.cache.Cache;
+import cz.cesnet.shongo.controller.cache.ReservationCache;
 import cz.cesnet.shongo.controller.cache.ResourceCache;
 import cz.cesnet.shongo.controller.booking.resource.DeviceResource;
 import cz.cesnet.shongo.controller.booking.resource.Resource;
@@ -130,9 +130,9 @@ public class ResourceReservationTask extends ReservationTask
             // Get room reservations
             RoomProviderCapability roomProviderCapability = deviceResource.getCapability(RoomProviderCapability.class);
             if (roomProviderCapability != null) {
-                ReservationManager reservationManager = new ReservationManager(schedulerContext.getEntityManager());
-                List<RoomReservation> roomReservations =
-                        reservationManager.getRoomReservations(roomProviderCapability, slot);
+                ReservationCache reservationCache = getCache().getReservationCache();
+                List<RoomReservation> roomReservations = reservationCache.getReservations(RoomReservation.class,
+                        roomProviderCapability.getId(), slot, schedulerContext.getEntityManager());
                 schedulerContextState.applyReservations(roomProviderCapability.getId(), slot,
                         roomReservations, RoomReservation.class);
                 collidingReservations.addAll(roomReservations);
@@ -140,9 +140,10 @@ public class ResourceReservationTask extends ReservationTask
             // Get recording service reservations
             RecordingCapability recordingCapability = deviceResource.getCapability(RecordingCapability.class);
             if (recordingCapability != null) {
-                ReservationManager reservationManager = new ReservationManager(schedulerContext.getEntityManager());
-                List<RecordingServiceReservation> recordingServiceReservations =
-                        reservationManager.getRecordingServiceReservations(recordingCapability, slot);
+                ReservationCache reservationCache = getCache().getReservationCache();
+                List<RecordingServiceReservation> recordingServiceReservations = reservationCache.getReservations(
+                        RecordingServiceReservation.class, recordingCapability.getId(), slot,
+                        schedulerContext.getEntityManager());
                 schedulerContextState.applyReservations(recordingCapability.getId(), slot,
                         recordingServiceReservations, RecordingServiceReservation.class);
                 collidingReservations.addAll(recordingServiceReservations);
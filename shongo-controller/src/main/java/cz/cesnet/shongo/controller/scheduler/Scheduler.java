@@ -15,15 +15,19 @@ import cz.cesnet.shongo.controller.booking.request.AbstractReservationRequest;
 import cz.cesnet.shongo.controller.booking.request.ReservationRequest;
 import cz.cesnet.shongo.controller.booking.request.ReservationRequestManager;
 import cz.cesnet.shongo.controller.booking.reservation.*;
+import cz.cesnet.shongo.controller.booking.resource.Resource;
 import cz.cesnet.shongo.controller.booking.resource.ResourceManager;
 import cz.cesnet.shongo.controller.booking.resource.ResourceReservation;
 import cz.cesnet.shongo.controller.booking.room.RoomEndpoint;
 import cz.cesnet.shongo.controller.booking.room.UsedRoomEndpoint;
 import cz.cesnet.shongo.controller.booking.specification.Specification;
 import cz.cesnet.shongo.controller.cache.Cache;
+import cz.cesnet.shongo.controller.cache.ReservationCache;
 import cz.cesnet.shongo.controller.calendar.CalendarManager;
 import cz.cesnet.shongo.controller.calendar.ReservationCalendar;
 import cz.cesnet.shongo.controller.domains.InterDomainAgent;
+import cz.cesnet.shongo.controller.executor.ExecutableLocks;
+import cz.cesnet.shongo.controller.executor.ExecutionTimeline;
 import cz.cesnet.shongo.controller.notification.*;
 import cz.cesnet.shongo.util.DateTimeFormatter;
 import org.joda.time.DateTime;
@@ -32,7 +36,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
 import java.util.*;
+import java.util.concurrent.*;
 
 /**
  * Represents a component of a domain controller that is responsible for allocating {@link ReservationRequest}
@@ -40,7 +46,8 @@ import java.util.*;
  *
  * @author Martin Srom <martin.srom@cesnet.cz>
  */
-public class Scheduler extends SwitchableComponent implements Component.AuthorizationAware
+public class Scheduler extends SwitchableComponent
+        implements Component.AuthorizationAware, Component.EntityManagerFactoryAware, Component.ExecutionTimelineAware
 {
     private static Logger logger = LoggerFactory.getLogger(Scheduler.class);
 
@@ -64,7 +71,37 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
      */
     private Authorization authorization;
 
-    private Set<String> modifiedResources = new HashSet<>();
+    /**
+     * {@link EntityManagerFactory} used by workers for allocation of independent reservation requests.
+     */
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * @see ExecutionTimeline
+     */
+    private ExecutionTimeline executionTimeline;
+
+    /**
+     * @see ControllerConfiguration#SCHEDULER_PARALLELISM
+     */
+    private int parallelism = 1;
+
+    /**
+     * Workers for allocation of independent reservation requests.
+     */
+    private ExecutorService executorService;
+
+    /**
+     * {@link ModifiedReservations} for each thread which allocates reservation requests.
+     */
+    private final ThreadLocal<ModifiedReservations> modifiedReservations = new ThreadLocal<ModifiedReservations>()
+    {
+        @Override
+        protected ModifiedReservations initialValue()
+        {
+            return new ModifiedReservations();
+        }
+    };
 
     /**
      * Constructor.
@@ -85,11 +122,47 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
         this.authorization = authorization;
     }
 
+    @Override
+    public void setEntityManagerFactory(EntityManagerFactory entityManagerFactory)
+    {
+        this.entityManagerFactory = entityManagerFactory;
+    }
+
+    @Override
+    public void setExecutionTimeline(ExecutionTimeline executionTimeline)
+    {
+        this.executionTimeline = executionTimeline;
+    }
+
     @Override
     public void init(ControllerConfiguration configuration)
     {
         this.checkDependency(cache, Cache.class);
         super.init(configuration);
+
+        parallelism = configuration.getInt(ControllerConfiguration.SCHEDULER_PARALLELISM, 1);
+        if (parallelism > 1 && entityManagerFactory != null) {
+            logger.info("Scheduler will allocate independent reservation requests by {} workers.", parallelism);
+            executorService = Executors.newFixedThreadPool(parallelism);
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (executorService != null) {
+            executorService.shutdownNow();
+            executorService = null;
+        }
+        super.destroy();
+    }
+
+    /**
+     * @return true whether independent reservation requests are allocated in parallel, false otherwise
+     */
+    public boolean isParallel()
+    {
+        return executorService != null;
     }
 
     /**
@@ -109,6 +182,22 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
      * @param bypassEntityManager to be used when persisting entity while error
      */
     public Result run(Interval interval, EntityManager entityManager, EntityManager bypassEntityManager)
+    {
+        return run(interval, entityManager, bypassEntityManager, null);
+    }
+
+    /**
+     * Allocate reservation requests which intersects given {@code interval}. Reservations are allocated in given
+     * {@code interval} or more in future (and thus not before given {@code interval}).
+     *
+     * @param interval            only reservation requests which intersects this interval should be allocated
+     * @param entityManager       to be used
+     * @param bypassEntityManager to be used when persisting entity while error
+     * @param changes             which should be processed (everything is processed when it is {@code null}
+     *                            or when the reconciliation is requested)
+     */
+    public Result run(Interval interval, EntityManager entityManager, EntityManager bypassEntityManager,
+            ChangeJournal.Changes changes)
     {
         Result result = new Result();
         if (!isEnabled()) {
@@ -133,7 +222,14 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
             entityManager.getTransaction().begin();
 
             List<AbstractNotification> reservationNotifications = new ArrayList<>();
-            List<Allocation> allocationForDeletion = reservationManager.getAllocationsReservationsForDeletion();
+            boolean deletions = (changes == null || changes.hasDeletions());
+            List<Allocation> allocationForDeletion;
+            if (deletions) {
+                allocationForDeletion = reservationManager.getAllocationsReservationsForDeletion();
+            }
+            else {
+                allocationForDeletion = new LinkedList<>();
+            }
 
             List<Allocation> referencedAllocations = new LinkedList<>();
             for (Allocation allocation : allocationForDeletion) {
@@ -148,8 +244,15 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
             }
             for (Allocation allocation : allocationForDeletion) {
                 List<Reservation> reservations = new LinkedList<>(allocation.getReservations());
+                if (!lockExecutables(reservations, entityManager)) {
+                    logger.debug("Skipping deletion of allocation '{}' because it is being executed.",
+                            allocation.getId());
+                    result.postponedDeletions = true;
+                    continue;
+                }
                 for (Reservation reservation : reservations) {
                     DeallocateReservationTask deallocateTask = DeallocateReservationTaskProvider.create(reservation);
+                    recordModifiedReservationId(reservation);
                     try {
                         List<AbstractNotification> notifications = deallocateTask.perform(interval, result, entityManager, reservationManager, authorizationManager);
                         reservationNotifications.addAll(notifications);
@@ -171,7 +274,6 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
                                 calendarManager.addCalendar(new ReservationCalendar.Deleted(reservation), entityManager);
                             }
                         }
-                        recordModifiedReservationId(reservation);
                     } catch (ForeignDomainConnectException e) {
                         // When deallocate of foreign reservation fails, try again next time
                         //TODO: delay for some time
@@ -190,10 +292,20 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
                 }
             }
 
-            for (Reservation reservation : reservationManager.getOrphanReservationsForDeletion()) {
+            List<Reservation> orphanReservations = Collections.emptyList();
+            if (deletions) {
+                orphanReservations = reservationManager.getOrphanReservationsForDeletion();
+            }
+            for (Reservation reservation : orphanReservations) {
+                if (!lockExecutables(Collections.singletonList(reservation), entityManager)) {
+                    logger.debug("Skipping deletion of reservation '{}' because it is being executed.",
+                            reservation.getId());
+                    result.postponedDeletions = true;
+                    continue;
+                }
                 DeallocateReservationTask deallocateTask = DeallocateReservationTaskProvider.create(reservation);
-                deallocateTask.perform(interval, result, entityManager, reservationManager, authorizationManager);
                 recordModifiedReservationId(reservation);
+                deallocateTask.perform(interval, result, entityManager, reservationManager, authorizationManager);
                 if (calendarManager != null) {
                     if (reservation instanceof ResourceReservation) {
                         calendarManager.addCalendar(new ReservationCalendar.Deleted(reservation), entityManager);
@@ -203,7 +315,11 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
 
 
             // Delete all reservation requests which should be deleted
-            for (ReservationRequest request : reservationRequestManager.getOrphanReservationRequestsForDeletion()) {
+            List<ReservationRequest> orphanReservationRequests = Collections.emptyList();
+            if (deletions) {
+                orphanReservationRequests = reservationRequestManager.getOrphanReservationRequestsForDeletion();
+            }
+            for (ReservationRequest request : orphanReservationRequests) {
                 List<Reservation> detachedReservations = reservationRequestManager.hardDelete(request, authorizationManager);
                 Allocation parentAllocation = request.getParentAllocation();
                 // Add detached reservations to parent allocation, when the allocation is not deleted
@@ -217,7 +333,8 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
 
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
-            removeModifiedReservationsFromCache();
+            unlockExecutables();
+            updateModifiedReservationsInCache(entityManager);
 
             // Add reservation notifications
             if (notificationManager != null) {
@@ -227,156 +344,403 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
 
             // Get all reservation requests which should be allocated
             ReservationRequestQueue reservationRequestQueue = new ReservationRequestQueue();
-            reservationRequestQueue.add(reservationRequestManager.listCompletedReservationRequests(interval));
+            if (changes == null || changes.isReconciliation()) {
+                reservationRequestQueue.add(reservationRequestManager.listCompletedReservationRequests(interval));
+            }
+            else if (!changes.getReservationRequestIds().isEmpty()) {
+                reservationRequestQueue.add(reservationRequestManager.listCompletedReservationRequests(
+                        interval, changes.getReservationRequestIds()));
+            }
 
             // Allocate all reservation requests
             while (!reservationRequestQueue.isEmpty()) {
-                ReservationRequest reservationRequest = reservationRequestQueue.pop();
-                SchedulerReport reallocationReport = null;
-                try {
-                    authorizationManager.beginTransaction();
-                    entityManager.getTransaction().begin();
-
-                    // Reload the request (rollback may happened)
-                    reservationRequest = reservationRequestManager.getReservationRequest(reservationRequest.getId());
-
-                    // Allocate reservation request
-                    SchedulerContext context = new SchedulerContext(start, cache, entityManager, authorizationManager, bypassEntityManager);
-                    SchedulerContextState contextState = context.getState();
-                    allocateReservationRequest(reservationRequest, context);
-
-                    // Try to reallocate reservation requests
-                    Iterator<ReservationRequest> tryReallocateIterator = contextState.getTryReallocationIterator();
-                    contextState.enableNotifications(false);
-                    while (tryReallocateIterator.hasNext()) {
-                        ReservationRequest reservationRequestToReallocate = tryReallocateIterator.next();
-                        reallocationReport = reservationRequest.addReport(
-                                new SchedulerReportSet.ReallocatingReservationRequestReport(
-                                        ObjectIdentifier.formatId(reservationRequestToReallocate)));
-                        allocateReservationRequest(reservationRequestToReallocate, context);
-                        reservationRequestToReallocate.getSpecification().updateTechnologies(entityManager);
-
-                        reservationRequestToReallocate.getSpecification().updateSpecificationSummary(entityManager, false);
-                    }
-                    contextState.enableNotifications(true);
-
-                    // Force to reallocate reservation requests
-                    List<ReservationRequest> forceReallocation = contextState.getForceReallocation();
-                    for (ReservationRequest reservationRequestToReallocate : forceReallocation) {
-                        Allocation allocation = reservationRequestToReallocate.getAllocation();
-                        Reservation reservation = allocation.getCurrentReservation();
-                        while (reservation != null) {
-                            deleteReservation(reservation, context);
-                            recordModifiedReservationId(reservation);
-                            reservation = allocation.getCurrentReservation();
-                        }
+                if (isParallel()) {
+                    List<Partition> partitions = reservationRequestQueue.popPartitions(cache, parallelism);
+                    if (!partitions.isEmpty()) {
+                        allocateReservationRequests(partitions, start, entityManager, bypassEntityManager,
+                                authorizationManager, reservationRequestQueue, result);
+                        continue;
                     }
-                    reservationRequestQueue.add(forceReallocation);
+                }
+                ReservationRequest reservationRequest = reservationRequestQueue.pop();
+                allocateReservationRequest(reservationRequest.getId(), start, entityManager, bypassEntityManager,
+                        authorizationManager, reservationRequestQueue, null, result);
+            }
 
-                    // Finalize (delete old reservations, etc)
-                    List<AbstractNotification> contextNotifications = context.finish(result);
+            // Delete all executables which should be deleted (they can be dereferenced only by changes
+            // which were recorded or by reservations which were deleted or reallocated now)
+            if (changes == null || changes.hasExecutables() || !result.isEmpty()
+                    || !allocationForDeletion.isEmpty() || !orphanReservationRequests.isEmpty()) {
+                authorizationManager.beginTransaction();
+                entityManager.getTransaction().begin();
 
-                    entityManager.getTransaction().commit();
-                    authorizationManager.commitTransaction();
+                if (!executableManager.deleteAllNotReferenced(authorizationManager, getExecutableLocks())) {
+                    result.postponedExecutables = true;
+                }
 
-                    removeModifiedReservationsFromCache();
+                entityManager.getTransaction().commit();
+                authorizationManager.commitTransaction();
+                unlockExecutables();
+            }
+        }
+        catch (Exception exception) {
+            if (authorizationManager.isTransactionActive()) {
+                authorizationManager.rollbackTransaction();
+            }
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
+            unlockExecutables();
+            // We don't know which reservations were modified and thus all will be reloaded
+            cache.getReservationCache().clear();
+            getModifiedReservations().clear();
+            if (changes != null) {
+                changes.fail();
+            }
+            Reporter.getInstance().reportInternalError(Reporter.SCHEDULER, exception);
+        }
 
+        // Changes which couldn't be processed because of executed executables should be processed next time
+        if (changes != null) {
+            for (Long reservationRequestId : result.postponedReservationRequestIds) {
+                changes.postponeReservationRequest(reservationRequestId);
+            }
+            if (result.postponedDeletions) {
+                changes.postponeDeletions();
+            }
+            if (result.postponedExecutables) {
+                changes.postponeExecutables();
+            }
+        }
 
-                    // Add context notifications
-                    if (notificationManager != null) {
-                        notificationManager.addNotifications(contextNotifications, entityManager);
-                    }
+        // Executables of deleted or reallocated reservations could be modified and thus they should be executed
+        if (executionTimeline != null && !result.isEmpty()) {
+            executionTimeline.wakeUp();
+        }
 
-                    result.allocatedReservationRequests++;
-                }
-                catch (Exception exception) {
-                    result.failedReservationRequests++;
+        if (!result.isEmpty()) {
+            logger.info("Scheduling done in {} ms (failed: {}, allocated: {}, deleted: {}).", new Object[]{
+                    timer.stop(), result.failedReservationRequests, result.allocatedReservationRequests,
+                    result.deletedReservations
+            });
+            logger.debug("End of scheduler in time: " + DateTime.now());
+        }
 
-                    // Allocation of reservation request has failed and thus rollback transaction
-                    if (authorizationManager.isTransactionActive()) {
-                        authorizationManager.rollbackTransaction();
-                    }
-                    if (entityManager.getTransaction().isActive()) {
-                        entityManager.getTransaction().rollback();
-                    }
+        getModifiedReservations().clear();
 
-                    entityManager.getTransaction().begin();
-
-                    // Because rollback has happened we must reload the entity
-                    Long reservationRequestId = reservationRequest.getId();
-                    if (reallocationReport != null) {
-                        // We must keep allocation reports
-                        List<SchedulerReport> schedulerReports =
-                                reservationRequestManager.detachReports(reservationRequest);
-                        reservationRequest = reservationRequestManager.getReservationRequest(reservationRequestId);
-                        reservationRequest.setReports(schedulerReports);
-                        reallocationReport = schedulerReports.get(schedulerReports.size() - 1);
-                    }
-                    else {
-                        reservationRequest = reservationRequestManager.getReservationRequest(reservationRequestId);
-                    }
+        return result;
+    }
 
-                    // Update reservation request state to failed
-                    reservationRequest.setAllocationState(ReservationRequest.AllocationState.ALLOCATION_FAILED);
+    /**
+     * Allocate given independent {@code reservationRequests}. When the {@link #executorService} is available,
+     * each {@link Partition} is allocated by a separate worker which uses own {@link EntityManager}.
+     * Reservation requests whose allocation doesn't fit into the {@link Partition} are allocated afterwards
+     * in the original order by given {@code entityManager}.
+     * <p/>
+     * The result is the same as in the serial allocation whenever the {@link ReservationRequestFootprint}s hold.
+     * It can differ only for deferred reservation requests, because they are allocated after all partitions
+     * have been committed, i.e., also after reservation requests which are later in the queue. When a deferred
+     * reservation request collides with such reservation request (by resources outside its estimated footprint),
+     * it can get different resources (or fail) than in the serial allocation.
+     *
+     * @param partitions              to be allocated
+     * @param start                   minimum date/time for allocation
+     * @param entityManager           to be used
+     * @param bypassEntityManager     to be used
+     * @param authorizationManager    to be used
+     * @param reservationRequestQueue to which the reservation requests for reallocation should be added
+     * @param result                  to be filled
+     */
+    private void allocateReservationRequests(List<Partition> partitions, final DateTime start,
+            EntityManager entityManager, EntityManager bypassEntityManager, AuthorizationManager authorizationManager,
+            ReservationRequestQueue reservationRequestQueue, Result result)
+    {
+        logger.debug("Allocating {} independent partitions of reservation requests...", partitions.size());
 
-                    // Add scheduler report
-                    if (exception instanceof SchedulerException) {
-                        SchedulerException schedulerException = (SchedulerException) exception;
-                        SchedulerReport schedulerReport = schedulerException.getTopReport();
-                        if (reallocationReport != null) {
-                            reallocationReport.addChildReport(schedulerReport);
-                        }
-                        else {
-                            reservationRequest.setReport(schedulerReport);
-                        }
-                    }
+        // Run allocation of partitions in workers
+        List<Future<List<Long>>> futures = new LinkedList<Future<List<Long>>>();
+        for (final Partition partition : partitions) {
+            futures.add(executorService.submit(new Callable<List<Long>>()
+            {
+                @Override
+                public List<Long> call() throws Exception
+                {
+                    return allocatePartition(partition, start);
+                }
+            }));
+        }
+
+        // Wait for workers and collect reservation requests which must be allocated again
+        Set<Long> deferredReservationRequestIds = new HashSet<Long>();
+        Iterator<Partition> partitionIterator = partitions.iterator();
+        for (Future<List<Long>> future : futures) {
+            Partition partition = partitionIterator.next();
+            try {
+                deferredReservationRequestIds.addAll(future.get());
+            }
+            catch (Exception exception) {
+                // Allocation of whole partition must be repeated
+                for (ReservationRequest reservationRequest : partition.reservationRequests) {
+                    deferredReservationRequestIds.add(reservationRequest.getId());
+                }
+                cache.getReservationCache().clear();
+                Reporter.getInstance().reportInternalError(Reporter.SCHEDULER, exception);
+            }
+            result.merge(partition.result);
+        }
 
-                    entityManager.getTransaction().commit();
+        // Entities could have been modified by workers
+        entityManager.clear();
+        reservationRequestQueue.reload(new ReservationRequestManager(entityManager));
 
-                    if (exception instanceof SchedulerException) {
-                        // Notify users/admins only if local
-                        if (notificationManager != null && UserInformation.isLocal(reservationRequest.getUpdatedBy())) {
-                            notificationManager.addNotification(new AllocationFailedNotification(
-                                    reservationRequest, authorizationManager, configuration), entityManager);
-                        }
-                    }
-                    else {
-                        // Report allocation failure internal error
-                        Reporter.getInstance().reportInternalError(Reporter.SCHEDULER, exception);
-                    }
+        // Allocate deferred reservation requests in the original order
+        List<ReservationRequest> deferredReservationRequests = new LinkedList<ReservationRequest>();
+        for (Partition partition : partitions) {
+            for (ReservationRequest reservationRequest : partition.reservationRequests) {
+                if (deferredReservationRequestIds.contains(reservationRequest.getId())) {
+                    deferredReservationRequests.add(reservationRequest);
+                }
+            }
+        }
+        Collections.sort(deferredReservationRequests, ReservationRequestQueue.COMPARATOR);
+        for (ReservationRequest reservationRequest : deferredReservationRequests) {
+            logger.debug("Allocating deferred reservation request '{}'...", reservationRequest.getId());
+            allocateReservationRequest(reservationRequest.getId(), start, entityManager, bypassEntityManager,
+                    authorizationManager, reservationRequestQueue, null, result);
+        }
+    }
+
+    /**
+     * Allocate reservation requests from given {@code partition} by own {@link EntityManager}.
+     *
+     * @param partition to be allocated
+     * @param start     minimum date/time for allocation
+     * @return list of identifiers of reservation requests which haven't been allocated
+     *         because they don't fit into the {@code partition}
+     */
+    private List<Long> allocatePartition(Partition partition, DateTime start)
+    {
+        List<Long> deferredReservationRequestIds = new LinkedList<Long>();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        EntityManager bypassEntityManager = entityManagerFactory.createEntityManager();
+        try {
+            AuthorizationManager authorizationManager = new AuthorizationManager(entityManager, authorization);
+            for (ReservationRequest reservationRequest : partition.reservationRequests) {
+                Long reservationRequestId = reservationRequest.getId();
+                if (!deferredReservationRequestIds.isEmpty()) {
+                    // Keep the order of reservation requests after the first deferred one
+                    deferredReservationRequestIds.add(reservationRequestId);
+                    continue;
+                }
+                if (!allocateReservationRequest(reservationRequestId, start, entityManager, bypassEntityManager,
+                        authorizationManager, null, partition.footprint, partition.result)) {
+                    logger.debug("Reservation request '{}' doesn't fit into partition, deferring...",
+                            reservationRequestId);
+                    deferredReservationRequestIds.add(reservationRequestId);
                 }
             }
+        }
+        finally {
+            getModifiedReservations().clear();
+            bypassEntityManager.close();
+            entityManager.close();
+        }
+        return deferredReservationRequestIds;
+    }
 
+    /**
+     * Allocate reservation request with given {@code reservationRequestId} in own transaction.
+     *
+     * @param reservationRequestId    identifier of reservation request to be allocated
+     * @param start                   minimum date/time for allocation
+     * @param entityManager           to be used
+     * @param bypassEntityManager     to be used
+     * @param authorizationManager    to be used
+     * @param reservationRequestQueue to which the reservation requests for reallocation should be added
+     * @param partitionFootprint      {@link ReservationRequestFootprint} to which the allocation must fit
+     *                                or {@code null}
+     * @param result                  to be filled
+     * @return false when the allocation doesn't fit into given {@code partitionFootprint} and thus it has been
+     *         rolled back, true otherwise
+     */
+    private boolean allocateReservationRequest(Long reservationRequestId, DateTime start,
+            EntityManager entityManager, EntityManager bypassEntityManager, AuthorizationManager authorizationManager,
+            ReservationRequestQueue reservationRequestQueue, ReservationRequestFootprint partitionFootprint,
+            Result result)
+    {
+        ReservationRequestManager reservationRequestManager = new ReservationRequestManager(entityManager);
+        ReservationRequest reservationRequest = null;
+        SchedulerReport reallocationReport = null;
+        try {
             authorizationManager.beginTransaction();
             entityManager.getTransaction().begin();
 
-            // Delete all executables which should be deleted
-            executableManager.deleteAllNotReferenced(authorizationManager);
+            // Reload the request (rollback may happened)
+            reservationRequest = reservationRequestManager.getReservationRequest(reservationRequestId);
+
+            // Allocate reservation request
+            SchedulerContext context = new SchedulerContext(start, cache, entityManager, authorizationManager, bypassEntityManager);
+            SchedulerContextState contextState = context.getState();
+            Reservation allocatedReservation = allocateReservationRequest(reservationRequest, context);
+
+            // Check whether the allocation fits into the partition
+            if (partitionFootprint != null && !isInPartition(allocatedReservation, contextState, partitionFootprint)) {
+                authorizationManager.rollbackTransaction();
+                entityManager.getTransaction().rollback();
+                entityManager.clear();
+                removeModifiedReservationsFromCache();
+                return false;
+            }
+
+            // Try to reallocate reservation requests
+            Iterator<ReservationRequest> tryReallocateIterator = contextState.getTryReallocationIterator();
+            contextState.enableNotifications(false);
+            while (tryReallocateIterator.hasNext()) {
+                ReservationRequest reservationRequestToReallocate = tryReallocateIterator.next();
+                reallocationReport = reservationRequest.addReport(
+                        new SchedulerReportSet.ReallocatingReservationRequestReport(
+                                ObjectIdentifier.formatId(reservationRequestToReallocate)));
+                allocateReservationRequest(reservationRequestToReallocate, context);
+                reservationRequestToReallocate.getSpecification().updateTechnologies(entityManager);
+
+                reservationRequestToReallocate.getSpecification().updateSpecificationSummary(entityManager, false);
+            }
+            contextState.enableNotifications(true);
+
+            // Force to reallocate reservation requests
+            List<ReservationRequest> forceReallocation = contextState.getForceReallocation();
+            for (ReservationRequest reservationRequestToReallocate : forceReallocation) {
+                Allocation allocation = reservationRequestToReallocate.getAllocation();
+                Reservation reservation = allocation.getCurrentReservation();
+                while (reservation != null) {
+                    deleteReservation(reservation, context);
+                    recordModifiedReservationId(reservation);
+                    reservation = allocation.getCurrentReservation();
+                }
+            }
+            reservationRequestQueue.add(forceReallocation);
+
+            // Finalize (delete old reservations, etc)
+            List<AbstractNotification> contextNotifications = context.finish(result);
 
             entityManager.getTransaction().commit();
             authorizationManager.commitTransaction();
+
+            updateModifiedReservationsInCache(entityManager);
+
+            // Plan execution of allocated executables
+            if (executionTimeline != null) {
+                executionTimeline.markReservation(allocatedReservation);
+            }
+
+
+            // Add context notifications
+            if (notificationManager != null) {
+                notificationManager.addNotifications(contextNotifications, entityManager);
+            }
+
+            result.allocatedReservationRequests++;
         }
-        catch (Exception exception) {
+        catch (ExecutableLockedException exception) {
+            logger.debug("Postponing reservation request '{}' because reservation '{}' is being executed.",
+                    reservationRequestId, exception.getReservationId());
             if (authorizationManager.isTransactionActive()) {
                 authorizationManager.rollbackTransaction();
             }
             if (entityManager.getTransaction().isActive()) {
                 entityManager.getTransaction().rollback();
             }
-            Reporter.getInstance().reportInternalError(Reporter.SCHEDULER, exception);
+            entityManager.clear();
+            removeModifiedReservationsFromCache();
+            result.postponedReservationRequestIds.add(reservationRequestId);
         }
+        catch (Exception exception) {
+            result.failedReservationRequests++;
 
-        if (!result.isEmpty()) {
-            logger.info("Scheduling done in {} ms (failed: {}, allocated: {}, deleted: {}).", new Object[]{
-                    timer.stop(), result.failedReservationRequests, result.allocatedReservationRequests,
-                    result.deletedReservations
-            });
-            logger.debug("End of scheduler in time: " + DateTime.now());
-        }
+            // Allocation of reservation request has failed and thus rollback transaction
+            if (authorizationManager.isTransactionActive()) {
+                authorizationManager.rollbackTransaction();
+            }
+            if (entityManager.getTransaction().isActive()) {
+                entityManager.getTransaction().rollback();
+            }
 
-        modifiedResources.clear();
+            entityManager.getTransaction().begin();
 
-        return result;
+            // Modified reservations have been rolled back
+            removeModifiedReservationsFromCache();
+
+            // Because rollback has happened we must reload the entity
+            if (reallocationReport != null) {
+                // We must keep allocation reports
+                List<SchedulerReport> schedulerReports =
+                        reservationRequestManager.detachReports(reservationRequest);
+                reservationRequest = reservationRequestManager.getReservationRequest(reservationRequestId);
+                reservationRequest.setReports(schedulerReports);
+                reallocationReport = schedulerReports.get(schedulerReports.size() - 1);
+            }
+            else {
+                reservationRequest = reservationRequestManager.getReservationRequest(reservationRequestId);
+            }
+
+            // Update reservation request state to failed
+            reservationRequest.setAllocationState(ReservationRequest.AllocationState.ALLOCATION_FAILED);
+
+            // Add scheduler report
+            if (exception instanceof SchedulerException) {
+                SchedulerException schedulerException = (SchedulerException) exception;
+                SchedulerReport schedulerReport = schedulerException.getTopReport();
+                if (reallocationReport != null) {
+                    reallocationReport.addChildReport(schedulerReport);
+                }
+                else {
+                    reservationRequest.setReport(schedulerReport);
+                }
+            }
+
+            entityManager.getTransaction().commit();
+
+            if (exception instanceof SchedulerException) {
+                // Notify users/admins only if local
+                if (notificationManager != null && UserInformation.isLocal(reservationRequest.getUpdatedBy())) {
+                    notificationManager.addNotification(new AllocationFailedNotification(
+                            reservationRequest, authorizationManager, configuration), entityManager);
+                }
+            }
+            else {
+                // Report allocation failure internal error
+                Reporter.getInstance().reportInternalError(Reporter.SCHEDULER, exception);
+            }
+        }
+        finally {
+            unlockExecutables();
+        }
+        return true;
+    }
+
+    /**
+     * @param allocatedReservation which has been allocated
+     * @param contextState         in which it has been allocated
+     * @param partitionFootprint   which should contain everything what has been modified
+     * @return true whether the allocation doesn't modify anything outside given {@code partitionFootprint},
+     *         false otherwise
+     */
+    private boolean isInPartition(Reservation allocatedReservation, SchedulerContextState contextState,
+            ReservationRequestFootprint partitionFootprint)
+    {
+        // Reallocation of other reservation requests isn't predictable
+        if (contextState.getTryReallocationIterator().hasNext() || !contextState.getForceReallocation().isEmpty()) {
+            return false;
+        }
+        Set<String> keys = new HashSet<String>();
+        ReservationRequestFootprint.getKeys(allocatedReservation, keys);
+        for (Resource resource : contextState.getReferencedResources()) {
+            keys.add(ReservationRequestFootprint.getResourceKey(resource));
+        }
+        for (Reservation reservation : contextState.getReservationsToDelete()) {
+            ReservationRequestFootprint.getKeys(reservation, keys);
+        }
+        return partitionFootprint.containsAll(keys);
     }
 
     /**
@@ -384,9 +748,10 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
      *
      * @param reservationRequest to be allocated
      * @param context
+     * @return allocated {@link Reservation}
      */
-    private void allocateReservationRequest(ReservationRequest reservationRequest, SchedulerContext context)
-            throws SchedulerException
+    private Reservation allocateReservationRequest(ReservationRequest reservationRequest, SchedulerContext context)
+            throws SchedulerException, ExecutableLockedException
     {
         logger.info("Allocating reservation request '{}'...", reservationRequest.getId());
 
@@ -557,7 +922,9 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
             if (oldReservation.isHistory(minimumDateTime)) {
                 // If old reservation time slot intersects the new reservation time slot
                 if (oldReservation.getSlotEnd().isAfter(slotStart)) {
+                    lockExecutables(oldReservation, entityManager);
                     // Shorten the old reservation time slot to not intersect the new reservation time slot
+                    recordModifiedReservationId(oldReservation);
                     oldReservation.setSlotEnd(Temporal.max(slotStart, oldReservation.getSlotStart()));
                     // Finalize reservation
                     contextState.addNotifications(finalizeActiveReservation(oldReservation, entityManager));
@@ -575,6 +942,7 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
 
         // Allocate migration
         if (previousReservation != null && previousReservation.getClass().equals(allocatedReservation.getClass())) {
+            lockExecutables(previousReservation, entityManager);
             reservationTask.migrateReservation(previousReservation, allocatedReservation, entityManager);
             if (previousReservation.getExecutable() != null) {
                 previousReservation.getExecutable().updateExecutableSummary(entityManager, false);
@@ -598,6 +966,8 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
         }
         reservationRequest.setReports(reservationTask.getReports());
         reservationRequestManager.update(reservationRequest);
+
+        return allocatedReservation;
     }
 
     /**
@@ -607,9 +977,12 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
      */
     private void recordModifiedReservationId(Reservation reservation)
     {
+        ModifiedReservations modifiedReservations = getModifiedReservations();
+        ReservationCache.getTargets(reservation, modifiedReservations.targets);
+        ReservationManager.getAllReservations(reservation, modifiedReservations.reservations);
         if (reservation instanceof ResourceReservation) {
             String id = ObjectIdentifier.formatId(ObjectType.RESOURCE, ((ResourceReservation) reservation).getResource().getId().toString());
-            modifiedResources.add(id);
+            modifiedReservations.resources.add(id);
         } else {
             //Implementation for RoomResrvation
         }
@@ -617,24 +990,58 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
 
     private void removeModifiedReservationsFromCache ()
     {
-        for (String resourceId : modifiedResources) {
+        ModifiedReservations modifiedReservations = getModifiedReservations();
+        for (String resourceId : modifiedReservations.resources) {
+            cache.removeICalReservation(resourceId);
+        }
+        cache.getReservationCache().refresh(modifiedReservations.targets);
+        modifiedReservations.targets.clear();
+        modifiedReservations.reservations.clear();
+    }
+
+    /**
+     * Update {@link ReservationCache} by modified reservations after they were committed.
+     *
+     * @param entityManager which committed the modified reservations
+     */
+    private void updateModifiedReservationsInCache(EntityManager entityManager)
+    {
+        ModifiedReservations modifiedReservations = getModifiedReservations();
+        for (String resourceId : modifiedReservations.resources) {
             cache.removeICalReservation(resourceId);
         }
+        cache.getReservationCache().update(modifiedReservations.reservations, entityManager);
+        modifiedReservations.targets.clear();
+        modifiedReservations.reservations.clear();
+    }
+
+    /**
+     * @return {@link ModifiedReservations} for current thread
+     */
+    private ModifiedReservations getModifiedReservations()
+    {
+        return modifiedReservations.get();
     }
 
 
     /**
      * @param reservation to be deleted in given {@code schedulerContext}
      * @param schedulerContext in which it should be deleted
+     * @throws ExecutableLockedException when some {@link Executable} of given {@code reservation} is being executed
      */
     private void deleteReservation(Reservation reservation, SchedulerContext schedulerContext)
+            throws ExecutableLockedException
     {
         SchedulerContextState schedulerContextState = schedulerContext.getState();
         EntityManager entityManager = schedulerContext.getEntityManager();
         AuthorizationManager authorizationManager = schedulerContext.getAuthorizationManager();
 
+        // Executables of the old reservation will be stopped or deleted
+        lockExecutables(reservation, entityManager);
+
         // Finalize reservation
         schedulerContextState.addNotifications(finalizeActiveReservation(reservation, entityManager));
+        recordModifiedReservationId(reservation);
 
         // Create notification
         //schedulerContextState.addNotification(new ReservationNotification.Deleted(reservation, authorizationManager));
@@ -655,6 +1062,68 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
 
     }
 
+    /**
+     * @return {@link ExecutableLocks} or {@code null}
+     */
+    private ExecutableLocks getExecutableLocks()
+    {
+        return (executionTimeline != null ? executionTimeline.getExecutableLocks() : null);
+    }
+
+    /**
+     * Release all {@link ExecutableLocks} held by the current thread.
+     */
+    private void unlockExecutables()
+    {
+        if (executionTimeline != null) {
+            executionTimeline.getExecutableLocks().unlockAll();
+        }
+    }
+
+    /**
+     * Lock {@link Executable}s of given {@code reservations} and of all theirs child {@link Reservation}s
+     * by the current thread (they are held until {@link #unlockExecutables()}).
+     *
+     * @param reservations  whose {@link Executable}s should be locked
+     * @param entityManager to be used
+     * @return true whether all {@link Executable}s are locked, false whether some is being executed
+     */
+    private boolean lockExecutables(Collection<Reservation> reservations, EntityManager entityManager)
+    {
+        ExecutableLocks executableLocks = getExecutableLocks();
+        if (executableLocks == null) {
+            return true;
+        }
+        ExecutableManager executableManager = new ExecutableManager(entityManager);
+        Collection<Reservation> reservationItems = new LinkedList<Reservation>();
+        for (Reservation reservation : reservations) {
+            ReservationManager.getAllReservations(reservation, reservationItems);
+        }
+        for (Reservation reservationItem : reservationItems) {
+            Executable executable = reservationItem.getExecutable();
+            if (executable != null && !executableManager.lock(executable, executableLocks)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Lock {@link Executable}s of given {@code reservation} and of all its child {@link Reservation}s
+     * by the current thread (they are held until {@link #unlockExecutables()}).
+     *
+     * @param reservation   whose {@link Executable}s should be locked
+     * @param entityManager to be used
+     * @throws ExecutableLockedException when some {@link Executable} is being executed
+     */
+    private void lockExecutables(Reservation reservation, EntityManager entityManager)
+            throws ExecutableLockedException
+    {
+        if (!lockExecutables(Collections.singletonList(reservation), entityManager)) {
+            throw new ExecutableLockedException(reservation);
+        }
+    }
+
     /**
      * @param reservation   to be finalized
      * @param entityManager which can be used
@@ -731,6 +1200,35 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
         }
     }
 
+    /**
+     * Thrown when {@link Executable}s of a {@link Reservation} which should be modified are being executed.
+     */
+    private static class ExecutableLockedException extends Exception
+    {
+        /**
+         * Identifier of the {@link Reservation}.
+         */
+        private final Long reservationId;
+
+        /**
+         * Constructor.
+         *
+         * @param reservation whose {@link Executable}s are being executed
+         */
+        public ExecutableLockedException(Reservation reservation)
+        {
+            this.reservationId = reservation.getId();
+        }
+
+        /**
+         * @return {@link #reservationId}
+         */
+        public Long getReservationId()
+        {
+            return reservationId;
+        }
+    }
+
     /**
      * {@link Scheduler} result.
      */
@@ -751,6 +1249,22 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
          */
         int deletedReservations = 0;
 
+        /**
+         * Identifiers of reservation requests whose allocation has been postponed because theirs reservations
+         * are being executed.
+         */
+        Set<Long> postponedReservationRequestIds = new HashSet<Long>();
+
+        /**
+         * Specifies whether some deletions have been postponed because the deleted reservations are being executed.
+         */
+        boolean postponedDeletions = false;
+
+        /**
+         * Specifies whether deletion of some executables has been postponed because they are being executed.
+         */
+        boolean postponedExecutables = false;
+
         /**
          * @return true whether no reservation request has failed or has been allocated and not reservation has been deleted,
          *         false otherwise
@@ -785,6 +1299,107 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
         {
             return deletedReservations;
         }
+
+        /**
+         * @return {@link #postponedReservationRequestIds}
+         */
+        public Set<Long> getPostponedReservationRequestIds()
+        {
+            return Collections.unmodifiableSet(postponedReservationRequestIds);
+        }
+
+        /**
+         * @return {@link #postponedDeletions}
+         */
+        public boolean isPostponedDeletions()
+        {
+            return postponedDeletions;
+        }
+
+        /**
+         * @return {@link #postponedExecutables}
+         */
+        public boolean isPostponedExecutables()
+        {
+            return postponedExecutables;
+        }
+
+        /**
+         * @param result to be added to this {@link Result}
+         */
+        void merge(Result result)
+        {
+            failedReservationRequests += result.failedReservationRequests;
+            allocatedReservationRequests += result.allocatedReservationRequests;
+            deletedReservations += result.deletedReservations;
+            postponedReservationRequestIds.addAll(result.postponedReservationRequestIds);
+            postponedDeletions |= result.postponedDeletions;
+            postponedExecutables |= result.postponedExecutables;
+        }
+    }
+
+    /**
+     * Resources, {@link ReservationCache.Target}s and reservations which were modified.
+     */
+    private static class ModifiedReservations
+    {
+        /**
+         * Identifiers of resources whose reservations were modified.
+         */
+        private final Set<String> resources = new HashSet<String>();
+
+        /**
+         * Targets of {@link ReservationCache} whose reservations were modified.
+         */
+        private final Set<ReservationCache.Target> targets = new HashSet<ReservationCache.Target>();
+
+        /**
+         * Modified reservations (including child reservations).
+         */
+        private final List<Reservation> reservations = new LinkedList<Reservation>();
+
+        /**
+         * Clear modified reservations.
+         */
+        public void clear()
+        {
+            resources.clear();
+            targets.clear();
+            reservations.clear();
+        }
+    }
+
+    /**
+     * Group of {@link ReservationRequest}s which can be allocated independently on other groups.
+     */
+    private static class Partition
+    {
+        /**
+         * Union of {@link ReservationRequestFootprint}s of all {@link #reservationRequests}.
+         */
+        private final ReservationRequestFootprint footprint;
+
+        /**
+         * {@link ReservationRequest}s in the order in which they should be allocated.
+         */
+        private final List<ReservationRequest> reservationRequests = new LinkedList<ReservationRequest>();
+
+        /**
+         * {@link Result} of allocation of {@link #reservationRequests}.
+         */
+        private final Result result = new Result();
+
+        /**
+         * Constructor.
+         *
+         * @param reservationRequest first {@link ReservationRequest}
+         * @param footprint          of given {@code reservationRequest}
+         */
+        public Partition(ReservationRequest reservationRequest, ReservationRequestFootprint footprint)
+        {
+            this.footprint = footprint;
+            this.reservationRequests.add(reservationRequest);
+        }
     }
 
     /**
@@ -792,6 +1407,30 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
      */
     private static class ReservationRequestQueue
     {
+        /**
+         * Maximum number of {@link ReservationRequest}s per worker which are popped in {@link #popPartitions}.
+         */
+        private static final int PARTITION_BATCH_SIZE = 32;
+
+        /**
+         * Orders {@link ReservationRequest}s by priority, purpose and created date/time.
+         */
+        public static final Comparator<ReservationRequest> COMPARATOR = new Comparator<ReservationRequest>()
+        {
+            @Override
+            public int compare(ReservationRequest reservationRequest1, ReservationRequest reservationRequest2)
+            {
+                int result = -reservationRequest1.getPriority().compareTo(reservationRequest2.getPriority());
+                if (result == 0) {
+                    result = reservationRequest1.getPurpose().priorityCompareTo(reservationRequest2.getPurpose());
+                    if (result == 0) {
+                        return reservationRequest1.getCreatedAt().compareTo(reservationRequest2.getCreatedAt());
+                    }
+                }
+                return result;
+            }
+        };
+
         /**
          * List of {@link ReservationRequest}s.
          */
@@ -811,21 +1450,21 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
          */
         private void sort()
         {
-            Collections.sort(reservationRequests, new Comparator<ReservationRequest>()
-            {
-                @Override
-                public int compare(ReservationRequest reservationRequest1, ReservationRequest reservationRequest2)
-                {
-                    int result = -reservationRequest1.getPriority().compareTo(reservationRequest2.getPriority());
-                    if (result == 0) {
-                        result = reservationRequest1.getPurpose().priorityCompareTo(reservationRequest2.getPurpose());
-                        if (result == 0) {
-                            return reservationRequest1.getCreatedAt().compareTo(reservationRequest2.getCreatedAt());
-                        }
-                    }
-                    return result;
-                }
-            });
+            Collections.sort(reservationRequests, COMPARATOR);
+        }
+
+        /**
+         * Reload all {@link #reservationRequests} (e.g., after the {@link EntityManager} has been cleared).
+         *
+         * @param reservationRequestManager to be used for loading
+         */
+        public void reload(ReservationRequestManager reservationRequestManager)
+        {
+            ListIterator<ReservationRequest> iterator = reservationRequests.listIterator();
+            while (iterator.hasNext()) {
+                ReservationRequest reservationRequest = iterator.next();
+                iterator.set(reservationRequestManager.getReservationRequest(reservationRequest.getId()));
+            }
         }
 
         /**
@@ -854,5 +1493,72 @@ public class Scheduler extends SwitchableComponent implements Component.Authoriz
             iterator.remove();
             return reservationRequest;
         }
+
+        /**
+         * Pop leading {@link ReservationRequest}s with known {@link ReservationRequestFootprint}s and group them
+         * to {@link Partition}s with disjoint footprints.
+         *
+         * @param cache       to be used for estimating {@link ReservationRequestFootprint}s
+         * @param parallelism number of workers
+         * @return list of {@link Partition}s (empty when the first {@link ReservationRequest} must be allocated alone)
+         */
+        public List<Partition> popPartitions(Cache cache, int parallelism)
+        {
+            List<Partition> partitions = new LinkedList<Partition>();
+            final Map<ReservationRequest, Integer> order = new HashMap<ReservationRequest, Integer>();
+            for (ReservationRequest reservationRequest : reservationRequests) {
+                if (order.size() == parallelism * PARTITION_BATCH_SIZE) {
+                    break;
+                }
+                ReservationRequestFootprint footprint = ReservationRequestFootprint.estimate(reservationRequest, cache);
+                if (footprint == null) {
+                    break;
+                }
+                order.put(reservationRequest, order.size());
+
+                // Merge all partitions which intersects the footprint
+                Partition reservationRequestPartition = null;
+                Iterator<Partition> partitionIterator = partitions.iterator();
+                while (partitionIterator.hasNext()) {
+                    Partition partition = partitionIterator.next();
+                    if (partition.footprint.intersects(footprint)) {
+                        if (reservationRequestPartition == null) {
+                            reservationRequestPartition = partition;
+                        }
+                        else {
+                            reservationRequestPartition.footprint.merge(partition.footprint);
+                            reservationRequestPartition.reservationRequests.addAll(partition.reservationRequests);
+                            partitionIterator.remove();
+                        }
+                    }
+                }
+                if (reservationRequestPartition == null) {
+                    partitions.add(new Partition(reservationRequest, footprint));
+                }
+                else {
+                    reservationRequestPartition.footprint.merge(footprint);
+                    reservationRequestPartition.reservationRequests.add(reservationRequest);
+                }
+            }
+            if (partitions.size() < 2) {
+                return Collections.emptyList();
+            }
+
+            // Keep the order of the queue in each partition
+            for (Partition partition : partitions) {
+                Collections.sort(partition.reservationRequests, new Comparator<ReservationRequest>()
+                {
+                    @Override
+                    public int compare(ReservationRequest reservationRequest1, ReservationRequest reservationRequest2)
+                    {
+                        return order.get(reservationRequest1).compareTo(order.get(reservationRequest2));
+                    }
+                });
+            }
+            for (int index = 0; index < order.size(); index++) {
+                pop();
+            }
+            return partitions;
+        }
     }
 }
@@ -9,7 +9,6 @@ import cz.cesnet.shongo.controller.authorization.UserIdSet;
 import cz.cesnet.shongo.controller.booking.Allocation;
 import cz.cesnet.shongo.controller.booking.ObjectIdentifier;
 import cz.cesnet.shongo.controller.booking.executable.Executable;
-import cz.cesnet.shongo.controller.booking.recording.RecordingBucket;
 import cz.cesnet.shongo.controller.booking.recording.RecordingCapability;
 import cz.cesnet.shongo.controller.booking.recording.RecordingServiceReservation;
 import cz.cesnet.shongo.controller.booking.request.AbstractReservationRequest;
@@ -19,13 +18,13 @@ import cz.cesnet.shongo.controller.booking.reservation.Reservation;
 import cz.cesnet.shongo.controller.booking.reservation.ReservationManager;
 import cz.cesnet.shongo.controller.booking.resource.Resource;
 import cz.cesnet.shongo.controller.booking.room.AvailableRoom;
-import cz.cesnet.shongo.controller.booking.room.RoomBucket;
 import cz.cesnet.shongo.controller.booking.room.RoomProviderCapability;
 import cz.cesnet.shongo.controller.booking.room.RoomReservation;
 import cz.cesnet.shongo.controller.cache.Cache;
+import cz.cesnet.shongo.controller.cache.ReservationCache;
 import cz.cesnet.shongo.controller.cache.ResourceCache;
 import cz.cesnet.shongo.controller.notification.AbstractNotification;
-import cz.cesnet.shongo.util.RangeSet;
+import cz.cesnet.shongo.util.CapacitySweep;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
 
@@ -105,6 +104,18 @@ public class SchedulerContext
      */
     private boolean availabilityCheck = false;
 
+    /**
+     * Memoized peaks of license counts used by {@link RoomReservation}s by {@link RoomProviderCapability} identifiers
+     * by slots. They are valid only for {@link #licenseCountPeaksModificationCount}.
+     */
+    private final Map<Interval, Map<Long, Integer>> licenseCountPeaks = new HashMap<Interval, Map<Long, Integer>>();
+
+    /**
+     * {@link SchedulerContextState#getReservationModificationCount()} for which the {@link #licenseCountPeaks}
+     * are computed.
+     */
+    private int licenseCountPeaksModificationCount = -1;
+
     /**
      * Constructor.
      *
@@ -340,19 +351,78 @@ public class SchedulerContext
     public AvailableRoom getAvailableRoom(RoomProviderCapability roomProviderCapability, Interval slot,
             ReservationTask reservationTask)
     {
-        int usedLicenseCount = 0;
+        return getAvailableRooms(Collections.singletonList(roomProviderCapability), slot, reservationTask)
+                .get(roomProviderCapability);
+    }
+
+    /**
+     * Evaluate all given {@code roomProviderCapabilities} at once. {@link RoomReservation}s are loaded for all
+     * of them together and the license count peaks are memoized for the current {@link SchedulerContextState}.
+     *
+     * @param roomProviderCapabilities
+     * @param slot
+     * @param reservationTask
+     * @return map of {@link AvailableRoom}s by given {@code roomProviderCapabilities} in given {@code interval}
+     */
+    public Map<RoomProviderCapability, AvailableRoom> getAvailableRooms(
+            Collection<RoomProviderCapability> roomProviderCapabilities, Interval slot, ReservationTask reservationTask)
+    {
+        Map<Long, Integer> slotLicenseCountPeaks = getLicenseCountPeaks(slot);
         ResourceCache resourceCache = cache.getResourceCache();
-        if (resourceCache.isResourceAvailable(roomProviderCapability.getResource(), slot, this, reservationTask)) {
-            ReservationManager reservationManager = new ReservationManager(entityManager);
-            List<RoomReservation> roomReservations =
-                    reservationManager.getRoomReservations(roomProviderCapability, slot);
+        Map<RoomProviderCapability, AvailableRoom> availableRooms =
+                new LinkedHashMap<RoomProviderCapability, AvailableRoom>();
+        Map<Long, RoomProviderCapability> notEvaluatedCapabilities = new LinkedHashMap<Long, RoomProviderCapability>();
+        for (RoomProviderCapability roomProviderCapability : roomProviderCapabilities) {
+            if (resourceCache.isResourceAvailable(roomProviderCapability.getResource(), slot, this, reservationTask)) {
+                availableRooms.put(roomProviderCapability, null);
+                if (!slotLicenseCountPeaks.containsKey(roomProviderCapability.getId())) {
+                    notEvaluatedCapabilities.put(roomProviderCapability.getId(), roomProviderCapability);
+                }
+            }
+            else {
+                availableRooms.put(roomProviderCapability,
+                        new AvailableRoom(roomProviderCapability, roomProviderCapability.getLicenseCount()));
+            }
+        }
+        if (!notEvaluatedCapabilities.isEmpty()) {
+            ReservationCache reservationCache = cache.getReservationCache();
+            Map<Long, List<RoomReservation>> roomReservationsByCapabilityId = reservationCache.getReservations(
+                    RoomReservation.class, notEvaluatedCapabilities.keySet(), slot, entityManager);
+            for (RoomProviderCapability roomProviderCapability : notEvaluatedCapabilities.values()) {
+                Long roomProviderCapabilityId = roomProviderCapability.getId();
+                List<RoomReservation> roomReservations = roomReservationsByCapabilityId.get(roomProviderCapabilityId);
+                slotLicenseCountPeaks.put(roomProviderCapabilityId,
+                        getLicenseCountPeak(slot, roomReservations, roomProviderCapability));
+            }
+        }
+        for (Map.Entry<RoomProviderCapability, AvailableRoom> entry : availableRooms.entrySet()) {
+            if (entry.getValue() == null) {
+                RoomProviderCapability roomProviderCapability = entry.getKey();
+                int usedLicenseCount = slotLicenseCountPeaks.get(roomProviderCapability.getId());
+                entry.setValue(new AvailableRoom(roomProviderCapability, usedLicenseCount));
+            }
+        }
+        return availableRooms;
+    }
 
-            usedLicenseCount = getLicenseCountPeak(slot, roomReservations, roomProviderCapability);
+    /**
+     * @param slot
+     * @return memoized license count peaks for given {@code slot} from {@link #licenseCountPeaks}
+     */
+    private Map<Long, Integer> getLicenseCountPeaks(Interval slot)
+    {
+        int modificationCount = state.getReservationModificationCount();
+        if (modificationCount != licenseCountPeaksModificationCount) {
+            // Allocated or available reservations were changed and thus the peaks must be computed again
+            licenseCountPeaks.clear();
+            licenseCountPeaksModificationCount = modificationCount;
         }
-        else {
-            usedLicenseCount = roomProviderCapability.getLicenseCount();
+        Map<Long, Integer> slotLicenseCountPeaks = licenseCountPeaks.get(slot);
+        if (slotLicenseCountPeaks == null) {
+            slotLicenseCountPeaks = new HashMap<Long, Integer>();
+            licenseCountPeaks.put(slot, slotLicenseCountPeaks);
         }
-        return new AvailableRoom(roomProviderCapability, usedLicenseCount);
+        return slotLicenseCountPeaks;
     }
 
     /**
@@ -364,33 +434,12 @@ public class SchedulerContext
     public int getLicenseCountPeak(Interval slot, List<RoomReservation> roomReservations, RoomProviderCapability roomProviderCapability)
     {
         state.applyReservations(roomProviderCapability.getId(), slot, roomReservations, RoomReservation.class);
-        RangeSet<RoomReservation, DateTime> rangeSet = new RangeSet<RoomReservation, DateTime>()
-        {
-            @Override
-            protected Bucket<DateTime, RoomReservation> createBucket(DateTime rangeValue)
-            {
-                return new RoomBucket(rangeValue);
-            }
-        };
+        CapacitySweep capacitySweep = new CapacitySweep(roomReservations.size());
         for (RoomReservation roomReservation : roomReservations) {
-            rangeSet.add(roomReservation, roomReservation.getSlotStart(), roomReservation.getSlotEnd());
-        }
-
-        List<RoomBucket> roomBuckets = new LinkedList<>();
-        roomBuckets.addAll(rangeSet.getBuckets(slot.getStart(), slot.getEnd(), RoomBucket.class));
-        Collections.sort(roomBuckets, new Comparator<RoomBucket>()
-        {
-            @Override
-            public int compare(RoomBucket roomBucket1, RoomBucket roomBucket2)
-            {
-                return -Double.compare(roomBucket1.getLicenseCount(), roomBucket2.getLicenseCount());
-            }
-        });
-        if (roomBuckets.size() > 0) {
-            RoomBucket roomBucket = roomBuckets.get(0);
-            return roomBucket.getLicenseCount();
+            capacitySweep.add(roomReservation.getSlotStart().getMillis(), roomReservation.getSlotEnd().getMillis(),
+                    roomReservation.getLicenseCount());
         }
-        return 0;
+        return capacitySweep.getPeak(slot.getStartMillis(), slot.getEndMillis());
     }
 
 
@@ -403,33 +452,12 @@ public class SchedulerContext
     public int getLicenseCountPeak(Interval slot, List<RecordingServiceReservation> recordingReservations, RecordingCapability recordingCapability)
     {
         state.applyReservations(recordingCapability.getId(), slot, recordingReservations, RecordingServiceReservation.class);
-        RangeSet<RecordingServiceReservation, DateTime> rangeSet = new RangeSet<RecordingServiceReservation, DateTime>()
-        {
-            @Override
-            protected Bucket<DateTime, RecordingServiceReservation> createBucket(DateTime rangeValue)
-            {
-                return new RecordingBucket(rangeValue);
-            }
-        };
+        CapacitySweep capacitySweep = new CapacitySweep(recordingReservations.size());
         for (RecordingServiceReservation recordingReservation : recordingReservations) {
-            rangeSet.add(recordingReservation, recordingReservation.getSlotStart(), recordingReservation.getSlotEnd());
-        }
-
-        List<RecordingBucket> recordingBuckets = new LinkedList<>();
-        recordingBuckets.addAll(rangeSet.getBuckets(slot.getStart(), slot.getEnd(), RecordingBucket.class));
-        Collections.sort(recordingBuckets, new Comparator<RecordingBucket>()
-        {
-            @Override
-            public int compare(RecordingBucket recordingBucket1, RecordingBucket recordingBucket2)
-            {
-                return -Double.compare(recordingBucket1.getLicenseCount(), recordingBucket2.getLicenseCount());
-            }
-        });
-        if (recordingBuckets.size() > 0) {
-            RecordingBucket recordingBucket = recordingBuckets.get(0);
-            return recordingBucket.getLicenseCount();
+            capacitySweep.add(recordingReservation.getSlotStart().getMillis(),
+                    recordingReservation.getSlotEnd().getMillis(), 1);
         }
-        return 0;
+        return capacitySweep.getPeak(slot.getStartMillis(), slot.getEndMillis());
     }
 
     /**
@@ -89,6 +89,12 @@ public class SchedulerContextState
      */
     private List<Reservation> reservationsToDelete = new LinkedList<Reservation>();
 
+    /**
+     * Number of changes of allocated and available reservations (it can be used to detect whether values
+     * computed from reservations are still valid).
+     */
+    private int reservationModificationCount = 0;
+
     /**
      * @return {@link #currentSavepoint}
      */
@@ -485,6 +491,14 @@ public class SchedulerContextState
         }
     }
 
+    /**
+     * @return {@link #reservationModificationCount}
+     */
+    public int getReservationModificationCount()
+    {
+        return reservationModificationCount;
+    }
+
     /**
      * Record transaction change.
      *
@@ -494,6 +508,9 @@ public class SchedulerContextState
      */
     private void onChange(ObjectType objectType, Object object, ObjectState objectState)
     {
+        if (objectType == ObjectType.ALLOCATED_RESERVATION || objectType == ObjectType.AVAILABLE_RESERVATION) {
+            reservationModificationCount++;
+        }
         if (currentSavepoint != null) {
             if (currentSavepoint.nextSavepoint != null) {
                 throw new RuntimeException("Current savepoint shouldn't have next savepoint.");
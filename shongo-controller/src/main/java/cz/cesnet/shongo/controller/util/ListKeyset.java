@@ -0,0 +1,261 @@
+package cz.cesnet.shongo.controller.util;
+
+import cz.cesnet.shongo.CommonReportSet;
+import cz.cesnet.shongo.controller.api.request.ListRequest;
+import cz.cesnet.shongo.controller.api.request.ListResponse;
+import org.apache.commons.codec.binary.Base64;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Date;
+
+/**
+ * Keyset (seek) pagination for native list queries.
+ * <p/>
+ * Items are ordered by a sort column and by an unique identifier column and the following items are selected
+ * by a condition on values of the last returned item (instead of skipping all previous items by OFFSET, which
+ * requires the database to evaluate the whole query up to the requested page). Position of the last returned item
+ * is passed to clients as an opaque {@link ListResponse#getContinuation()}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ListKeyset
+{
+    /**
+     * Sort column (or {@code null} when items are ordered only by {@link #idColumn}).
+     */
+    private final String column;
+
+    /**
+     * Index of {@link #column} in query result record.
+     */
+    private final int columnIndex;
+
+    /**
+     * Unique identifier column.
+     */
+    private final String idColumn;
+
+    /**
+     * Index of {@link #idColumn} in query result record.
+     */
+    private final int idIndex;
+
+    /**
+     * Specifies whether items are ordered descending.
+     */
+    private final boolean descending;
+
+    /**
+     * Index of first item which was requested by {@link ListRequest#getContinuation()} for which the condition
+     * was added by {@link #addFilter} (or {@code null} when the condition wasn't added).
+     */
+    private Integer start;
+
+    /**
+     * Constructor for items ordered only by unique identifier.
+     *
+     * @param idColumn   sets the {@link #idColumn}
+     * @param idIndex    sets the {@link #idIndex}
+     * @param descending sets the {@link #descending}
+     */
+    public ListKeyset(String idColumn, int idIndex, boolean descending)
+    {
+        this(null, -1, idColumn, idIndex, descending);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param column      sets the {@link #column}
+     * @param columnIndex sets the {@link #columnIndex}
+     * @param idColumn    sets the {@link #idColumn}
+     * @param idIndex     sets the {@link #idIndex}
+     * @param descending  sets the {@link #descending}
+     */
+    public ListKeyset(String column, int columnIndex, String idColumn, int idIndex, boolean descending)
+    {
+        this.column = column;
+        this.columnIndex = columnIndex;
+        this.idColumn = idColumn;
+        this.idIndex = idIndex;
+        this.descending = descending;
+    }
+
+    /**
+     * @return order by clause for the query
+     */
+    public String getOrderBy()
+    {
+        String direction = (descending ? " DESC" : "");
+        if (column == null) {
+            return idColumn + direction;
+        }
+        return column + direction + " NULLS LAST, " + idColumn + direction;
+    }
+
+    /**
+     * Add condition selecting items which follows the item from {@link ListRequest#getContinuation()}.
+     *
+     * @param queryFilter to which the condition should be added
+     * @param listRequest from which the continuation should be parsed
+     */
+    public void addFilter(QueryFilter queryFilter, ListRequest listRequest)
+    {
+        String continuation = listRequest.getContinuation();
+        if (continuation == null) {
+            return;
+        }
+        String[] parts = parseContinuation(continuation);
+        if (parts.length < 3 || parts[1].isEmpty()) {
+            // Continuation contains only index of first item
+            return;
+        }
+        try {
+            Long id = Long.valueOf(parts[1]);
+            String operator = (descending ? " < " : " > ");
+            queryFilter.addFilterParameter("keysetId", id);
+            if (column == null) {
+                queryFilter.addFilter(idColumn + operator + ":keysetId");
+            }
+            else if (parts[2].isEmpty()) {
+                queryFilter.addFilter(column + " IS NULL AND " + idColumn + operator + ":keysetId");
+            }
+            else {
+                queryFilter.addFilterParameter("keysetValue", parseValue(parts[2]));
+                queryFilter.addFilter(column + operator + ":keysetValue"
+                        + " OR (" + column + " = :keysetValue AND " + idColumn + operator + ":keysetId)"
+                        + " OR " + column + " IS NULL");
+            }
+            start = Integer.valueOf(parts[0]);
+        }
+        catch (NumberFormatException exception) {
+            throw new CommonReportSet.TypeIllegalValueException("Continuation", continuation);
+        }
+    }
+
+    /**
+     * @return {@link #start}
+     */
+    public Integer getStart()
+    {
+        return start;
+    }
+
+    /**
+     * @param start  index of the first item which follows given {@code record}
+     * @param record last returned record
+     * @return continuation for items following given {@code record}
+     */
+    public String formatContinuation(int start, Object[] record)
+    {
+        Object id = record[idIndex];
+        if (!(id instanceof Number)) {
+            return formatContinuation(start);
+        }
+        String value = "";
+        if (column != null) {
+            value = formatValue(record[columnIndex]);
+            if (value == null) {
+                return formatContinuation(start);
+            }
+        }
+        return encode(start + ":" + ((Number) id).longValue() + ":" + value);
+    }
+
+    /**
+     * @param start index of the first item
+     * @return continuation for items starting at given {@code start}
+     */
+    public static String formatContinuation(int start)
+    {
+        return encode(Integer.toString(start));
+    }
+
+    /**
+     * @param listRequest
+     * @return index of first item requested by {@link ListRequest#getContinuation()} or {@link ListRequest#getStart}
+     */
+    public static int getStart(ListRequest listRequest)
+    {
+        String continuation = listRequest.getContinuation();
+        if (continuation == null) {
+            return listRequest.getStart(0);
+        }
+        try {
+            return Math.max(0, Integer.parseInt(parseContinuation(continuation)[0]));
+        }
+        catch (NumberFormatException exception) {
+            throw new CommonReportSet.TypeIllegalValueException("Continuation", continuation);
+        }
+    }
+
+    /**
+     * @param continuation to be parsed
+     * @return parts of given {@code continuation}
+     */
+    private static String[] parseContinuation(String continuation)
+    {
+        if (!Base64.isBase64(continuation)) {
+            throw new CommonReportSet.TypeIllegalValueException("Continuation", continuation);
+        }
+        return new String(Base64.decodeBase64(continuation), StandardCharsets.UTF_8).split(":", -1);
+    }
+
+    /**
+     * @param continuation to be encoded
+     * @return encoded {@code continuation}
+     */
+    private static String encode(String continuation)
+    {
+        return Base64.encodeBase64URLSafeString(continuation.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param value of sort column
+     * @return formatted {@code value} (empty for {@code null}) or {@code null} when it cannot be formatted
+     */
+    private static String formatValue(Object value)
+    {
+        if (value == null) {
+            return "";
+        }
+        else if (value instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) value;
+            return "t" + timestamp.getTime() + "." + timestamp.getNanos();
+        }
+        else if (value instanceof Date) {
+            return "t" + ((Date) value).getTime() + ".";
+        }
+        else if (value instanceof Number) {
+            return "n" + ((Number) value).longValue();
+        }
+        return null;
+    }
+
+    /**
+     * @param value formatted by {@link #formatValue}
+     * @return parsed {@code value}
+     * @throws NumberFormatException when the {@code value} is invalid
+     */
+    private static Object parseValue(String value)
+    {
+        switch (value.charAt(0)) {
+            case 't': {
+                int separator = value.indexOf('.');
+                if (separator == -1) {
+                    throw new NumberFormatException(value);
+                }
+                Timestamp timestamp = new Timestamp(Long.parseLong(value.substring(1, separator)));
+                if (separator + 1 < value.length()) {
+                    timestamp.setNanos(Integer.parseInt(value.substring(separator + 1)));
+                }
+                return timestamp;
+            }
+            case 'n':
+                return Long.parseLong(value.substring(1));
+            default:
+                throw new NumberFormatException(value);
+        }
+    }
+}
@@ -7,6 +7,7 @@ import cz.cesnet.shongo.api.Converter;
 import cz.cesnet.shongo.controller.ObjectPermission;
 import cz.cesnet.shongo.controller.acl.AclObjectClass;
 import cz.cesnet.shongo.controller.api.SecurityToken;
+import cz.cesnet.shongo.controller.authorization.AclEntryFilter;
 import cz.cesnet.shongo.controller.authorization.Authorization;
 
 import javax.persistence.Query;
@@ -39,6 +40,11 @@ public class QueryFilter
      */
     private Map<String, Object> parameters = new HashMap<String, Object>();
 
+    /**
+     * Number of conditions created by {@link #getAclEntryFilter} (used for unique parameter names).
+     */
+    private int aclEntryFilterCount = 0;
+
     /**
      * Constructor.
      *
@@ -154,7 +160,40 @@ public class QueryFilter
     public void addFilterId(String column, Authorization authorization, SecurityToken securityToken,
             Class<? extends PersistentObject> objectClass, ObjectPermission objectPermission)
     {
-        addFilterIn(column, authorization.getEntitiesWithPermission(securityToken, objectClass, objectPermission));
+        if (!nativeQuery) {
+            addFilterIn(column, authorization.getEntitiesWithPermission(securityToken, objectClass, objectPermission));
+            return;
+        }
+        AclEntryFilter aclEntryFilter = authorization.getAclEntryFilter(securityToken, objectClass, objectPermission);
+        if (aclEntryFilter != null) {
+            addFilter(getAclEntryFilter(alias + "." + column, aclEntryFilter));
+        }
+    }
+
+    /**
+     * Create native query condition which matches identifiers in given {@code column} of objects which are
+     * granted by given {@code aclEntryFilter} (parameters of the condition are added to the {@link #parameters}).
+     * The acl_entry table is joined in the database and thus the size of the condition doesn't depend on
+     * the number of objects which are accessible to the user.
+     *
+     * @param column         with object identifiers
+     * @param aclEntryFilter to be used
+     * @return native query condition
+     */
+    public String getAclEntryFilter(String column, AclEntryFilter aclEntryFilter)
+    {
+        if (aclEntryFilter.isEmpty()) {
+            return "1=0";
+        }
+        String suffix = String.valueOf(aclEntryFilterCount++);
+        addFilterParameter("aclIdentityIds" + suffix, aclEntryFilter.getAclIdentityIds());
+        addFilterParameter("aclObjectClassId" + suffix, aclEntryFilter.getAclObjectClassId());
+        addFilterParameter("aclRoles" + suffix, aclEntryFilter.getRoles());
+        return column + " IN (SELECT acl_object_identity.object_id FROM acl_entry"
+                + " INNER JOIN acl_object_identity ON acl_object_identity.id = acl_entry.acl_object_identity_id"
+                + " WHERE acl_entry.acl_identity_id IN (:aclIdentityIds" + suffix + ")"
+                + " AND acl_object_identity.acl_object_class_id = :aclObjectClassId" + suffix
+                + " AND acl_entry.role IN (:aclRoles" + suffix + "))";
     }
 
     /**
@@ -0,0 +1,222 @@
+package cz.cesnet.shongo.controller.util;
+
+import org.hibernate.Session;
+import org.hibernate.Transaction;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+
+/**
+ * Maintains tables specification_summary and executable_summary which are materialized views
+ * specification_summary_view and executable_summary_view (for more see init.sql).
+ * <p/>
+ * Identifiers of modified specifications and executables are collected during a transaction and each of them
+ * is refreshed only once right before the transaction is committed (or when {@link #flush} is called), by batched
+ * parameterized statements. The whole tables are rebuilt from the views whenever the database is initialized
+ * (see {@link cz.cesnet.shongo.controller.Controller#initializeDatabase}).
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class SummaryUpdater
+{
+    private static Logger logger = LoggerFactory.getLogger(SummaryUpdater.class);
+
+    /**
+     * Maximum number of identifiers in single statement.
+     */
+    private static final int BATCH_SIZE = 500;
+
+    /**
+     * Pending {@link SummaryUpdate}s by Hibernate {@link Transaction}s in which they should be performed.
+     */
+    private static final Map<Transaction, SummaryUpdate> summaryUpdates =
+            new WeakHashMap<Transaction, SummaryUpdate>();
+
+    /**
+     * Mark given {@code specificationId} to be refreshed in table specification_summary.
+     *
+     * @param entityManager   in whose transaction the refresh should be performed
+     * @param specificationId to be refreshed
+     * @param deleteOnly      specifies whether the specification should be only deleted from the table
+     */
+    public static void updateSpecification(EntityManager entityManager, Long specificationId, boolean deleteOnly)
+    {
+        update(entityManager, Summary.SPECIFICATION, specificationId, deleteOnly);
+    }
+
+    /**
+     * Mark given {@code executableId} to be refreshed in table executable_summary.
+     *
+     * @param entityManager in whose transaction the refresh should be performed
+     * @param executableId  to be refreshed
+     * @param deleteOnly    specifies whether the executable should be only deleted from the table
+     */
+    public static void updateExecutable(EntityManager entityManager, Long executableId, boolean deleteOnly)
+    {
+        update(entityManager, Summary.EXECUTABLE, executableId, deleteOnly);
+    }
+
+    /**
+     * Perform all pending refreshes for current transaction of given {@code entityManager} immediately
+     * (e.g., before the summary tables are read in the same transaction).
+     *
+     * @param entityManager
+     */
+    public static void flush(EntityManager entityManager)
+    {
+        if (!entityManager.getTransaction().isActive()) {
+            return;
+        }
+        Session session = entityManager.unwrap(Session.class);
+        SummaryUpdate summaryUpdate;
+        synchronized (summaryUpdates) {
+            summaryUpdate = summaryUpdates.get(session.getTransaction());
+        }
+        if (summaryUpdate != null) {
+            summaryUpdate.perform(session);
+        }
+    }
+
+    /**
+     * @param entityManager
+     * @param summary
+     * @param id
+     * @param deleteOnly
+     */
+    private static void update(EntityManager entityManager, Summary summary, Long id, boolean deleteOnly)
+    {
+        Session session = entityManager.unwrap(Session.class);
+        if (!entityManager.getTransaction().isActive()) {
+            // Without transaction the refresh cannot be deferred
+            SummaryUpdate summaryUpdate = new SummaryUpdate();
+            summaryUpdate.add(summary, id, deleteOnly);
+            summaryUpdate.perform(session);
+            return;
+        }
+        Transaction transaction = session.getTransaction();
+        SummaryUpdate summaryUpdate;
+        synchronized (summaryUpdates) {
+            summaryUpdate = summaryUpdates.get(transaction);
+            if (summaryUpdate == null) {
+                summaryUpdate = new SummaryUpdate();
+                summaryUpdates.put(transaction, summaryUpdate);
+                ((EventSource) session).getActionQueue().registerProcess(summaryUpdate);
+            }
+        }
+        summaryUpdate.add(summary, id, deleteOnly);
+    }
+
+    /**
+     * Summary table.
+     */
+    private static enum Summary
+    {
+        SPECIFICATION(NativeQuery.SPECIFICATION_SUMMARY_DELETE, NativeQuery.SPECIFICATION_SUMMARY_INSERT),
+        EXECUTABLE(NativeQuery.EXECUTABLE_SUMMARY_DELETE, NativeQuery.EXECUTABLE_SUMMARY_INSERT);
+
+        /**
+         * {@link NativeQuery} for deleting records with given ids.
+         */
+        private final String deleteQuery;
+
+        /**
+         * {@link NativeQuery} for inserting records with given ids from the view.
+         */
+        private final String insertQuery;
+
+        /**
+         * Constructor.
+         *
+         * @param deleteQuery sets the {@link #deleteQuery}
+         * @param insertQuery sets the {@link #insertQuery}
+         */
+        private Summary(String deleteQuery, String insertQuery)
+        {
+            this.deleteQuery = deleteQuery;
+            this.insertQuery = insertQuery;
+        }
+    }
+
+    /**
+     * Pending refreshes for a single transaction.
+     */
+    private static class SummaryUpdate implements BeforeTransactionCompletionProcess
+    {
+        /**
+         * Identifiers to be refreshed for each {@link Summary} (with value specifying whether the record should be
+         * only deleted).
+         */
+        private final Map<Summary, Map<Long, Boolean>> ids = new EnumMap<Summary, Map<Long, Boolean>>(Summary.class);
+
+        /**
+         * @param summary
+         * @param id
+         * @param deleteOnly
+         */
+        public synchronized void add(Summary summary, Long id, boolean deleteOnly)
+        {
+            Map<Long, Boolean> summaryIds = ids.get(summary);
+            if (summaryIds == null) {
+                summaryIds = new LinkedHashMap<Long, Boolean>();
+                ids.put(summary, summaryIds);
+            }
+            summaryIds.put(id, deleteOnly);
+        }
+
+        @Override
+        public void doBeforeTransactionCompletion(SessionImplementor session)
+        {
+            synchronized (summaryUpdates) {
+                summaryUpdates.remove(((Session) session).getTransaction());
+            }
+            perform((Session) session);
+        }
+
+        /**
+         * Perform all pending refreshes.
+         *
+         * @param session to be used
+         */
+        public synchronized void perform(Session session)
+        {
+            for (Map.Entry<Summary, Map<Long, Boolean>> entry : ids.entrySet()) {
+                Summary summary = entry.getKey();
+                Map<Long, Boolean> summaryIds = entry.getValue();
+                if (summaryIds.isEmpty()) {
+                    continue;
+                }
+                List<Long> insertIds = new ArrayList<Long>(summaryIds.size());
+                for (Map.Entry<Long, Boolean> idEntry : summaryIds.entrySet()) {
+                    if (!idEntry.getValue()) {
+                        insertIds.add(idEntry.getKey());
+                    }
+                }
+                execute(session, summary.deleteQuery, new ArrayList<Long>(summaryIds.keySet()));
+                execute(session, summary.insertQuery, insertIds);
+                logger.trace("Refreshed {} {} summaries.", summaryIds.size(), summary);
+                summaryIds.clear();
+            }
+        }
+
+        /**
+         * Execute given {@code nativeQueryFileName} for given {@code ids} in batches.
+         *
+         * @param session
+         * @param nativeQueryFileName
+         * @param ids
+         */
+        private void execute(Session session, String nativeQueryFileName, List<Long> ids)
+        {
+            String nativeQuery = NativeQuery.getNativeQuery(nativeQueryFileName);
+            for (int index = 0; index < ids.size(); index += BATCH_SIZE) {
+                List<Long> batchIds = ids.subList(index, Math.min(index + BATCH_SIZE, ids.size()));
+                session.createSQLQuery(nativeQuery).setParameterList("ids", batchIds).executeUpdate();
+            }
+        }
+    }
+}
@@ -140,6 +140,30 @@ public abstract class AbstractControllerTest extends AbstractDatabaseTest
         return authorization;
     }
 
+    /**
+     * @return {@link #scheduler}
+     */
+    public Scheduler getScheduler()
+    {
+        return scheduler;
+    }
+
+    /**
+     * Replace the {@link #scheduler} by a new one which allocates independent reservation requests
+     * by given number of workers.
+     *
+     * @param parallelism see {@link ControllerConfiguration#SCHEDULER_PARALLELISM}
+     */
+    public void setSchedulerParallelism(int parallelism)
+    {
+        scheduler.destroy();
+        getConfiguration().setProperty(ControllerConfiguration.SCHEDULER_PARALLELISM, parallelism);
+        scheduler = new Scheduler(cache, controller.getNotificationManager(), controller.getCalendarManager());
+        scheduler.setAuthorization(authorization);
+        scheduler.setEntityManagerFactory(getEntityManagerFactory());
+        scheduler.init(getConfiguration());
+    }
+
     /**
      * @return {@link #schedulerResult}
      */
@@ -247,7 +271,8 @@ public abstract class AbstractControllerTest extends AbstractDatabaseTest
 
         // Initialize Inter Domain agent
         if (getConfiguration().isInterDomainConfigured()) {
-            InterDomainAgent.create(getEntityManagerFactory(), getConfiguration(), authorization, controller.getEmailSender(), cache);
+            InterDomainAgent.create(getEntityManagerFactory(), getConfiguration(), authorization,
+                    controller.getEmailSender(), cache, controller.getChangeJournal());
         }
 
         controller.addRpcService(new AuthorizationServiceImpl());
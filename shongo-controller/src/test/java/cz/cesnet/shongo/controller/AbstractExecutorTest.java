@@ -91,7 +91,9 @@ public abstract class AbstractExecutorTest extends AbstractControllerTest
         executor = new Executor(controller.getNotificationManager());
 
         RecordingsCache recordingsCache = new RecordingsCache();
-        getController().addRpcService(new ResourceControlServiceImpl(recordingsCache));
+        ResourceControlServiceImpl resourceControlService = new ResourceControlServiceImpl(recordingsCache);
+        resourceControlService.setExecutor(executor);
+        getController().addRpcService(resourceControlService);
         getController().addRpcService(new ExecutableServiceImpl(executor, recordingsCache));
 
         executor.setEntityManagerFactory(getEntityManagerFactory());
@@ -0,0 +1,53 @@
+package cz.cesnet.shongo.controller;
+
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Tests for {@link ReporterCache}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ReporterCacheTest
+{
+    private static final int TITLE_COUNT = 32;
+
+    @Test
+    public void testExpiredCounts() throws Exception
+    {
+        ReporterCache reporterCache = new ReporterCache();
+        reporterCache.setExpiration(Duration.millis(50));
+        List<String> recipients = Collections.singletonList("shongo@cesnet.cz");
+
+        // Second email for each title is grouped (the first is sent)
+        for (int index = 0; index < TITLE_COUNT; index++) {
+            Assert.assertEquals(1, reporterCache.apply(recipients, "title" + index, "content"));
+            Assert.assertEquals(0, reporterCache.apply(recipients, "title" + index, "content"));
+        }
+        Thread.sleep(100);
+
+        // Other emails are applied after the grouped emails have expired
+        for (int index = 0; index < TITLE_COUNT; index++) {
+            Assert.assertEquals(1, reporterCache.apply(recipients, "other" + index, "content"));
+        }
+
+        // Grouped emails are still reported
+        final Map<String, Integer> countByTitle = new HashMap<String, Integer>();
+        reporterCache.clear(DateTime.now(), new ReporterCache.EntryCallback()
+        {
+            @Override
+            public void sendEmail(Collection<String> recipients, String title, String content, int count)
+            {
+                countByTitle.put(title, count);
+            }
+        });
+        Assert.assertEquals(TITLE_COUNT, countByTitle.size());
+        for (int index = 0; index < TITLE_COUNT; index++) {
+            Assert.assertEquals(Integer.valueOf(1), countByTitle.get("title" + index));
+        }
+    }
+}
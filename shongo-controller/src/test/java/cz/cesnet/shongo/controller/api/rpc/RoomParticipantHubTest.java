@@ -0,0 +1,227 @@
+package cz.cesnet.shongo.controller.api.rpc;
+
+import cz.cesnet.shongo.api.RoomParticipant;
+import cz.cesnet.shongo.controller.api.RoomParticipantChanges;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.*;
+
+/**
+ * Tests for {@link RoomParticipantHub}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class RoomParticipantHubTest
+{
+    private static final String DEVICE = "device";
+
+    private static final String ROOM = "room";
+
+    /**
+     * Test that only changes since given revision are returned.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testChanges() throws Exception
+    {
+        RoomParticipantHub hub = new RoomParticipantHub();
+        TestLoader loader = new TestLoader();
+        loader.setParticipant("1", "first");
+        loader.setParticipant("2", "second");
+
+        RoomParticipantChanges changes = hub.getRoomParticipantChanges(DEVICE, ROOM, null, loader);
+        Assert.assertTrue(changes.isComplete());
+        Assert.assertEquals(participantIds("1", "2"), getParticipantIds(changes));
+        Long revision = changes.getRevision();
+
+        // Nothing is changed
+        hub.invalidate(DEVICE, ROOM);
+        changes = hub.getRoomParticipantChanges(DEVICE, ROOM, revision, loader);
+        Assert.assertFalse(changes.isComplete());
+        Assert.assertTrue(changes.isEmpty());
+        Assert.assertEquals(revision, changes.getRevision());
+
+        // Modified and added participants
+        loader.setParticipant("2", "second modified");
+        loader.setParticipant("3", "third");
+        hub.invalidate(DEVICE, ROOM);
+        changes = hub.getRoomParticipantChanges(DEVICE, ROOM, revision, loader);
+        Assert.assertFalse(changes.isComplete());
+        Assert.assertEquals(participantIds("2", "3"), getParticipantIds(changes));
+        Assert.assertEquals("second modified", changes.getParticipants().get(0).getDisplayName());
+        Assert.assertTrue(changes.getRevision() > revision);
+
+        // Changes since the newest revision are empty and all participants are still available
+        changes = hub.getRoomParticipantChanges(DEVICE, ROOM, changes.getRevision(), loader);
+        Assert.assertTrue(changes.isEmpty());
+        Assert.assertEquals(3, hub.getRoomParticipants(DEVICE, ROOM, loader).size());
+    }
+
+    /**
+     * Test that identifiers of removed participants are returned.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRemoved() throws Exception
+    {
+        RoomParticipantHub hub = new RoomParticipantHub();
+        TestLoader loader = new TestLoader();
+        loader.setParticipant("1", "first");
+        loader.setParticipant("2", "second");
+        Long revision = hub.getRoomParticipantChanges(DEVICE, ROOM, null, loader).getRevision();
+
+        loader.removeParticipant("1");
+        hub.invalidate(DEVICE, ROOM);
+        RoomParticipantChanges changes = hub.getRoomParticipantChanges(DEVICE, ROOM, revision, loader);
+        Assert.assertFalse(changes.isComplete());
+        Assert.assertTrue(changes.getParticipants().isEmpty());
+        Assert.assertEquals(Arrays.asList("1"), changes.getRemovedParticipantIds());
+        Long removedRevision = changes.getRevision();
+
+        // Participant which is added again isn't reported as removed
+        loader.setParticipant("1", "first");
+        hub.invalidate(DEVICE, ROOM);
+        changes = hub.getRoomParticipantChanges(DEVICE, ROOM, revision, loader);
+        Assert.assertEquals(participantIds("1"), getParticipantIds(changes));
+        Assert.assertTrue(changes.getRemovedParticipantIds().isEmpty());
+        changes = hub.getRoomParticipantChanges(DEVICE, ROOM, removedRevision, loader);
+        Assert.assertEquals(participantIds("1"), getParticipantIds(changes));
+        Assert.assertTrue(changes.getRemovedParticipantIds().isEmpty());
+    }
+
+    /**
+     * Test that complete snapshot is returned when the changes since given revision aren't available.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testComplete() throws Exception
+    {
+        RoomParticipantHub hub = new RoomParticipantHub();
+        TestLoader loader = new TestLoader();
+        loader.setParticipant("stable", "stable");
+        Long revision = hub.getRoomParticipantChanges(DEVICE, ROOM, null, loader).getRevision();
+
+        // Unknown (newer) revision
+        RoomParticipantChanges changes = hub.getRoomParticipantChanges(DEVICE, ROOM, revision + 1, loader);
+        Assert.assertTrue(changes.isComplete());
+        Assert.assertEquals(participantIds("stable"), getParticipantIds(changes));
+
+        // Remove more participants than is remembered (each in own revision)
+        Long lastRevision = revision;
+        for (int index = 0; index < 150; index++) {
+            String participantId = "removed" + index;
+            loader.setParticipant(participantId, participantId);
+            hub.invalidate(DEVICE, ROOM);
+            hub.getRoomParticipants(DEVICE, ROOM, loader);
+            loader.removeParticipant(participantId);
+            hub.invalidate(DEVICE, ROOM);
+            lastRevision = hub.getRoomParticipantChanges(DEVICE, ROOM, lastRevision, loader).getRevision();
+        }
+
+        // Removed entries for the old revision have been trimmed and thus a complete snapshot is returned
+        changes = hub.getRoomParticipantChanges(DEVICE, ROOM, revision, loader);
+        Assert.assertTrue(changes.isComplete());
+        Assert.assertEquals(participantIds("stable"), getParticipantIds(changes));
+        Assert.assertTrue(changes.getRemovedParticipantIds().isEmpty());
+
+        // Recent revision still gets only the changes
+        changes = hub.getRoomParticipantChanges(DEVICE, ROOM, lastRevision - 2, loader);
+        Assert.assertFalse(changes.isComplete());
+        Assert.assertTrue(changes.getParticipants().isEmpty());
+        Assert.assertEquals(Arrays.asList("removed149"), changes.getRemovedParticipantIds());
+    }
+
+    /**
+     * Test that participants are loaded at most once per {@link RoomParticipantHub#REFRESH_INTERVAL}
+     * unless they are invalidated.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testInvalidate() throws Exception
+    {
+        RoomParticipantHub hub = new RoomParticipantHub();
+        TestLoader loader = new TestLoader();
+        loader.setParticipant("1", "first");
+        Long revision = hub.getRoomParticipantChanges(DEVICE, ROOM, null, loader).getRevision();
+        Assert.assertEquals(1, loader.loadCount);
+
+        // Cached participants are used
+        loader.setParticipant("2", "second");
+        RoomParticipantChanges changes = hub.getRoomParticipantChanges(DEVICE, ROOM, revision, loader);
+        Assert.assertTrue(changes.isEmpty());
+        Assert.assertEquals(participantIds("1"), getParticipantIds(hub.getRoomParticipants(DEVICE, ROOM, loader)));
+        Assert.assertEquals(1, loader.loadCount);
+
+        // Invalidated participants are loaded again
+        hub.invalidate(DEVICE, ROOM);
+        changes = hub.getRoomParticipantChanges(DEVICE, ROOM, revision, loader);
+        Assert.assertEquals(participantIds("2"), getParticipantIds(changes));
+        Assert.assertEquals(2, loader.loadCount);
+
+        // Invalidation of other room doesn't affect this room
+        loader.setParticipant("3", "third");
+        hub.invalidate(DEVICE, "other");
+        Assert.assertEquals(2, hub.getRoomParticipants(DEVICE, ROOM, loader).size());
+        Assert.assertEquals(2, loader.loadCount);
+    }
+
+    private static Set<String> participantIds(String... participantIds)
+    {
+        return new HashSet<String>(Arrays.asList(participantIds));
+    }
+
+    private static Set<String> getParticipantIds(RoomParticipantChanges changes)
+    {
+        return getParticipantIds(changes.getParticipants());
+    }
+
+    private static Set<String> getParticipantIds(Collection<RoomParticipant> participants)
+    {
+        Set<String> participantIds = new HashSet<String>();
+        for (RoomParticipant participant : participants) {
+            participantIds.add(participant.getId());
+        }
+        return participantIds;
+    }
+
+    /**
+     * {@link RoomParticipantHub.Loader} with modifiable {@link RoomParticipant}s.
+     */
+    private static class TestLoader implements RoomParticipantHub.Loader
+    {
+        private final Map<String, RoomParticipant> participants = new LinkedHashMap<String, RoomParticipant>();
+
+        private int loadCount = 0;
+
+        public void setParticipant(String participantId, String displayName)
+        {
+            RoomParticipant participant = new RoomParticipant(participantId);
+            participant.setDisplayName(displayName);
+            participants.put(participantId, participant);
+        }
+
+        public void removeParticipant(String participantId)
+        {
+            participants.remove(participantId);
+        }
+
+        @Override
+        public Collection<RoomParticipant> load()
+        {
+            loadCount++;
+            List<RoomParticipant> loadedParticipants = new ArrayList<RoomParticipant>();
+            for (RoomParticipant participant : participants.values()) {
+                // Devices return new instances on each load
+                RoomParticipant loadedParticipant = new RoomParticipant(participant.getId());
+                loadedParticipant.setDisplayName(participant.getDisplayName());
+                loadedParticipants.add(loadedParticipant);
+            }
+            return loadedParticipants;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import cz.cesnet.shongo.connector.api.jade.multipoint.CreateRoom;
 import cz.cesnet.shongo.connector.api.jade.multipoint.DeleteRoom;
 import cz.cesnet.shongo.connector.api.jade.multipoint.GetRoom;
 import cz.cesnet.shongo.connector.api.jade.multipoint.ModifyRoom;
+import cz.cesnet.shongo.connector.api.jade.multipoint.ModifyRoomPartial;
 import cz.cesnet.shongo.controller.ObjectRole;
 import cz.cesnet.shongo.controller.ReservationRequestPurpose;
 import cz.cesnet.shongo.controller.ReservationRequestReusement;
@@ -328,7 +329,7 @@ public class ExecutableTest extends AbstractExecutorTest
         Assert.assertEquals(new ArrayList<Class<? extends Command>>()
         {{
                 add(CreateRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
                 add(DeleteRoom.class);
             }}, mcuAgent.getPerformedCommandClasses());
     }
@@ -453,8 +454,78 @@ public class ExecutableTest extends AbstractExecutorTest
         Assert.assertEquals(new ArrayList<Object>()
         {{
                 add(CreateRoom.class);
+                add(ModifyRoomPartial.class);
+                add(ModifyRoomPartial.class);
+                add(DeleteRoom.class);
+            }}, mcuAgent.getPerformedCommandClasses());
+    }
+
+    /**
+     * Test for updating virtual room after it was modified directly through the {@link ResourceControlService}.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRoomUpdateAfterDirectModification() throws Exception
+    {
+        McuTestAgent mcuAgent = getController().addJadeAgent("mcu", new McuTestAgent());
+
+        DateTime dateTime = DateTime.parse("2012-01-01T12:00");
+        Period duration = Period.parse("PT2M");
+
+        String user2Id = getUserId(SECURITY_TOKEN_USER2);
+
+        DeviceResource mcu = new DeviceResource();
+        mcu.setName("mcu");
+        mcu.addTechnology(Technology.H323);
+        mcu.addCapability(new RoomProviderCapability(10));
+        mcu.setAllocatable(true);
+        mcu.setMode(new ManagedMode(mcuAgent.getName()));
+        String mcuId = getResourceService().createResource(SECURITY_TOKEN_USER1, mcu);
+
+        ReservationRequest reservationRequest = new ReservationRequest();
+        reservationRequest.setSlot(dateTime, duration);
+        reservationRequest.setPurpose(ReservationRequestPurpose.SCIENCE);
+        reservationRequest.setSpecification(new RoomSpecification(5, Technology.H323));
+
+        // Allocate reservation request
+        String reservationRequestId = allocate(SECURITY_TOKEN_USER1, reservationRequest);
+        Reservation reservation = checkAllocated(reservationRequestId);
+
+        // Start virtual room
+        ExecutionResult result = runExecutor(dateTime);
+        Assert.assertEquals("One executable should be started.", 1, result.getStartedExecutables().size());
+
+        // Modify room directly
+        RoomExecutable roomExecutable = (RoomExecutable) getExecutableService().getExecutable(
+                SECURITY_TOKEN_USER1, reservation.getExecutable().getId());
+        Room room = getResourceControlService().getRoom(SECURITY_TOKEN_USER1, mcuId, roomExecutable.getRoomId());
+        room.setDescription("modified directly");
+        getResourceControlService().modifyRoom(SECURITY_TOKEN_USER1, mcuId, room);
+
+        // Update room (the direct modification must be overwritten by full modification)
+        getAuthorizationService().createAclEntry(SECURITY_TOKEN_USER1,
+                new AclEntry(user2Id, reservationRequestId, ObjectRole.OWNER));
+        result = runExecutor(dateTime);
+        Assert.assertEquals("One executable should be updated.", 1, result.getUpdatedExecutables().size());
+
+        // Update room (the applied room is known again)
+        deleteAclEntry(user2Id, reservationRequestId, ObjectRole.OWNER);
+        result = runExecutor(dateTime);
+        Assert.assertEquals("One executable should be updated.", 1, result.getUpdatedExecutables().size());
+
+        // Stop virtual room
+        result = runExecutor(dateTime.plus(duration));
+        Assert.assertEquals("One executable should be stopped.", 1, result.getStoppedExecutables().size());
+
+        // Check performed actions on connector agents
+        Assert.assertEquals(new ArrayList<Object>()
+        {{
+                add(CreateRoom.class);
+                add(GetRoom.class);
                 add(ModifyRoom.class);
                 add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
                 add(DeleteRoom.class);
             }}, mcuAgent.getPerformedCommandClasses());
     }
@@ -560,7 +631,7 @@ public class ExecutableTest extends AbstractExecutorTest
                 add(GetRoom.class);
                 add(ModifyRoom.class);
                 add(GetRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
                 add(GetRoom.class);
                 add(DeleteRoom.class);
             }}, performedCommandClasses);
@@ -666,11 +737,11 @@ public class ExecutableTest extends AbstractExecutorTest
         Assert.assertEquals(new ArrayList<Object>()
         {{
                 add(CreateRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
                 add(GetRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
                 add(GetRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
                 add(DeleteRoom.class);
             }}, performedCommandClasses);
     }
@@ -745,8 +816,8 @@ public class ExecutableTest extends AbstractExecutorTest
         Assert.assertEquals(new ArrayList<Object>()
         {{
                 add(CreateRoom.class);
-                add(ModifyRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
+                add(ModifyRoomPartial.class);
                 add(DeleteRoom.class);
             }}, performedCommandClasses);
     }
@@ -5,7 +5,7 @@ import cz.cesnet.shongo.Technology;
 import cz.cesnet.shongo.api.jade.Command;
 import cz.cesnet.shongo.connector.api.jade.multipoint.CreateRoom;
 import cz.cesnet.shongo.connector.api.jade.multipoint.DeleteRoom;
-import cz.cesnet.shongo.connector.api.jade.multipoint.ModifyRoom;
+import cz.cesnet.shongo.connector.api.jade.multipoint.ModifyRoomPartial;
 import cz.cesnet.shongo.controller.ObjectType;
 import cz.cesnet.shongo.controller.ReservationRequestPurpose;
 import cz.cesnet.shongo.controller.api.*;
@@ -183,7 +183,7 @@ public class MigrationTest extends AbstractExecutorTest
                 add(cz.cesnet.shongo.connector.api.jade.recording.GetActiveRecording.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.StartRecording.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.ModifyRecordingFolder.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
             }}, mcuAgent.getPerformedCommandClasses());
     }
 
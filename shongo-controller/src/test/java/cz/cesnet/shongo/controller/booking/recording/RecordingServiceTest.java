@@ -8,6 +8,7 @@ import cz.cesnet.shongo.api.jade.CommandException;
 import cz.cesnet.shongo.connector.api.jade.multipoint.CreateRoom;
 import cz.cesnet.shongo.connector.api.jade.multipoint.DeleteRoom;
 import cz.cesnet.shongo.connector.api.jade.multipoint.ModifyRoom;
+import cz.cesnet.shongo.connector.api.jade.multipoint.ModifyRoomPartial;
 import cz.cesnet.shongo.controller.ObjectRole;
 import cz.cesnet.shongo.controller.ReservationRequestPurpose;
 import cz.cesnet.shongo.controller.api.*;
@@ -133,7 +134,7 @@ public class RecordingServiceTest extends AbstractExecutorTest
         {{
                 add(cz.cesnet.shongo.connector.api.jade.recording.GetActiveRecording.class);
                 add(CreateRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.CreateRecordingFolder.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.GetActiveRecording.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.StartRecording.class);
@@ -227,8 +228,8 @@ public class RecordingServiceTest extends AbstractExecutorTest
         Assert.assertEquals(new ArrayList<Class<? extends Command>>()
         {{
                 add(CreateRoom.class);
-                add(ModifyRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
+                add(ModifyRoomPartial.class);
                 add(DeleteRoom.class);
             }}, mcuAgent.getPerformedCommandClasses());
         Assert.assertEquals(6, mcuAgent.getPerformedCommand(1,
@@ -348,10 +349,10 @@ public class RecordingServiceTest extends AbstractExecutorTest
         Assert.assertEquals(new ArrayList<Class<? extends Command>>()
         {{
                 add(CreateRoom.class);
-                add(ModifyRoom.class);
-                add(ModifyRoom.class);
-                add(ModifyRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
+                add(ModifyRoomPartial.class);
+                add(ModifyRoomPartial.class);
+                add(ModifyRoomPartial.class);
                 add(DeleteRoom.class);
             }}, mcuAgent.getPerformedCommandClasses());
         Assert.assertEquals(6, mcuAgent.getPerformedCommand(1,
@@ -482,9 +483,9 @@ public class RecordingServiceTest extends AbstractExecutorTest
         Assert.assertEquals(new ArrayList<Class<? extends Command>>()
         {{
                 add(CreateRoom.class);
-                add(ModifyRoom.class);
-                add(ModifyRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
+                add(ModifyRoomPartial.class);
+                add(ModifyRoomPartial.class);
                 add(DeleteRoom.class);
             }}, mcuAgent.getPerformedCommandClasses());
         Assert.assertEquals(5, mcuAgent.getPerformedCommand(0,
@@ -644,13 +645,13 @@ public class RecordingServiceTest extends AbstractExecutorTest
         {{
                 add(cz.cesnet.shongo.connector.api.jade.recording.GetActiveRecording.class);
                 add(CreateRoom.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.CreateRecordingFolder.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.GetActiveRecording.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.StartRecording.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.IsRecordingActive.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.StopRecording.class);
-                add(ModifyRoom.class);
+                add(ModifyRoomPartial.class);
                 add(DeleteRoom.class);
                 add(cz.cesnet.shongo.connector.api.jade.recording.DeleteRecordingFolder.class);
             }}, connectAgent.getPerformedCommandClasses());
@@ -439,6 +439,54 @@ public class ReservationRequestManagementTest extends AbstractControllerTest
                 response.getItem(2).getSpecificationType());
     }
 
+    /**
+     * Test listing reservation requests by {@link ListResponse#getContinuation()}.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testListReservationRequestsContinuation() throws Exception
+    {
+        for (int index = 0; index < 7; index++) {
+            ReservationRequest request = new ReservationRequest();
+            request.setDescription("request " + (index + 1));
+            request.setSlot("2012-01-01T12:00", "PT2H");
+            request.setPurpose(ReservationRequestPurpose.SCIENCE);
+            request.setSpecification(new RoomSpecification(5, Technology.H323));
+            getReservationService().createReservationRequest(SECURITY_TOKEN, request);
+        }
+
+        for (ReservationRequestListRequest.Sort sort : new ReservationRequestListRequest.Sort[]{
+                null, ReservationRequestListRequest.Sort.DATETIME, ReservationRequestListRequest.Sort.SLOT}) {
+            ReservationRequestListRequest request = new ReservationRequestListRequest();
+            request.setSecurityToken(SECURITY_TOKEN);
+            request.setSort(sort);
+            request.setSortDescending(true);
+            request.setCount(3);
+
+            List<String> descriptions = new LinkedList<String>();
+            ListResponse<ReservationRequestSummary> response = getReservationService().listReservationRequests(request);
+            Assert.assertEquals(7, response.getCount());
+            for (ReservationRequestSummary reservationRequest : response) {
+                descriptions.add(reservationRequest.getDescription());
+            }
+
+            // Skip counting of items
+            request.setSkipCount(true);
+            while (response.getContinuation() != null) {
+                request.setContinuation(response.getContinuation());
+                response = getReservationService().listReservationRequests(request);
+                Assert.assertEquals(descriptions.size(), response.getStart());
+                for (ReservationRequestSummary reservationRequest : response) {
+                    descriptions.add(reservationRequest.getDescription());
+                }
+            }
+            Assert.assertEquals(7, descriptions.size());
+            Assert.assertEquals(7, new HashSet<String>(descriptions).size());
+            Assert.assertEquals(7, response.getCount());
+        }
+    }
+
     /**
      * Test listing reservation requests based on {@link Technology} of
      * {@link cz.cesnet.shongo.controller.api.AliasSpecification},
@@ -614,6 +662,45 @@ public class ReservationRequestManagementTest extends AbstractControllerTest
         Assert.assertEquals(AllocationStateReport.class, result.getClass());
     }
 
+    @Test
+    public void testCheckSpecificationAvailabilityOccurrences() throws Exception
+    {
+        Resource resource = new Resource();
+        resource.setName("resource");
+        resource.addCapability(new AliasProviderCapability("test", AliasType.ROOM_NAME));
+        resource.setAllocatable(true);
+        createResource(resource);
+
+        DateTime start = DateTime.now().withTimeAtStartOfDay().plusDays(1);
+
+        cz.cesnet.shongo.controller.api.AliasSpecification aliasSpecification = new cz.cesnet.shongo.controller.api.AliasSpecification();
+        aliasSpecification.addAliasType(AliasType.ROOM_NAME);
+        aliasSpecification.setValue("test");
+
+        ReservationRequest reservationRequest = new ReservationRequest();
+        reservationRequest.setSlot(new Interval(start.plusDays(1), Period.hours(1)));
+        reservationRequest.setPurpose(ReservationRequestPurpose.SCIENCE);
+        reservationRequest.setSpecification(aliasSpecification);
+        allocateAndCheck(reservationRequest);
+
+        AvailabilityCheckRequest availabilityCheckRequest = new AvailabilityCheckRequest(SECURITY_TOKEN);
+        availabilityCheckRequest.addSlot(new Interval(start, Period.hours(1)));
+        availabilityCheckRequest.addSlot(new Interval(start.plusDays(1), Period.hours(1)));
+        availabilityCheckRequest.addSlot(new Interval(start.plusDays(2), Period.hours(1)));
+        availabilityCheckRequest.setSpecification(aliasSpecification);
+
+        AvailabilityCheckResponse response =
+                getReservationService().checkPeriodicAvailabilityOccurrences(availabilityCheckRequest);
+        List<AvailabilityCheckResponse.Occurrence> occurrences = response.getOccurrences();
+        Assert.assertEquals(3, occurrences.size());
+        Assert.assertTrue(occurrences.get(0).isAvailable());
+        Assert.assertFalse(occurrences.get(1).isAvailable());
+        Assert.assertEquals(AllocationStateReport.class, occurrences.get(1).getReport().getClass());
+        Assert.assertTrue(occurrences.get(2).isAvailable());
+        Assert.assertFalse(response.isAvailable());
+        Assert.assertEquals(occurrences.get(1), response.getFirstUnavailableOccurrence());
+    }
+
     @Test
     public void testReservationRequestReusementAclEntryPropagation() throws Exception
     {
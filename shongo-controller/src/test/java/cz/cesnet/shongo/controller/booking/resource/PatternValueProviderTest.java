@@ -1,11 +1,13 @@
 package cz.cesnet.shongo.controller.booking.resource;
 
 import cz.cesnet.shongo.controller.booking.value.provider.Pattern;
+import cz.cesnet.shongo.controller.booking.value.provider.PatternValueAllocator;
 import cz.cesnet.shongo.controller.booking.value.provider.PatternValueProvider;
 import cz.cesnet.shongo.controller.booking.value.provider.ValueProvider;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -188,4 +190,49 @@ public class PatternValueProviderTest
         catch (ValueProvider.InvalidValueException exception) {
         }
     }
+
+    @Test
+    public void testValueAllocator() throws Exception
+    {
+        PatternValueProvider generator = new PatternValueProvider();
+        generator.addPattern("950{digit:1}00{digit:1}");
+        generator.addPattern("{number:5:45}");
+        generator.addPattern("test {number:050:120}");
+        Assert.assertNull(new PatternValueProvider(null, "{hash}").createValueAllocator(new HashSet<String>()));
+
+        // Allocator must generate values in the same order as the pattern
+        Set<String> usedValues = new HashSet<String>();
+        usedValues.add("9500003");
+        usedValues.add("9509009");
+        usedValues.add("7");
+        usedValues.add("test 060");
+        Set<String> releasedValues = Collections.emptySet();
+        PatternValueAllocator valueAllocator = generator.createValueAllocator(usedValues);
+        Set<String> generatedValues = new HashSet<String>(usedValues);
+        Set<String> allocatedValues = new HashSet<String>(usedValues);
+        while (true) {
+            String generatedValue;
+            try {
+                generatedValue = generator.generateAddedValue(generatedValues);
+            }
+            catch (ValueProvider.NoAvailableValueException exception) {
+                generatedValue = null;
+            }
+            String allocatedValue = valueAllocator.allocateValue(allocatedValues, releasedValues);
+            Assert.assertEquals(generatedValue, allocatedValue);
+            if (allocatedValue == null) {
+                break;
+            }
+            allocatedValues.add(allocatedValue);
+        }
+
+        // Released values are allocated again
+        releasedValues = new HashSet<String>();
+        releasedValues.add("7");
+        releasedValues.add("test 060");
+        allocatedValues.removeAll(releasedValues);
+        Assert.assertEquals("7", valueAllocator.allocateValue(allocatedValues, releasedValues));
+        allocatedValues.add("7");
+        Assert.assertEquals("test 060", valueAllocator.allocateValue(allocatedValues, releasedValues));
+    }
 }
@@ -15,7 +15,9 @@ import cz.cesnet.shongo.controller.booking.room.RoomReservation;
 import cz.cesnet.shongo.controller.booking.resource.DeviceResource;
 import cz.cesnet.shongo.controller.booking.room.RoomProviderCapability;
 import cz.cesnet.shongo.controller.cache.ResourceCache;
+import cz.cesnet.shongo.controller.scheduler.AvailableReservation;
 import cz.cesnet.shongo.controller.scheduler.SchedulerContext;
+import cz.cesnet.shongo.controller.scheduler.SchedulerContextState;
 import org.joda.time.DateTime;
 import org.joda.time.Interval;
 import org.junit.Assert;
@@ -174,6 +176,57 @@ public class AvailableRoomTest extends AbstractSchedulerTest
         Assert.assertEquals(50, result.get(0).getAvailableLicenseCount());
     }
 
+    /**
+     * Test that license count peaks memoized by the {@link SchedulerContext} are recomputed when allocated or
+     * available reservations in the {@link SchedulerContext} are changed.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testSchedulerContextChanges() throws Exception
+    {
+        DeviceResource mcu = new DeviceResource();
+        mcu.addTechnology(Technology.H323);
+        mcu.addCapability(new RoomProviderCapability(50));
+        mcu.setAllocatable(true);
+        createResource(mcu);
+        RoomProviderCapability roomProviderCapability = mcu.getCapability(RoomProviderCapability.class);
+
+        RoomReservation room1 = new RoomReservation();
+        room1.setRoomProviderCapability(roomProviderCapability);
+        room1.setSlot(DateTime.parse("1"), DateTime.parse("100"));
+        room1.setLicenseCount(20);
+        createReservation(room1);
+
+        Interval slot = Interval.parse("10/50");
+        SchedulerContext schedulerContext = createSchedulerContext(slot);
+        SchedulerContextState schedulerContextState = schedulerContext.getState();
+        RoomReservationTask reservationTask = new RoomReservationTask(schedulerContext, slot);
+        Assert.assertEquals(30, schedulerContext.getAvailableRoom(
+                roomProviderCapability, slot, reservationTask).getAvailableLicenseCount());
+
+        // Reservation allocated in the context must be taken into account (not the memoized peak)
+        SchedulerContextState.Savepoint savepoint = schedulerContextState.createSavepoint();
+        RoomReservation room2 = new RoomReservation();
+        room2.setRoomProviderCapability(roomProviderCapability);
+        room2.setSlot(DateTime.parse("20"), DateTime.parse("30"));
+        room2.setLicenseCount(25);
+        schedulerContextState.addAllocatedReservation(room2);
+        Assert.assertEquals(5, schedulerContext.getAvailableRoom(
+                roomProviderCapability, slot, reservationTask).getAvailableLicenseCount());
+
+        // Reverted allocation must be taken into account
+        savepoint.revert();
+        Assert.assertEquals(30, schedulerContext.getAvailableRoom(
+                roomProviderCapability, slot, reservationTask).getAvailableLicenseCount());
+
+        // Reservation which is available in the context mustn't be taken into account
+        schedulerContextState.addAvailableReservation(room1, AvailableReservation.Type.REALLOCATABLE);
+        Assert.assertEquals(50, schedulerContext.getAvailableRooms(
+                Collections.singletonList(roomProviderCapability), slot, reservationTask)
+                .get(roomProviderCapability).getAvailableLicenseCount());
+    }
+
     /**
      * Find {@link AvailableRoom}s in given {@code interval} which have
      * at least {@code requiredLicenseCount} available licenses and which supports given {@code technologies}.
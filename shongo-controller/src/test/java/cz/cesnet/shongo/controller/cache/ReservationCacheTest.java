@@ -0,0 +1,172 @@
+package cz.cesnet.shongo.controller.cache;
+
+import cz.cesnet.shongo.controller.AbstractSchedulerTest;
+import cz.cesnet.shongo.controller.booking.reservation.Reservation;
+import cz.cesnet.shongo.controller.booking.resource.Resource;
+import cz.cesnet.shongo.controller.booking.resource.ResourceReservation;
+import org.joda.time.DateTime;
+import org.joda.time.Interval;
+import org.joda.time.Period;
+import org.junit.Test;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests for {@link ReservationCache}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ReservationCacheTest extends AbstractSchedulerTest
+{
+    @Test
+    public void testTargetIndex() throws Exception
+    {
+        ReservationCache.TargetIndex targetIndex = new ReservationCache.TargetIndex(0);
+        targetIndex.add(1l, 0, 500);
+        targetIndex.add(2l, 100, 200);
+        targetIndex.add(3l, 200, 300);
+        targetIndex.add(4l, 600, 700);
+
+        assertEquals(ids(1l), targetIndex.getReservationIds(0, 100));
+        assertEquals(ids(1l, 2l), targetIndex.getReservationIds(150, 200));
+        assertEquals(ids(1l, 3l), targetIndex.getReservationIds(200, 250));
+        assertEquals(ids(1l, 2l, 3l), targetIndex.getReservationIds(50, 250));
+        assertEquals(ids(), targetIndex.getReservationIds(500, 600));
+        assertEquals(ids(1l, 4l), targetIndex.getReservationIds(450, 800));
+        assertEquals(ids(), targetIndex.getReservationIds(700, 800));
+
+        // Modify and remove entries
+        targetIndex.add(2l, 300, 400);
+        targetIndex.remove(4l);
+        assertEquals(ids(1l, 3l), targetIndex.getReservationIds(150, 250));
+        assertEquals(ids(1l, 2l), targetIndex.getReservationIds(350, 800));
+    }
+
+    @Test
+    public void testGetReservations() throws Exception
+    {
+        DateTime start = DateTime.now().withTimeAtStartOfDay().plusDays(1);
+        Resource resource1 = createAllocatableResource();
+        Resource resource2 = createAllocatableResource();
+        ResourceReservation reservation1 = createReservation(resource1, new Interval(start, Period.hours(2)));
+        ResourceReservation reservation2 =
+                createReservation(resource1, new Interval(start.plusHours(4), Period.hours(1)));
+        ResourceReservation reservation3 =
+                createReservation(resource2, new Interval(start.plusHours(1), Period.hours(2)));
+
+        ReservationCache reservationCache = createReservationCache();
+        EntityManager entityManager = getEntityManager();
+        Interval slot = new Interval(start.plusHours(1), Period.hours(4));
+
+        // Reservations are ordered by slot start
+        assertEquals(Arrays.asList(reservation1, reservation2), reservationCache.getReservations(
+                ResourceReservation.class, resource1.getId(), slot, entityManager));
+        assertEquals(Arrays.asList(reservation2), reservationCache.getReservations(
+                ResourceReservation.class, resource1.getId(), new Interval(start.plusHours(3), slot.getEnd()),
+                entityManager));
+
+        // Reservations for multiple targets
+        Map<Long, List<ResourceReservation>> reservations = reservationCache.getReservations(
+                ResourceReservation.class, Arrays.asList(resource1.getId(), resource2.getId()), slot, entityManager);
+        assertEquals(Arrays.asList(reservation1, reservation2), reservations.get(resource1.getId()));
+        assertEquals(Arrays.asList(reservation3), reservations.get(resource2.getId()));
+
+        // Slots which aren't indexed are queried from the database
+        ResourceReservation reservation4 = createReservation(resource2,
+                new Interval(DateTime.now().minusDays(3), Period.hours(1)));
+        assertEquals(Arrays.asList(reservation4), reservationCache.getReservations(
+                ResourceReservation.class, resource2.getId(), reservation4.getSlot(), entityManager));
+    }
+
+    @Test
+    public void testUpdate() throws Exception
+    {
+        DateTime start = DateTime.now().withTimeAtStartOfDay().plusDays(1);
+        Interval slot1 = new Interval(start, Period.hours(1));
+        Interval slot2 = new Interval(start.plusHours(2), Period.hours(1));
+        Resource resource = createAllocatableResource();
+        ResourceReservation reservation1 = createReservation(resource, slot1);
+
+        ReservationCache reservationCache = createReservationCache();
+        EntityManager entityManager = getEntityManager();
+        assertEquals(Arrays.asList(reservation1), reservationCache.getReservations(
+                ResourceReservation.class, resource.getId(), slot1, entityManager));
+
+        // Created reservation isn't visible until the index is updated (the index isn't reloaded)
+        ResourceReservation reservation2 = createReservation(resource, slot1);
+        assertEquals(Arrays.asList(reservation1), reservationCache.getReservations(
+                ResourceReservation.class, resource.getId(), slot1, entityManager));
+        reservationCache.update(Collections.<Reservation>singletonList(reservation2), entityManager);
+        assertEquals(new HashSet<ResourceReservation>(Arrays.asList(reservation1, reservation2)),
+                new HashSet<ResourceReservation>(reservationCache.getReservations(
+                        ResourceReservation.class, resource.getId(), slot1, entityManager)));
+
+        // Modified reservation is moved in the index
+        entityManager.getTransaction().begin();
+        reservation1.setSlot(slot2);
+        entityManager.getTransaction().commit();
+        reservationCache.update(Collections.<Reservation>singletonList(reservation1), entityManager);
+        assertEquals(Arrays.asList(reservation2), reservationCache.getReservations(
+                ResourceReservation.class, resource.getId(), slot1, entityManager));
+        assertEquals(Arrays.asList(reservation1), reservationCache.getReservations(
+                ResourceReservation.class, resource.getId(), slot2, entityManager));
+
+        // Deleted reservation is removed from the index
+        entityManager.getTransaction().begin();
+        entityManager.remove(reservation2);
+        entityManager.getTransaction().commit();
+        reservationCache.update(Collections.<Reservation>singletonList(reservation2), entityManager);
+        assertEquals(Collections.<ResourceReservation>emptyList(), reservationCache.getReservations(
+                ResourceReservation.class, resource.getId(), slot1, entityManager));
+
+        // Refreshed index is reloaded
+        reservationCache.refresh(Collections.singletonList(
+                new ReservationCache.Target(ResourceReservation.class, resource.getId())));
+        assertEquals(Arrays.asList(reservation1), reservationCache.getReservations(
+                ResourceReservation.class, resource.getId(), new Interval(slot1.getStart(), slot2.getEnd()),
+                entityManager));
+    }
+
+    /**
+     * @return new {@link ReservationCache} for the test database
+     */
+    private ReservationCache createReservationCache()
+    {
+        ReservationCache reservationCache = new ReservationCache();
+        reservationCache.setEntityManagerFactory(getEntityManagerFactory());
+        return reservationCache;
+    }
+
+    /**
+     * @return new created allocatable {@link Resource}
+     */
+    private Resource createAllocatableResource()
+    {
+        Resource resource = new Resource();
+        resource.setAllocatable(true);
+        createResource(resource);
+        return resource;
+    }
+
+    /**
+     * @param resource for the reservation
+     * @param slot     for the reservation
+     * @return new created {@link ResourceReservation}
+     */
+    private ResourceReservation createReservation(Resource resource, Interval slot)
+    {
+        ResourceReservation reservation = new ResourceReservation();
+        reservation.setResource(resource);
+        reservation.setSlot(slot);
+        createReservation(reservation);
+        return reservation;
+    }
+
+    private static Set<Long> ids(Long... ids)
+    {
+        return new HashSet<Long>(Arrays.asList(ids));
+    }
+}
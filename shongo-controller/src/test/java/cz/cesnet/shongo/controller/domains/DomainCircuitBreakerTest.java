@@ -0,0 +1,44 @@
+package cz.cesnet.shongo.controller.domains;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link DomainCircuitBreaker}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class DomainCircuitBreakerTest
+{
+    @Test
+    public void testCircuitBreaker() throws Exception
+    {
+        DomainCircuitBreaker circuitBreaker = new DomainCircuitBreaker(3, 1000);
+
+        // Failures below the threshold keep the circuit closed
+        circuitBreaker.recordFailure(0);
+        circuitBreaker.recordFailure(0);
+        Assert.assertTrue(circuitBreaker.allowRequest(0));
+        circuitBreaker.recordSuccess();
+        circuitBreaker.recordFailure(0);
+        circuitBreaker.recordFailure(0);
+        Assert.assertFalse(circuitBreaker.isOpen(0));
+
+        // Open circuit
+        circuitBreaker.recordFailure(100);
+        Assert.assertTrue(circuitBreaker.isOpen(500));
+        Assert.assertFalse(circuitBreaker.allowRequest(500));
+
+        // Only single trial request is allowed and it fails
+        Assert.assertTrue(circuitBreaker.allowRequest(1100));
+        Assert.assertFalse(circuitBreaker.allowRequest(1100));
+        circuitBreaker.recordFailure(1200);
+        Assert.assertFalse(circuitBreaker.allowRequest(2100));
+
+        // Successful trial request closes the circuit
+        Assert.assertTrue(circuitBreaker.allowRequest(2200));
+        circuitBreaker.recordSuccess();
+        Assert.assertFalse(circuitBreaker.isOpen(2200));
+        Assert.assertTrue(circuitBreaker.allowRequest(2200));
+    }
+}
@@ -0,0 +1,173 @@
+package cz.cesnet.shongo.controller.domains;
+
+import cz.cesnet.shongo.controller.ControllerConfiguration;
+import cz.cesnet.shongo.controller.ForeignDomainConnectException;
+import cz.cesnet.shongo.controller.api.Domain;
+import cz.cesnet.shongo.controller.api.domains.InterDomainAction;
+import org.apache.commons.collections4.MultiMap;
+import org.codehaus.jackson.map.ObjectReader;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for performing requests to multiple domains by {@link DomainsConnector}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class DomainsConnectorTest
+{
+    /**
+     * Number of threads which perform the requests (see {@link DomainsConnector}).
+     */
+    private static final int POOL_SIZE = 50;
+
+    /**
+     * Timeout of a single command (the timeout of a single domain is four times longer).
+     */
+    private static final long COMMAND_TIMEOUT = 500;
+
+    /**
+     * Duration of a regular request (the requests which wait in the queue aren't done within the timeout
+     * of a single domain since the requests were submitted).
+     */
+    private static final long REQUEST_DURATION = 3 * COMMAND_TIMEOUT;
+
+    private TestDomainsConnector domainsConnector;
+
+    @Before
+    public void before() throws Exception
+    {
+        ControllerConfiguration configuration = new ControllerConfiguration();
+        configuration.setProperty(ControllerConfiguration.INTERDOMAIN_COMMAND_TIMEOUT, "PT0.5S");
+        DomainService domainService = new DomainService(null, null, null)
+        {
+            @Override
+            public Domain getDomain(String domainId)
+            {
+                return domainsConnector.domains.get(domainId);
+            }
+        };
+        DomainAdminNotifier notifier =
+                new DomainAdminNotifier(LoggerFactory.getLogger(DomainsConnectorTest.class), null, configuration);
+        domainsConnector = new TestDomainsConnector(configuration, domainService, notifier);
+    }
+
+    @After
+    public void after() throws Exception
+    {
+        domainsConnector.destroy();
+    }
+
+    @Test
+    public void testFanOut() throws Exception
+    {
+        List<Domain> domains = new ArrayList<Domain>();
+        for (int index = 0; index < POOL_SIZE + 10; index++) {
+            domains.add(domainsConnector.addDomain("domain" + index));
+        }
+
+        Map<String, String> result = new HashMap<String, String>();
+        domainsConnector.performRequests(InterDomainAction.HttpMethod.GET, "test", (MultiMap<String, String>) null,
+                null, domains, null, result, String.class);
+
+        // Requests are performed concurrently and the queued requests aren't abandoned
+        Assert.assertEquals(POOL_SIZE, domainsConnector.maximumRunningCount);
+        Assert.assertEquals(domains.size(), result.size());
+        for (Domain domain : domains) {
+            Assert.assertEquals(domain.getName(), result.get(domain.getName()));
+        }
+    }
+
+    @Test
+    public void testAbandon() throws Exception
+    {
+        List<Domain> domains = new ArrayList<Domain>();
+        for (int index = 0; index < POOL_SIZE; index++) {
+            domains.add(domainsConnector.addDomain("domain" + index));
+        }
+        Domain slowDomain = domainsConnector.addDomain("slow");
+        domains.add(slowDomain);
+
+        Map<String, String> result = new HashMap<String, String>();
+        long start = System.currentTimeMillis();
+        domainsConnector.performRequests(InterDomainAction.HttpMethod.GET, "test", (MultiMap<String, String>) null,
+                null, domains, null, result, String.class);
+        long duration = System.currentTimeMillis() - start;
+
+        // Request to the slow domain is cancelled after the timeout and its result isn't stored
+        Assert.assertTrue(domainsConnector.slowRequestInterrupted.await(10, TimeUnit.SECONDS));
+        Assert.assertTrue("Slow request should be abandoned.", duration < TestDomainsConnector.SLOW_REQUEST_DURATION);
+        Assert.assertEquals(POOL_SIZE, result.size());
+        Assert.assertFalse(result.containsKey(slowDomain.getName()));
+    }
+
+    /**
+     * {@link DomainsConnector} whose requests are only simulated.
+     */
+    private static class TestDomainsConnector extends DomainsConnector
+    {
+        /**
+         * Duration of the request to the domain named "slow".
+         */
+        private static final long SLOW_REQUEST_DURATION = 60000;
+
+        private final Map<String, Domain> domains = new HashMap<String, Domain>();
+
+        private final CountDownLatch slowRequestInterrupted = new CountDownLatch(1);
+
+        private int runningCount = 0;
+
+        private int maximumRunningCount = 0;
+
+        public TestDomainsConnector(ControllerConfiguration configuration, DomainService domainService,
+                DomainAdminNotifier notifier)
+        {
+            super(configuration, domainService, notifier);
+        }
+
+        public Domain addDomain(String name)
+        {
+            Domain domain = new Domain();
+            domain.setId("shongo:" + name + ":dom:1");
+            domain.setName(name);
+            domains.put(domain.getId(), domain);
+            return domain;
+        }
+
+        @Override
+        protected <T> T performRequest(InterDomainAction.HttpMethod method, String action,
+                MultiMap<String, String> parameters, Object data, Domain domain, ObjectReader reader, Class<T> clazz)
+                throws ForeignDomainConnectException
+        {
+            synchronized (this) {
+                runningCount++;
+                maximumRunningCount = Math.max(maximumRunningCount, runningCount);
+            }
+            try {
+                boolean slow = domain.getName().equals("slow");
+                try {
+                    Thread.sleep(slow ? SLOW_REQUEST_DURATION : REQUEST_DURATION);
+                }
+                catch (InterruptedException exception) {
+                    if (slow) {
+                        slowRequestInterrupted.countDown();
+                    }
+                    return null;
+                }
+                return clazz.cast(domain.getName());
+            }
+            finally {
+                synchronized (this) {
+                    runningCount--;
+                }
+            }
+        }
+    }
+}
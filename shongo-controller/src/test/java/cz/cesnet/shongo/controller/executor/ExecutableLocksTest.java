@@ -0,0 +1,125 @@
+package cz.cesnet.shongo.controller.executor;
+
+import cz.cesnet.shongo.Technology;
+import cz.cesnet.shongo.api.jade.Command;
+import cz.cesnet.shongo.api.jade.CommandException;
+import cz.cesnet.shongo.connector.api.jade.multipoint.CreateRoom;
+import cz.cesnet.shongo.connector.api.jade.multipoint.DeleteRoom;
+import cz.cesnet.shongo.controller.AbstractExecutorTest;
+import cz.cesnet.shongo.controller.ReservationRequestPurpose;
+import cz.cesnet.shongo.controller.api.*;
+import jade.core.AID;
+import org.joda.time.DateTime;
+import org.joda.time.Period;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.*;
+
+/**
+ * Tests for {@link ExecutableLocks} shared by the {@link Executor} and
+ * the {@link cz.cesnet.shongo.controller.scheduler.Scheduler}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ExecutableLocksTest extends AbstractExecutorTest
+{
+    /**
+     * Delete reservation request while its room is being started.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testDeleteWhileStarting() throws Exception
+    {
+        ExecutionTimeline executionTimeline = new ExecutionTimeline();
+        getScheduler().setExecutionTimeline(executionTimeline);
+        getExecutor().setExecutionTimeline(executionTimeline);
+
+        BlockingMcuTestAgent mcuAgent = getController().addJadeAgent("mcu", new BlockingMcuTestAgent());
+
+        final DateTime dateTime = DateTime.parse("2012-01-01T12:00");
+        Period duration = Period.parse("PT2M");
+
+        DeviceResource mcu = new DeviceResource();
+        mcu.setName("mcu");
+        mcu.addTechnology(Technology.H323);
+        mcu.addCapability(new RoomProviderCapability(10));
+        mcu.setAllocatable(true);
+        mcu.setMode(new ManagedMode(mcuAgent.getName()));
+        createResource(mcu);
+
+        ReservationRequest reservationRequest = new ReservationRequest();
+        reservationRequest.setSlot(dateTime, duration);
+        reservationRequest.setPurpose(ReservationRequestPurpose.SCIENCE);
+        reservationRequest.setSpecification(new RoomSpecification(5, Technology.H323));
+        String reservationRequestId = allocate(reservationRequest);
+        checkAllocated(reservationRequestId);
+
+        // Start virtual room in the executor
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        Future<ExecutionResult> executionResult = executorService.submit(new Callable<ExecutionResult>()
+        {
+            @Override
+            public ExecutionResult call() throws Exception
+            {
+                return runExecutor(dateTime);
+            }
+        });
+        try {
+            Assert.assertTrue(mcuAgent.createRoomStarted.await(10, TimeUnit.SECONDS));
+
+            // Deletion is postponed because the room is being started
+            getReservationService().deleteReservationRequest(SECURITY_TOKEN, reservationRequestId);
+            runScheduler();
+            Assert.assertTrue(getSchedulerResult().isPostponedDeletions());
+            Assert.assertEquals(0, getSchedulerResult().getDeletedReservations());
+            Assert.assertEquals(1, listReservations().size());
+
+            mcuAgent.createRoomReleased.countDown();
+            Assert.assertEquals(1, executionResult.get(10, TimeUnit.SECONDS).getStartedExecutables().size());
+        }
+        finally {
+            mcuAgent.createRoomReleased.countDown();
+            executorService.shutdownNow();
+        }
+
+        // Deletion is performed after the room is started and thus the room is stopped afterwards
+        runScheduler();
+        Assert.assertFalse(getSchedulerResult().isPostponedDeletions());
+        Assert.assertEquals(1, getSchedulerResult().getDeletedReservations());
+        ExecutionResult result = runExecutor(dateTime.plus(duration));
+        Assert.assertEquals(1, result.getStoppedExecutables().size());
+        Assert.assertEquals(new ArrayList<Object>()
+        {{
+                add(CreateRoom.class);
+                add(DeleteRoom.class);
+            }}, mcuAgent.getPerformedCommandClasses());
+    }
+
+    /**
+     * {@link McuTestAgent} which blocks the {@link CreateRoom} until it is released.
+     */
+    private class BlockingMcuTestAgent extends McuTestAgent
+    {
+        private final CountDownLatch createRoomStarted = new CountDownLatch(1);
+
+        private final CountDownLatch createRoomReleased = new CountDownLatch(1);
+
+        @Override
+        public Object handleCommand(Command command, AID sender) throws CommandException
+        {
+            if (command instanceof CreateRoom) {
+                createRoomStarted.countDown();
+                try {
+                    createRoomReleased.await(10, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException exception) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return super.handleCommand(command, sender);
+        }
+    }
+}
@@ -1,13 +1,16 @@
 package cz.cesnet.shongo.controller.executor;
 
 import cz.cesnet.shongo.controller.booking.executable.Executable;
+import cz.cesnet.shongo.controller.booking.executable.ExecutableManager;
+import org.joda.time.Duration;
 import org.joda.time.Interval;
 import org.junit.Assert;
 import org.junit.Test;
 
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Tests for {@link ExecutionPlan}.
@@ -160,6 +163,152 @@ public class ExecutionPlanTest
         Assert.assertTrue(executionPlan2.isEmpty());
     }
 
+    @Test
+    public void testEngine() throws Exception
+    {
+        final SimpleExecutable executable1 = new SimpleExecutable();
+        final SimpleExecutable executable2 = new SimpleExecutable();
+        final SimpleExecutable executable3 = new SimpleExecutable();
+        executable1.addChildExecutable(executable2);
+
+        // Action for executable3 doesn't end until the action for executable1 (which depends on executable2) ends
+        CountDownLatch executable3Started = new CountDownLatch(1);
+        CountDownLatch executable1Ended = new CountDownLatch(1);
+        SimpleExecutableAction.Context context = new SimpleExecutableAction.Context();
+        ExecutionPlan executionPlan = new ExecutionPlan(null);
+        executionPlan.addExecutionAction(new SimpleExecutableAction(executable1, context,
+                null, executable3Started, executable1Ended));
+        executionPlan.addExecutionAction(new SimpleExecutableAction(executable2, context, null, null, null));
+        executionPlan.addExecutionAction(new SimpleExecutableAction(executable3, context,
+                executable3Started, executable1Ended, null));
+        executionPlan.build();
+
+        ExecutionEngine executionEngine = new ExecutionEngine(4, 1, null);
+        try {
+            executionEngine.perform(executionPlan);
+        }
+        finally {
+            executionEngine.destroy();
+        }
+
+        // Dependent action doesn't wait for slow independent action
+        Assert.assertFalse(context.isTimedOut());
+        Assert.assertEquals(Arrays.<Executable>asList(executable2, executable1, executable3),
+                context.getEndedExecutables());
+        Assert.assertEquals(2, context.getMaximumRunningCount());
+        Assert.assertTrue(executionPlan.isEmpty());
+        Assert.assertEquals(0, executionEngine.getQueueDepth());
+        Assert.assertFalse(executionEngine.isActive(executable1));
+        Assert.assertEquals(3, executionEngine.getLatencies().get("SimpleExecutableAction").getCount());
+    }
+
+    @Test
+    public void testEngineInterrupted() throws Exception
+    {
+        final SimpleExecutable executable1 = new SimpleExecutable();
+        final SimpleExecutable executable2 = new SimpleExecutable();
+
+        // The first started action occupies the only thread and thus the other action is never started
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch never = new CountDownLatch(1);
+        SimpleExecutableAction.Context context = new SimpleExecutableAction.Context();
+        final ExecutionPlan executionPlan = new ExecutionPlan(null);
+        executionPlan.addExecutionAction(new SimpleExecutableAction(executable1, context, started, never, null));
+        executionPlan.addExecutionAction(new SimpleExecutableAction(executable2, context, started, never, null));
+        executionPlan.build();
+
+        final ExecutionEngine executionEngine = new ExecutionEngine(1, 1, null);
+        final CountDownLatch performEnded = new CountDownLatch(1);
+        final AtomicBoolean interrupted = new AtomicBoolean();
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try {
+                    executionEngine.perform(executionPlan);
+                }
+                catch (InterruptedException exception) {
+                    interrupted.set(true);
+                }
+                finally {
+                    performEnded.countDown();
+                }
+            }
+        };
+        try {
+            thread.start();
+            Assert.assertTrue(started.await(SimpleExecutableAction.AWAIT_TIMEOUT, TimeUnit.SECONDS));
+            long deadline = System.currentTimeMillis() + SimpleExecutableAction.AWAIT_TIMEOUT * 1000;
+            while (!(executionEngine.isActive(executable1) && executionEngine.isActive(executable2))) {
+                Assert.assertTrue("Both actions should be dispatched.", System.currentTimeMillis() < deadline);
+                Thread.sleep(10);
+            }
+            Assert.assertEquals(1, executionEngine.getQueueDepth());
+            Assert.assertEquals(1, executionEngine.getRunningCount());
+            thread.interrupt();
+            Assert.assertTrue(performEnded.await(SimpleExecutableAction.AWAIT_TIMEOUT, TimeUnit.SECONDS));
+        }
+        finally {
+            executionEngine.destroy();
+        }
+
+        // Cancelled action which hasn't been started is released
+        Executable notStartedExecutable = (context.getStartedExecutables().contains(executable1)
+                ? executable2 : executable1);
+        Assert.assertTrue(interrupted.get());
+        Assert.assertEquals(1, context.getStartedExecutables().size());
+        Assert.assertEquals(0, executionEngine.getQueueDepth());
+        Assert.assertFalse(executionEngine.isActive(notStartedExecutable));
+    }
+
+    @Test
+    public void testEngineTimeout() throws Exception
+    {
+        final SimpleExecutable executable1 = new SimpleExecutable();
+        final SimpleExecutable executable2 = new SimpleExecutable();
+        executable1.addChildExecutable(executable2);
+
+        // Action for executable2 doesn't end in the timeout and it still works for a while when it is interrupted
+        final CountDownLatch never = new CountDownLatch(1);
+        final SimpleExecutableAction.Context context = new SimpleExecutableAction.Context();
+        ExecutionPlan executionPlan = new ExecutionPlan(null);
+        executionPlan.addExecutionAction(new SimpleExecutableAction(executable1, context, null, null, null));
+        executionPlan.addExecutionAction(new SimpleExecutableAction(executable2, context, null, null, null)
+        {
+            @Override
+            public void run()
+            {
+                context.start(target);
+                try {
+                    never.await(SimpleExecutableAction.AWAIT_TIMEOUT, TimeUnit.SECONDS);
+                }
+                catch (InterruptedException exception) {
+                    long end = System.currentTimeMillis() + 500;
+                    while (System.currentTimeMillis() < end) {
+                        Thread.yield();
+                    }
+                }
+                context.end(target);
+            }
+        });
+        executionPlan.build();
+
+        ExecutionEngine executionEngine = new ExecutionEngine(2, 2, Duration.millis(200));
+        try {
+            executionEngine.perform(executionPlan);
+        }
+        finally {
+            executionEngine.destroy();
+        }
+
+        // Dependent action is performed only after the interrupted action has really ended
+        Assert.assertEquals(Arrays.<Executable>asList(executable2, executable1), context.getEndedExecutables());
+        Assert.assertEquals(1, context.getMaximumRunningCount());
+        Assert.assertTrue(executionPlan.isEmpty());
+        Assert.assertFalse(executionEngine.isActive(executable2));
+    }
+
     private void checkExecutableAndRemove(ExecutionPlan executionPlan, Executable... executables)
     {
         Set<ExecutionAction.AbstractExecutableAction> executionActions =
@@ -196,6 +345,132 @@ public class ExecutionPlanTest
         }
     }
 
+    public static class SimpleExecutableAction extends ExecutionAction.AbstractExecutableAction
+    {
+        /**
+         * Maximum number of seconds to wait for a latch.
+         */
+        public static final long AWAIT_TIMEOUT = 30;
+
+        private final Context context;
+
+        private final CountDownLatch startedLatch;
+
+        private final CountDownLatch awaitedLatch;
+
+        private final CountDownLatch endedLatch;
+
+        /**
+         * @param executable   target
+         * @param context      shared by actions of a single test
+         * @param startedLatch released when the action is started (can be {@code null})
+         * @param awaitedLatch must be released before the action ends (can be {@code null})
+         * @param endedLatch   released when the action ends (can be {@code null})
+         */
+        public SimpleExecutableAction(Executable executable, Context context, CountDownLatch startedLatch,
+                CountDownLatch awaitedLatch, CountDownLatch endedLatch)
+        {
+            super(executable);
+            this.context = context;
+            this.startedLatch = startedLatch;
+            this.awaitedLatch = awaitedLatch;
+            this.endedLatch = endedLatch;
+        }
+
+        @Override
+        public void run()
+        {
+            context.start(target);
+            if (startedLatch != null) {
+                startedLatch.countDown();
+            }
+            if (awaitedLatch != null) {
+                try {
+                    if (!awaitedLatch.await(AWAIT_TIMEOUT, TimeUnit.SECONDS)) {
+                        context.timedOut = true;
+                    }
+                }
+                catch (InterruptedException exception) {
+                    context.end(null);
+                    return;
+                }
+            }
+            context.end(target);
+            if (endedLatch != null) {
+                endedLatch.countDown();
+            }
+            complete();
+        }
+
+        @Override
+        protected void perform(ExecutableManager executableManager)
+        {
+        }
+
+        @Override
+        protected boolean performFinish(ExecutionResult executionResult)
+        {
+            return true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return String.format("Simple [exe:%d]", target.getId());
+        }
+
+        /**
+         * Observed state of {@link SimpleExecutableAction}s.
+         */
+        public static class Context
+        {
+            private final List<Executable> startedExecutables = new LinkedList<Executable>();
+
+            private final List<Executable> endedExecutables = new LinkedList<Executable>();
+
+            private int runningCount = 0;
+
+            private int maximumRunningCount = 0;
+
+            private volatile boolean timedOut = false;
+
+            private synchronized void start(Executable executable)
+            {
+                startedExecutables.add(executable);
+                runningCount++;
+                maximumRunningCount = Math.max(maximumRunningCount, runningCount);
+            }
+
+            private synchronized void end(Executable executable)
+            {
+                runningCount--;
+                if (executable != null) {
+                    endedExecutables.add(executable);
+                }
+            }
+
+            public synchronized List<Executable> getStartedExecutables()
+            {
+                return new LinkedList<Executable>(startedExecutables);
+            }
+
+            public synchronized List<Executable> getEndedExecutables()
+            {
+                return new LinkedList<Executable>(endedExecutables);
+            }
+
+            public synchronized int getMaximumRunningCount()
+            {
+                return maximumRunningCount;
+            }
+
+            public boolean isTimedOut()
+            {
+                return timedOut;
+            }
+        }
+    }
+
     public static class SimpleExecutable extends Executable
     {
         public SimpleExecutable()
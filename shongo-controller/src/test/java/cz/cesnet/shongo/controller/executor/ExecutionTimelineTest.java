@@ -0,0 +1,68 @@
+package cz.cesnet.shongo.controller.executor;
+
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ExecutionTimeline}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ExecutionTimelineTest
+{
+    @Test
+    public void testDeadlines() throws Exception
+    {
+        DateTime dateTime = DateTime.now().withMillisOfSecond(0).plusHours(1);
+        ExecutionTimeline executionTimeline = new ExecutionTimeline();
+        executionTimeline.setExecutableStart(Duration.standardSeconds(-30));
+        executionTimeline.setExecutableEnd(Duration.standardSeconds(-30));
+        executionTimeline.setHorizon(Duration.standardHours(2));
+
+        // Start, stop and finalization
+        executionTimeline.markSlot(dateTime, dateTime.plusMinutes(30), null);
+        Assert.assertEquals(3, executionTimeline.getDeadlineCount());
+        Assert.assertEquals(dateTime.minusSeconds(30), executionTimeline.getNextDeadline());
+        Assert.assertFalse(executionTimeline.popDeadlines(dateTime.minusMinutes(1)));
+        Assert.assertTrue(executionTimeline.popDeadlines(dateTime));
+        Assert.assertEquals(dateTime.plusMinutes(30).minusSeconds(30), executionTimeline.getNextDeadline());
+        Assert.assertTrue(executionTimeline.popDeadlines(dateTime.plusMinutes(30).plusSeconds(1)));
+        Assert.assertNull(executionTimeline.getNextDeadline());
+
+        // Deadlines after the horizon are added by the reconciliation
+        executionTimeline.markSlot(dateTime.plusHours(2), dateTime.plusHours(3), null);
+        Assert.assertEquals(0, executionTimeline.getDeadlineCount());
+
+        // Passed deadlines wake up immediately
+        executionTimeline.markSlot(dateTime.minusHours(2), null, null);
+        Assert.assertTrue(executionTimeline.awaitDeadline(DateTime.now().plusMinutes(1)));
+        Assert.assertFalse(executionTimeline.awaitDeadline(DateTime.now().plusMillis(50)));
+    }
+
+    @Test
+    public void testWakeUp() throws Exception
+    {
+        final ExecutionTimeline executionTimeline = new ExecutionTimeline();
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                try {
+                    Thread.sleep(100);
+                }
+                catch (InterruptedException exception) {
+                    return;
+                }
+                executionTimeline.wakeUp();
+            }
+        };
+        thread.start();
+        long start = System.currentTimeMillis();
+        Assert.assertTrue(executionTimeline.awaitDeadline(DateTime.now().plusMinutes(1)));
+        Assert.assertTrue(System.currentTimeMillis() - start < 30000);
+        thread.join();
+    }
+}
@@ -0,0 +1,76 @@
+package cz.cesnet.shongo.controller.notification;
+
+import cz.cesnet.shongo.controller.AbstractDatabaseTest;
+import cz.cesnet.shongo.controller.ControllerConfiguration;
+import cz.cesnet.shongo.controller.EmailSender;
+import org.apache.commons.configuration.XMLConfiguration;
+import org.joda.time.DateTime;
+import org.junit.Assert;
+import org.junit.Test;
+
+import javax.mail.MessagingException;
+import javax.mail.internet.MimeMessage;
+import javax.persistence.EntityManager;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * Tests for {@link EmailOutbox}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class EmailOutboxTest extends AbstractDatabaseTest
+{
+    @Test
+    public void testDeliveryWithRetry() throws Exception
+    {
+        final List<String> sentSubjects = new LinkedList<String>();
+        final boolean[] available = new boolean[]{false};
+        EmailSender emailSender = new EmailSender("test@shongo.cz", "localhost", 25, null, null)
+        {
+            @Override
+            public synchronized void sendMessage(MimeMessage message) throws MessagingException
+            {
+                if (!available[0]) {
+                    throw new MessagingException("SMTP server isn't available.");
+                }
+                sentSubjects.add(message.getSubject());
+            }
+        };
+
+        XMLConfiguration xmlConfiguration = new XMLConfiguration();
+        xmlConfiguration.setDelimiterParsingDisabled(true);
+        xmlConfiguration.load(getClass().getClassLoader().getResource("controller-default.cfg.xml"));
+        ControllerConfiguration configuration = new ControllerConfiguration();
+        configuration.addConfiguration(xmlConfiguration);
+
+        EmailOutbox emailOutbox = new EmailOutbox(emailSender);
+        emailOutbox.setEntityManagerFactory(getEntityManagerFactory());
+        emailOutbox.init(configuration);
+
+        // Store emails
+        EntityManager entityManager = createEntityManager();
+        entityManager.getTransaction().begin();
+        emailOutbox.addEmail(new EmailSender.Email("user1@shongo.cz", "email1", "content"), entityManager);
+        emailOutbox.addEmail(new EmailSender.Email("user2@shongo.cz", "email2", "content"), entityManager);
+        emailOutbox.addEmail(new EmailSender.Email("user3@shongo.cz", "email3", "content"), entityManager);
+        entityManager.getTransaction().commit();
+        entityManager.close();
+
+        // SMTP server isn't available and thus only the first email should be tried and postponed
+        DateTime dateTime = DateTime.now();
+        Assert.assertEquals(0, emailOutbox.deliver(dateTime));
+        Assert.assertEquals(0, sentSubjects.size());
+
+        // The first email should wait for the retry delay
+        available[0] = true;
+        Assert.assertEquals(2, emailOutbox.deliver(dateTime));
+        Assert.assertEquals(2, sentSubjects.size());
+        Assert.assertEquals(0, emailOutbox.deliver(dateTime.plusSeconds(30)));
+        Assert.assertEquals(1, emailOutbox.deliver(dateTime.plus(
+                configuration.getDuration(ControllerConfiguration.NOTIFICATION_DELIVERY_RETRY_DELAY))));
+        Assert.assertEquals(3, sentSubjects.size());
+        Assert.assertTrue(sentSubjects.contains("email1"));
+        Assert.assertEquals(0, emailOutbox.deliver(dateTime.plusDays(1)));
+    }
+}
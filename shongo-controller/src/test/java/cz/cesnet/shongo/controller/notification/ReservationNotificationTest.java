@@ -11,12 +11,15 @@ import cz.cesnet.shongo.controller.api.*;
 import cz.cesnet.shongo.controller.api.rpc.ExecutableService;
 import cz.cesnet.shongo.controller.api.rpc.ReservationService;
 import cz.cesnet.shongo.controller.booking.ObjectIdentifier;
+import cz.cesnet.shongo.util.Timer;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.joda.time.Interval;
 import org.joda.time.Period;
 import org.junit.Assert;
 import org.junit.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.*;
 
@@ -27,6 +30,8 @@ import java.util.*;
  */
 public class ReservationNotificationTest extends AbstractExecutorTest
 {
+    private static Logger logger = LoggerFactory.getLogger(ReservationNotificationTest.class);
+
     /**
      * @see TestingNotificationExecutor
      */
@@ -625,6 +630,59 @@ public class ReservationNotificationTest extends AbstractExecutorTest
             }}, getNotificationTypes());
     }
 
+    /**
+     * Benchmark of rendering participant notifications for room with many participants.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testRoomParticipationRenderingBenchmark() throws Exception
+    {
+        final int participantCount = 60;
+
+        DeviceResource mcu = new DeviceResource();
+        mcu.setName("mcu");
+        mcu.addTechnology(Technology.H323);
+        mcu.addCapability(new RoomProviderCapability(100, new AliasType[]{AliasType.ROOM_NAME}));
+        mcu.addCapability(new AliasProviderCapability("{hash}", AliasType.ROOM_NAME));
+        mcu.setAllocatable(true);
+        getResourceService().createResource(SECURITY_TOKEN_ROOT, mcu);
+
+        ReservationRequest reservationRequest = new ReservationRequest();
+        reservationRequest.setDescription("Room Reservation Request");
+        reservationRequest.setSlot("2014-02-11T14:00", "PT3H");
+        reservationRequest.setPurpose(ReservationRequestPurpose.SCIENCE);
+        RoomSpecification roomSpecification = new RoomSpecification(Technology.H323);
+        RoomAvailability roomAvailability = roomSpecification.createAvailability();
+        roomAvailability.setMeetingName("Benchmark meeting");
+        roomAvailability.setParticipantCount(participantCount);
+        roomAvailability.setParticipantNotificationEnabled(true);
+        for (int index = 0; index < participantCount; index++) {
+            roomSpecification.addParticipant(new PersonParticipant(
+                    "Participant " + index, "participant" + index + "@cesnet.cz", ParticipantRole.PARTICIPANT));
+        }
+        reservationRequest.setSpecification(roomSpecification);
+        String reservationRequestId = allocate(reservationRequest);
+        Reservation roomReservation = checkAllocated(reservationRequestId);
+        AbstractRoomExecutable room = (AbstractRoomExecutable) roomReservation.getExecutable();
+        clearNotificationRecords();
+
+        // Modify role of all participants and thus each participant receives the same notification
+        RoomExecutableParticipantConfiguration roomParticipants = room.getParticipantConfiguration();
+        for (AbstractParticipant participant : roomParticipants.getParticipants()) {
+            ((PersonParticipant) participant).setRole(ParticipantRole.PRESENTER);
+        }
+        getExecutableService().modifyExecutableConfiguration(SECURITY_TOKEN, room.getId(), roomParticipants);
+        Timer timer = new Timer();
+        executeNotifications();
+        long duration = timer.stop();
+
+        int notificationCount = getNotificationRecords(RoomGroupNotification.class).size();
+        Assert.assertEquals(participantCount, notificationCount);
+        logger.info("Notification burst of {} room participation notifications rendered in {} ms ({} ms each).",
+                new Object[]{notificationCount, duration, (double) duration / notificationCount});
+    }
+
     /**
      * Test participant notifications for permanent room with capacities.
      *
@@ -0,0 +1,109 @@
+package cz.cesnet.shongo.controller.scheduler;
+
+import cz.cesnet.shongo.controller.AbstractSchedulerTest;
+import cz.cesnet.shongo.controller.DummyAuthorization;
+import cz.cesnet.shongo.controller.ReservationRequestPurpose;
+import cz.cesnet.shongo.controller.api.ResourceSpecification;
+import cz.cesnet.shongo.controller.booking.ObjectIdentifier;
+import cz.cesnet.shongo.controller.booking.resource.Resource;
+import cz.cesnet.shongo.controller.booking.resource.ResourceReservation;
+import org.joda.time.DateTime;
+import org.joda.time.Interval;
+import org.joda.time.Period;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tests for {@link AvailabilityCheck}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class AvailabilityCheckTest extends AbstractSchedulerTest
+{
+    private static final int OCCURRENCE_COUNT = 100;
+
+    @Test
+    public void testSlotIndependentFailure() throws Exception
+    {
+        Resource resource = new Resource();
+        resource.setAllocatable(false);
+        createResource(resource);
+
+        List<Interval> slots = createSlots();
+        AvailabilityCheck availabilityCheck = createAvailabilityCheck(resource);
+        Map<Interval, SchedulerReport> reports = availabilityCheck.check(slots, false);
+
+        // All occurrences are not available but only the first one is checked by a reservation task
+        Assert.assertEquals(OCCURRENCE_COUNT, reports.size());
+        for (Interval slot : slots) {
+            Assert.assertNotNull(reports.get(slot));
+        }
+        Assert.assertEquals(1, availabilityCheck.getCheckedOccurrenceCount());
+    }
+
+    @Test
+    public void testSlotDependentFailure() throws Exception
+    {
+        Resource resource = new Resource();
+        resource.setAllocatable(true);
+        createResource(resource);
+
+        List<Interval> slots = createSlots();
+        Interval allocatedSlot = slots.get(OCCURRENCE_COUNT / 2);
+        ResourceReservation resourceReservation = new ResourceReservation();
+        resourceReservation.setResource(resource);
+        resourceReservation.setSlot(allocatedSlot);
+        createReservation(resourceReservation);
+
+        // Only the occurrence with allocated resource isn't available and thus all occurrences must be checked
+        AvailabilityCheck availabilityCheck = createAvailabilityCheck(resource);
+        Map<Interval, SchedulerReport> reports = availabilityCheck.check(slots, false);
+        Assert.assertEquals(OCCURRENCE_COUNT, reports.size());
+        for (Interval slot : slots) {
+            if (slot.equals(allocatedSlot)) {
+                Assert.assertNotNull(reports.get(slot));
+            }
+            else {
+                Assert.assertNull(reports.get(slot));
+            }
+        }
+        Assert.assertEquals(OCCURRENCE_COUNT, availabilityCheck.getCheckedOccurrenceCount());
+
+        // Checking stops on the first not available occurrence
+        reports = availabilityCheck.check(slots, true);
+        Assert.assertEquals(OCCURRENCE_COUNT / 2 + 1, reports.size());
+        Assert.assertNotNull(reports.get(allocatedSlot));
+        Assert.assertEquals(OCCURRENCE_COUNT / 2 + 1, availabilityCheck.getCheckedOccurrenceCount());
+    }
+
+    /**
+     * @return weekly occurrences starting tomorrow
+     */
+    private List<Interval> createSlots()
+    {
+        DateTime start = DateTime.now().withTimeAtStartOfDay().plusDays(1);
+        List<Interval> slots = new ArrayList<Interval>();
+        for (int index = 0; index < OCCURRENCE_COUNT; index++) {
+            slots.add(new Interval(start.plusWeeks(index), Period.hours(1)));
+        }
+        return slots;
+    }
+
+    /**
+     * @param resource to be checked
+     * @return new {@link AvailabilityCheck} for given {@code resource}
+     */
+    private AvailabilityCheck createAvailabilityCheck(Resource resource)
+    {
+        AvailabilityCheck availabilityCheck = new AvailabilityCheck(getCache(), getEntityManager(),
+                new DummyAuthorization(getEntityManagerFactory()));
+        availabilityCheck.setUserId("0");
+        availabilityCheck.setPurpose(ReservationRequestPurpose.SCIENCE);
+        availabilityCheck.setSpecification(new ResourceSpecification(ObjectIdentifier.formatId(resource)));
+        return availabilityCheck;
+    }
+}
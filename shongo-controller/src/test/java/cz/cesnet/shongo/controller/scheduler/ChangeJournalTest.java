@@ -0,0 +1,53 @@
+package cz.cesnet.shongo.controller.scheduler;
+
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests for {@link ChangeJournal}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class ChangeJournalTest
+{
+    @Test
+    public void testReconciliation() throws Exception
+    {
+        DateTime dateTime = DateTime.parse("2012-01-01T12:00");
+        ChangeJournal changeJournal = new ChangeJournal();
+        changeJournal.setReconciliationPeriod(Duration.standardMinutes(10));
+
+        // First run is always full
+        ChangeJournal.Changes changes = changeJournal.pop(dateTime);
+        Assert.assertTrue(changes.isReconciliation());
+        Assert.assertTrue(changes.hasDeletions());
+        Assert.assertTrue(changes.hasExecutables());
+
+        // Idle run
+        changes = changeJournal.pop(dateTime.plusMinutes(1));
+        Assert.assertTrue(changes.isEmpty());
+        Assert.assertFalse(changes.hasDeletions());
+        Assert.assertFalse(changes.hasExecutables());
+
+        // Recorded changes
+        changeJournal.markExecutables();
+        changes = changeJournal.pop(dateTime.plusMinutes(2));
+        Assert.assertFalse(changes.isReconciliation());
+        Assert.assertFalse(changes.hasDeletions());
+        Assert.assertTrue(changes.hasExecutables());
+        changeJournal.markDeletions();
+        changes = changeJournal.pop(dateTime.plusMinutes(3));
+        Assert.assertTrue(changes.hasDeletions());
+        Assert.assertTrue(changes.hasExecutables());
+
+        // Failed run
+        changes.fail();
+        Assert.assertTrue(changeJournal.pop(dateTime.plusMinutes(4)).isReconciliation());
+        Assert.assertTrue(changeJournal.pop(dateTime.plusMinutes(5)).isEmpty());
+
+        // Periodic reconciliation
+        Assert.assertTrue(changeJournal.pop(dateTime.plusMinutes(14)).isReconciliation());
+    }
+}
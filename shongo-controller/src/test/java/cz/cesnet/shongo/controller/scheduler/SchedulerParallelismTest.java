@@ -0,0 +1,114 @@
+package cz.cesnet.shongo.controller.scheduler;
+
+import cz.cesnet.shongo.Technology;
+import cz.cesnet.shongo.controller.AbstractControllerTest;
+import cz.cesnet.shongo.controller.ReservationRequestPurpose;
+import cz.cesnet.shongo.controller.api.*;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests for allocation of independent reservation requests by multiple workers of the {@link Scheduler}.
+ *
+ * @author Martin Srom <martin.srom@cesnet.cz>
+ */
+public class SchedulerParallelismTest extends AbstractControllerTest
+{
+    /**
+     * Allocate the same set of conflicting reservation requests serially and in parallel (each set for own
+     * resources) and check that the results are the same.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testParallelAllocationMatchesSerial() throws Exception
+    {
+        Assert.assertFalse(getScheduler().isParallel());
+        List<String> serialResults = allocateConflictingRequests("serial", Technology.H323);
+
+        setSchedulerParallelism(4);
+        Assert.assertTrue(getScheduler().isParallel());
+        List<String> parallelResults = allocateConflictingRequests("parallel", Technology.SIP);
+
+        Assert.assertEquals(serialResults, parallelResults);
+        Assert.assertTrue(serialResults.contains("failed"));
+    }
+
+    /**
+     * Create resources and conflicting reservation requests for them (rooms which doesn't fit all into
+     * available room providers and multiple requests for the same resources) and allocate them.
+     *
+     * @param prefix     for names of created resources
+     * @param technology of created room providers
+     * @return list of names of allocated resources (without the {@code prefix}) or "failed"
+     *         for each created reservation request
+     * @throws Exception
+     */
+    private List<String> allocateConflictingRequests(String prefix, Technology technology) throws Exception
+    {
+        DeviceResource mcu1 = new DeviceResource();
+        mcu1.setName(prefix + "-mcu1");
+        mcu1.addTechnology(technology);
+        mcu1.addCapability(new RoomProviderCapability(10));
+        mcu1.setAllocatable(true);
+        createResource(mcu1);
+
+        DeviceResource mcu2 = new DeviceResource();
+        mcu2.setName(prefix + "-mcu2");
+        mcu2.addTechnology(technology);
+        mcu2.addCapability(new RoomProviderCapability(6));
+        mcu2.setAllocatable(true);
+        createResource(mcu2);
+
+        List<String> resourceIds = new ArrayList<String>();
+        for (int index = 1; index <= 3; index++) {
+            Resource resource = new Resource();
+            resource.setName(prefix + "-resource" + index);
+            resource.setAllocatable(true);
+            resourceIds.add(createResource(resource));
+        }
+
+        List<Specification> specifications = new ArrayList<Specification>();
+        specifications.add(new RoomSpecification(6, technology));
+        specifications.add(new ResourceSpecification(resourceIds.get(0)));
+        specifications.add(new RoomSpecification(5, technology));
+        specifications.add(new ResourceSpecification(resourceIds.get(1)));
+        specifications.add(new ResourceSpecification(resourceIds.get(0)));
+        specifications.add(new RoomSpecification(4, technology));
+        specifications.add(new ResourceSpecification(resourceIds.get(2)));
+        specifications.add(new ResourceSpecification(resourceIds.get(1)));
+        specifications.add(new RoomSpecification(3, technology));
+        specifications.add(new ResourceSpecification(resourceIds.get(0)));
+
+        List<String> reservationRequestIds = new ArrayList<String>();
+        for (Specification specification : specifications) {
+            ReservationRequest reservationRequest = new ReservationRequest();
+            reservationRequest.setSlot("2012-01-01T12:00", "PT1H");
+            reservationRequest.setPurpose(ReservationRequestPurpose.SCIENCE);
+            reservationRequest.setSpecification(specification);
+            reservationRequestIds.add(getReservationService().createReservationRequest(
+                    SECURITY_TOKEN, reservationRequest));
+        }
+        runPreprocessorAndScheduler();
+
+        List<String> results = new ArrayList<String>();
+        for (String reservationRequestId : reservationRequestIds) {
+            ReservationRequest reservationRequest = getReservationRequest(reservationRequestId,
+                    ReservationRequest.class);
+            if (AllocationState.ALLOCATED.equals(reservationRequest.getAllocationState())) {
+                Reservation reservation = getReservationService().getReservation(
+                        SECURITY_TOKEN_ROOT, reservationRequest.getLastReservationId());
+                String resourceName = ((ResourceReservation) reservation).getResourceName();
+                results.add(resourceName.substring(prefix.length() + 1));
+            }
+            else {
+                Assert.assertEquals(AllocationState.ALLOCATION_FAILED, reservationRequest.getAllocationState());
+                results.add("failed");
+            }
+        }
+        return results;
+    }
+}